@@ -39,6 +39,7 @@ import voldemort.VoldemortException;
 import voldemort.annotations.jmx.JmxGetter;
 import voldemort.server.protocol.admin.AsyncOperationStatus;
 import voldemort.store.readonly.FileFetcher;
+import voldemort.store.readonly.ReadOnlyStorageFormat;
 import voldemort.store.readonly.checksum.CheckSum;
 import voldemort.store.readonly.checksum.CheckSum.CheckSumType;
 import voldemort.utils.ByteUtils;
@@ -149,14 +150,19 @@ public class HdfsFetcher implements FileFetcher {
                         continue;
                     }
                     if(!status.getPath().getName().startsWith(".")) {
+                        // The format file is not covered by the checksum, the
+                        // builder writes it once the checksums are computed
+                        boolean isChecked = !status.getPath()
+                                                   .getName()
+                                                   .equals(ReadOnlyStorageFormat.FORMAT_FILE);
                         File copyLocation = new File(dest, status.getPath().getName());
                         copyFileWithCheckSum(fs,
                                              status.getPath(),
                                              copyLocation,
                                              stats,
-                                             fileCheckSumGenerator);
+                                             isChecked ? fileCheckSumGenerator : null);
 
-                        if(fileCheckSumGenerator != null && checkSumGenerator != null) {
+                        if(isChecked && fileCheckSumGenerator != null && checkSumGenerator != null) {
                             checkSumGenerator.update(fileCheckSumGenerator.getCheckSum());
                         }
                     }
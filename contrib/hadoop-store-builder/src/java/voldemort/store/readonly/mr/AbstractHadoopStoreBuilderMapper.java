@@ -87,9 +87,18 @@ public abstract class AbstractHadoopStoreBuilderMapper<K, V> extends
             valBytes = valueCompressor.deflate(valBytes);
         }
 
-        // copy the bytes into an array with 4 additional bytes for the node id
-        byte[] nodeIdAndValue = new byte[valBytes.length + 4];
-        System.arraycopy(valBytes, 0, nodeIdAndValue, 4, valBytes.length);
+        // copy the bytes into an array with 4 additional bytes for the node id,
+        // formats storing keys also need the key size and key before the value
+        byte[] nodeIdAndValue;
+        if(getFormat().storesKeys()) {
+            nodeIdAndValue = new byte[valBytes.length + keyBytes.length + 8];
+            ByteUtils.writeInt(nodeIdAndValue, keyBytes.length, 4);
+            System.arraycopy(keyBytes, 0, nodeIdAndValue, 8, keyBytes.length);
+            System.arraycopy(valBytes, 0, nodeIdAndValue, 8 + keyBytes.length, valBytes.length);
+        } else {
+            nodeIdAndValue = new byte[valBytes.length + 4];
+            System.arraycopy(valBytes, 0, nodeIdAndValue, 4, valBytes.length);
+        }
 
         BytesWritable outputKey = new BytesWritable(md5er.digest(keyBytes));
         List<Node> nodes = routingStrategy.routeRequest(keyBytes);
@@ -25,6 +25,7 @@ import org.apache.hadoop.mapred.JobConf;
 import voldemort.VoldemortException;
 import voldemort.cluster.Cluster;
 import voldemort.store.StoreDefinition;
+import voldemort.store.readonly.ReadOnlyStorageFormat;
 import voldemort.xml.ClusterMapper;
 import voldemort.xml.StoreDefinitionsMapper;
 
@@ -40,6 +41,7 @@ public class AbstractStoreBuilderConfigurable {
     private int numChunks;
     private Cluster cluster;
     private StoreDefinition storeDef;
+    private ReadOnlyStorageFormat format;
 
     public void configure(JobConf conf) {
         this.cluster = new ClusterMapper().readCluster(new StringReader(conf.get("cluster.xml")));
@@ -50,6 +52,8 @@ public class AbstractStoreBuilderConfigurable {
         this.numChunks = conf.getInt("num.chunks", -1);
         if(this.numChunks < 1)
             throw new VoldemortException("num.chunks not specified in the job conf.");
+        this.format = ReadOnlyStorageFormat.fromCode(conf.get("format",
+                                                              ReadOnlyStorageFormat.READONLY_V0.getCode()));
     }
 
     @SuppressWarnings("unused")
@@ -79,4 +83,9 @@ public class AbstractStoreBuilderConfigurable {
         return this.numChunks;
     }
 
+    public ReadOnlyStorageFormat getFormat() {
+        checkNotNull(format);
+        return this.format;
+    }
+
 }
@@ -41,6 +41,7 @@ import voldemort.VoldemortException;
 import voldemort.cluster.Cluster;
 import voldemort.cluster.Node;
 import voldemort.store.StoreDefinition;
+import voldemort.store.readonly.ReadOnlyStorageFormat;
 import voldemort.store.readonly.checksum.CheckSum;
 import voldemort.store.readonly.checksum.CheckSum.CheckSumType;
 import voldemort.utils.Utils;
@@ -70,7 +71,8 @@ public class HadoopStoreBuilder {
     private final Path inputPath;
     private final Path outputDir;
     private final Path tempDir;
-    private CheckSumType checkSumType = CheckSumType.NONE;
+    private final CheckSumType checkSumType;
+    private final ReadOnlyStorageFormat format;
 
     /**
      * Kept for backwards compatibility. We do not use replicationFactor any
@@ -135,19 +137,17 @@ public class HadoopStoreBuilder {
                               Path tempDir,
                               Path outputDir,
                               Path inputPath) {
-        super();
-        this.config = conf;
-        this.mapperClass = Utils.notNull(mapperClass);
-        this.inputFormatClass = Utils.notNull(inputFormatClass);
-        this.inputPath = inputPath;
-        this.cluster = Utils.notNull(cluster);
-        this.storeDef = Utils.notNull(storeDef);
-        this.chunkSizeBytes = chunkSizeBytes;
-        this.tempDir = tempDir;
-        this.outputDir = Utils.notNull(outputDir);
-        if(chunkSizeBytes > MAX_CHUNK_SIZE || chunkSizeBytes < MIN_CHUNK_SIZE)
-            throw new VoldemortException("Invalid chunk size, chunk size must be in the range "
-                                         + MIN_CHUNK_SIZE + "..." + MAX_CHUNK_SIZE);
+        this(conf,
+             mapperClass,
+             inputFormatClass,
+             cluster,
+             storeDef,
+             chunkSizeBytes,
+             tempDir,
+             outputDir,
+             inputPath,
+             CheckSumType.NONE,
+             ReadOnlyStorageFormat.READONLY_V0);
     }
 
     /**
@@ -184,9 +184,58 @@ public class HadoopStoreBuilder {
              chunkSizeBytes,
              tempDir,
              outputDir,
-             inputPath);
-        this.checkSumType = checkSumType;
+             inputPath,
+             checkSumType,
+             ReadOnlyStorageFormat.READONLY_V0);
+    }
 
+    /**
+     * Create the store builder
+     * 
+     * @param conf A base configuration to start with
+     * @param mapperClass The class to use as the mapper
+     * @param inputFormatClass The input format to use for reading values
+     * @param cluster The voldemort cluster for which the stores are being built
+     * @param storeDef The store definition of the store
+     * @param chunkSizeBytes The size of the chunks used by the read-only store
+     * @param tempDir The temporary directory to use in hadoop for intermediate
+     *        reducer output
+     * @param outputDir The directory in which to place the built stores
+     * @param inputPath The path from which to read input data
+     * @param checkSumType The checksum algorithm to use
+     * @param format The read-only storage format to build, chunks of the ro1
+     *        format are not limited to {@link #MAX_CHUNK_SIZE}
+     */
+    @SuppressWarnings("unchecked")
+    public HadoopStoreBuilder(Configuration conf,
+                              Class<? extends AbstractHadoopStoreBuilderMapper<?, ?>> mapperClass,
+                              Class<? extends InputFormat> inputFormatClass,
+                              Cluster cluster,
+                              StoreDefinition storeDef,
+                              long chunkSizeBytes,
+                              Path tempDir,
+                              Path outputDir,
+                              Path inputPath,
+                              CheckSumType checkSumType,
+                              ReadOnlyStorageFormat format) {
+        super();
+        this.config = conf;
+        this.mapperClass = Utils.notNull(mapperClass);
+        this.inputFormatClass = Utils.notNull(inputFormatClass);
+        this.inputPath = inputPath;
+        this.cluster = Utils.notNull(cluster);
+        this.storeDef = Utils.notNull(storeDef);
+        this.chunkSizeBytes = chunkSizeBytes;
+        this.tempDir = tempDir;
+        this.outputDir = Utils.notNull(outputDir);
+        this.checkSumType = checkSumType;
+        this.format = Utils.notNull(format);
+        long maxChunkSize = format == ReadOnlyStorageFormat.READONLY_V0 ? MAX_CHUNK_SIZE
+                                                                        : Long.MAX_VALUE;
+        if(chunkSizeBytes > maxChunkSize || chunkSizeBytes < MIN_CHUNK_SIZE)
+            throw new VoldemortException("Invalid chunk size, chunk size must be in the range "
+                                         + MIN_CHUNK_SIZE + "..." + maxChunkSize + " for format "
+                                         + format.getCode());
     }
 
     /**
@@ -211,6 +260,7 @@ public class HadoopStoreBuilder {
         FileInputFormat.setInputPaths(conf, inputPath);
         conf.set("final.output.dir", outputDir.toString());
         conf.set("checksum.type", CheckSum.toString(checkSumType));
+        conf.set("format", format.getCode());
         FileOutputFormat.setOutputPath(conf, tempDir);
 
         try {
@@ -245,6 +295,12 @@ public class HadoopStoreBuilder {
                 if(!outputFs.exists(nodePath)) {
                     outputFs.mkdirs(nodePath); // Create empty folder
                 }
+                if(format != ReadOnlyStorageFormat.READONLY_V0) {
+                    FSDataOutputStream formatStream = outputFs.create(new Path(nodePath,
+                                                                               ReadOnlyStorageFormat.FORMAT_FILE));
+                    formatStream.write(format.getCode().getBytes());
+                    formatStream.close();
+                }
             }
 
             if(checkSumType != CheckSumType.NONE) {
@@ -18,8 +18,10 @@ package voldemort.store.readonly.mr;
 
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Iterator;
 
+import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
@@ -33,6 +35,8 @@ import org.apache.hadoop.mapred.Reporter;
 import org.apache.log4j.Logger;
 
 import voldemort.VoldemortException;
+import voldemort.store.readonly.EytzingerSearchStrategy;
+import voldemort.store.readonly.ReadOnlyStorageFormat;
 import voldemort.store.readonly.ReadOnlyUtils;
 import voldemort.store.readonly.checksum.CheckSum;
 import voldemort.store.readonly.checksum.CheckSum.CheckSumType;
@@ -51,7 +55,7 @@ public class HadoopStoreBuilderReducer extends AbstractStoreBuilderConfigurable
 
     private DataOutputStream indexFileStream = null;
     private DataOutputStream valueFileStream = null;
-    private int position = 0;
+    private long position = 0;
     private String taskId = null;
     private int numChunks = -1;
     private int nodeId = -1;
@@ -63,6 +67,7 @@ public class HadoopStoreBuilderReducer extends AbstractStoreBuilderConfigurable
     private CheckSumType checkSumType;
     private CheckSum checkSumDigestIndex;
     private CheckSum checkSumDigestValue;
+    private ReadOnlyStorageFormat format;
 
     /**
      * Reduce should get sorted MD5 keys here with a single value (appended in
@@ -82,24 +87,48 @@ public class HadoopStoreBuilderReducer extends AbstractStoreBuilderConfigurable
 
         // Write key and position
         this.indexFileStream.write(key.get(), 0, key.getSize());
-        this.indexFileStream.writeInt(this.position);
-        if(this.checkSumDigestIndex != null) {
+        this.format.writePosition(this.indexFileStream, this.position);
+        // unsorted indexes are check summed once they are laid out in close()
+        if(this.checkSumDigestIndex != null && this.format.isSortedIndex()) {
             this.checkSumDigestIndex.update(key.get(), 0, key.getSize());
-            this.checkSumDigestIndex.update(this.position);
+            if(this.format.getPositionSize() == 4) {
+                this.checkSumDigestIndex.update((int) this.position);
+            } else {
+                byte[] positionBytes = new byte[8];
+                ByteUtils.writeLong(positionBytes, this.position, 0);
+                this.checkSumDigestIndex.update(positionBytes);
+            }
         }
 
-        // Write length and value
-        int valueLength = writable.getSize() - 4;
+        // Write length and value, formats storing keys get the key from the
+        // mapper between the node id and the value and write it after the value
+        int keyLength = 0;
+        int valueOffset = 4;
+        if(this.format.storesKeys()) {
+            keyLength = ByteUtils.readInt(valueBytes, 4);
+            valueOffset = 8 + keyLength;
+        }
+        int valueLength = writable.getSize() - valueOffset;
         this.valueFileStream.writeInt(valueLength);
-        this.valueFileStream.write(valueBytes, 4, valueLength);
+        this.valueFileStream.write(valueBytes, valueOffset, valueLength);
         if(this.checkSumDigestValue != null) {
             this.checkSumDigestValue.update(valueLength);
-            this.checkSumDigestValue.update(valueBytes, 4, valueLength);
+            this.checkSumDigestValue.update(valueBytes, valueOffset, valueLength);
         }
         this.position += 4 + valueLength;
-        if(this.position < 0)
+        if(this.format.storesKeys()) {
+            this.valueFileStream.writeInt(keyLength);
+            this.valueFileStream.write(valueBytes, 8, keyLength);
+            if(this.checkSumDigestValue != null) {
+                this.checkSumDigestValue.update(keyLength);
+                this.checkSumDigestValue.update(valueBytes, 8, keyLength);
+            }
+            this.position += 4 + keyLength;
+        }
+        if(this.position > this.format.getMaxDataFileSize())
             throw new VoldemortException("Chunk overflow exception: chunk " + chunkId
-                                         + " has exceeded " + Integer.MAX_VALUE + " bytes.");
+                                         + " has exceeded " + this.format.getMaxDataFileSize()
+                                         + " bytes.");
 
         // if we have multiple values for this md5 that is a collision, throw an
         // exception--either the data itself has duplicates, there are trillions
@@ -121,6 +150,7 @@ public class HadoopStoreBuilderReducer extends AbstractStoreBuilderConfigurable
             this.outputDir = job.get("final.output.dir");
             this.taskId = job.get("mapred.task.id");
             this.checkSumType = CheckSum.fromString(job.get("checksum.type"));
+            this.format = getFormat();
             this.checkSumDigestIndex = CheckSum.getInstance(checkSumType);
             this.checkSumDigestValue = CheckSum.getInstance(checkSumType);
 
@@ -148,6 +178,9 @@ public class HadoopStoreBuilderReducer extends AbstractStoreBuilderConfigurable
         this.indexFileStream.close();
         this.valueFileStream.close();
 
+        if(!this.format.isSortedIndex())
+            layoutIndex();
+
         if(this.nodeId == -1 || this.chunkId == -1) {
             // No data was read in the reduce phase, do not create any output
             // directory (Also Issue 258)
@@ -183,4 +216,35 @@ public class HadoopStoreBuilderReducer extends AbstractStoreBuilderConfigurable
         logger.info("Moving " + this.taskValueFileName + " to " + valueFile + ".");
         fs.rename(this.taskValueFileName, valueFile);
     }
+
+    /*
+     * Rewrite the sorted task index file in Eytzinger order. The whole index is
+     * held in memory twice, which is bounded by the index size of one chunk.
+     */
+    private void layoutIndex() throws IOException {
+        FileSystem fs = this.taskIndexFileName.getFileSystem(this.conf);
+        int length = (int) fs.getFileStatus(this.taskIndexFileName).getLen();
+        byte[] sorted = new byte[length];
+        FSDataInputStream input = fs.open(this.taskIndexFileName);
+        try {
+            input.readFully(sorted);
+        } finally {
+            input.close();
+        }
+
+        ByteBuffer layout = ByteBuffer.allocate(length);
+        EytzingerSearchStrategy.layout(ByteBuffer.wrap(sorted),
+                                       layout,
+                                       this.format.getIndexEntrySize());
+        if(this.checkSumDigestIndex != null)
+            this.checkSumDigestIndex.update(layout.array(), 0, length);
+
+        logger.info("Writing " + this.taskIndexFileName + " in Eytzinger order.");
+        FSDataOutputStream output = fs.create(this.taskIndexFileName, true);
+        try {
+            output.write(layout.array());
+        } finally {
+            output.close();
+        }
+    }
 }
@@ -46,7 +46,9 @@ import voldemort.store.StoreDefinitionBuilder;
 import voldemort.store.readonly.BinarySearchStrategy;
 import voldemort.store.readonly.ReadOnlyStorageConfiguration;
 import voldemort.store.readonly.ReadOnlyStorageEngine;
+import voldemort.store.readonly.ReadOnlyStorageFormat;
 import voldemort.store.readonly.checksum.CheckSumTests;
+import voldemort.store.readonly.fetcher.HdfsFetcher;
 import voldemort.store.readonly.checksum.CheckSum.CheckSumType;
 import voldemort.store.serialized.SerializingStore;
 import voldemort.utils.ByteUtils;
@@ -134,6 +136,64 @@ public class HadoopStoreBuilderTest extends TestCase {
         }
     }
 
+    /**
+     * The format file written into the node directories must not fail the
+     * checksum of the fetched directory.
+     */
+    public void testHadoopBuildAndFetchWithCheckSum() throws Exception {
+        Map<String, String> values = new HashMap<String, String>();
+        File testDir = TestUtils.createTempDir();
+        for(int i = 0; i < 200; i++)
+            values.put(Integer.toString(i), Integer.toBinaryString(i));
+
+        File inputFile = File.createTempFile("input", ".txt", testDir);
+        inputFile.deleteOnExit();
+        StringBuilder contents = new StringBuilder();
+        for(Map.Entry<String, String> entry: values.entrySet())
+            contents.append(entry.getKey() + "\t" + entry.getValue() + "\n");
+        FileUtils.writeStringToFile(inputFile, contents.toString());
+
+        SerializerDefinition serDef = new SerializerDefinition("string");
+        Cluster cluster = ServerTestUtils.getLocalCluster(1);
+        StoreDefinition def = new StoreDefinitionBuilder().setName("test")
+                                                          .setType(ReadOnlyStorageConfiguration.TYPE_NAME)
+                                                          .setKeySerializer(serDef)
+                                                          .setValueSerializer(serDef)
+                                                          .setRoutingPolicy(RoutingTier.CLIENT)
+                                                          .setRoutingStrategyType(RoutingStrategyType.CONSISTENT_STRATEGY)
+                                                          .setReplicationFactor(1)
+                                                          .setPreferredReads(1)
+                                                          .setRequiredReads(1)
+                                                          .setPreferredWrites(1)
+                                                          .setRequiredWrites(1)
+                                                          .build();
+
+        for(ReadOnlyStorageFormat format: new ReadOnlyStorageFormat[] {
+                ReadOnlyStorageFormat.READONLY_V1, ReadOnlyStorageFormat.READONLY_V2,
+                ReadOnlyStorageFormat.READONLY_V3 }) {
+            File tempDir = new File(testDir, "temp-" + format.getCode());
+            File outputDir = new File(testDir, "output-" + format.getCode());
+            HadoopStoreBuilder builder = new HadoopStoreBuilder(new Configuration(),
+                                                                TextStoreMapper.class,
+                                                                TextInputFormat.class,
+                                                                cluster,
+                                                                def,
+                                                                64 * 1024,
+                                                                new Path(tempDir.getAbsolutePath()),
+                                                                new Path(outputDir.getAbsolutePath()),
+                                                                new Path(inputFile.getAbsolutePath()),
+                                                                CheckSumType.MD5,
+                                                                format);
+            builder.build();
+
+            File nodeDir = new File(outputDir, "node-0");
+            File fetched = new HdfsFetcher().fetch(nodeDir.getAbsolutePath(),
+                                                   new File(testDir, "fetched-" + format.getCode()).getAbsolutePath());
+            assertNotNull("Checksum of the " + format.getCode() + " build failed", fetched);
+            assertEquals(format, ReadOnlyStorageFormat.readFormat(fetched));
+        }
+    }
+
     public void testHadoopBuild() throws Exception {
         // create test data
         Map<String, String> values = new HashMap<String, String>();
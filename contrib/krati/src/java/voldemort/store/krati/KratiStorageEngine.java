@@ -11,6 +11,7 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import krati.cds.array.DataArray;
 import krati.cds.impl.segment.SegmentFactory;
@@ -188,6 +189,11 @@ public class KratiStorageEngine implements StorageEngine<ByteArray, byte[]> {
         }
     }
 
+    public Set<ByteArray> putAll(Map<ByteArray, Versioned<byte[]>> entries)
+            throws VoldemortException {
+        return StoreUtils.putAll(this, entries);
+    }
+
     public void put(ByteArray key, Versioned<byte[]> value) throws VoldemortException {
         StoreUtils.assertValidKey(key);
 
@@ -23,6 +23,8 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -38,6 +40,7 @@ import voldemort.serialization.SerializerFactory;
 import voldemort.serialization.StringSerializer;
 import voldemort.store.Store;
 import voldemort.store.StoreDefinition;
+import voldemort.store.cache.NearCacheStore;
 import voldemort.store.compress.CompressingStore;
 import voldemort.store.compress.CompressionStrategy;
 import voldemort.store.compress.CompressionStrategyFactory;
@@ -51,6 +54,7 @@ import voldemort.store.stats.StoreStats;
 import voldemort.store.stats.StoreStatsJmx;
 import voldemort.store.versioned.InconsistencyResolvingStore;
 import voldemort.utils.ByteArray;
+import voldemort.utils.DaemonThreadFactory;
 import voldemort.utils.JmxUtils;
 import voldemort.versioning.ChainedResolver;
 import voldemort.versioning.InconsistencyResolver;
@@ -80,6 +84,7 @@ public abstract class AbstractStoreClientFactory implements StoreClientFactory {
 
     private final URI[] bootstrapUrls;
     private final ExecutorService threadPool;
+    private final ScheduledExecutorService scheduler;
     private final SerializerFactory serializerFactory;
     private final boolean isJmxEnabled;
     private final RequestFormatType requestFormatType;
@@ -96,6 +101,7 @@ public abstract class AbstractStoreClientFactory implements StoreClientFactory {
         this.threadPool = new ClientThreadPool(config.getMaxThreads(),
                                                config.getThreadIdleTime(TimeUnit.MILLISECONDS),
                                                config.getMaxQueuedRequests());
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("voldemort-client-scheduler-"));
         this.serializerFactory = config.getSerializerFactory();
         this.bootstrapUrls = validateUrls(config.getBootstrapUrls());
         this.isJmxEnabled = config.isJmxEnabled();
@@ -106,7 +112,10 @@ public abstract class AbstractStoreClientFactory implements StoreClientFactory {
         this.clientZoneId = config.getClientZoneId();
         this.routedStoreFactory = new RoutedStoreFactory(config.isPipelineRoutedStoreEnabled(),
                                                          threadPool,
-                                                         config.getRoutingTimeout(TimeUnit.MILLISECONDS));
+                                                         scheduler,
+                                                         config.getRoutingTimeout(TimeUnit.MILLISECONDS),
+                                                         config.getHedgedReadsPercentile(),
+                                                         config.isReadCompleteOnRequired());
 
         if(this.isJmxEnabled) {
             JmxUtils.registerMbean(threadPool,
@@ -129,12 +138,98 @@ public abstract class AbstractStoreClientFactory implements StoreClientFactory {
         return new DefaultStoreClient<K, V>(storeName, resolver, this, 3);
     }
 
+    /**
+     * Get a client for the given store that makes requests without waiting
+     * for them. The client does not retry requests after the metadata of the
+     * cluster changes, and its requests are not counted in the client's JMX
+     * statistics.
+     * 
+     * @param storeName The name of the store
+     * @return The client
+     */
+    public <K, V> AsyncStoreClient<K, V> getAsyncStoreClient(String storeName) {
+        return getAsyncStoreClient(storeName, null);
+    }
+
+    /**
+     * Get a client for the given store that makes requests without waiting
+     * for them.
+     * 
+     * @param storeName The name of the store
+     * @param resolver The inconsistency resolver, or null to resolve by time
+     * @return The client
+     * @see #getAsyncStoreClient(String)
+     */
+    @SuppressWarnings("unchecked")
+    public <K, V> AsyncStoreClient<K, V> getAsyncStoreClient(String storeName,
+                                                             InconsistencyResolver<Versioned<V>> resolver) {
+        // Get cluster and store metadata
+        String clusterXml = bootstrapMetadataWithRetries(MetadataStore.CLUSTER_KEY, bootstrapUrls);
+        Cluster cluster = clusterMapper.readCluster(new StringReader(clusterXml), false);
+        StoreDefinition storeDef = getStoreDefinition(storeName);
+        Store<ByteArray, byte[]> store = getRoutedStore(cluster, storeDef);
+
+        Serializer<K> keySerializer = (Serializer<K>) serializerFactory.getSerializer(storeDef.getKeySerializer());
+        Serializer<V> valueSerializer = (Serializer<V>) serializerFactory.getSerializer(storeDef.getValueSerializer());
+
+        return new DefaultAsyncStoreClient<K, V>(storeName,
+                                                 routedStoreFactory.toNonblockingStore(store),
+                                                 keySerializer,
+                                                 valueSerializer,
+                                                 getCompressionStrategy(storeDef.getKeySerializer()),
+                                                 getCompressionStrategy(storeDef.getValueSerializer()),
+                                                 getResolver(resolver));
+    }
+
     @SuppressWarnings("unchecked")
     public <K, V> Store<K, V> getRawStore(String storeName,
                                           InconsistencyResolver<Versioned<V>> resolver) {
         // Get cluster and store metadata
         String clusterXml = bootstrapMetadataWithRetries(MetadataStore.CLUSTER_KEY, bootstrapUrls);
         Cluster cluster = clusterMapper.readCluster(new StringReader(clusterXml), false);
+        StoreDefinition storeDef = getStoreDefinition(storeName);
+        Store<ByteArray, byte[]> store = getRoutedStore(cluster, storeDef);
+
+        if(isJmxEnabled) {
+            StatTrackingStore statStore = new StatTrackingStore(store, this.stats);
+            store = statStore;
+            JmxUtils.registerMbean(new StoreStatsJmx(statStore.getStats()),
+                                   JmxUtils.createObjectName(JmxUtils.getPackageName(store.getClass()),
+                                                             store.getName() + jmxId()));
+        }
+
+        long nearCacheTtlMs = config.getNearCacheTtl(storeName, TimeUnit.MILLISECONDS);
+        if(config.getNearCacheSize() > 0 && nearCacheTtlMs > 0) {
+            NearCacheStore nearCacheStore = new NearCacheStore(store,
+                                                               config.getNearCacheSize(),
+                                                               nearCacheTtlMs);
+            store = nearCacheStore;
+
+            if(isJmxEnabled)
+                JmxUtils.registerMbean(nearCacheStore,
+                                       JmxUtils.createObjectName(JmxUtils.getPackageName(NearCacheStore.class),
+                                                                 storeName + jmxId()));
+        }
+
+        if(storeDef.getKeySerializer().hasCompression()
+           || storeDef.getValueSerializer().hasCompression()) {
+            store = new CompressingStore(store,
+                                         getCompressionStrategy(storeDef.getKeySerializer()),
+                                         getCompressionStrategy(storeDef.getValueSerializer()));
+        }
+
+        Serializer<K> keySerializer = (Serializer<K>) serializerFactory.getSerializer(storeDef.getKeySerializer());
+        Serializer<V> valueSerializer = (Serializer<V>) serializerFactory.getSerializer(storeDef.getValueSerializer());
+        Store<K, V> serializedStore = SerializingStore.wrap(store, keySerializer, valueSerializer);
+
+        // Add inconsistency resolving decorator, using their inconsistency
+        // resolver (if they gave us one)
+        serializedStore = new InconsistencyResolvingStore<K, V>(serializedStore,
+                                                                getResolver(resolver));
+        return serializedStore;
+    }
+
+    private StoreDefinition getStoreDefinition(String storeName) {
         String storesXml = bootstrapMetadataWithRetries(MetadataStore.STORES_KEY, bootstrapUrls);
         List<StoreDefinition> storeDefs = storeMapper.readStoreList(new StringReader(storesXml),
                                                                     false);
@@ -145,6 +240,10 @@ public abstract class AbstractStoreClientFactory implements StoreClientFactory {
         if(storeDef == null)
             throw new BootstrapFailureException("Unknown store '" + storeName + "'.");
 
+        return storeDef;
+    }
+
+    private Store<ByteArray, byte[]> getRoutedStore(Cluster cluster, StoreDefinition storeDef) {
         boolean repairReads = !storeDef.isView();
 
         // construct mapping
@@ -156,48 +255,28 @@ public abstract class AbstractStoreClientFactory implements StoreClientFactory {
                                                       node.getHost(),
                                                       getPort(node),
                                                       this.requestFormatType);
-            Store<ByteArray, byte[]> loggingStore = new LoggingStore(store);
+            Store<ByteArray, byte[]> loggingStore = new LoggingStore<ByteArray, byte[]>(store);
             clientMapping.put(node.getId(), loggingStore);
 
             NonblockingStore nonblockingStore = routedStoreFactory.toNonblockingStore(store);
             nonblockingStores.put(node.getId(), nonblockingStore);
         }
 
-        Store<ByteArray, byte[]> store = routedStoreFactory.create(cluster,
-                                                                   storeDef,
-                                                                   clientMapping,
-                                                                   nonblockingStores,
-                                                                   repairReads,
-                                                                   clientZoneId,
-                                                                   getFailureDetector());
-
-        if(isJmxEnabled) {
-            StatTrackingStore statStore = new StatTrackingStore(store, this.stats);
-            store = statStore;
-            JmxUtils.registerMbean(new StoreStatsJmx(statStore.getStats()),
-                                   JmxUtils.createObjectName(JmxUtils.getPackageName(store.getClass()),
-                                                             store.getName() + jmxId()));
-        }
-
-        if(storeDef.getKeySerializer().hasCompression()
-           || storeDef.getValueSerializer().hasCompression()) {
-            store = new CompressingStore(store,
-                                         getCompressionStrategy(storeDef.getKeySerializer()),
-                                         getCompressionStrategy(storeDef.getValueSerializer()));
-        }
-
-        Serializer<K> keySerializer = (Serializer<K>) serializerFactory.getSerializer(storeDef.getKeySerializer());
-        Serializer<V> valueSerializer = (Serializer<V>) serializerFactory.getSerializer(storeDef.getValueSerializer());
-        Store<K, V> serializedStore = SerializingStore.wrap(store, keySerializer, valueSerializer);
+        return routedStoreFactory.create(cluster,
+                                         storeDef,
+                                         clientMapping,
+                                         nonblockingStores,
+                                         repairReads,
+                                         clientZoneId,
+                                         getFailureDetector());
+    }
 
-        // Add inconsistency resolving decorator, using their inconsistency
-        // resolver (if they gave us one)
-        InconsistencyResolver<Versioned<V>> secondaryResolver = resolver == null ? new TimeBasedInconsistencyResolver()
+    @SuppressWarnings("unchecked")
+    private <V> InconsistencyResolver<Versioned<V>> getResolver(InconsistencyResolver<Versioned<V>> resolver) {
+        InconsistencyResolver<Versioned<V>> secondaryResolver = resolver == null ? new TimeBasedInconsistencyResolver<V>()
                                                                                 : resolver;
-        serializedStore = new InconsistencyResolvingStore<K, V>(serializedStore,
-                                                                new ChainedResolver<Versioned<V>>(new VectorClockInconsistencyResolver(),
-                                                                                                  secondaryResolver));
-        return serializedStore;
+        return new ChainedResolver<Versioned<V>>(new VectorClockInconsistencyResolver<V>(),
+                                                 secondaryResolver);
     }
 
     protected abstract FailureDetector initFailureDetector(final ClientConfig config,
@@ -314,6 +393,7 @@ public abstract class AbstractStoreClientFactory implements StoreClientFactory {
     }
 
     public void close() {
+        this.scheduler.shutdownNow();
         this.threadPool.shutdown();
 
         try {
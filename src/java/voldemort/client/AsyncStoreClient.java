@@ -0,0 +1,94 @@
+/*
+ * Copyright 2010 LinkedIn, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.client;
+
+import java.util.Map;
+
+import voldemort.annotations.concurrency.Threadsafe;
+import voldemort.versioning.Version;
+import voldemort.versioning.Versioned;
+
+/**
+ * A client for a single store that makes requests without waiting for them.
+ * Each method returns as soon as the request is sent, and the returned
+ * {@link StoreFuture} completes with the same result, or exception, as the
+ * matching method of {@link StoreClient}.
+ *
+ * <p/>
+ *
+ * No thread is held while a request is in flight, so a small thread pool can
+ * keep many requests outstanding.
+ *
+ *
+ * @param <K> The type of the key being stored
+ * @param <V> The type of the value being stored
+ */
+@Threadsafe
+public interface AsyncStoreClient<K, V> {
+
+    /**
+     * Get the versioned value associated with the given key, or null if no
+     * value is found. The future fails with an
+     * {@link voldemort.versioning.InconsistentDataException} if the versions
+     * cannot be resolved.
+     *
+     * @param key The key to retrieve
+     * @return The future of the versioned value
+     */
+    public StoreFuture<Versioned<V>> getAsync(K key);
+
+    /**
+     * Get the values associated with the given keys, as
+     * {@link StoreClient#getAll(Iterable)} does.
+     *
+     * @param keys The keys to retrieve
+     * @return The future of a map of key to versioned value
+     */
+    public StoreFuture<Map<K, Versioned<V>>> getAllAsync(Iterable<K> keys);
+
+    /**
+     * Associate the given value to the key, clobbering any existing values
+     * stored for the key.
+     *
+     * @param key The key
+     * @param value The value
+     * @return The future of the put
+     */
+    public StoreFuture<Void> putAsync(K key, V value);
+
+    /**
+     * Put the given Versioned value into the store for the given key if the
+     * version is greater to or concurrent with existing values. The future
+     * fails with an {@link voldemort.versioning.ObsoleteVersionException}
+     * otherwise.
+     *
+     * @param key The key
+     * @param versioned The value and its version
+     * @return The future of the put
+     */
+    public StoreFuture<Void> putAsync(K key, Versioned<V> versioned);
+
+    /**
+     * Delete the specified version and any prior versions of the given key
+     *
+     * @param key The key to delete
+     * @param version The version of the key
+     * @return The future of whether anything was deleted
+     */
+    public StoreFuture<Boolean> deleteAsync(K key, Version version);
+
+}
@@ -23,7 +23,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 import voldemort.client.protocol.RequestFormatType;
@@ -54,6 +56,7 @@ public class ClientConfig {
     private volatile int selectors = 4;
     private volatile long routingTimeoutMs = 15000;
     private volatile int socketBufferSize = 64 * 1024;
+    private volatile long socketBufferPoolSize = 0;
     private volatile SerializerFactory serializerFactory = new DefaultSerializerFactory();
     private volatile List<String> bootstrapUrls = null;
     private volatile RequestFormatType requestFormatType = RequestFormatType.VOLDEMORT_V1;
@@ -62,6 +65,11 @@ public class ClientConfig {
 
     private volatile boolean enablePipelineRoutedStore = false;
     private volatile int clientZoneId = Zone.DEFAULT_ZONE_ID;
+    private volatile double hedgedReadsPercentile = 0;
+    private volatile boolean readCompleteOnRequired = false;
+    private volatile int nearCacheSize = 0;
+    private volatile long nearCacheTtlMs = 10000;
+    private final Map<String, Long> storeNearCacheTtlMs = new ConcurrentHashMap<String, Long>();
 
     private volatile String failureDetectorImplementation = FailureDetectorConfig.DEFAULT_IMPLEMENTATION_CLASS_NAME;
     private volatile long failureDetectorBannagePeriod = FailureDetectorConfig.DEFAULT_BANNAGE_PERIOD;
@@ -90,12 +98,17 @@ public class ClientConfig {
     public static final String ROUTING_TIMEOUT_MS_PROPERTY = "routing_timeout_ms";
     public static final String NODE_BANNAGE_MS_PROPERTY = "node_bannage_ms";
     public static final String SOCKET_BUFFER_SIZE_PROPERTY = "socket_buffer_size";
+    public static final String SOCKET_BUFFER_POOL_SIZE_PROPERTY = "socket_buffer_pool_size";
     public static final String SERIALIZER_FACTORY_CLASS_PROPERTY = "serializer_factory_class";
     public static final String BOOTSTRAP_URLS_PROPERTY = "bootstrap_urls";
     public static final String REQUEST_FORMAT_PROPERTY = "request_format";
     public static final String ENABLE_JMX_PROPERTY = "enable_jmx";
     public static final String ENABLE_PIPELINE_ROUTED_STORE_PROPERTY = "enable_pipeline_routed_store";
     public static final String CLIENT_ZONE_ID = "client_zone_id";
+    public static final String HEDGED_READS_PERCENTILE_PROPERTY = "hedged_reads_percentile";
+    public static final String READ_COMPLETE_ON_REQUIRED_PROPERTY = "read_complete_on_required";
+    public static final String NEAR_CACHE_SIZE_PROPERTY = "near_cache_size";
+    public static final String NEAR_CACHE_TTL_MS_PROPERTY = "near_cache_ttl_ms";
     public static final String FAILUREDETECTOR_IMPLEMENTATION_PROPERTY = "failuredetector_implementation";
     public static final String FAILUREDETECTOR_BANNAGE_PERIOD_PROPERTY = "failuredetector_bannage_period";
     public static final String FAILUREDETECTOR_THRESHOLD_PROPERTY = "failuredetector_threshold";
@@ -170,6 +183,9 @@ public class ClientConfig {
         if(props.containsKey(SOCKET_BUFFER_SIZE_PROPERTY))
             this.setSocketBufferSize(props.getInt(SOCKET_BUFFER_SIZE_PROPERTY));
 
+        if(props.containsKey(SOCKET_BUFFER_POOL_SIZE_PROPERTY))
+            this.setSocketBufferPoolSize(props.getBytes(SOCKET_BUFFER_POOL_SIZE_PROPERTY));
+
         if(props.containsKey(SERIALIZER_FACTORY_CLASS_PROPERTY)) {
             Class<?> factoryClass = ReflectUtils.loadClass(props.getString(SERIALIZER_FACTORY_CLASS_PROPERTY));
             SerializerFactory factory = (SerializerFactory) ReflectUtils.callConstructor(factoryClass,
@@ -192,6 +208,26 @@ public class ClientConfig {
         if(props.containsKey(CLIENT_ZONE_ID))
             this.setClientZoneId(props.getInt(CLIENT_ZONE_ID));
 
+        if(props.containsKey(HEDGED_READS_PERCENTILE_PROPERTY))
+            this.setHedgedReadsPercentile(props.getDouble(HEDGED_READS_PERCENTILE_PROPERTY));
+
+        if(props.containsKey(READ_COMPLETE_ON_REQUIRED_PROPERTY))
+            this.setReadCompleteOnRequired(props.getBoolean(READ_COMPLETE_ON_REQUIRED_PROPERTY));
+
+        if(props.containsKey(NEAR_CACHE_SIZE_PROPERTY))
+            this.setNearCacheSize(props.getInt(NEAR_CACHE_SIZE_PROPERTY));
+
+        if(props.containsKey(NEAR_CACHE_TTL_MS_PROPERTY))
+            this.setNearCacheTtl(props.getLong(NEAR_CACHE_TTL_MS_PROPERTY), TimeUnit.MILLISECONDS);
+
+        // The TTL of a single store is given as near_cache_ttl_ms.<store name>
+        for(String key: props.keySet()) {
+            if(key.startsWith(NEAR_CACHE_TTL_MS_PROPERTY + "."))
+                this.setNearCacheTtl(key.substring(NEAR_CACHE_TTL_MS_PROPERTY.length() + 1),
+                                     props.getLong(key),
+                                     TimeUnit.MILLISECONDS);
+        }
+
         if(props.containsKey(FAILUREDETECTOR_IMPLEMENTATION_PROPERTY))
             this.setFailureDetectorImplementation(props.getString(FAILUREDETECTOR_IMPLEMENTATION_PROPERTY));
 
@@ -396,6 +432,25 @@ public class ClientConfig {
         return this;
     }
 
+    public long getSocketBufferPoolSize() {
+        return socketBufferPoolSize;
+    }
+
+    /**
+     * Have the connections take their buffers from a shared pool of direct
+     * buffers, which keeps the buffers given back by completed requests for
+     * reuse
+     * 
+     * @param socketBufferPoolSize The most bytes of buffers kept in the pool,
+     *        or 0 to allocate the buffers on the heap
+     */
+    public ClientConfig setSocketBufferPoolSize(long socketBufferPoolSize) {
+        if(socketBufferPoolSize < 0)
+            throw new IllegalArgumentException("Socket buffer pool size cannot be negative.");
+        this.socketBufferPoolSize = socketBufferPoolSize;
+        return this;
+    }
+
     public SerializerFactory getSerializerFactory() {
         return serializerFactory;
     }
@@ -519,6 +574,102 @@ public class ClientConfig {
         return this;
     }
 
+    public double getHedgedReadsPercentile() {
+        return hedgedReadsPercentile;
+    }
+
+    /**
+     * Send a read to the next node as well if the nodes read from have not
+     * answered within the given percentile of recent read times. Only the
+     * pipeline routed store hedges reads.
+     * 
+     * @param hedgedReadsPercentile The percentile, between 0 and 100, or 0 to
+     *        never hedge reads
+     */
+    public ClientConfig setHedgedReadsPercentile(double hedgedReadsPercentile) {
+        if(hedgedReadsPercentile < 0 || hedgedReadsPercentile >= 100)
+            throw new IllegalArgumentException("Hedged reads percentile must be at least 0 and less than 100.");
+        this.hedgedReadsPercentile = hedgedReadsPercentile;
+        return this;
+    }
+
+    public boolean isReadCompleteOnRequired() {
+        return readCompleteOnRequired;
+    }
+
+    /**
+     * Complete a get as soon as the required number of reads have succeeded,
+     * rather than the preferred number. The reads that answer later are still
+     * read repaired. Only the pipeline routed store completes gets early.
+     * 
+     * @param readCompleteOnRequired True to complete on the required reads,
+     *        false to wait for the preferred reads
+     */
+    public ClientConfig setReadCompleteOnRequired(boolean readCompleteOnRequired) {
+        this.readCompleteOnRequired = readCompleteOnRequired;
+        return this;
+    }
+
+    public int getNearCacheSize() {
+        return nearCacheSize;
+    }
+
+    /**
+     * Keep the values read from each store in a cache of the given number of
+     * keys in the client. Puts and deletes made through the client invalidate
+     * the keys they write, but writes made by other clients are only seen once
+     * the cached values expire.
+     * 
+     * @param nearCacheSize The number of keys to cache per store, or 0 to not
+     *        cache values
+     * @see #setNearCacheTtl(long, TimeUnit)
+     */
+    public ClientConfig setNearCacheSize(int nearCacheSize) {
+        if(nearCacheSize < 0)
+            throw new IllegalArgumentException("Near cache size cannot be negative.");
+        this.nearCacheSize = nearCacheSize;
+        return this;
+    }
+
+    public long getNearCacheTtl(TimeUnit unit) {
+        return unit.convert(nearCacheTtlMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Set the time for which the values cached in the client are used, for the
+     * stores that do not have a time of their own.
+     * 
+     * @param nearCacheTtl The time for which cached values are used
+     * @param unit The time unit of the value
+     */
+    public ClientConfig setNearCacheTtl(long nearCacheTtl, TimeUnit unit) {
+        if(nearCacheTtl <= 0)
+            throw new IllegalArgumentException("Near cache TTL must be positive.");
+        this.nearCacheTtlMs = unit.toMillis(nearCacheTtl);
+        return this;
+    }
+
+    public long getNearCacheTtl(String storeName, TimeUnit unit) {
+        Long ttlMs = storeNearCacheTtlMs.get(storeName);
+        return unit.convert(ttlMs != null ? ttlMs : nearCacheTtlMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Set the time for which the values of the given store cached in the client
+     * are used.
+     * 
+     * @param storeName The name of the store
+     * @param nearCacheTtl The time for which cached values are used, or 0 to
+     *        not cache the values of the store
+     * @param unit The time unit of the value
+     */
+    public ClientConfig setNearCacheTtl(String storeName, long nearCacheTtl, TimeUnit unit) {
+        if(nearCacheTtl < 0)
+            throw new IllegalArgumentException("Near cache TTL cannot be negative.");
+        this.storeNearCacheTtlMs.put(storeName, unit.toMillis(nearCacheTtl));
+        return this;
+    }
+
     public String getFailureDetectorImplementation() {
         return failureDetectorImplementation;
     }
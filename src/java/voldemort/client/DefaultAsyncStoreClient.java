@@ -0,0 +1,359 @@
+/*
+ * Copyright 2010 LinkedIn, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.client;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import voldemort.VoldemortException;
+import voldemort.annotations.concurrency.Threadsafe;
+import voldemort.serialization.Serializer;
+import voldemort.store.compress.CompressionStrategy;
+import voldemort.store.nonblockingstore.NonblockingStore;
+import voldemort.store.nonblockingstore.NonblockingStoreCallback;
+import voldemort.utils.ByteArray;
+import voldemort.utils.Utils;
+import voldemort.versioning.InconsistencyResolver;
+import voldemort.versioning.InconsistentDataException;
+import voldemort.versioning.VectorClock;
+import voldemort.versioning.Version;
+import voldemort.versioning.Versioned;
+
+import com.google.common.collect.Maps;
+
+/**
+ * The default {@link AsyncStoreClient} implementation, which serializes,
+ * compresses and resolves values as the store decorators of a
+ * {@link DefaultStoreClient} do, around a {@link NonblockingStore}.
+ *
+ * <p/>
+ *
+ * Unlike {@link DefaultStoreClient}, requests are not retried after the
+ * metadata of the cluster changes; they fail with an
+ * {@link voldemort.store.InvalidMetadataException} and a new client has to be
+ * created.
+ *
+ * <p/>
+ *
+ * A put without a version is made as a blind put, unless the store cannot do
+ * them, in which case the versions are read first.
+ *
+ *
+ * @param <K> The key type
+ * @param <V> The value type
+ */
+@Threadsafe
+public class DefaultAsyncStoreClient<K, V> implements AsyncStoreClient<K, V> {
+
+    private final String storeName;
+    private final NonblockingStore store;
+    private final Serializer<K> keySerializer;
+    private final Serializer<V> valueSerializer;
+    private final CompressionStrategy keysCompressionStrategy;
+    private final CompressionStrategy valuesCompressionStrategy;
+    private final InconsistencyResolver<Versioned<V>> resolver;
+
+    private volatile boolean isBlindPutSupported = true;
+
+    public DefaultAsyncStoreClient(String storeName,
+                                   NonblockingStore store,
+                                   Serializer<K> keySerializer,
+                                   Serializer<V> valueSerializer,
+                                   CompressionStrategy keysCompressionStrategy,
+                                   CompressionStrategy valuesCompressionStrategy,
+                                   InconsistencyResolver<Versioned<V>> resolver) {
+        this.storeName = Utils.notNull(storeName);
+        this.store = Utils.notNull(store);
+        this.keySerializer = Utils.notNull(keySerializer);
+        this.valueSerializer = Utils.notNull(valueSerializer);
+        this.keysCompressionStrategy = Utils.notNull(keysCompressionStrategy);
+        this.valuesCompressionStrategy = Utils.notNull(valuesCompressionStrategy);
+        this.resolver = Utils.notNull(resolver);
+    }
+
+    public String getStoreName() {
+        return storeName;
+    }
+
+    public StoreFuture<Versioned<V>> getAsync(final K key) {
+        final StoreFuture<Versioned<V>> future = new StoreFuture<Versioned<V>>();
+
+        NonblockingStoreCallback callback = new Callback<List<Versioned<byte[]>>>(future) {
+
+            @Override
+            protected void complete(List<Versioned<byte[]>> result) {
+                future.set(getItemOrThrow(key, toObjects(result)));
+            }
+
+        };
+
+        try {
+            store.submitGetRequest(toBytes(key), callback);
+        } catch(Exception e) {
+            callback.requestComplete(e, 0);
+        }
+
+        return future;
+    }
+
+    public StoreFuture<Map<K, Versioned<V>>> getAllAsync(Iterable<K> keys) {
+        final StoreFuture<Map<K, Versioned<V>>> future = new StoreFuture<Map<K, Versioned<V>>>();
+        final Map<ByteArray, K> keysByBytes = Maps.newHashMap();
+
+        NonblockingStoreCallback callback = new Callback<Map<ByteArray, List<Versioned<byte[]>>>>(future) {
+
+            @Override
+            protected void complete(Map<ByteArray, List<Versioned<byte[]>>> result) {
+                Map<K, Versioned<V>> items = Maps.newHashMapWithExpectedSize(result.size());
+
+                for(Entry<ByteArray, List<Versioned<byte[]>>> entry: result.entrySet()) {
+                    K key = keysByBytes.get(entry.getKey());
+                    items.put(key, getItemOrThrow(key, toObjects(entry.getValue())));
+                }
+
+                future.set(items);
+            }
+
+        };
+
+        try {
+            for(K key: keys)
+                keysByBytes.put(toBytes(key), key);
+
+            store.submitGetAllRequest(keysByBytes.keySet(), callback);
+        } catch(Exception e) {
+            callback.requestComplete(e, 0);
+        }
+
+        return future;
+    }
+
+    public StoreFuture<Void> putAsync(final K key, final V value) {
+        final StoreFuture<Void> future = new StoreFuture<Void>();
+
+        if(!isBlindPutSupported) {
+            putVersioned(key, value, future);
+            return future;
+        }
+
+        NonblockingStoreCallback callback = new Callback<Object>(future) {
+
+            @Override
+            public void requestComplete(Object result, long requestTime) {
+                if(result instanceof UnsupportedOperationException) {
+                    isBlindPutSupported = false;
+                    putVersioned(key, value, future);
+                } else {
+                    super.requestComplete(result, requestTime);
+                }
+            }
+
+            @Override
+            protected void complete(Object result) {
+                future.set(null);
+            }
+
+        };
+
+        try {
+            store.submitBlindPutRequest(toBytes(key), valueToBytes(value), callback);
+        } catch(Exception e) {
+            callback.requestComplete(e, 0);
+        }
+
+        return future;
+    }
+
+    /*
+     * Puts the value with the version read from the store
+     */
+    private void putVersioned(final K key, final V value, final StoreFuture<Void> future) {
+        NonblockingStoreCallback callback = new Callback<List<Version>>(future) {
+
+            @Override
+            protected void complete(List<Version> versions) {
+                if(versions.isEmpty())
+                    put(key, Versioned.value(value, new VectorClock()), future);
+                else if(versions.size() == 1)
+                    put(key, Versioned.value(value, versions.get(0)), future);
+                else
+                    putResolved(key, value, future);
+            }
+
+        };
+
+        try {
+            store.submitGetVersionsRequest(toBytes(key), callback);
+        } catch(Exception e) {
+            callback.requestComplete(e, 0);
+        }
+    }
+
+    /*
+     * Puts the value with the version of the resolved value, as the versions
+     * alone cannot be resolved
+     */
+    private void putResolved(final K key, final V value, final StoreFuture<Void> future) {
+        NonblockingStoreCallback callback = new Callback<List<Versioned<byte[]>>>(future) {
+
+            @Override
+            protected void complete(List<Versioned<byte[]>> result) {
+                Versioned<V> versioned = getItemOrThrow(key, toObjects(result));
+                if(versioned == null)
+                    versioned = Versioned.value(value, new VectorClock());
+                else
+                    versioned.setObject(value);
+
+                put(key, versioned, future);
+            }
+
+        };
+
+        try {
+            store.submitGetRequest(toBytes(key), callback);
+        } catch(Exception e) {
+            callback.requestComplete(e, 0);
+        }
+    }
+
+    public StoreFuture<Void> putAsync(K key, Versioned<V> versioned) {
+        StoreFuture<Void> future = new StoreFuture<Void>();
+        put(key, versioned, future);
+        return future;
+    }
+
+    private void put(K key, Versioned<V> versioned, final StoreFuture<Void> future) {
+        NonblockingStoreCallback callback = new Callback<Object>(future) {
+
+            @Override
+            protected void complete(Object result) {
+                future.set(null);
+            }
+
+        };
+
+        try {
+            store.submitPutRequest(toBytes(key), toBytes(versioned), callback);
+        } catch(Exception e) {
+            callback.requestComplete(e, 0);
+        }
+    }
+
+    public StoreFuture<Boolean> deleteAsync(K key, Version version) {
+        final StoreFuture<Boolean> future = new StoreFuture<Boolean>();
+
+        NonblockingStoreCallback callback = new Callback<Boolean>(future) {
+
+            @Override
+            protected void complete(Boolean result) {
+                future.set(result);
+            }
+
+        };
+
+        try {
+            store.submitDeleteRequest(toBytes(key), version, callback);
+        } catch(Exception e) {
+            callback.requestComplete(e, 0);
+        }
+
+        return future;
+    }
+
+    private ByteArray toBytes(K key) {
+        return new ByteArray(deflate(keysCompressionStrategy, keySerializer.toBytes(key)));
+    }
+
+    private Versioned<byte[]> toBytes(Versioned<V> versioned) {
+        return new Versioned<byte[]>(valueToBytes(versioned.getValue()), versioned.getVersion());
+    }
+
+    private byte[] valueToBytes(V value) {
+        return deflate(valuesCompressionStrategy, valueSerializer.toBytes(value));
+    }
+
+    private List<Versioned<V>> toObjects(List<Versioned<byte[]>> values) {
+        List<Versioned<V>> items = new ArrayList<Versioned<V>>(values.size());
+        for(Versioned<byte[]> versioned: values) {
+            V value = valueSerializer.toObject(inflate(valuesCompressionStrategy,
+                                                       versioned.getValue()));
+            items.add(new Versioned<V>(value, versioned.getVersion()));
+        }
+
+        return resolver.resolveConflicts(items);
+    }
+
+    private Versioned<V> getItemOrThrow(K key, List<Versioned<V>> items) {
+        if(items.size() == 0)
+            return null;
+        else if(items.size() == 1)
+            return items.get(0);
+        else
+            throw new InconsistentDataException("Unresolved versions returned from get(" + key
+                                                + ") = " + items, items);
+    }
+
+    private byte[] inflate(CompressionStrategy compressionStrategy, byte[] data) {
+        try {
+            return compressionStrategy.inflate(data);
+        } catch(IOException e) {
+            throw new VoldemortException(e);
+        }
+    }
+
+    private byte[] deflate(CompressionStrategy compressionStrategy, byte[] data) {
+        try {
+            return compressionStrategy.deflate(data);
+        } catch(IOException e) {
+            throw new VoldemortException(e);
+        }
+    }
+
+    /*
+     * Fails the future if the request fails, or if completing it with the
+     * result of the request does.
+     */
+    private abstract static class Callback<R> implements NonblockingStoreCallback {
+
+        private final StoreFuture<?> future;
+
+        private Callback(StoreFuture<?> future) {
+            this.future = future;
+        }
+
+        protected abstract void complete(R result);
+
+        @SuppressWarnings("unchecked")
+        public void requestComplete(Object result, long requestTime) {
+            if(result instanceof Exception) {
+                future.setException((Exception) result);
+                return;
+            }
+
+            try {
+                complete((R) result);
+            } catch(Exception e) {
+                future.setException(e);
+            }
+        }
+
+    }
+
+}
@@ -18,6 +18,7 @@ package voldemort.client;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Map.Entry;
 
 import org.apache.log4j.Logger;
@@ -32,6 +33,7 @@ import voldemort.serialization.Serializer;
 import voldemort.store.InvalidMetadataException;
 import voldemort.store.Store;
 import voldemort.store.StoreCapabilityType;
+import voldemort.store.StoreUtils;
 import voldemort.utils.Utils;
 import voldemort.versioning.InconsistencyResolver;
 import voldemort.versioning.InconsistentDataException;
@@ -63,6 +65,12 @@ public class DefaultStoreClient<K, V> implements StoreClient<K, V> {
     private final InconsistencyResolver<Versioned<V>> resolver;
     private volatile Store<K, V> store;
 
+    /*
+     * Cleared the first time the store cannot do a blind put, after which puts
+     * without a version read the versions first
+     */
+    private volatile boolean isBlindPutSupported = true;
+
     public DefaultStoreClient(String storeName,
                               InconsistencyResolver<Versioned<V>> resolver,
                               StoreClientFactory storeFactory,
@@ -177,6 +185,15 @@ public class DefaultStoreClient<K, V> implements StoreClient<K, V> {
     }
 
     public void put(K key, V value) {
+        if(isBlindPutSupported) {
+            try {
+                blindPut(key, value);
+                return;
+            } catch(UnsupportedOperationException e) {
+                isBlindPutSupported = false;
+            }
+        }
+
         List<Version> versions = getVersions(key);
         Versioned<V> versioned;
         if(versions.isEmpty())
@@ -193,6 +210,19 @@ public class DefaultStoreClient<K, V> implements StoreClient<K, V> {
         put(key, versioned);
     }
 
+    private void blindPut(K key, V value) {
+        for(int attempts = 0; attempts < this.metadataRefreshAttempts; attempts++) {
+            try {
+                StoreUtils.blindPut(store, key, value);
+                return;
+            } catch(InvalidMetadataException e) {
+                bootStrap();
+            }
+        }
+        throw new VoldemortException(this.metadataRefreshAttempts
+                                     + " metadata refresh attempts failed.");
+    }
+
     public boolean putIfNotObsolete(K key, Versioned<V> versioned) {
         try {
             put(key, versioned);
@@ -215,6 +245,18 @@ public class DefaultStoreClient<K, V> implements StoreClient<K, V> {
                                      + " metadata refresh attempts failed.");
     }
 
+    public Set<K> putAll(Map<K, Versioned<V>> entries) {
+        for(int attempts = 0; attempts < this.metadataRefreshAttempts; attempts++) {
+            try {
+                return store.putAll(entries);
+            } catch(InvalidMetadataException e) {
+                bootStrap();
+            }
+        }
+        throw new VoldemortException(this.metadataRefreshAttempts
+                                     + " metadata refresh attempts failed.");
+    }
+
     public boolean applyUpdate(UpdateAction<K, V> action) {
         return applyUpdate(action, 3);
     }
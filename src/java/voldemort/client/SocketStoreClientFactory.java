@@ -63,7 +63,8 @@ public class SocketStoreClientFactory extends AbstractStoreClientFactory {
                                                           config.getConnectionTimeout(TimeUnit.MILLISECONDS),
                                                           config.getSocketTimeout(TimeUnit.MILLISECONDS),
                                                           config.getSocketBufferSize(),
-                                                          config.getSocketKeepAlive());
+                                                          config.getSocketKeepAlive(),
+                                                          config.getSocketBufferPoolSize());
         if(config.isJmxEnabled())
             JmxUtils.registerMbean(storeFactory, JmxUtils.createObjectName(storeFactory.getClass()));
     }
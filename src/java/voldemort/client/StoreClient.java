@@ -18,6 +18,7 @@ package voldemort.client;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import voldemort.annotations.concurrency.Threadsafe;
 import voldemort.cluster.Node;
@@ -109,6 +110,18 @@ public interface StoreClient<K, V> {
      */
     public void put(K key, Versioned<V> versioned) throws ObsoleteVersionException;
 
+    /**
+     * Put the given Versioned values into the store as a batch. Each value is
+     * stored if its version is greater to or concurrent with the existing
+     * values of its key; the keys whose versions are obsolete are returned
+     * rather than thrown as an ObsoleteVersionException.
+     * 
+     * @param entries The keys and their versioned values
+     * @return The keys that were not stored because their versions are
+     *         obsolete
+     */
+    public Set<K> putAll(Map<K, Versioned<V>> entries);
+
     /**
      * Put the versioned value to the key, ignoring any ObsoleteVersionException
      * that may be thrown
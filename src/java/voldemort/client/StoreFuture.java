@@ -0,0 +1,167 @@
+/*
+ * Copyright 2010 LinkedIn, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+import voldemort.annotations.concurrency.Threadsafe;
+
+/**
+ * The result of a request made by an {@link AsyncStoreClient}.
+ *
+ * <p/>
+ *
+ * Besides waiting with {@link #get()}, a caller can add a listener, which is
+ * run once the request completes. Listeners are run on the thread that
+ * completes the request, typically a selector thread of the client, so they
+ * must not block; a listener added after completion is run by the thread
+ * that adds it. Requests cannot be cancelled.
+ *
+ *
+ * @param <T> The type of the result
+ */
+@Threadsafe
+public class StoreFuture<T> implements Future<T> {
+
+    private static final Logger logger = Logger.getLogger(StoreFuture.class);
+
+    private final CountDownLatch latch = new CountDownLatch(1);
+
+    private final List<Runnable> listeners = new ArrayList<Runnable>();
+
+    private boolean isDone = false;
+
+    private T result;
+
+    private Throwable exception;
+
+    /**
+     * Complete the request with a result
+     *
+     * @param result The result
+     * @return true if the request was completed by this call, false if it had
+     *         already completed
+     */
+    public boolean set(T result) {
+        return complete(result, null);
+    }
+
+    /**
+     * Complete the request with the exception it failed with
+     *
+     * @param exception The exception
+     * @return true if the request was completed by this call, false if it had
+     *         already completed
+     */
+    public boolean setException(Throwable exception) {
+        if(exception == null)
+            throw new IllegalArgumentException("exception must be non-null");
+
+        return complete(null, exception);
+    }
+
+    /**
+     * Run the given listener once the request completes, whether it succeeds
+     * or fails
+     *
+     * @param listener The listener, which must not block
+     */
+    public void addListener(Runnable listener) {
+        synchronized(this) {
+            if(!isDone) {
+                listeners.add(listener);
+                return;
+            }
+        }
+
+        runListener(listener);
+    }
+
+    private boolean complete(T result, Throwable exception) {
+        List<Runnable> completedListeners;
+
+        synchronized(this) {
+            if(isDone)
+                return false;
+
+            this.isDone = true;
+            this.result = result;
+            this.exception = exception;
+            completedListeners = new ArrayList<Runnable>(listeners);
+            listeners.clear();
+        }
+
+        latch.countDown();
+
+        for(Runnable listener: completedListeners)
+            runListener(listener);
+
+        return true;
+    }
+
+    private void runListener(Runnable listener) {
+        try {
+            listener.run();
+        } catch(RuntimeException e) {
+            if(logger.isEnabledFor(Level.WARN))
+                logger.warn("Error running store future listener", e);
+        }
+    }
+
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        return false;
+    }
+
+    public boolean isCancelled() {
+        return false;
+    }
+
+    public synchronized boolean isDone() {
+        return isDone;
+    }
+
+    public T get() throws InterruptedException, ExecutionException {
+        latch.await();
+        return getResult();
+    }
+
+    public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException,
+            TimeoutException {
+        if(!latch.await(timeout, unit))
+            throw new TimeoutException("Request did not complete in " + timeout + " "
+                                       + unit.toString().toLowerCase());
+
+        return getResult();
+    }
+
+    private synchronized T getResult() throws ExecutionException {
+        if(exception != null)
+            throw new ExecutionException(exception);
+
+        return result;
+    }
+
+}
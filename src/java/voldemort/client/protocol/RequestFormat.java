@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import voldemort.server.RequestRoutingType;
 import voldemort.utils.ByteArray;
@@ -77,6 +78,43 @@ public interface RequestFormat {
 
     public void readPutResponse(DataInputStream stream) throws IOException;
 
+    /**
+     * Write a put of a value without a version; the server merges the versions
+     * it has for the key and increments the result for its own node.
+     * 
+     * @throws UnsupportedOperationException If the format has no blind puts
+     */
+    public void writeBlindPutRequest(DataOutputStream output,
+                                     String storeName,
+                                     ByteArray key,
+                                     byte[] value,
+                                     RequestRoutingType routingType) throws IOException;
+
+    public boolean isCompleteBlindPutResponse(ByteBuffer buffer);
+
+    /**
+     * @return The version the server stored the value with
+     */
+    public Version readBlindPutResponse(DataInputStream stream) throws IOException;
+
+    /**
+     * Write a put of the values of several keys in one request
+     * 
+     * @throws UnsupportedOperationException If the format has no putAll
+     */
+    public void writePutAllRequest(DataOutputStream output,
+                                   String storeName,
+                                   Map<ByteArray, Versioned<byte[]>> entries,
+                                   RequestRoutingType routingType) throws IOException;
+
+    public boolean isCompletePutAllResponse(ByteBuffer buffer);
+
+    /**
+     * @return The keys whose values were not stored because their versions
+     *         are obsolete
+     */
+    public Set<ByteArray> readPutAllResponse(DataInputStream stream) throws IOException;
+
     public void writeDeleteRequest(DataOutputStream output,
                                    String storeName,
                                    ByteArray key,
@@ -25,6 +25,7 @@ public enum RequestFormatType {
     VOLDEMORT_V0("vp0", "voldemort-native-v0"),
     VOLDEMORT_V1("vp1", "voldemort-native-v1"),
     VOLDEMORT_V2("vp2", "voldemort-native-v2"),
+    VOLDEMORT_V3("vp3", "voldemort-native-v3"),
     PROTOCOL_BUFFERS("pb0", "protocol-buffers-v0"),
     ADMIN_PROTOCOL_BUFFERS("ad1", "admin-v1");
 
@@ -44,6 +45,30 @@ public enum RequestFormatType {
         return this.displayName;
     }
 
+    /**
+     * Whether each request and response in this format carries a request id,
+     * so that a connection can have many requests in flight and the responses
+     * can come back in any order.
+     */
+    public boolean isMultiplexed() {
+        return this == VOLDEMORT_V3;
+    }
+
+    /**
+     * Whether this format has blind puts, which send a value without a version
+     * and have the server that stores it increment the version.
+     */
+    public boolean hasBlindPut() {
+        return this == VOLDEMORT_V3;
+    }
+
+    /**
+     * Whether this format can put the values of several keys in one request.
+     */
+    public boolean hasPutAll() {
+        return this == VOLDEMORT_V3 || this == PROTOCOL_BUFFERS;
+    }
+
     public static RequestFormatType fromCode(String code) {
         for(RequestFormatType type: RequestFormatType.values())
             if(type.getCode().equals(code))
@@ -21,14 +21,17 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import voldemort.client.protocol.RequestFormat;
 import voldemort.client.protocol.pb.VProto.DeleteResponse;
 import voldemort.client.protocol.pb.VProto.GetAllResponse;
 import voldemort.client.protocol.pb.VProto.GetResponse;
 import voldemort.client.protocol.pb.VProto.GetVersionResponse;
+import voldemort.client.protocol.pb.VProto.PutAllResponse;
 import voldemort.client.protocol.pb.VProto.PutResponse;
 import voldemort.client.protocol.pb.VProto.RequestType;
 import voldemort.server.RequestRoutingType;
@@ -180,6 +183,58 @@ public class ProtoBuffClientRequestFormat implements RequestFormat {
             throwException(response.getError());
     }
 
+    public void writeBlindPutRequest(DataOutputStream output,
+                                     String storeName,
+                                     ByteArray key,
+                                     byte[] value,
+                                     RequestRoutingType routingType) throws IOException {
+        throw new UnsupportedOperationException("Blind puts are not supported by the protocol buffers format.");
+    }
+
+    public boolean isCompleteBlindPutResponse(ByteBuffer buffer) {
+        throw new UnsupportedOperationException("Blind puts are not supported by the protocol buffers format.");
+    }
+
+    public Version readBlindPutResponse(DataInputStream input) throws IOException {
+        throw new UnsupportedOperationException("Blind puts are not supported by the protocol buffers format.");
+    }
+
+    public void writePutAllRequest(DataOutputStream output,
+                                   String storeName,
+                                   Map<ByteArray, Versioned<byte[]>> entries,
+                                   RequestRoutingType routingType) throws IOException {
+        StoreUtils.assertValidKeys(entries.keySet());
+        VProto.PutAllRequest.Builder req = VProto.PutAllRequest.newBuilder();
+        for(Map.Entry<ByteArray, Versioned<byte[]>> entry: entries.entrySet())
+            req.addPuts(VProto.PutRequest.newBuilder()
+                                         .setKey(ByteString.copyFrom(entry.getKey().get()))
+                                         .setVersioned(ProtoUtils.encodeVersioned(entry.getValue())));
+
+        ProtoUtils.writeMessage(output,
+                                VProto.VoldemortRequest.newBuilder()
+                                                       .setType(RequestType.PUT_ALL)
+                                                       .setStore(storeName)
+                                                       .setShouldRoute(routingType.equals(RequestRoutingType.ROUTED))
+                                                       .setRequestRouteType(routingType.getRoutingTypeCode())
+                                                       .setPutAll(req)
+                                                       .build());
+    }
+
+    public boolean isCompletePutAllResponse(ByteBuffer buffer) {
+        return isCompleteResponse(buffer);
+    }
+
+    public Set<ByteArray> readPutAllResponse(DataInputStream input) throws IOException {
+        PutAllResponse.Builder response = ProtoUtils.readToBuilder(input,
+                                                                   PutAllResponse.newBuilder());
+        if(response.hasError())
+            throwException(response.getError());
+        Set<ByteArray> obsoleteKeys = new HashSet<ByteArray>(response.getObsoleteKeysCount());
+        for(ByteString key: response.getObsoleteKeysList())
+            obsoleteKeys.add(ProtoUtils.decodeBytes(key));
+        return obsoleteKeys;
+    }
+
     public void throwException(VProto.Error error) {
         throw mapper.getError((short) error.getErrorCode(), error.getErrorMessage());
     }
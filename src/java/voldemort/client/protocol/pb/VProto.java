@@ -14,6 +14,7 @@ public final class VProto {
     PUT(2, 2),
     DELETE(3, 3),
     GET_VERSION(4, 4),
+    PUT_ALL(5, 5),
     ;
     
     
@@ -26,6 +27,7 @@ public final class VProto {
         case 2: return PUT;
         case 3: return DELETE;
         case 4: return GET_VERSION;
+        case 5: return PUT_ALL;
         default: return null;
       }
     }
@@ -56,7 +58,7 @@ public final class VProto {
     }
     
     private static final RequestType[] VALUES = {
-      GET, GET_ALL, PUT, DELETE, GET_VERSION, 
+      GET, GET_ALL, PUT, DELETE, GET_VERSION, PUT_ALL, 
     };
     public static RequestType valueOf(
         com.google.protobuf.Descriptors.EnumValueDescriptor desc) {
@@ -4854,6 +4856,13 @@ public final class VProto {
     public boolean hasRequestRouteType() { return hasRequestRouteType; }
     public int getRequestRouteType() { return requestRouteType_; }
     
+    // optional .voldemort.PutAllRequest putAll = 9;
+    public static final int PUTALL_FIELD_NUMBER = 9;
+    private boolean hasPutAll;
+    private voldemort.client.protocol.pb.VProto.PutAllRequest putAll_ = voldemort.client.protocol.pb.VProto.PutAllRequest.getDefaultInstance();
+    public boolean hasPutAll() { return hasPutAll; }
+    public voldemort.client.protocol.pb.VProto.PutAllRequest getPutAll() { return putAll_; }
+    
     public final boolean isInitialized() {
       if (!hasType) return false;
       if (!hasShouldRoute) return false;
@@ -4864,6 +4873,9 @@ public final class VProto {
       if (hasDelete()) {
         if (!getDelete().isInitialized()) return false;
       }
+      if (hasPutAll()) {
+        if (!getPutAll().isInitialized()) return false;
+      }
       return true;
     }
     
@@ -4893,6 +4905,9 @@ public final class VProto {
       if (hasRequestRouteType()) {
         output.writeInt32(8, getRequestRouteType());
       }
+      if (hasPutAll()) {
+        output.writeMessage(9, getPutAll());
+      }
       getUnknownFields().writeTo(output);
     }
     
@@ -4934,6 +4949,10 @@ public final class VProto {
         size += com.google.protobuf.CodedOutputStream
           .computeInt32Size(8, getRequestRouteType());
       }
+      if (hasPutAll()) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeMessageSize(9, getPutAll());
+      }
       size += getUnknownFields().getSerializedSize();
       memoizedSerializedSize = size;
       return size;
@@ -5107,6 +5126,9 @@ public final class VProto {
         if (other.hasRequestRouteType()) {
           setRequestRouteType(other.getRequestRouteType());
         }
+        if (other.hasPutAll()) {
+          mergePutAll(other.getPutAll());
+        }
         this.mergeUnknownFields(other.getUnknownFields());
         return this;
       }
@@ -5190,6 +5212,15 @@ public final class VProto {
               setRequestRouteType(input.readInt32());
               break;
             }
+            case 74: {
+              voldemort.client.protocol.pb.VProto.PutAllRequest.Builder subBuilder = voldemort.client.protocol.pb.VProto.PutAllRequest.newBuilder();
+              if (hasPutAll()) {
+                subBuilder.mergeFrom(getPutAll());
+              }
+              input.readMessage(subBuilder, extensionRegistry);
+              setPutAll(subBuilder.buildPartial());
+              break;
+            }
           }
         }
       }
@@ -5420,6 +5451,43 @@ public final class VProto {
         result.requestRouteType_ = 0;
         return this;
       }
+      
+      // optional .voldemort.PutAllRequest putAll = 9;
+      public boolean hasPutAll() {
+        return result.hasPutAll();
+      }
+      public voldemort.client.protocol.pb.VProto.PutAllRequest getPutAll() {
+        return result.getPutAll();
+      }
+      public Builder setPutAll(voldemort.client.protocol.pb.VProto.PutAllRequest value) {
+        if (value == null) {
+          throw new NullPointerException();
+        }
+        result.hasPutAll = true;
+        result.putAll_ = value;
+        return this;
+      }
+      public Builder setPutAll(voldemort.client.protocol.pb.VProto.PutAllRequest.Builder builderForValue) {
+        result.hasPutAll = true;
+        result.putAll_ = builderForValue.build();
+        return this;
+      }
+      public Builder mergePutAll(voldemort.client.protocol.pb.VProto.PutAllRequest value) {
+        if (result.hasPutAll() &&
+            result.putAll_ != voldemort.client.protocol.pb.VProto.PutAllRequest.getDefaultInstance()) {
+          result.putAll_ =
+            voldemort.client.protocol.pb.VProto.PutAllRequest.newBuilder(result.putAll_).mergeFrom(value).buildPartial();
+        } else {
+          result.putAll_ = value;
+        }
+        result.hasPutAll = true;
+        return this;
+      }
+      public Builder clearPutAll() {
+        result.hasPutAll = false;
+        result.putAll_ = voldemort.client.protocol.pb.VProto.PutAllRequest.getDefaultInstance();
+        return this;
+      }
     }
     
     static {
@@ -5431,250 +5499,970 @@ public final class VProto {
     }
   }
   
-  private static com.google.protobuf.Descriptors.Descriptor
-    internal_static_voldemort_ClockEntry_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_voldemort_ClockEntry_fieldAccessorTable;
-  private static com.google.protobuf.Descriptors.Descriptor
-    internal_static_voldemort_VectorClock_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_voldemort_VectorClock_fieldAccessorTable;
-  private static com.google.protobuf.Descriptors.Descriptor
-    internal_static_voldemort_Versioned_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_voldemort_Versioned_fieldAccessorTable;
-  private static com.google.protobuf.Descriptors.Descriptor
-    internal_static_voldemort_Error_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_voldemort_Error_fieldAccessorTable;
-  private static com.google.protobuf.Descriptors.Descriptor
-    internal_static_voldemort_KeyedVersions_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_voldemort_KeyedVersions_fieldAccessorTable;
-  private static com.google.protobuf.Descriptors.Descriptor
-    internal_static_voldemort_GetRequest_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_voldemort_GetRequest_fieldAccessorTable;
-  private static com.google.protobuf.Descriptors.Descriptor
-    internal_static_voldemort_GetResponse_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_voldemort_GetResponse_fieldAccessorTable;
-  private static com.google.protobuf.Descriptors.Descriptor
-    internal_static_voldemort_GetVersionResponse_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_voldemort_GetVersionResponse_fieldAccessorTable;
-  private static com.google.protobuf.Descriptors.Descriptor
-    internal_static_voldemort_GetAllRequest_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_voldemort_GetAllRequest_fieldAccessorTable;
-  private static com.google.protobuf.Descriptors.Descriptor
-    internal_static_voldemort_GetAllResponse_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_voldemort_GetAllResponse_fieldAccessorTable;
-  private static com.google.protobuf.Descriptors.Descriptor
-    internal_static_voldemort_PutRequest_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_voldemort_PutRequest_fieldAccessorTable;
-  private static com.google.protobuf.Descriptors.Descriptor
-    internal_static_voldemort_PutResponse_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_voldemort_PutResponse_fieldAccessorTable;
-  private static com.google.protobuf.Descriptors.Descriptor
-    internal_static_voldemort_DeleteRequest_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_voldemort_DeleteRequest_fieldAccessorTable;
-  private static com.google.protobuf.Descriptors.Descriptor
-    internal_static_voldemort_DeleteResponse_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_voldemort_DeleteResponse_fieldAccessorTable;
-  private static com.google.protobuf.Descriptors.Descriptor
-    internal_static_voldemort_VoldemortRequest_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_voldemort_VoldemortRequest_fieldAccessorTable;
-  
-  public static com.google.protobuf.Descriptors.FileDescriptor
-      getDescriptor() {
-    return descriptor;
-  }
-  private static com.google.protobuf.Descriptors.FileDescriptor
-      descriptor;
-  static {
-    java.lang.String[] descriptorData = {
-      "\n\026voldemort-client.proto\022\tvoldemort\".\n\nC" +
-      "lockEntry\022\017\n\007node_id\030\001 \002(\005\022\017\n\007version\030\002 " +
-      "\002(\003\"H\n\013VectorClock\022&\n\007entries\030\001 \003(\0132\025.vo" +
-      "ldemort.ClockEntry\022\021\n\ttimestamp\030\002 \001(\003\"C\n" +
-      "\tVersioned\022\r\n\005value\030\001 \002(\014\022\'\n\007version\030\002 \002" +
-      "(\0132\026.voldemort.VectorClock\"2\n\005Error\022\022\n\ne" +
-      "rror_code\030\001 \002(\005\022\025\n\rerror_message\030\002 \002(\t\"D" +
-      "\n\rKeyedVersions\022\013\n\003key\030\001 \002(\014\022&\n\010versions" +
-      "\030\002 \003(\0132\024.voldemort.Versioned\"\031\n\nGetReque" +
-      "st\022\013\n\003key\030\001 \001(\014\"W\n\013GetResponse\022\'\n\tversio",
-      "ned\030\001 \003(\0132\024.voldemort.Versioned\022\037\n\005error" +
-      "\030\002 \001(\0132\020.voldemort.Error\"_\n\022GetVersionRe" +
-      "sponse\022(\n\010versions\030\001 \003(\0132\026.voldemort.Vec" +
-      "torClock\022\037\n\005error\030\002 \001(\0132\020.voldemort.Erro" +
-      "r\"\035\n\rGetAllRequest\022\014\n\004keys\030\001 \003(\014\"[\n\016GetA" +
-      "llResponse\022(\n\006values\030\001 \003(\0132\030.voldemort.K" +
-      "eyedVersions\022\037\n\005error\030\002 \001(\0132\020.voldemort." +
-      "Error\"B\n\nPutRequest\022\013\n\003key\030\001 \002(\014\022\'\n\tvers" +
-      "ioned\030\002 \002(\0132\024.voldemort.Versioned\".\n\013Put" +
-      "Response\022\037\n\005error\030\001 \001(\0132\020.voldemort.Erro",
-      "r\"E\n\rDeleteRequest\022\013\n\003key\030\001 \002(\014\022\'\n\007versi" +
-      "on\030\002 \002(\0132\026.voldemort.VectorClock\"B\n\016Dele" +
-      "teResponse\022\017\n\007success\030\001 \002(\010\022\037\n\005error\030\002 \001" +
-      "(\0132\020.voldemort.Error\"\232\002\n\020VoldemortReques" +
-      "t\022$\n\004type\030\001 \002(\0162\026.voldemort.RequestType\022" +
-      "\033\n\014should_route\030\002 \002(\010:\005false\022\r\n\005store\030\003 " +
-      "\002(\t\022\"\n\003get\030\004 \001(\0132\025.voldemort.GetRequest\022" +
-      "(\n\006getAll\030\005 \001(\0132\030.voldemort.GetAllReques" +
-      "t\022\"\n\003put\030\006 \001(\0132\025.voldemort.PutRequest\022(\n" +
-      "\006delete\030\007 \001(\0132\030.voldemort.DeleteRequest\022",
-      "\030\n\020requestRouteType\030\010 \001(\005*I\n\013RequestType" +
-      "\022\007\n\003GET\020\000\022\013\n\007GET_ALL\020\001\022\007\n\003PUT\020\002\022\n\n\006DELET" +
-      "E\020\003\022\017\n\013GET_VERSION\020\004B(\n\034voldemort.client" +
-      ".protocol.pbB\006VProtoH\001"
-    };
-    com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
-      new com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner() {
-        public com.google.protobuf.ExtensionRegistry assignDescriptors(
-            com.google.protobuf.Descriptors.FileDescriptor root) {
-          descriptor = root;
-          internal_static_voldemort_ClockEntry_descriptor =
-            getDescriptor().getMessageTypes().get(0);
-          internal_static_voldemort_ClockEntry_fieldAccessorTable = new
-            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
-              internal_static_voldemort_ClockEntry_descriptor,
-              new java.lang.String[] { "NodeId", "Version", },
-              voldemort.client.protocol.pb.VProto.ClockEntry.class,
-              voldemort.client.protocol.pb.VProto.ClockEntry.Builder.class);
-          internal_static_voldemort_VectorClock_descriptor =
-            getDescriptor().getMessageTypes().get(1);
-          internal_static_voldemort_VectorClock_fieldAccessorTable = new
-            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
-              internal_static_voldemort_VectorClock_descriptor,
-              new java.lang.String[] { "Entries", "Timestamp", },
-              voldemort.client.protocol.pb.VProto.VectorClock.class,
-              voldemort.client.protocol.pb.VProto.VectorClock.Builder.class);
-          internal_static_voldemort_Versioned_descriptor =
-            getDescriptor().getMessageTypes().get(2);
-          internal_static_voldemort_Versioned_fieldAccessorTable = new
-            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
-              internal_static_voldemort_Versioned_descriptor,
-              new java.lang.String[] { "Value", "Version", },
-              voldemort.client.protocol.pb.VProto.Versioned.class,
-              voldemort.client.protocol.pb.VProto.Versioned.Builder.class);
-          internal_static_voldemort_Error_descriptor =
-            getDescriptor().getMessageTypes().get(3);
-          internal_static_voldemort_Error_fieldAccessorTable = new
-            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
-              internal_static_voldemort_Error_descriptor,
-              new java.lang.String[] { "ErrorCode", "ErrorMessage", },
-              voldemort.client.protocol.pb.VProto.Error.class,
-              voldemort.client.protocol.pb.VProto.Error.Builder.class);
-          internal_static_voldemort_KeyedVersions_descriptor =
-            getDescriptor().getMessageTypes().get(4);
-          internal_static_voldemort_KeyedVersions_fieldAccessorTable = new
-            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
-              internal_static_voldemort_KeyedVersions_descriptor,
-              new java.lang.String[] { "Key", "Versions", },
-              voldemort.client.protocol.pb.VProto.KeyedVersions.class,
-              voldemort.client.protocol.pb.VProto.KeyedVersions.Builder.class);
-          internal_static_voldemort_GetRequest_descriptor =
-            getDescriptor().getMessageTypes().get(5);
-          internal_static_voldemort_GetRequest_fieldAccessorTable = new
-            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
-              internal_static_voldemort_GetRequest_descriptor,
-              new java.lang.String[] { "Key", },
-              voldemort.client.protocol.pb.VProto.GetRequest.class,
-              voldemort.client.protocol.pb.VProto.GetRequest.Builder.class);
-          internal_static_voldemort_GetResponse_descriptor =
-            getDescriptor().getMessageTypes().get(6);
-          internal_static_voldemort_GetResponse_fieldAccessorTable = new
-            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
-              internal_static_voldemort_GetResponse_descriptor,
-              new java.lang.String[] { "Versioned", "Error", },
-              voldemort.client.protocol.pb.VProto.GetResponse.class,
-              voldemort.client.protocol.pb.VProto.GetResponse.Builder.class);
-          internal_static_voldemort_GetVersionResponse_descriptor =
-            getDescriptor().getMessageTypes().get(7);
-          internal_static_voldemort_GetVersionResponse_fieldAccessorTable = new
-            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
-              internal_static_voldemort_GetVersionResponse_descriptor,
-              new java.lang.String[] { "Versions", "Error", },
-              voldemort.client.protocol.pb.VProto.GetVersionResponse.class,
-              voldemort.client.protocol.pb.VProto.GetVersionResponse.Builder.class);
-          internal_static_voldemort_GetAllRequest_descriptor =
-            getDescriptor().getMessageTypes().get(8);
-          internal_static_voldemort_GetAllRequest_fieldAccessorTable = new
-            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
-              internal_static_voldemort_GetAllRequest_descriptor,
-              new java.lang.String[] { "Keys", },
-              voldemort.client.protocol.pb.VProto.GetAllRequest.class,
-              voldemort.client.protocol.pb.VProto.GetAllRequest.Builder.class);
-          internal_static_voldemort_GetAllResponse_descriptor =
-            getDescriptor().getMessageTypes().get(9);
-          internal_static_voldemort_GetAllResponse_fieldAccessorTable = new
-            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
-              internal_static_voldemort_GetAllResponse_descriptor,
-              new java.lang.String[] { "Values", "Error", },
-              voldemort.client.protocol.pb.VProto.GetAllResponse.class,
-              voldemort.client.protocol.pb.VProto.GetAllResponse.Builder.class);
-          internal_static_voldemort_PutRequest_descriptor =
-            getDescriptor().getMessageTypes().get(10);
-          internal_static_voldemort_PutRequest_fieldAccessorTable = new
-            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
-              internal_static_voldemort_PutRequest_descriptor,
-              new java.lang.String[] { "Key", "Versioned", },
-              voldemort.client.protocol.pb.VProto.PutRequest.class,
-              voldemort.client.protocol.pb.VProto.PutRequest.Builder.class);
-          internal_static_voldemort_PutResponse_descriptor =
-            getDescriptor().getMessageTypes().get(11);
-          internal_static_voldemort_PutResponse_fieldAccessorTable = new
-            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
-              internal_static_voldemort_PutResponse_descriptor,
-              new java.lang.String[] { "Error", },
-              voldemort.client.protocol.pb.VProto.PutResponse.class,
-              voldemort.client.protocol.pb.VProto.PutResponse.Builder.class);
-          internal_static_voldemort_DeleteRequest_descriptor =
-            getDescriptor().getMessageTypes().get(12);
-          internal_static_voldemort_DeleteRequest_fieldAccessorTable = new
-            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
-              internal_static_voldemort_DeleteRequest_descriptor,
-              new java.lang.String[] { "Key", "Version", },
-              voldemort.client.protocol.pb.VProto.DeleteRequest.class,
-              voldemort.client.protocol.pb.VProto.DeleteRequest.Builder.class);
-          internal_static_voldemort_DeleteResponse_descriptor =
-            getDescriptor().getMessageTypes().get(13);
-          internal_static_voldemort_DeleteResponse_fieldAccessorTable = new
-            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
-              internal_static_voldemort_DeleteResponse_descriptor,
-              new java.lang.String[] { "Success", "Error", },
-              voldemort.client.protocol.pb.VProto.DeleteResponse.class,
+  public static final class PutAllRequest extends
+      com.google.protobuf.GeneratedMessage {
+    // Use PutAllRequest.newBuilder() to construct.
+    private PutAllRequest() {}
+    
+    private static final PutAllRequest defaultInstance = new PutAllRequest();
+    public static PutAllRequest getDefaultInstance() {
+      return defaultInstance;
+    }
+    
+    public PutAllRequest getDefaultInstanceForType() {
+      return defaultInstance;
+    }
+    
+    public static final com.google.protobuf.Descriptors.Descriptor
+        getDescriptor() {
+      return voldemort.client.protocol.pb.VProto.internal_static_voldemort_PutAllRequest_descriptor;
+    }
+    
+    protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+        internalGetFieldAccessorTable() {
+      return voldemort.client.protocol.pb.VProto.internal_static_voldemort_PutAllRequest_fieldAccessorTable;
+    }
+    
+    // repeated .voldemort.PutRequest puts = 1;
+    public static final int PUTS_FIELD_NUMBER = 1;
+    private java.util.List<voldemort.client.protocol.pb.VProto.PutRequest> puts_ =
+      java.util.Collections.emptyList();
+    public java.util.List<voldemort.client.protocol.pb.VProto.PutRequest> getPutsList() {
+      return puts_;
+    }
+    public int getPutsCount() { return puts_.size(); }
+    public voldemort.client.protocol.pb.VProto.PutRequest getPuts(int index) {
+      return puts_.get(index);
+    }
+    
+    public final boolean isInitialized() {
+      for (voldemort.client.protocol.pb.VProto.PutRequest element : getPutsList()) {
+        if (!element.isInitialized()) return false;
+      }
+      return true;
+    }
+    
+    public void writeTo(com.google.protobuf.CodedOutputStream output)
+                        throws java.io.IOException {
+      for (voldemort.client.protocol.pb.VProto.PutRequest element : getPutsList()) {
+        output.writeMessage(1, element);
+      }
+      getUnknownFields().writeTo(output);
+    }
+    
+    private int memoizedSerializedSize = -1;
+    public int getSerializedSize() {
+      int size = memoizedSerializedSize;
+      if (size != -1) return size;
+    
+      size = 0;
+      for (voldemort.client.protocol.pb.VProto.PutRequest element : getPutsList()) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeMessageSize(1, element);
+      }
+      size += getUnknownFields().getSerializedSize();
+      memoizedSerializedSize = size;
+      return size;
+    }
+    
+    public static voldemort.client.protocol.pb.VProto.PutAllRequest parseFrom(
+        com.google.protobuf.ByteString data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return newBuilder().mergeFrom(data).buildParsed();
+    }
+    public static voldemort.client.protocol.pb.VProto.PutAllRequest parseFrom(
+        com.google.protobuf.ByteString data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return newBuilder().mergeFrom(data, extensionRegistry)
+               .buildParsed();
+    }
+    public static voldemort.client.protocol.pb.VProto.PutAllRequest parseFrom(byte[] data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return newBuilder().mergeFrom(data).buildParsed();
+    }
+    public static voldemort.client.protocol.pb.VProto.PutAllRequest parseFrom(
+        byte[] data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return newBuilder().mergeFrom(data, extensionRegistry)
+               .buildParsed();
+    }
+    public static voldemort.client.protocol.pb.VProto.PutAllRequest parseFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return newBuilder().mergeFrom(input).buildParsed();
+    }
+    public static voldemort.client.protocol.pb.VProto.PutAllRequest parseFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return newBuilder().mergeFrom(input, extensionRegistry)
+               .buildParsed();
+    }
+    public static voldemort.client.protocol.pb.VProto.PutAllRequest parseDelimitedFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return newBuilder().mergeDelimitedFrom(input).buildParsed();
+    }
+    public static voldemort.client.protocol.pb.VProto.PutAllRequest parseDelimitedFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return newBuilder().mergeDelimitedFrom(input, extensionRegistry)
+               .buildParsed();
+    }
+    public static voldemort.client.protocol.pb.VProto.PutAllRequest parseFrom(
+        com.google.protobuf.CodedInputStream input)
+        throws java.io.IOException {
+      return newBuilder().mergeFrom(input).buildParsed();
+    }
+    public static voldemort.client.protocol.pb.VProto.PutAllRequest parseFrom(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return newBuilder().mergeFrom(input, extensionRegistry)
+               .buildParsed();
+    }
+    
+    public static Builder newBuilder() { return Builder.create(); }
+    public Builder newBuilderForType() { return newBuilder(); }
+    public static Builder newBuilder(voldemort.client.protocol.pb.VProto.PutAllRequest prototype) {
+      return newBuilder().mergeFrom(prototype);
+    }
+    public Builder toBuilder() { return newBuilder(this); }
+    
+    public static final class Builder extends
+        com.google.protobuf.GeneratedMessage.Builder<Builder> {
+      private voldemort.client.protocol.pb.VProto.PutAllRequest result;
+      
+      // Construct using voldemort.client.protocol.pb.VProto.PutAllRequest.newBuilder()
+      private Builder() {}
+      
+      private static Builder create() {
+        Builder builder = new Builder();
+        builder.result = new voldemort.client.protocol.pb.VProto.PutAllRequest();
+        return builder;
+      }
+      
+      protected voldemort.client.protocol.pb.VProto.PutAllRequest internalGetResult() {
+        return result;
+      }
+      
+      public Builder clear() {
+        if (result == null) {
+          throw new IllegalStateException(
+            "Cannot call clear() after build().");
+        }
+        result = new voldemort.client.protocol.pb.VProto.PutAllRequest();
+        return this;
+      }
+      
+      public Builder clone() {
+        return create().mergeFrom(result);
+      }
+      
+      public com.google.protobuf.Descriptors.Descriptor
+          getDescriptorForType() {
+        return voldemort.client.protocol.pb.VProto.PutAllRequest.getDescriptor();
+      }
+      
+      public voldemort.client.protocol.pb.VProto.PutAllRequest getDefaultInstanceForType() {
+        return voldemort.client.protocol.pb.VProto.PutAllRequest.getDefaultInstance();
+      }
+      
+      public boolean isInitialized() {
+        return result.isInitialized();
+      }
+      public voldemort.client.protocol.pb.VProto.PutAllRequest build() {
+        if (result != null && !isInitialized()) {
+          throw newUninitializedMessageException(result);
+        }
+        return buildPartial();
+      }
+      
+      private voldemort.client.protocol.pb.VProto.PutAllRequest buildParsed()
+          throws com.google.protobuf.InvalidProtocolBufferException {
+        if (!isInitialized()) {
+          throw newUninitializedMessageException(
+            result).asInvalidProtocolBufferException();
+        }
+        return buildPartial();
+      }
+      
+      public voldemort.client.protocol.pb.VProto.PutAllRequest buildPartial() {
+        if (result == null) {
+          throw new IllegalStateException(
+            "build() has already been called on this Builder.");
+        }
+        if (result.puts_ != java.util.Collections.EMPTY_LIST) {
+          result.puts_ =
+            java.util.Collections.unmodifiableList(result.puts_);
+        }
+        voldemort.client.protocol.pb.VProto.PutAllRequest returnMe = result;
+        result = null;
+        return returnMe;
+      }
+      
+      public Builder mergeFrom(com.google.protobuf.Message other) {
+        if (other instanceof voldemort.client.protocol.pb.VProto.PutAllRequest) {
+          return mergeFrom((voldemort.client.protocol.pb.VProto.PutAllRequest)other);
+        } else {
+          super.mergeFrom(other);
+          return this;
+        }
+      }
+      
+      public Builder mergeFrom(voldemort.client.protocol.pb.VProto.PutAllRequest other) {
+        if (other == voldemort.client.protocol.pb.VProto.PutAllRequest.getDefaultInstance()) return this;
+        if (!other.puts_.isEmpty()) {
+          if (result.puts_.isEmpty()) {
+            result.puts_ = new java.util.ArrayList<voldemort.client.protocol.pb.VProto.PutRequest>();
+          }
+          result.puts_.addAll(other.puts_);
+        }
+        this.mergeUnknownFields(other.getUnknownFields());
+        return this;
+      }
+      
+      public Builder mergeFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws java.io.IOException {
+        com.google.protobuf.UnknownFieldSet.Builder unknownFields =
+          com.google.protobuf.UnknownFieldSet.newBuilder(
+            this.getUnknownFields());
+        while (true) {
+          int tag = input.readTag();
+          switch (tag) {
+            case 0:
+              this.setUnknownFields(unknownFields.build());
+              return this;
+            default: {
+              if (!parseUnknownField(input, unknownFields,
+                                     extensionRegistry, tag)) {
+                this.setUnknownFields(unknownFields.build());
+                return this;
+              }
+              break;
+            }
+            case 10: {
+              voldemort.client.protocol.pb.VProto.PutRequest.Builder subBuilder = voldemort.client.protocol.pb.VProto.PutRequest.newBuilder();
+              input.readMessage(subBuilder, extensionRegistry);
+              addPuts(subBuilder.buildPartial());
+              break;
+            }
+          }
+        }
+      }
+      
+      
+      // repeated .voldemort.PutRequest puts = 1;
+      public java.util.List<voldemort.client.protocol.pb.VProto.PutRequest> getPutsList() {
+        return java.util.Collections.unmodifiableList(result.puts_);
+      }
+      public int getPutsCount() {
+        return result.getPutsCount();
+      }
+      public voldemort.client.protocol.pb.VProto.PutRequest getPuts(int index) {
+        return result.getPuts(index);
+      }
+      public Builder setPuts(int index, voldemort.client.protocol.pb.VProto.PutRequest value) {
+        if (value == null) {
+          throw new NullPointerException();
+        }
+        result.puts_.set(index, value);
+        return this;
+      }
+      public Builder setPuts(int index, voldemort.client.protocol.pb.VProto.PutRequest.Builder builderForValue) {
+        result.puts_.set(index, builderForValue.build());
+        return this;
+      }
+      public Builder addPuts(voldemort.client.protocol.pb.VProto.PutRequest value) {
+        if (value == null) {
+          throw new NullPointerException();
+        }
+        if (result.puts_.isEmpty()) {
+          result.puts_ = new java.util.ArrayList<voldemort.client.protocol.pb.VProto.PutRequest>();
+        }
+        result.puts_.add(value);
+        return this;
+      }
+      public Builder addPuts(voldemort.client.protocol.pb.VProto.PutRequest.Builder builderForValue) {
+        if (result.puts_.isEmpty()) {
+          result.puts_ = new java.util.ArrayList<voldemort.client.protocol.pb.VProto.PutRequest>();
+        }
+        result.puts_.add(builderForValue.build());
+        return this;
+      }
+      public Builder addAllPuts(
+          java.lang.Iterable<? extends voldemort.client.protocol.pb.VProto.PutRequest> values) {
+        if (result.puts_.isEmpty()) {
+          result.puts_ = new java.util.ArrayList<voldemort.client.protocol.pb.VProto.PutRequest>();
+        }
+        super.addAll(values, result.puts_);
+        return this;
+      }
+      public Builder clearPuts() {
+        result.puts_ = java.util.Collections.emptyList();
+        return this;
+      }
+    }
+    
+    static {
+      voldemort.client.protocol.pb.VProto.getDescriptor();
+    }
+    
+    static {
+      voldemort.client.protocol.pb.VProto.internalForceInit();
+    }
+  }
+  
+  public static final class PutAllResponse extends
+      com.google.protobuf.GeneratedMessage {
+    // Use PutAllResponse.newBuilder() to construct.
+    private PutAllResponse() {}
+    
+    private static final PutAllResponse defaultInstance = new PutAllResponse();
+    public static PutAllResponse getDefaultInstance() {
+      return defaultInstance;
+    }
+    
+    public PutAllResponse getDefaultInstanceForType() {
+      return defaultInstance;
+    }
+    
+    public static final com.google.protobuf.Descriptors.Descriptor
+        getDescriptor() {
+      return voldemort.client.protocol.pb.VProto.internal_static_voldemort_PutAllResponse_descriptor;
+    }
+    
+    protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+        internalGetFieldAccessorTable() {
+      return voldemort.client.protocol.pb.VProto.internal_static_voldemort_PutAllResponse_fieldAccessorTable;
+    }
+    
+    // repeated bytes obsolete_keys = 1;
+    public static final int OBSOLETE_KEYS_FIELD_NUMBER = 1;
+    private java.util.List<com.google.protobuf.ByteString> obsoleteKeys_ =
+      java.util.Collections.emptyList();
+    public java.util.List<com.google.protobuf.ByteString> getObsoleteKeysList() {
+      return obsoleteKeys_;
+    }
+    public int getObsoleteKeysCount() { return obsoleteKeys_.size(); }
+    public com.google.protobuf.ByteString getObsoleteKeys(int index) {
+      return obsoleteKeys_.get(index);
+    }
+    
+    // optional .voldemort.Error error = 2;
+    public static final int ERROR_FIELD_NUMBER = 2;
+    private boolean hasError;
+    private voldemort.client.protocol.pb.VProto.Error error_ = voldemort.client.protocol.pb.VProto.Error.getDefaultInstance();
+    public boolean hasError() { return hasError; }
+    public voldemort.client.protocol.pb.VProto.Error getError() { return error_; }
+    
+    public final boolean isInitialized() {
+      if (hasError()) {
+        if (!getError().isInitialized()) return false;
+      }
+      return true;
+    }
+    
+    public void writeTo(com.google.protobuf.CodedOutputStream output)
+                        throws java.io.IOException {
+      for (com.google.protobuf.ByteString element : getObsoleteKeysList()) {
+        output.writeBytes(1, element);
+      }
+      if (hasError()) {
+        output.writeMessage(2, getError());
+      }
+      getUnknownFields().writeTo(output);
+    }
+    
+    private int memoizedSerializedSize = -1;
+    public int getSerializedSize() {
+      int size = memoizedSerializedSize;
+      if (size != -1) return size;
+    
+      size = 0;
+      {
+        int dataSize = 0;
+        for (com.google.protobuf.ByteString element : getObsoleteKeysList()) {
+          dataSize += com.google.protobuf.CodedOutputStream
+            .computeBytesSizeNoTag(element);
+        }
+        size += dataSize;
+        size += 1 * getObsoleteKeysList().size();
+      }
+      if (hasError()) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeMessageSize(2, getError());
+      }
+      size += getUnknownFields().getSerializedSize();
+      memoizedSerializedSize = size;
+      return size;
+    }
+    
+    public static voldemort.client.protocol.pb.VProto.PutAllResponse parseFrom(
+        com.google.protobuf.ByteString data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return newBuilder().mergeFrom(data).buildParsed();
+    }
+    public static voldemort.client.protocol.pb.VProto.PutAllResponse parseFrom(
+        com.google.protobuf.ByteString data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return newBuilder().mergeFrom(data, extensionRegistry)
+               .buildParsed();
+    }
+    public static voldemort.client.protocol.pb.VProto.PutAllResponse parseFrom(byte[] data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return newBuilder().mergeFrom(data).buildParsed();
+    }
+    public static voldemort.client.protocol.pb.VProto.PutAllResponse parseFrom(
+        byte[] data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return newBuilder().mergeFrom(data, extensionRegistry)
+               .buildParsed();
+    }
+    public static voldemort.client.protocol.pb.VProto.PutAllResponse parseFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return newBuilder().mergeFrom(input).buildParsed();
+    }
+    public static voldemort.client.protocol.pb.VProto.PutAllResponse parseFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return newBuilder().mergeFrom(input, extensionRegistry)
+               .buildParsed();
+    }
+    public static voldemort.client.protocol.pb.VProto.PutAllResponse parseDelimitedFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return newBuilder().mergeDelimitedFrom(input).buildParsed();
+    }
+    public static voldemort.client.protocol.pb.VProto.PutAllResponse parseDelimitedFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return newBuilder().mergeDelimitedFrom(input, extensionRegistry)
+               .buildParsed();
+    }
+    public static voldemort.client.protocol.pb.VProto.PutAllResponse parseFrom(
+        com.google.protobuf.CodedInputStream input)
+        throws java.io.IOException {
+      return newBuilder().mergeFrom(input).buildParsed();
+    }
+    public static voldemort.client.protocol.pb.VProto.PutAllResponse parseFrom(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return newBuilder().mergeFrom(input, extensionRegistry)
+               .buildParsed();
+    }
+    
+    public static Builder newBuilder() { return Builder.create(); }
+    public Builder newBuilderForType() { return newBuilder(); }
+    public static Builder newBuilder(voldemort.client.protocol.pb.VProto.PutAllResponse prototype) {
+      return newBuilder().mergeFrom(prototype);
+    }
+    public Builder toBuilder() { return newBuilder(this); }
+    
+    public static final class Builder extends
+        com.google.protobuf.GeneratedMessage.Builder<Builder> {
+      private voldemort.client.protocol.pb.VProto.PutAllResponse result;
+      
+      // Construct using voldemort.client.protocol.pb.VProto.PutAllResponse.newBuilder()
+      private Builder() {}
+      
+      private static Builder create() {
+        Builder builder = new Builder();
+        builder.result = new voldemort.client.protocol.pb.VProto.PutAllResponse();
+        return builder;
+      }
+      
+      protected voldemort.client.protocol.pb.VProto.PutAllResponse internalGetResult() {
+        return result;
+      }
+      
+      public Builder clear() {
+        if (result == null) {
+          throw new IllegalStateException(
+            "Cannot call clear() after build().");
+        }
+        result = new voldemort.client.protocol.pb.VProto.PutAllResponse();
+        return this;
+      }
+      
+      public Builder clone() {
+        return create().mergeFrom(result);
+      }
+      
+      public com.google.protobuf.Descriptors.Descriptor
+          getDescriptorForType() {
+        return voldemort.client.protocol.pb.VProto.PutAllResponse.getDescriptor();
+      }
+      
+      public voldemort.client.protocol.pb.VProto.PutAllResponse getDefaultInstanceForType() {
+        return voldemort.client.protocol.pb.VProto.PutAllResponse.getDefaultInstance();
+      }
+      
+      public boolean isInitialized() {
+        return result.isInitialized();
+      }
+      public voldemort.client.protocol.pb.VProto.PutAllResponse build() {
+        if (result != null && !isInitialized()) {
+          throw newUninitializedMessageException(result);
+        }
+        return buildPartial();
+      }
+      
+      private voldemort.client.protocol.pb.VProto.PutAllResponse buildParsed()
+          throws com.google.protobuf.InvalidProtocolBufferException {
+        if (!isInitialized()) {
+          throw newUninitializedMessageException(
+            result).asInvalidProtocolBufferException();
+        }
+        return buildPartial();
+      }
+      
+      public voldemort.client.protocol.pb.VProto.PutAllResponse buildPartial() {
+        if (result == null) {
+          throw new IllegalStateException(
+            "build() has already been called on this Builder.");
+        }
+        if (result.obsoleteKeys_ != java.util.Collections.EMPTY_LIST) {
+          result.obsoleteKeys_ =
+            java.util.Collections.unmodifiableList(result.obsoleteKeys_);
+        }
+        voldemort.client.protocol.pb.VProto.PutAllResponse returnMe = result;
+        result = null;
+        return returnMe;
+      }
+      
+      public Builder mergeFrom(com.google.protobuf.Message other) {
+        if (other instanceof voldemort.client.protocol.pb.VProto.PutAllResponse) {
+          return mergeFrom((voldemort.client.protocol.pb.VProto.PutAllResponse)other);
+        } else {
+          super.mergeFrom(other);
+          return this;
+        }
+      }
+      
+      public Builder mergeFrom(voldemort.client.protocol.pb.VProto.PutAllResponse other) {
+        if (other == voldemort.client.protocol.pb.VProto.PutAllResponse.getDefaultInstance()) return this;
+        if (!other.obsoleteKeys_.isEmpty()) {
+          if (result.obsoleteKeys_.isEmpty()) {
+            result.obsoleteKeys_ = new java.util.ArrayList<com.google.protobuf.ByteString>();
+          }
+          result.obsoleteKeys_.addAll(other.obsoleteKeys_);
+        }
+        if (other.hasError()) {
+          mergeError(other.getError());
+        }
+        this.mergeUnknownFields(other.getUnknownFields());
+        return this;
+      }
+      
+      public Builder mergeFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws java.io.IOException {
+        com.google.protobuf.UnknownFieldSet.Builder unknownFields =
+          com.google.protobuf.UnknownFieldSet.newBuilder(
+            this.getUnknownFields());
+        while (true) {
+          int tag = input.readTag();
+          switch (tag) {
+            case 0:
+              this.setUnknownFields(unknownFields.build());
+              return this;
+            default: {
+              if (!parseUnknownField(input, unknownFields,
+                                     extensionRegistry, tag)) {
+                this.setUnknownFields(unknownFields.build());
+                return this;
+              }
+              break;
+            }
+            case 10: {
+              addObsoleteKeys(input.readBytes());
+              break;
+            }
+            case 18: {
+              voldemort.client.protocol.pb.VProto.Error.Builder subBuilder = voldemort.client.protocol.pb.VProto.Error.newBuilder();
+              if (hasError()) {
+                subBuilder.mergeFrom(getError());
+              }
+              input.readMessage(subBuilder, extensionRegistry);
+              setError(subBuilder.buildPartial());
+              break;
+            }
+          }
+        }
+      }
+      
+      
+      // repeated bytes obsolete_keys = 1;
+      public java.util.List<com.google.protobuf.ByteString> getObsoleteKeysList() {
+        return java.util.Collections.unmodifiableList(result.obsoleteKeys_);
+      }
+      public int getObsoleteKeysCount() {
+        return result.getObsoleteKeysCount();
+      }
+      public com.google.protobuf.ByteString getObsoleteKeys(int index) {
+        return result.getObsoleteKeys(index);
+      }
+      public Builder setObsoleteKeys(int index, com.google.protobuf.ByteString value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  result.obsoleteKeys_.set(index, value);
+        return this;
+      }
+      public Builder addObsoleteKeys(com.google.protobuf.ByteString value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  if (result.obsoleteKeys_.isEmpty()) {
+          result.obsoleteKeys_ = new java.util.ArrayList<com.google.protobuf.ByteString>();
+        }
+        result.obsoleteKeys_.add(value);
+        return this;
+      }
+      public Builder addAllObsoleteKeys(
+          java.lang.Iterable<? extends com.google.protobuf.ByteString> values) {
+        if (result.obsoleteKeys_.isEmpty()) {
+          result.obsoleteKeys_ = new java.util.ArrayList<com.google.protobuf.ByteString>();
+        }
+        super.addAll(values, result.obsoleteKeys_);
+        return this;
+      }
+      public Builder clearObsoleteKeys() {
+        result.obsoleteKeys_ = java.util.Collections.emptyList();
+        return this;
+      }
+      
+      // optional .voldemort.Error error = 2;
+      public boolean hasError() {
+        return result.hasError();
+      }
+      public voldemort.client.protocol.pb.VProto.Error getError() {
+        return result.getError();
+      }
+      public Builder setError(voldemort.client.protocol.pb.VProto.Error value) {
+        if (value == null) {
+          throw new NullPointerException();
+        }
+        result.hasError = true;
+        result.error_ = value;
+        return this;
+      }
+      public Builder setError(voldemort.client.protocol.pb.VProto.Error.Builder builderForValue) {
+        result.hasError = true;
+        result.error_ = builderForValue.build();
+        return this;
+      }
+      public Builder mergeError(voldemort.client.protocol.pb.VProto.Error value) {
+        if (result.hasError() &&
+            result.error_ != voldemort.client.protocol.pb.VProto.Error.getDefaultInstance()) {
+          result.error_ =
+            voldemort.client.protocol.pb.VProto.Error.newBuilder(result.error_).mergeFrom(value).buildPartial();
+        } else {
+          result.error_ = value;
+        }
+        result.hasError = true;
+        return this;
+      }
+      public Builder clearError() {
+        result.hasError = false;
+        result.error_ = voldemort.client.protocol.pb.VProto.Error.getDefaultInstance();
+        return this;
+      }
+    }
+    
+    static {
+      voldemort.client.protocol.pb.VProto.getDescriptor();
+    }
+    
+    static {
+      voldemort.client.protocol.pb.VProto.internalForceInit();
+    }
+  }
+  
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_voldemort_ClockEntry_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_voldemort_ClockEntry_fieldAccessorTable;
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_voldemort_VectorClock_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_voldemort_VectorClock_fieldAccessorTable;
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_voldemort_Versioned_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_voldemort_Versioned_fieldAccessorTable;
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_voldemort_Error_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_voldemort_Error_fieldAccessorTable;
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_voldemort_KeyedVersions_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_voldemort_KeyedVersions_fieldAccessorTable;
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_voldemort_GetRequest_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_voldemort_GetRequest_fieldAccessorTable;
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_voldemort_GetResponse_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_voldemort_GetResponse_fieldAccessorTable;
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_voldemort_GetVersionResponse_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_voldemort_GetVersionResponse_fieldAccessorTable;
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_voldemort_GetAllRequest_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_voldemort_GetAllRequest_fieldAccessorTable;
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_voldemort_GetAllResponse_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_voldemort_GetAllResponse_fieldAccessorTable;
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_voldemort_PutRequest_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_voldemort_PutRequest_fieldAccessorTable;
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_voldemort_PutResponse_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_voldemort_PutResponse_fieldAccessorTable;
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_voldemort_DeleteRequest_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_voldemort_DeleteRequest_fieldAccessorTable;
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_voldemort_DeleteResponse_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_voldemort_DeleteResponse_fieldAccessorTable;
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_voldemort_VoldemortRequest_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_voldemort_VoldemortRequest_fieldAccessorTable;
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_voldemort_PutAllRequest_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_voldemort_PutAllRequest_fieldAccessorTable;
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_voldemort_PutAllResponse_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_voldemort_PutAllResponse_fieldAccessorTable;
+  
+  public static com.google.protobuf.Descriptors.FileDescriptor
+      getDescriptor() {
+    return descriptor;
+  }
+  private static com.google.protobuf.Descriptors.FileDescriptor
+      descriptor;
+  static {
+    java.lang.String[] descriptorData = {
+      "\n\026voldemort-client.proto\022\tvoldemort\".\n\nC" +
+      "lockEntry\022\017\n\007node_id\030\001 \002(\005\022\017\n\007version\030\002 " +
+      "\002(\003\"H\n\013VectorClock\022&\n\007entries\030\001 \003(\0132\025.vo" +
+      "ldemort.ClockEntry\022\021\n\ttimestamp\030\002 \001(\003\"C\n" +
+      "\tVersioned\022\r\n\005value\030\001 \002(\014\022\'\n\007version\030\002 \002" +
+      "(\0132\026.voldemort.VectorClock\"2\n\005Error\022\022\n\ne" +
+      "rror_code\030\001 \002(\005\022\025\n\rerror_message\030\002 \002(\t\"D" +
+      "\n\rKeyedVersions\022\013\n\003key\030\001 \002(\014\022&\n\010versions" +
+      "\030\002 \003(\0132\024.voldemort.Versioned\"\031\n\nGetReque" +
+      "st\022\013\n\003key\030\001 \001(\014\"W\n\013GetResponse\022\'\n\tversio",
+      "ned\030\001 \003(\0132\024.voldemort.Versioned\022\037\n\005error" +
+      "\030\002 \001(\0132\020.voldemort.Error\"_\n\022GetVersionRe" +
+      "sponse\022(\n\010versions\030\001 \003(\0132\026.voldemort.Vec" +
+      "torClock\022\037\n\005error\030\002 \001(\0132\020.voldemort.Erro" +
+      "r\"\035\n\rGetAllRequest\022\014\n\004keys\030\001 \003(\014\"[\n\016GetA" +
+      "llResponse\022(\n\006values\030\001 \003(\0132\030.voldemort.K" +
+      "eyedVersions\022\037\n\005error\030\002 \001(\0132\020.voldemort." +
+      "Error\"B\n\nPutRequest\022\013\n\003key\030\001 \002(\014\022\'\n\tvers" +
+      "ioned\030\002 \002(\0132\024.voldemort.Versioned\".\n\013Put" +
+      "Response\022\037\n\005error\030\001 \001(\0132\020.voldemort.Erro",
+      "r\"E\n\rDeleteRequest\022\013\n\003key\030\001 \002(\014\022\'\n\007versi" +
+      "on\030\002 \002(\0132\026.voldemort.VectorClock\"B\n\016Dele" +
+      "teResponse\022\017\n\007success\030\001 \002(\010\022\037\n\005error\030\002 \001" +
+      "(\0132\020.voldemort.Error\"\304\002\n\020VoldemortReques" +
+      "t\022$\n\004type\030\001 \002(\0162\026.voldemort.RequestType\022" +
+      "\033\n\014should_route\030\002 \002(\010:\005false\022\r\n\005store\030\003 " +
+      "\002(\t\022\"\n\003get\030\004 \001(\0132\025.voldemort.GetRequest\022" +
+      "(\n\006getAll\030\005 \001(\0132\030.voldemort.GetAllReques" +
+      "t\022\"\n\003put\030\006 \001(\0132\025.voldemort.PutRequest\022(\n" +
+      "\006delete\030\007 \001(\0132\030.voldemort.DeleteRequest\022",
+      "\030\n\020requestRouteType\030\010 \001(\005\022(\n\006putAll\030\t \001(" +
+      "\0132\030.voldemort.PutAllRequest\"4\n\rPutAllReq" +
+      "uest\022#\n\004puts\030\001 \003(\0132\025.voldemort.PutReques" +
+      "t\"H\n\016PutAllResponse\022\025\n\robsolete_keys\030\001 \003" +
+      "(\014\022\037\n\005error\030\002 \001(\0132\020.voldemort.Error*V\n\013R" +
+      "equestType\022\007\n\003GET\020\000\022\013\n\007GET_ALL\020\001\022\007\n\003PUT\020" +
+      "\002\022\n\n\006DELETE\020\003\022\017\n\013GET_VERSION\020\004\022\013\n\007PUT_AL" +
+      "L\020\005B(\n\034voldemort.client.protocol.pbB\006VPr" +
+      "otoH\001"
+    };
+    com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
+      new com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner() {
+        public com.google.protobuf.ExtensionRegistry assignDescriptors(
+            com.google.protobuf.Descriptors.FileDescriptor root) {
+          descriptor = root;
+          internal_static_voldemort_ClockEntry_descriptor =
+            getDescriptor().getMessageTypes().get(0);
+          internal_static_voldemort_ClockEntry_fieldAccessorTable = new
+            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+              internal_static_voldemort_ClockEntry_descriptor,
+              new java.lang.String[] { "NodeId", "Version", },
+              voldemort.client.protocol.pb.VProto.ClockEntry.class,
+              voldemort.client.protocol.pb.VProto.ClockEntry.Builder.class);
+          internal_static_voldemort_VectorClock_descriptor =
+            getDescriptor().getMessageTypes().get(1);
+          internal_static_voldemort_VectorClock_fieldAccessorTable = new
+            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+              internal_static_voldemort_VectorClock_descriptor,
+              new java.lang.String[] { "Entries", "Timestamp", },
+              voldemort.client.protocol.pb.VProto.VectorClock.class,
+              voldemort.client.protocol.pb.VProto.VectorClock.Builder.class);
+          internal_static_voldemort_Versioned_descriptor =
+            getDescriptor().getMessageTypes().get(2);
+          internal_static_voldemort_Versioned_fieldAccessorTable = new
+            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+              internal_static_voldemort_Versioned_descriptor,
+              new java.lang.String[] { "Value", "Version", },
+              voldemort.client.protocol.pb.VProto.Versioned.class,
+              voldemort.client.protocol.pb.VProto.Versioned.Builder.class);
+          internal_static_voldemort_Error_descriptor =
+            getDescriptor().getMessageTypes().get(3);
+          internal_static_voldemort_Error_fieldAccessorTable = new
+            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+              internal_static_voldemort_Error_descriptor,
+              new java.lang.String[] { "ErrorCode", "ErrorMessage", },
+              voldemort.client.protocol.pb.VProto.Error.class,
+              voldemort.client.protocol.pb.VProto.Error.Builder.class);
+          internal_static_voldemort_KeyedVersions_descriptor =
+            getDescriptor().getMessageTypes().get(4);
+          internal_static_voldemort_KeyedVersions_fieldAccessorTable = new
+            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+              internal_static_voldemort_KeyedVersions_descriptor,
+              new java.lang.String[] { "Key", "Versions", },
+              voldemort.client.protocol.pb.VProto.KeyedVersions.class,
+              voldemort.client.protocol.pb.VProto.KeyedVersions.Builder.class);
+          internal_static_voldemort_GetRequest_descriptor =
+            getDescriptor().getMessageTypes().get(5);
+          internal_static_voldemort_GetRequest_fieldAccessorTable = new
+            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+              internal_static_voldemort_GetRequest_descriptor,
+              new java.lang.String[] { "Key", },
+              voldemort.client.protocol.pb.VProto.GetRequest.class,
+              voldemort.client.protocol.pb.VProto.GetRequest.Builder.class);
+          internal_static_voldemort_GetResponse_descriptor =
+            getDescriptor().getMessageTypes().get(6);
+          internal_static_voldemort_GetResponse_fieldAccessorTable = new
+            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+              internal_static_voldemort_GetResponse_descriptor,
+              new java.lang.String[] { "Versioned", "Error", },
+              voldemort.client.protocol.pb.VProto.GetResponse.class,
+              voldemort.client.protocol.pb.VProto.GetResponse.Builder.class);
+          internal_static_voldemort_GetVersionResponse_descriptor =
+            getDescriptor().getMessageTypes().get(7);
+          internal_static_voldemort_GetVersionResponse_fieldAccessorTable = new
+            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+              internal_static_voldemort_GetVersionResponse_descriptor,
+              new java.lang.String[] { "Versions", "Error", },
+              voldemort.client.protocol.pb.VProto.GetVersionResponse.class,
+              voldemort.client.protocol.pb.VProto.GetVersionResponse.Builder.class);
+          internal_static_voldemort_GetAllRequest_descriptor =
+            getDescriptor().getMessageTypes().get(8);
+          internal_static_voldemort_GetAllRequest_fieldAccessorTable = new
+            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+              internal_static_voldemort_GetAllRequest_descriptor,
+              new java.lang.String[] { "Keys", },
+              voldemort.client.protocol.pb.VProto.GetAllRequest.class,
+              voldemort.client.protocol.pb.VProto.GetAllRequest.Builder.class);
+          internal_static_voldemort_GetAllResponse_descriptor =
+            getDescriptor().getMessageTypes().get(9);
+          internal_static_voldemort_GetAllResponse_fieldAccessorTable = new
+            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+              internal_static_voldemort_GetAllResponse_descriptor,
+              new java.lang.String[] { "Values", "Error", },
+              voldemort.client.protocol.pb.VProto.GetAllResponse.class,
+              voldemort.client.protocol.pb.VProto.GetAllResponse.Builder.class);
+          internal_static_voldemort_PutRequest_descriptor =
+            getDescriptor().getMessageTypes().get(10);
+          internal_static_voldemort_PutRequest_fieldAccessorTable = new
+            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+              internal_static_voldemort_PutRequest_descriptor,
+              new java.lang.String[] { "Key", "Versioned", },
+              voldemort.client.protocol.pb.VProto.PutRequest.class,
+              voldemort.client.protocol.pb.VProto.PutRequest.Builder.class);
+          internal_static_voldemort_PutResponse_descriptor =
+            getDescriptor().getMessageTypes().get(11);
+          internal_static_voldemort_PutResponse_fieldAccessorTable = new
+            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+              internal_static_voldemort_PutResponse_descriptor,
+              new java.lang.String[] { "Error", },
+              voldemort.client.protocol.pb.VProto.PutResponse.class,
+              voldemort.client.protocol.pb.VProto.PutResponse.Builder.class);
+          internal_static_voldemort_DeleteRequest_descriptor =
+            getDescriptor().getMessageTypes().get(12);
+          internal_static_voldemort_DeleteRequest_fieldAccessorTable = new
+            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+              internal_static_voldemort_DeleteRequest_descriptor,
+              new java.lang.String[] { "Key", "Version", },
+              voldemort.client.protocol.pb.VProto.DeleteRequest.class,
+              voldemort.client.protocol.pb.VProto.DeleteRequest.Builder.class);
+          internal_static_voldemort_DeleteResponse_descriptor =
+            getDescriptor().getMessageTypes().get(13);
+          internal_static_voldemort_DeleteResponse_fieldAccessorTable = new
+            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+              internal_static_voldemort_DeleteResponse_descriptor,
+              new java.lang.String[] { "Success", "Error", },
+              voldemort.client.protocol.pb.VProto.DeleteResponse.class,
               voldemort.client.protocol.pb.VProto.DeleteResponse.Builder.class);
           internal_static_voldemort_VoldemortRequest_descriptor =
             getDescriptor().getMessageTypes().get(14);
           internal_static_voldemort_VoldemortRequest_fieldAccessorTable = new
             com.google.protobuf.GeneratedMessage.FieldAccessorTable(
               internal_static_voldemort_VoldemortRequest_descriptor,
-              new java.lang.String[] { "Type", "ShouldRoute", "Store", "Get", "GetAll", "Put", "Delete", "RequestRouteType", },
+              new java.lang.String[] { "Type", "ShouldRoute", "Store", "Get", "GetAll", "Put", "Delete", "RequestRouteType", "PutAll", },
               voldemort.client.protocol.pb.VProto.VoldemortRequest.class,
               voldemort.client.protocol.pb.VProto.VoldemortRequest.Builder.class);
+          internal_static_voldemort_PutAllRequest_descriptor =
+            getDescriptor().getMessageTypes().get(15);
+          internal_static_voldemort_PutAllRequest_fieldAccessorTable = new
+            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+              internal_static_voldemort_PutAllRequest_descriptor,
+              new java.lang.String[] { "Puts", },
+              voldemort.client.protocol.pb.VProto.PutAllRequest.class,
+              voldemort.client.protocol.pb.VProto.PutAllRequest.Builder.class);
+          internal_static_voldemort_PutAllResponse_descriptor =
+            getDescriptor().getMessageTypes().get(16);
+          internal_static_voldemort_PutAllResponse_fieldAccessorTable = new
+            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+              internal_static_voldemort_PutAllResponse_descriptor,
+              new java.lang.String[] { "ObsoleteKeys", "Error", },
+              voldemort.client.protocol.pb.VProto.PutAllResponse.class,
+              voldemort.client.protocol.pb.VProto.PutAllResponse.Builder.class);
           return null;
         }
       };
@@ -22,8 +22,10 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.log4j.Logger;
 
@@ -43,6 +45,9 @@ import voldemort.versioning.Versioned;
 /**
  * The {@link voldemort.client.protocol.RequestFormat} for a low-overhead custom
  * binary protocol
+ * <p/>
+ * In version 3 each request and response is preceded by a request id, which
+ * is written and read by the connection rather than by this class.
  * 
  * 
  */
@@ -95,7 +100,7 @@ public class VoldemortNativeClientRequestFormat implements RequestFormat {
         outputStream.writeUTF(storeName);
         outputStream.writeBoolean(routingType.equals(RequestRoutingType.ROUTED));
         if(protocolVersion >= 2) {
-            outputStream.writeUTF(routingType.toString());
+            outputStream.writeByte(routingType.getRoutingTypeCode());
         }
         outputStream.writeInt(key.length());
         outputStream.write(key.get());
@@ -134,7 +139,7 @@ public class VoldemortNativeClientRequestFormat implements RequestFormat {
         output.writeUTF(storeName);
         output.writeBoolean(routingType.equals(RequestRoutingType.ROUTED));
         if(protocolVersion >= 2) {
-            output.writeUTF(routingType.toString());
+            output.writeByte(routingType.getRoutingTypeCode());
         }
         // write out keys
         List<ByteArray> l = new ArrayList<ByteArray>();
@@ -176,7 +181,7 @@ public class VoldemortNativeClientRequestFormat implements RequestFormat {
         outputStream.writeUTF(storeName);
         outputStream.writeBoolean(routingType.equals(RequestRoutingType.ROUTED));
         if(protocolVersion >= 2) {
-            outputStream.writeUTF(routingType.toString());
+            outputStream.writeByte(routingType.getRoutingTypeCode());
         }
         outputStream.writeInt(key.length());
         outputStream.write(key.get());
@@ -193,6 +198,79 @@ public class VoldemortNativeClientRequestFormat implements RequestFormat {
         checkException(inputStream);
     }
 
+    public void writeBlindPutRequest(DataOutputStream outputStream,
+                                     String storeName,
+                                     ByteArray key,
+                                     byte[] value,
+                                     RequestRoutingType routingType) throws IOException {
+        if(protocolVersion < 3)
+            throw new UnsupportedOperationException("Blind puts require protocol version 3, not "
+                                                    + protocolVersion + ".");
+        StoreUtils.assertValidKey(key);
+        outputStream.writeByte(VoldemortOpCode.BLIND_PUT_OP_CODE);
+        outputStream.writeUTF(storeName);
+        outputStream.writeBoolean(routingType.equals(RequestRoutingType.ROUTED));
+        outputStream.writeByte(routingType.getRoutingTypeCode());
+        outputStream.writeInt(key.length());
+        outputStream.write(key.get());
+        outputStream.writeInt(value.length);
+        outputStream.write(value);
+    }
+
+    public boolean isCompleteBlindPutResponse(ByteBuffer buffer) {
+        return isCompleteResponse(buffer, VoldemortOpCode.BLIND_PUT_OP_CODE);
+    }
+
+    public Version readBlindPutResponse(DataInputStream inputStream) throws IOException {
+        checkException(inputStream);
+        int versionSize = inputStream.readInt();
+        byte[] bytes = new byte[versionSize];
+        ByteUtils.read(inputStream, bytes);
+        return new VectorClock(bytes);
+    }
+
+    public void writePutAllRequest(DataOutputStream outputStream,
+                                   String storeName,
+                                   Map<ByteArray, Versioned<byte[]>> entries,
+                                   RequestRoutingType routingType) throws IOException {
+        if(protocolVersion < 3)
+            throw new UnsupportedOperationException("putAll requires protocol version 3, not "
+                                                    + protocolVersion + ".");
+        StoreUtils.assertValidKeys(entries.keySet());
+        outputStream.writeByte(VoldemortOpCode.PUT_ALL_OP_CODE);
+        outputStream.writeUTF(storeName);
+        outputStream.writeBoolean(routingType.equals(RequestRoutingType.ROUTED));
+        outputStream.writeByte(routingType.getRoutingTypeCode());
+        outputStream.writeInt(entries.size());
+        for(Map.Entry<ByteArray, Versioned<byte[]>> entry: entries.entrySet()) {
+            ByteArray key = entry.getKey();
+            byte[] value = entry.getValue().getValue();
+            VectorClock version = (VectorClock) entry.getValue().getVersion();
+            outputStream.writeInt(key.length());
+            outputStream.write(key.get());
+            outputStream.writeInt(value.length + version.sizeInBytes());
+            outputStream.write(version.toBytes());
+            outputStream.write(value);
+        }
+    }
+
+    public boolean isCompletePutAllResponse(ByteBuffer buffer) {
+        return isCompleteResponse(buffer, VoldemortOpCode.PUT_ALL_OP_CODE);
+    }
+
+    public Set<ByteArray> readPutAllResponse(DataInputStream inputStream) throws IOException {
+        checkException(inputStream);
+        int numObsoleteKeys = inputStream.readInt();
+        Set<ByteArray> obsoleteKeys = new HashSet<ByteArray>(numObsoleteKeys);
+        for(int i = 0; i < numObsoleteKeys; i++) {
+            int keySize = inputStream.readInt();
+            byte[] key = new byte[keySize];
+            inputStream.readFully(key);
+            obsoleteKeys.add(new ByteArray(key));
+        }
+        return obsoleteKeys;
+    }
+
     /*
      * If there is an exception, throw it
      */
@@ -231,7 +309,7 @@ public class VoldemortNativeClientRequestFormat implements RequestFormat {
         output.writeUTF(storeName);
         output.writeBoolean(routingType.equals(RequestRoutingType.ROUTED));
         if(protocolVersion >= 2) {
-            output.writeUTF(routingType.toString());
+            output.writeByte(routingType.getRoutingTypeCode());
         }
         output.writeInt(key.length());
         output.write(key.get());
@@ -262,14 +340,23 @@ public class VoldemortNativeClientRequestFormat implements RequestFormat {
                     case VoldemortOpCode.PUT_OP_CODE:
                         readPutResponse(inputStream);
                         break;
+
+                    case VoldemortOpCode.BLIND_PUT_OP_CODE:
+                        readBlindPutResponse(inputStream);
+                        break;
+
+                    case VoldemortOpCode.PUT_ALL_OP_CODE:
+                        readPutAllResponse(inputStream);
+                        break;
                 }
             } catch(VoldemortException e) {
                 // Ignore application-level exceptions
             }
 
             // If there aren't any remaining, we've "consumed" all the bytes and
-            // thus have a complete request...
-            return !buffer.hasRemaining();
+            // thus have a complete request. From version 3 on several
+            // responses can be in the buffer, so it's enough to have read one.
+            return protocolVersion > 2 || !buffer.hasRemaining();
         } catch(Exception e) {
             // This could also occur if the various methods we call into
             // re-throw a corrupted value error as some other type of exception.
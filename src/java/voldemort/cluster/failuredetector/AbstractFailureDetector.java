@@ -137,11 +137,7 @@ public abstract class AbstractFailureDetector implements FailureDetector {
 
     public long getLastChecked(Node node) {
         checkNodeArg(node);
-        NodeStatus nodeStatus = getNodeStatus(node);
-
-        synchronized(nodeStatus) {
-            return nodeStatus.getLastChecked();
-        }
+        return getNodeStatus(node).getLastChecked();
     }
 
     public void destroy() {}
@@ -248,6 +244,13 @@ public abstract class AbstractFailureDetector implements FailureDetector {
      */
 
     private boolean setAvailable(NodeStatus nodeStatus, boolean isAvailable) {
+        // Most notices are redundant and don't change the status, so those
+        // don't need the lock.
+        if(nodeStatus.isAvailable() == isAvailable) {
+            nodeStatus.setLastChecked(getConfig().getTime().getMilliseconds());
+            return isAvailable;
+        }
+
         synchronized(nodeStatus) {
             boolean previous = nodeStatus.isAvailable();
 
@@ -67,11 +67,7 @@ public class AsyncRecoveryFailureDetector extends AbstractFailureDetector implem
 
     public boolean isAvailable(Node node) {
         checkNodeArg(node);
-        NodeStatus nodeStatus = getNodeStatus(node);
-
-        synchronized(nodeStatus) {
-            return nodeStatus.isAvailable();
-        }
+        return getNodeStatus(node).isAvailable();
     }
 
     public void recordException(Node node, long requestTime, UnreachableStoreException e) {
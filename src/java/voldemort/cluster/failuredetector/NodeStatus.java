@@ -16,26 +16,30 @@
 
 package voldemort.cluster.failuredetector;
 
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Holds the status of a node--either available or unavailable as well as the
  * last date the status was checked.
  * 
- * Operations on this class are not atomic, but that is okay.
+ * The fields may be read and updated without holding the monitor of the
+ * status: the request counts are atomic and the rest are volatile. Changes of
+ * availability are still made holding the monitor, on which waiters for the
+ * node to become available are parked.
  * 
  * 
  */
 class NodeStatus {
 
-    private long lastChecked;
+    private volatile long lastChecked;
 
-    private boolean isAvailable;
+    private volatile boolean isAvailable;
 
-    private long startMillis;
+    private final AtomicLong startMillis = new AtomicLong();
 
-    private long success;
+    private final AtomicLong success = new AtomicLong();
 
-    private long total;
+    private final AtomicLong total = new AtomicLong();
 
     public long getLastChecked() {
         return lastChecked;
@@ -54,35 +58,47 @@ class NodeStatus {
     }
 
     public long getStartMillis() {
-        return startMillis;
+        return startMillis.get();
     }
 
     public void setStartMillis(long startMillis) {
-        this.startMillis = startMillis;
+        this.startMillis.set(startMillis);
+    }
+
+    /**
+     * Moves the start of the interval on, provided no other thread has done so
+     * since it was read.
+     * 
+     * @param expected The start of the interval as it was read
+     * @param startMillis The start of the new interval
+     * @return True if this call moved the interval on
+     */
+    public boolean compareAndSetStartMillis(long expected, long startMillis) {
+        return this.startMillis.compareAndSet(expected, startMillis);
     }
 
     public long getSuccess() {
-        return success;
+        return success.get();
     }
 
     public void setSuccess(long success) {
-        this.success = success;
+        this.success.set(success);
     }
 
-    public void incrementSuccess(long delta) {
-        this.success += delta;
+    public long incrementSuccess(long delta) {
+        return this.success.addAndGet(delta);
     }
 
     public long getTotal() {
-        return total;
+        return total.get();
     }
 
     public void setTotal(long total) {
-        this.total = total;
+        this.total.set(total);
     }
 
-    public void incrementTotal(long delta) {
-        this.total += delta;
+    public long incrementTotal(long delta) {
+        return this.total.addAndGet(delta);
     }
 
 }
@@ -76,20 +76,20 @@ public class ThresholdFailureDetector extends AsyncRecoveryFailureDetector {
         checkArgs(node, requestTime);
 
         int successDelta = 1;
-        UnreachableStoreException e = null;
 
         if(requestTime > getConfig().getRequestLengthThreshold()) {
             // Consider slow requests as "soft" errors that are counted against
-            // us in our success threshold.
-            e = new UnreachableStoreException("Node " + node.getId()
-                                              + " recording success, but request time ("
-                                              + requestTime + ") exceeded threshold ("
-                                              + getConfig().getRequestLengthThreshold() + ")");
+            // us in our success threshold. There is no exception to record
+            // for them, so none is built on what is the common path.
+            if(logger.isDebugEnabled())
+                logger.debug("Node " + node.getId() + " recording success, but request time ("
+                             + requestTime + ") exceeded threshold ("
+                             + getConfig().getRequestLengthThreshold() + ")");
 
             successDelta = 0;
         }
 
-        update(node, successDelta, e);
+        update(node, successDelta, null);
     }
 
     @JmxGetter(name = "nodeThresholdStats", description = "Each node is listed with its status (available/unavailable) and success percentage")
@@ -98,14 +98,10 @@ public class ThresholdFailureDetector extends AsyncRecoveryFailureDetector {
 
         for(Node node: getConfig().getNodes()) {
             NodeStatus nodeStatus = getNodeStatus(node);
-            boolean isAvailabile = false;
-            long percentage = 0;
-
-            synchronized(nodeStatus) {
-                isAvailabile = nodeStatus.isAvailable();
-                percentage = nodeStatus.getTotal() > 0 ? (nodeStatus.getSuccess() * 100)
-                                                         / nodeStatus.getTotal() : 0;
-            }
+            boolean isAvailabile = nodeStatus.isAvailable();
+            long total = nodeStatus.getTotal();
+            long percentage = total > 0 ? (Math.min(nodeStatus.getSuccess(), total) * 100)
+                                          / total : 0;
 
             list.add(node.getId() + ",status=" + (isAvailabile ? "available" : "unavailable")
                      + ",percentage=" + percentage + "%");
@@ -142,38 +138,42 @@ public class ThresholdFailureDetector extends AsyncRecoveryFailureDetector {
         }
 
         final long currentTime = getConfig().getTime().getMilliseconds();
-        String catastrophicError = getCatastrophicError(e);
         NodeStatus nodeStatus = getNodeStatus(node);
+        long startMillis = nodeStatus.getStartMillis();
+
+        // The counts are updated without locking as every request outcome
+        // passes through here. Only the thread that moves the interval on
+        // resets them; outcomes counted by other threads in between are lost,
+        // which the ratio can bear.
+        if(currentTime >= startMillis + getConfig().getThresholdInterval()
+           && nodeStatus.compareAndSetStartMillis(startMillis, currentTime)) {
+            // We've passed into a new interval, so reset our counts
+            // appropriately.
+            nodeStatus.setSuccess(successDelta);
+            nodeStatus.setTotal(1);
+            return;
+        }
 
-        synchronized(nodeStatus) {
-            if(currentTime >= nodeStatus.getStartMillis() + getConfig().getThresholdInterval()) {
-                // We've passed into a new interval, so reset our counts
-                // appropriately.
-                nodeStatus.setStartMillis(currentTime);
-                nodeStatus.setSuccess(successDelta);
-                nodeStatus.setTotal(1);
-            } else {
-                nodeStatus.incrementSuccess(successDelta);
-                nodeStatus.incrementTotal(1);
-
-                if(catastrophicError != null) {
-                    if(logger.isTraceEnabled())
-                        logger.trace("Node " + node.getId() + " experienced catastrophic error: "
-                                     + catastrophicError);
-
-                    setUnavailable(node, e);
-                } else if(nodeStatus.getTotal() >= getConfig().getThresholdCountMinimum()) {
-                    long percentage = (nodeStatus.getSuccess() * 100) / nodeStatus.getTotal();
-
-                    if(logger.isTraceEnabled())
-                        logger.trace("Node " + node.getId() + " percentage: " + percentage + "%");
-
-                    if(percentage >= getConfig().getThreshold())
-                        setAvailable(node);
-                    else
-                        setUnavailable(node, e);
-                }
-            }
+        long success = nodeStatus.incrementSuccess(successDelta);
+        long total = nodeStatus.incrementTotal(1);
+        String catastrophicError = getCatastrophicError(e);
+
+        if(catastrophicError != null) {
+            if(logger.isTraceEnabled())
+                logger.trace("Node " + node.getId() + " experienced catastrophic error: "
+                             + catastrophicError);
+
+            setUnavailable(node, e);
+        } else if(total >= getConfig().getThresholdCountMinimum()) {
+            long percentage = (Math.min(success, total) * 100) / total;
+
+            if(logger.isTraceEnabled())
+                logger.trace("Node " + node.getId() + " percentage: " + percentage + "%");
+
+            if(percentage >= getConfig().getThreshold())
+                setAvailable(node);
+            else
+                setUnavailable(node, e);
         }
     }
 
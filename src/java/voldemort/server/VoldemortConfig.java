@@ -27,6 +27,7 @@ import voldemort.cluster.failuredetector.FailureDetectorConfig;
 import voldemort.store.bdb.BdbStorageConfiguration;
 import voldemort.store.memory.CacheStorageConfiguration;
 import voldemort.store.memory.InMemoryStorageConfiguration;
+import voldemort.store.memory.OffHeapStorageConfiguration;
 import voldemort.store.mysql.MysqlStorageConfiguration;
 import voldemort.store.readonly.BinarySearchStrategy;
 import voldemort.store.readonly.ReadOnlyStorageConfiguration;
@@ -71,6 +72,13 @@ public class VoldemortConfig implements Serializable {
     private int bdbCleanerMinFileUtilization;
     private int bdbCleanerMinUtilization;
     private boolean bdbCursorPreload;
+    private boolean bdbGroupCommit;
+    private long bdbGroupCommitWindowUs;
+    private boolean bdbPartitionPrefixedKeys;
+    private boolean bdbExpiryIndex;
+
+    private long offHeapStoreSize;
+    private int offHeapSlabSize;
 
     private String mysqlUsername;
     private String mysqlPassword;
@@ -81,6 +89,10 @@ public class VoldemortConfig implements Serializable {
     private int readOnlyBackups;
     private String readOnlyStorageDir;
     private String readOnlySearchStrategy;
+    private boolean readOnlyMapDataFiles;
+    private int readOnlySparseIndexInterval;
+    private int readOnlyGetAllThreads;
+    private boolean readOnlyWarmUp;
 
     private int coreThreads;
     private int maxThreads;
@@ -92,6 +104,10 @@ public class VoldemortConfig implements Serializable {
     private boolean useNioConnector;
     private int nioConnectorSelectors;
     private int nioAdminConnectorSelectors;
+    private int nioConnectorWorkerThreads;
+    private int nioConnectorWorkerThreadsPerStore;
+    private int nioConnectorMaxQueuedRequestsPerStore;
+    private long nioConnectorBufferPoolSize;
 
     private int clientSelectors;
     private int clientRoutingTimeoutMs;
@@ -108,6 +124,9 @@ public class VoldemortConfig implements Serializable {
     private RequestFormatType requestFormatType;
 
     private boolean enableSlop;
+    private boolean enableSlopPusher;
+    private int slopBatchSize;
+    private int slopMaxParallelPushes;
     private boolean enableGui;
     private boolean enableHttpServer;
     private boolean enableSocketServer;
@@ -196,14 +215,25 @@ public class VoldemortConfig implements Serializable {
 
         // enabling preload make cursor slow for insufficient bdb cache size.
         this.bdbCursorPreload = props.getBoolean("bdb.cursor.preload", false);
+        this.bdbGroupCommit = props.getBoolean("bdb.group.commit", false);
+        this.bdbGroupCommitWindowUs = props.getLong("bdb.group.commit.window.us", 500);
+        this.bdbPartitionPrefixedKeys = props.getBoolean("bdb.partition.prefixed.keys", false);
+        this.bdbExpiryIndex = props.getBoolean("bdb.expiry.index", false);
 
         this.readOnlyBackups = props.getInt("readonly.backups", 1);
         this.readOnlySearchStrategy = props.getString("readonly.search.strategy",
                                                       BinarySearchStrategy.class.getName());
+        this.readOnlyMapDataFiles = props.getBoolean("readonly.mmap.data.files", false);
+        this.readOnlySparseIndexInterval = props.getInt("readonly.sparse.index.interval", 0);
+        this.readOnlyGetAllThreads = props.getInt("readonly.getall.threads", 0);
+        this.readOnlyWarmUp = props.getBoolean("readonly.warmup.enable", false);
         this.readOnlyStorageDir = props.getString("readonly.data.directory", this.dataDirectory
                                                                              + File.separator
                                                                              + "read-only");
 
+        this.offHeapStoreSize = props.getBytes("offheap.store.size", 256 * 1024 * 1024);
+        this.offHeapSlabSize = (int) props.getBytes("offheap.slab.size", 4 * 1024 * 1024);
+
         this.slopStoreType = props.getString("slop.store.engine", BdbStorageConfiguration.TYPE_NAME);
 
         this.mysqlUsername = props.getString("mysql.user", "root");
@@ -238,6 +268,13 @@ public class VoldemortConfig implements Serializable {
         this.nioAdminConnectorSelectors = props.getInt("nio.admin.connector.selectors",
                                                        Math.max(8, Runtime.getRuntime()
                                                                           .availableProcessors()));
+        this.nioConnectorWorkerThreads = props.getInt("nio.connector.worker.threads", 0);
+        this.nioConnectorWorkerThreadsPerStore = props.getInt("nio.connector.worker.threads.per.store",
+                                                              Math.max(1,
+                                                                       nioConnectorWorkerThreads / 2));
+        this.nioConnectorMaxQueuedRequestsPerStore = props.getInt("nio.connector.max.queued.requests.per.store",
+                                                                  1024);
+        this.nioConnectorBufferPoolSize = props.getBytes("nio.connector.buffer.pool.size", 0);
 
         this.clientSelectors = props.getInt("client.selectors", 4);
         this.clientMaxConnectionsPerNode = props.getInt("client.max.connections.per.node", 5);
@@ -253,6 +290,7 @@ public class VoldemortConfig implements Serializable {
         this.enableJmx = props.getBoolean("jmx.enable", true);
         this.enablePipelineRoutedStore = props.getBoolean("enable.pipeline.routed.store", false);
         this.enableSlop = props.getBoolean("slop.enable", true);
+        this.enableSlopPusher = props.getBoolean("slop.pusher.enable", false);
         this.enableVerboseLogging = props.getBoolean("enable.verbose.logging", true);
         this.enableStatTracking = props.getBoolean("enable.stat.tracking", true);
         this.enableServerRouting = props.getBoolean("enable.server.routing", true);
@@ -263,6 +301,8 @@ public class VoldemortConfig implements Serializable {
 
         this.gossipInterval = props.getInt("gossip.interval.ms", 30 * 1000);
         this.pusherPollMs = props.getInt("pusher.poll.ms", 2 * 60 * 1000);
+        this.slopBatchSize = props.getInt("slop.batch.size", 1000);
+        this.slopMaxParallelPushes = props.getInt("slop.max.parallel.pushes", 3);
 
         this.schedulerThreads = props.getInt("scheduler.threads", 6);
 
@@ -273,6 +313,7 @@ public class VoldemortConfig implements Serializable {
                                                                     MysqlStorageConfiguration.class.getName(),
                                                                     InMemoryStorageConfiguration.class.getName(),
                                                                     CacheStorageConfiguration.class.getName(),
+                                                                    OffHeapStorageConfiguration.class.getName(),
                                                                     ReadOnlyStorageConfiguration.class.getName()));
 
         // start at midnight (0-23)
@@ -336,6 +377,10 @@ public class VoldemortConfig implements Serializable {
             throw new ConfigurationException("max.threads cannot be less than 1.");
         if(pusherPollMs < 1)
             throw new ConfigurationException("pusher.poll.ms cannot be less than 1.");
+        if(slopBatchSize < 1)
+            throw new ConfigurationException("slop.batch.size cannot be less than 1.");
+        if(slopMaxParallelPushes < 1)
+            throw new ConfigurationException("slop.max.parallel.pushes cannot be less than 1.");
         if(socketTimeoutMs < 0)
             throw new ConfigurationException("socket.timeout.ms must be 0 or more ms.");
         if(clientSelectors < 1)
@@ -559,6 +604,63 @@ public class VoldemortConfig implements Serializable {
         this.bdbCursorPreload = bdbCursorPreload;
     }
 
+    /**
+     * If true, and transactions are written and flushed, concurrent commits
+     * share a single log flush instead of flushing one by one. A commit still
+     * returns only once it is flushed. Given by "bdb.group.commit", default:
+     * false
+     */
+    public boolean isBdbGroupCommitEnabled() {
+        return bdbGroupCommit;
+    }
+
+    public void setBdbGroupCommit(boolean bdbGroupCommit) {
+        this.bdbGroupCommit = bdbGroupCommit;
+    }
+
+    /**
+     * How long a group commit flush waits for more commits to join it, in
+     * microseconds. Given by "bdb.group.commit.window.us", default: 500
+     */
+    public long getBdbGroupCommitWindowUs() {
+        return bdbGroupCommitWindowUs;
+    }
+
+    public void setBdbGroupCommitWindowUs(long bdbGroupCommitWindowUs) {
+        this.bdbGroupCommitWindowUs = bdbGroupCommitWindowUs;
+    }
+
+    /**
+     * If true, BDB stores prefix every key with the partition it hashes to,
+     * so that the keys of a partition are stored together and can be read
+     * without scanning the rest of the store. The layout of a store is
+     * recorded when it is created, and a store is not opened with the other
+     * layout. Given by
+     * "bdb.partition.prefixed.keys", default: false
+     */
+    public boolean isBdbPartitionPrefixedKeysEnabled() {
+        return bdbPartitionPrefixedKeys;
+    }
+
+    public void setBdbPartitionPrefixedKeys(boolean bdbPartitionPrefixedKeys) {
+        this.bdbPartitionPrefixedKeys = bdbPartitionPrefixedKeys;
+    }
+
+    /**
+     * If true, BDB stores with a retention period keep an index of their keys
+     * by the time they were written, so that the retention cleanup only visits
+     * expired data instead of scanning the store. The index of a store with
+     * data is built when the store is opened, and is dropped if the store is
+     * opened without it. Given by "bdb.expiry.index", default: false
+     */
+    public boolean isBdbExpiryIndexEnabled() {
+        return bdbExpiryIndex;
+    }
+
+    public void setBdbExpiryIndex(boolean bdbExpiryIndex) {
+        this.bdbExpiryIndex = bdbExpiryIndex;
+    }
+
     /**
      * The comfortable number of threads the threadpool will attempt to
      * maintain. Specified by "core.threads" default: max(1, floor(0.5 *
@@ -806,6 +908,30 @@ public class VoldemortConfig implements Serializable {
         this.enableSlop = enableSlop;
     }
 
+    public boolean isSlopPusherEnabled() {
+        return this.enableSlopPusher;
+    }
+
+    public void setEnableSlopPusher(boolean enableSlopPusher) {
+        this.enableSlopPusher = enableSlopPusher;
+    }
+
+    public int getSlopBatchSize() {
+        return this.slopBatchSize;
+    }
+
+    public void setSlopBatchSize(int slopBatchSize) {
+        this.slopBatchSize = slopBatchSize;
+    }
+
+    public int getSlopMaxParallelPushes() {
+        return this.slopMaxParallelPushes;
+    }
+
+    public void setSlopMaxParallelPushes(int slopMaxParallelPushes) {
+        this.slopMaxParallelPushes = slopMaxParallelPushes;
+    }
+
     public boolean isVerboseLoggingEnabled() {
         return this.enableVerboseLogging;
     }
@@ -878,6 +1004,34 @@ public class VoldemortConfig implements Serializable {
         this.readOnlyBackups = readOnlyBackups;
     }
 
+    /**
+     * The memory, in bytes, that each off-heap store may use for its data. The
+     * memory is allocated outside the heap, and the least recently used values
+     * are evicted once it is used up; -XX:MaxDirectMemorySize must allow for
+     * the off-heap stores of the server. Given by "offheap.store.size",
+     * default: 256MB
+     */
+    public long getOffHeapStoreSize() {
+        return offHeapStoreSize;
+    }
+
+    public void setOffHeapStoreSize(long offHeapStoreSize) {
+        this.offHeapStoreSize = offHeapStoreSize;
+    }
+
+    /**
+     * The size, in bytes, of the blocks in which off-heap stores allocate their
+     * memory. A key and its values must fit in a block. Given by
+     * "offheap.slab.size", default: 4MB
+     */
+    public int getOffHeapSlabSize() {
+        return offHeapSlabSize;
+    }
+
+    public void setOffHeapSlabSize(int offHeapSlabSize) {
+        this.offHeapSlabSize = offHeapSlabSize;
+    }
+
     public boolean isBdbWriteTransactionsEnabled() {
         return bdbWriteTransactions;
     }
@@ -942,6 +1096,58 @@ public class VoldemortConfig implements Serializable {
         this.nioAdminConnectorSelectors = nioAdminConnectorSelectors;
     }
 
+    /**
+     * The number of worker threads the NIO connector handles client requests
+     * on, or 0 to handle them on the selector threads. Given by
+     * "nio.connector.worker.threads", default: 0
+     */
+    public int getNioConnectorWorkerThreads() {
+        return nioConnectorWorkerThreads;
+    }
+
+    public void setNioConnectorWorkerThreads(int nioConnectorWorkerThreads) {
+        this.nioConnectorWorkerThreads = nioConnectorWorkerThreads;
+    }
+
+    /**
+     * The most worker threads that handle requests for one store at once, so
+     * that a slow store can't take all of them. Given by
+     * "nio.connector.worker.threads.per.store", default: half the workers
+     */
+    public int getNioConnectorWorkerThreadsPerStore() {
+        return nioConnectorWorkerThreadsPerStore;
+    }
+
+    public void setNioConnectorWorkerThreadsPerStore(int nioConnectorWorkerThreadsPerStore) {
+        this.nioConnectorWorkerThreadsPerStore = nioConnectorWorkerThreadsPerStore;
+    }
+
+    /**
+     * The most requests queued for one store waiting for a worker thread;
+     * connections sending further requests are closed. Given by
+     * "nio.connector.max.queued.requests.per.store", default: 1024
+     */
+    public int getNioConnectorMaxQueuedRequestsPerStore() {
+        return nioConnectorMaxQueuedRequestsPerStore;
+    }
+
+    public void setNioConnectorMaxQueuedRequestsPerStore(int nioConnectorMaxQueuedRequestsPerStore) {
+        this.nioConnectorMaxQueuedRequestsPerStore = nioConnectorMaxQueuedRequestsPerStore;
+    }
+
+    /**
+     * The most bytes of direct buffers the NIO connector keeps for reuse by its
+     * connections, or 0 to allocate their buffers on the heap. Given by
+     * "nio.connector.buffer.pool.size", default: 0
+     */
+    public long getNioConnectorBufferPoolSize() {
+        return nioConnectorBufferPoolSize;
+    }
+
+    public void setNioConnectorBufferPoolSize(long nioConnectorBufferPoolSize) {
+        this.nioConnectorBufferPoolSize = nioConnectorBufferPoolSize;
+    }
+
     public int getAdminSocketBufferSize() {
         return adminStreamBufferSize;
     }
@@ -1118,6 +1324,58 @@ public class VoldemortConfig implements Serializable {
         this.readOnlySearchStrategy = readOnlySearchStrategy;
     }
 
+    /**
+     * If true the read-only .data files are memory mapped and values are
+     * copied straight out of the page cache, otherwise each value is read with
+     * positional reads on the file channel
+     */
+    public boolean isReadOnlyMapDataFilesEnabled() {
+        return readOnlyMapDataFiles;
+    }
+
+    public void setEnableReadOnlyMapDataFiles(boolean readOnlyMapDataFiles) {
+        this.readOnlyMapDataFiles = readOnlyMapDataFiles;
+    }
+
+    /**
+     * If positive, read-only stores keep the md5 prefix of every n-th index
+     * entry in memory and only search the index between two of these samples.
+     * 0 disables the sparse index.
+     */
+    public int getReadOnlySparseIndexInterval() {
+        return readOnlySparseIndexInterval;
+    }
+
+    public void setReadOnlySparseIndexInterval(int readOnlySparseIndexInterval) {
+        this.readOnlySparseIndexInterval = readOnlySparseIndexInterval;
+    }
+
+    /**
+     * The number of threads shared by all read-only stores to look up the
+     * chunks of a multi-get in parallel. 0 looks up every chunk on the
+     * requesting thread.
+     */
+    public int getReadOnlyGetAllThreads() {
+        return readOnlyGetAllThreads;
+    }
+
+    public void setReadOnlyGetAllThreads(int readOnlyGetAllThreads) {
+        this.readOnlyGetAllThreads = readOnlyGetAllThreads;
+    }
+
+    /**
+     * If true read-only stores page in the index files of a new version before
+     * swapping to it, so the first requests after a swap do not pay for page
+     * faults.
+     */
+    public boolean isReadOnlyWarmUpEnabled() {
+        return readOnlyWarmUp;
+    }
+
+    public void setEnableReadOnlyWarmUp(boolean readOnlyWarmUp) {
+        this.readOnlyWarmUp = readOnlyWarmUp;
+    }
+
     public boolean isNetworkClassLoaderEnabled() {
         return enableNetworkClassLoader;
     }
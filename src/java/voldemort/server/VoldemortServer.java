@@ -140,6 +140,10 @@ public class VoldemortServer extends AbstractService {
                                                   identityNode.getSocketPort(),
                                                   voldemortConfig.getSocketBufferSize(),
                                                   voldemortConfig.getNioConnectorSelectors(),
+                                                  voldemortConfig.getNioConnectorWorkerThreads(),
+                                                  voldemortConfig.getNioConnectorWorkerThreadsPerStore(),
+                                                  voldemortConfig.getNioConnectorMaxQueuedRequestsPerStore(),
+                                                  voldemortConfig.getNioConnectorBufferPoolSize(),
                                                   "nio-socket-server",
                                                   voldemortConfig.isJmxEnabled()));
             } else {
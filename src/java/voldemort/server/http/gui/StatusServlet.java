@@ -196,6 +196,10 @@ public class StatusServlet extends HttpServlet {
 
                     sb.append("\"avg_time_ms\": ");
                     sb.append(stats.get(t).getDisplayAverageTimeInMs());
+                    sb.append(", ");
+
+                    sb.append("\"q99_time_ms\": ");
+                    sb.append(stats.get(t).getDisplayQuantileInMs(0.99));
                     sb.append(" }");
                 }
 
@@ -21,9 +21,11 @@ import java.io.DataOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.apache.log4j.Level;
 
@@ -34,7 +36,9 @@ import voldemort.server.protocol.RequestHandlerFactory;
 import voldemort.server.protocol.StreamRequestHandler;
 import voldemort.server.protocol.StreamRequestHandler.StreamRequestDirection;
 import voldemort.server.protocol.StreamRequestHandler.StreamRequestHandlerState;
+import voldemort.utils.ByteBufferPool;
 import voldemort.utils.ByteUtils;
+import voldemort.utils.GatheringDataOutputStream;
 import voldemort.utils.SelectorManagerWorker;
 
 /**
@@ -46,6 +50,15 @@ import voldemort.utils.SelectorManagerWorker;
  * The bulk of the complexity in this class surrounds partial reads and writes,
  * as well as determining when all the data needed for the request has been
  * read.
+ * <p/>
+ * If a StagedRequestExecutor is given, complete requests are handled on its
+ * workers rather than on the selector thread. The channel is not selected
+ * while its request is handled, and the worker hands the response back to the
+ * selector thread to be written. Streaming requests only start on a worker;
+ * their segments are handled on the selector thread as before.
+ * <p/>
+ * Large values in responses are not copied into the output buffer, they are
+ * written to the socket from where the store left them with a gathering write.
  * 
  * 
  * @see voldemort.server.protocol.RequestHandler
@@ -53,18 +66,74 @@ import voldemort.utils.SelectorManagerWorker;
 
 public class AsyncRequestHandler extends SelectorManagerWorker {
 
+    /*
+     * The smallest value written to the socket in place, smaller ones are
+     * cheaper to copy
+     */
+    private static final int MIN_GATHERED_VALUE_SIZE = 8 * 1024;
+
     private final RequestHandlerFactory requestHandlerFactory;
 
+    private final NioSelectorManager selectorManager;
+
+    private final StagedRequestExecutor requestExecutor;
+
     private RequestHandler requestHandler;
 
     private StreamRequestHandler streamRequestHandler;
 
+    private final DataInputStream dataInputStream;
+
+    private final GatheringDataOutputStream dataOutputStream;
+
+    private ByteBuffer[] gatheredBuffers;
+
+    private int gatheredIndex;
+
     public AsyncRequestHandler(Selector selector,
                                SocketChannel socketChannel,
                                RequestHandlerFactory requestHandlerFactory,
                                int socketBufferSize) {
-        super(selector, socketChannel, socketBufferSize);
+        this(selector, socketChannel, requestHandlerFactory, socketBufferSize, null, null, null);
+    }
+
+    public AsyncRequestHandler(Selector selector,
+                               SocketChannel socketChannel,
+                               RequestHandlerFactory requestHandlerFactory,
+                               int socketBufferSize,
+                               NioSelectorManager selectorManager,
+                               StagedRequestExecutor requestExecutor) {
+        this(selector,
+             socketChannel,
+             requestHandlerFactory,
+             socketBufferSize,
+             selectorManager,
+             requestExecutor,
+             null);
+    }
+
+    /**
+     * @param selectorManager The selector manager of the selector, which the
+     *        requests handled by the executor are handed back to
+     * @param requestExecutor The executor to handle requests on, or null to
+     *        handle them on the selector thread
+     * @param bufferPool The pool to take buffers from, or null to allocate
+     *        them on the heap
+     */
+    public AsyncRequestHandler(Selector selector,
+                               SocketChannel socketChannel,
+                               RequestHandlerFactory requestHandlerFactory,
+                               int socketBufferSize,
+                               NioSelectorManager selectorManager,
+                               StagedRequestExecutor requestExecutor,
+                               ByteBufferPool bufferPool) {
+        super(selector, socketChannel, socketBufferSize, bufferPool);
         this.requestHandlerFactory = requestHandlerFactory;
+        this.selectorManager = selectorManager;
+        this.requestExecutor = requestExecutor;
+        this.dataInputStream = new DataInputStream(inputStream);
+        this.dataOutputStream = new GatheringDataOutputStream(outputStream,
+                                                              MIN_GATHERED_VALUE_SIZE);
     }
 
     @Override
@@ -114,11 +183,15 @@ public class AsyncRequestHandler extends SelectorManagerWorker {
         // rewind the buffer for reading and execute the request.
         inputStream.getBuffer().rewind();
 
+        if(requestExecutor != null) {
+            submitRequest(selectionKey);
+            return;
+        }
+
         if(logger.isTraceEnabled())
             logger.trace("Starting execution for " + socketChannel.socket());
 
-        streamRequestHandler = requestHandler.handleRequest(new DataInputStream(inputStream),
-                                                            new DataOutputStream(outputStream));
+        streamRequestHandler = handleRequests();
 
         if(streamRequestHandler != null) {
             // In the case of a StreamRequestHandler, we handle that separately
@@ -132,36 +205,151 @@ public class AsyncRequestHandler extends SelectorManagerWorker {
         if(logger.isTraceEnabled())
             logger.trace("Finished execution for " + socketChannel.socket());
 
-        prepForWrite(selectionKey);
+        prepForResponse(selectionKey);
     }
 
-    @Override
-    protected void write(SelectionKey selectionKey) throws IOException {
-        if(outputStream.getBuffer().hasRemaining()) {
-            // If we have data, write what we can now...
-            int count = socketChannel.write(outputStream.getBuffer());
+    /**
+     * Handles the complete request at the start of the input buffer, followed
+     * by any further complete requests a client pipelined behind it. Stops at
+     * the first streaming request, which is returned.
+     */
+
+    private StreamRequestHandler handleRequests() throws IOException {
+        ByteBuffer inputBuffer = inputStream.getBuffer();
+
+        while(true) {
+            StreamRequestHandler handler = requestHandler.handleRequest(dataInputStream,
+                                                                        dataOutputStream);
+
+            if(handler != null || !inputBuffer.hasRemaining())
+                return handler;
+
+            int start = inputBuffer.position();
+            boolean isComplete = requestHandler.isCompleteRequest(inputBuffer);
+            inputBuffer.position(start);
+
+            if(!isComplete)
+                return null;
 
             if(logger.isTraceEnabled())
-                logger.trace("Wrote " + count + " bytes, remaining: "
-                             + outputStream.getBuffer().remaining() + " for "
+                logger.trace("Starting execution of pipelined request for "
                              + socketChannel.socket());
-        } else {
-            if(logger.isTraceEnabled())
-                logger.trace("Wrote no bytes for " + socketChannel.socket());
         }
+    }
+
+    /**
+     * Prepares to write the responses. If a pipelined request was only partly
+     * read, its bytes are kept at the start of the input buffer for the rest to
+     * be read after them.
+     */
+
+    private void prepForResponse(SelectionKey selectionKey) {
+        if(!inputStream.getBuffer().hasRemaining()) {
+            prepForWrite(selectionKey);
+            return;
+        }
+
+        inputStream.getBuffer().compact();
+
+        if(logger.isTraceEnabled())
+            traceInputBufferState("Kept partial pipelined request");
+
+        outputStream.getBuffer().flip();
+        selectionKey.interestOps(SelectionKey.OP_WRITE);
+    }
+
+    private void submitRequest(final SelectionKey selectionKey) {
+        String storeName = requestHandler.getStoreName(inputStream.getBuffer());
+        inputStream.getBuffer().rewind();
+
+        // The buffers belong to the worker until it has handled the request, so
+        // stop selecting the channel until it is handed back.
+        selectionKey.interestOps(0);
+
+        try {
+            requestExecutor.submit(storeName, new Runnable() {
+
+                public void run() {
+                    executeRequest(selectionKey);
+                }
+            });
+        } catch(RejectedExecutionException e) {
+            // There's no protocol-neutral way to answer with an error, so shed
+            // the load by dropping the connection.
+            if(logger.isEnabledFor(Level.WARN))
+                logger.warn("Closing " + socketChannel.socket() + ": " + e.getMessage());
+
+            close();
+        }
+    }
 
-        // If there's more to write but we didn't write it, we'll take that to
-        // mean that we're done here. We don't clear or reset anything. We leave
-        // our buffer state where it is and try our luck next time.
-        if(outputStream.getBuffer().hasRemaining())
+    private void executeRequest(final SelectionKey selectionKey) {
+        if(logger.isTraceEnabled())
+            logger.trace("Starting execution for " + socketChannel.socket());
+
+        try {
+            streamRequestHandler = handleRequests();
+        } catch(Throwable t) {
+            if(logger.isEnabledFor(Level.ERROR))
+                logger.error(t.getMessage(), t);
+
+            close();
             return;
+        }
+
+        if(logger.isTraceEnabled())
+            logger.trace("Finished execution for " + socketChannel.socket());
+
+        selectorManager.runOnSelector(new Runnable() {
+
+            public void run() {
+                try {
+                    if(streamRequestHandler != null)
+                        handleStreamRequest(selectionKey);
+                    else
+                        prepForResponse(selectionKey);
+                } catch(CancelledKeyException e) {
+                    close();
+                } catch(Throwable t) {
+                    if(logger.isEnabledFor(Level.ERROR))
+                        logger.error(t.getMessage(), t);
+
+                    close();
+                }
+            }
+        });
+    }
+
+    @Override
+    protected void write(SelectionKey selectionKey) throws IOException {
+        if(outputStream.hasAttachments()) {
+            if(!writeGathered())
+                return;
+        } else {
+            if(outputStream.getBuffer().hasRemaining()) {
+                // If we have data, write what we can now...
+                int count = socketChannel.write(outputStream.getBuffer());
+
+                if(logger.isTraceEnabled())
+                    logger.trace("Wrote " + count + " bytes, remaining: "
+                                 + outputStream.getBuffer().remaining() + " for "
+                                 + socketChannel.socket());
+            } else {
+                if(logger.isTraceEnabled())
+                    logger.trace("Wrote no bytes for " + socketChannel.socket());
+            }
+
+            // If there's more to write but we didn't write it, we'll take that
+            // to mean that we're done here. We don't clear or reset anything.
+            // We leave our buffer state where it is and try our luck next
+            // time.
+            if(outputStream.getBuffer().hasRemaining())
+                return;
+        }
 
         // If we don't have anything else to write, that means we're done with
         // the request! So clear the buffers (resizing if necessary).
-        if(outputStream.getBuffer().capacity() >= resizeThreshold)
-            outputStream.setBuffer(ByteBuffer.allocate(socketBufferSize));
-        else
-            outputStream.getBuffer().clear();
+        outputStream.setBuffer(reset(outputStream.getBuffer()));
 
         if(streamRequestHandler != null
            && streamRequestHandler.getDirection() == StreamRequestDirection.WRITING) {
@@ -180,11 +368,40 @@ public class AsyncRequestHandler extends SelectorManagerWorker {
         }
     }
 
+    /**
+     * Writes what we can of the output buffer and the values attached to it.
+     * Returns true once all of it has been written.
+     */
+
+    private boolean writeGathered() throws IOException {
+        if(gatheredBuffers == null) {
+            gatheredBuffers = outputStream.getGatheredBuffers();
+            gatheredIndex = 0;
+        }
+
+        long count = socketChannel.write(gatheredBuffers,
+                                         gatheredIndex,
+                                         gatheredBuffers.length - gatheredIndex);
+
+        while(gatheredIndex < gatheredBuffers.length
+              && !gatheredBuffers[gatheredIndex].hasRemaining())
+            gatheredIndex++;
+
+        if(logger.isTraceEnabled())
+            logger.trace("Wrote " + count + " gathered bytes, buffers remaining: "
+                         + (gatheredBuffers.length - gatheredIndex) + " for "
+                         + socketChannel.socket());
+
+        if(gatheredIndex < gatheredBuffers.length)
+            return false;
+
+        gatheredBuffers = null;
+        outputStream.clearAttachments();
+        return true;
+    }
+
     private void handleStreamRequest(SelectionKey selectionKey) throws IOException {
         // You are not expected to understand this.
-        DataInputStream dataInputStream = new DataInputStream(inputStream);
-        DataOutputStream dataOutputStream = new DataOutputStream(outputStream);
-
         // We need to keep track of the last known starting index *before* we
         // attempt to service the next segment. This is needed in case of
         // partial reads so that we can revert back to this point.
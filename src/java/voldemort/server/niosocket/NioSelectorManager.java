@@ -26,6 +26,7 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 import org.apache.log4j.Level;
 
 import voldemort.server.protocol.RequestHandlerFactory;
+import voldemort.utils.ByteBufferPool;
 import voldemort.utils.SelectorManager;
 
 /**
@@ -86,6 +87,12 @@ import voldemort.utils.SelectorManager;
  * connections 1 and 3 disconnect. This leaves SelectorManager B with two
  * connections and SelectorManager A with none. There's no provision to
  * re-balance the remaining requests evenly.
+ * <p/>
+ * Finally, a request that is slow to handle, a storage call waiting on disk for
+ * instance, holds up every other connection of its SelectorManager. So the
+ * handling of requests can optionally be staged on a StagedRequestExecutor: the
+ * SelectorManager then only reads complete requests and writes the responses,
+ * and the workers hand the responses back to it to be written.
  * 
  */
 
@@ -99,13 +106,43 @@ public class NioSelectorManager extends SelectorManager {
 
     private final int socketBufferSize;
 
+    private final StagedRequestExecutor requestExecutor;
+
+    private final Queue<Runnable> completionQueue;
+
+    private final ByteBufferPool bufferPool;
+
     public NioSelectorManager(InetSocketAddress endpoint,
                               RequestHandlerFactory requestHandlerFactory,
                               int socketBufferSize) {
+        this(endpoint, requestHandlerFactory, socketBufferSize, null);
+    }
+
+    public NioSelectorManager(InetSocketAddress endpoint,
+                              RequestHandlerFactory requestHandlerFactory,
+                              int socketBufferSize,
+                              StagedRequestExecutor requestExecutor) {
+        this(endpoint, requestHandlerFactory, socketBufferSize, requestExecutor, null);
+    }
+
+    /**
+     * @param requestExecutor The executor to handle requests on, or null to
+     *        handle them on the selector thread
+     * @param bufferPool The pool the connections take their buffers from, or
+     *        null to allocate them on the heap
+     */
+    public NioSelectorManager(InetSocketAddress endpoint,
+                              RequestHandlerFactory requestHandlerFactory,
+                              int socketBufferSize,
+                              StagedRequestExecutor requestExecutor,
+                              ByteBufferPool bufferPool) {
         this.endpoint = endpoint;
         this.socketChannelQueue = new ConcurrentLinkedQueue<SocketChannel>();
         this.requestHandlerFactory = requestHandlerFactory;
         this.socketBufferSize = socketBufferSize;
+        this.requestExecutor = requestExecutor;
+        this.completionQueue = new ConcurrentLinkedQueue<Runnable>();
+        this.bufferPool = bufferPool;
     }
 
     public void accept(SocketChannel socketChannel) {
@@ -116,8 +153,30 @@ public class NioSelectorManager extends SelectorManager {
         selector.wakeup();
     }
 
+    /**
+     * Runs the given task on the selector thread, for the workers of a staged
+     * request to hand its connection back to the selector.
+     * 
+     * @param task The task to run
+     */
+    public void runOnSelector(Runnable task) {
+        completionQueue.add(task);
+        selector.wakeup();
+    }
+
     @Override
     protected void processEvents() {
+        Runnable completion = null;
+
+        while((completion = completionQueue.poll()) != null) {
+            try {
+                completion.run();
+            } catch(Exception e) {
+                if(logger.isEnabledFor(Level.ERROR))
+                    logger.error(e.getMessage(), e);
+            }
+        }
+
         try {
             SocketChannel socketChannel = null;
 
@@ -155,7 +214,10 @@ public class NioSelectorManager extends SelectorManager {
                     AsyncRequestHandler attachment = new AsyncRequestHandler(selector,
                                                                              socketChannel,
                                                                              requestHandlerFactory,
-                                                                             socketBufferSize);
+                                                                             socketBufferSize,
+                                                                             this,
+                                                                             requestExecutor,
+                                                                             bufferPool);
 
                     if(!isClosed.get())
                         socketChannel.register(selector, SelectionKey.OP_READ, attachment);
@@ -31,10 +31,13 @@ import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 
 import voldemort.VoldemortException;
+import voldemort.annotations.jmx.JmxGetter;
+import voldemort.annotations.jmx.JmxOperation;
 import voldemort.server.AbstractSocketService;
 import voldemort.server.ServiceType;
 import voldemort.server.StatusManager;
 import voldemort.server.protocol.RequestHandlerFactory;
+import voldemort.utils.ByteBufferPool;
 import voldemort.utils.DaemonThreadFactory;
 
 /**
@@ -47,6 +50,16 @@ import voldemort.utils.DaemonThreadFactory;
  * to a positive integer value. Otherwise, the number of selectors will be equal
  * to the number of CPUs visible to the JVM.
  * <p/>
+ * By default requests are handled on the selector threads. Setting
+ * "nio.connector.worker.threads" to a positive value instead stages them on a
+ * StagedRequestExecutor with that many workers, leaving the selectors to read
+ * requests and write responses.
+ * <p/>
+ * Setting "nio.connector.buffer.pool.size" to a positive number of bytes has
+ * the connections take their buffers from a shared pool of direct buffers,
+ * which keeps up to that many bytes of buffers given back by completed
+ * requests.
+ * <p/>
  * This code uses the NIO APIs directly. It would be a good idea to consider
  * some of the NIO frameworks to handle this more cleanly, efficiently, and to
  * handle corner cases.
@@ -75,6 +88,10 @@ public class NioSocketService extends AbstractSocketService {
 
     private final Thread acceptorThread;
 
+    private final StagedRequestExecutor requestExecutor;
+
+    private final ByteBufferPool bufferPool;
+
     private final Logger logger = Logger.getLogger(getClass());
 
     public NioSocketService(RequestHandlerFactory requestHandlerFactory,
@@ -83,6 +100,50 @@ public class NioSocketService extends AbstractSocketService {
                             int selectors,
                             String serviceName,
                             boolean enableJmx) {
+        this(requestHandlerFactory, port, socketBufferSize, selectors, 0, 0, 0, serviceName, enableJmx);
+    }
+
+    public NioSocketService(RequestHandlerFactory requestHandlerFactory,
+                            int port,
+                            int socketBufferSize,
+                            int selectors,
+                            int workers,
+                            int workersPerStore,
+                            int maxQueuedRequestsPerStore,
+                            String serviceName,
+                            boolean enableJmx) {
+        this(requestHandlerFactory,
+             port,
+             socketBufferSize,
+             selectors,
+             workers,
+             workersPerStore,
+             maxQueuedRequestsPerStore,
+             0,
+             serviceName,
+             enableJmx);
+    }
+
+    /**
+     * @param workers The number of worker threads to handle requests on, or 0
+     *        to handle them on the selector threads
+     * @param workersPerStore The most workers that handle requests for one
+     *        store at once
+     * @param maxQueuedRequestsPerStore The most requests queued for one store;
+     *        connections with further requests are closed
+     * @param bufferPoolSize The most bytes of direct buffers kept for reuse by
+     *        the connections, or 0 to allocate their buffers on the heap
+     */
+    public NioSocketService(RequestHandlerFactory requestHandlerFactory,
+                            int port,
+                            int socketBufferSize,
+                            int selectors,
+                            int workers,
+                            int workersPerStore,
+                            int maxQueuedRequestsPerStore,
+                            long bufferPoolSize,
+                            String serviceName,
+                            boolean enableJmx) {
         super(ServiceType.SOCKET, port, serviceName, enableJmx);
         this.requestHandlerFactory = requestHandlerFactory;
         this.socketBufferSize = socketBufferSize;
@@ -100,6 +161,18 @@ public class NioSocketService extends AbstractSocketService {
                                                                       new DaemonThreadFactory("voldemort-niosocket-server"));
         this.statusManager = new StatusManager((ThreadPoolExecutor) this.selectorManagerThreadPool);
         this.acceptorThread = new Thread(new Acceptor(), "NioSocketService.Acceptor");
+
+        if(workers > 0)
+            this.requestExecutor = new StagedRequestExecutor(workers,
+                                                             workersPerStore,
+                                                             maxQueuedRequestsPerStore);
+        else
+            this.requestExecutor = null;
+
+        if(bufferPoolSize > 0)
+            this.bufferPool = new ByteBufferPool(bufferPoolSize);
+        else
+            this.bufferPool = null;
     }
 
     @Override
@@ -117,7 +190,9 @@ public class NioSocketService extends AbstractSocketService {
             for(int i = 0; i < selectorManagers.length; i++) {
                 selectorManagers[i] = new NioSelectorManager(endpoint,
                                                              requestHandlerFactory,
-                                                             socketBufferSize);
+                                                             socketBufferSize,
+                                                             requestExecutor,
+                                                             bufferPool);
                 selectorManagerThreadPool.execute(selectorManagers[i]);
             }
 
@@ -196,6 +271,24 @@ public class NioSocketService extends AbstractSocketService {
                 logger.warn(e.getMessage(), e);
         }
 
+        if(requestExecutor != null) {
+            try {
+                // The selectors are closed, so any request still running has
+                // nowhere to write its response; just let them finish.
+                boolean terminated = requestExecutor.shutdown(SHUTDOWN_TIMEOUT_MS,
+                                                              TimeUnit.MILLISECONDS);
+
+                if(!terminated) {
+                    if(logger.isEnabledFor(Level.WARN))
+                        logger.warn("Request worker thread pool did not stop cleanly after "
+                                    + SHUTDOWN_TIMEOUT_MS + " ms");
+                }
+            } catch(Exception e) {
+                if(logger.isEnabledFor(Level.WARN))
+                    logger.warn(e.getMessage(), e);
+            }
+        }
+
         try {
             serverSocketChannel.socket().close();
         } catch(Exception e) {
@@ -211,6 +304,51 @@ public class NioSocketService extends AbstractSocketService {
         }
     }
 
+    @JmxGetter(name = "stagedRequests", description = "Whether requests are handled on worker threads rather than the selector threads.")
+    public boolean isStaged() {
+        return requestExecutor != null;
+    }
+
+    @JmxGetter(name = "requestQueueDepth", description = "The number of requests waiting for a worker thread.")
+    public int getRequestQueueDepth() {
+        return requestExecutor == null ? 0 : requestExecutor.getQueueDepth();
+    }
+
+    @JmxOperation(description = "The number of requests for the given store waiting for a worker thread.")
+    public int getStoreRequestQueueDepth(String storeName) {
+        return requestExecutor == null ? 0 : requestExecutor.getQueueDepth(storeName);
+    }
+
+    @JmxGetter(name = "averageRequestQueueWaitMs", description = "The average time requests waited for a worker thread, in ms.")
+    public double getAverageRequestQueueWaitMs() {
+        return requestExecutor == null ? 0.0 : requestExecutor.getAverageQueueWaitMs();
+    }
+
+    @JmxGetter(name = "maxRequestQueueWaitMs", description = "The longest time a request waited for a worker thread, in ms.")
+    public double getMaxRequestQueueWaitMs() {
+        return requestExecutor == null ? 0.0 : requestExecutor.getMaxQueueWaitMs();
+    }
+
+    @JmxGetter(name = "numRejectedRequests", description = "The number of requests rejected because their store's queue was full.")
+    public long getNumRejectedRequests() {
+        return requestExecutor == null ? 0 : requestExecutor.getNumRejectedRequests();
+    }
+
+    @JmxGetter(name = "bufferPoolHitRatio", description = "The fraction of buffers taken from the buffer pool which were reused.")
+    public double getBufferPoolHitRatio() {
+        return bufferPool == null ? 0.0 : bufferPool.getHitRatio();
+    }
+
+    @JmxGetter(name = "bufferPoolBytes", description = "The number of bytes in buffers waiting in the buffer pool.")
+    public long getBufferPoolBytes() {
+        return bufferPool == null ? 0 : bufferPool.getPooledBytes();
+    }
+
+    @JmxGetter(name = "numBufferPoolDiscards", description = "The number of buffers given back to the buffer pool but not kept.")
+    public long getNumBufferPoolDiscards() {
+        return bufferPool == null ? 0 : bufferPool.getNumDiscarded();
+    }
+
     private class Acceptor implements Runnable {
 
         public void run() {
@@ -0,0 +1,309 @@
+/*
+ * Copyright 2008-2010 LinkedIn, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.server.niosocket;
+
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+import voldemort.utils.DaemonThreadFactory;
+import voldemort.utils.Time;
+
+/**
+ * StagedRequestExecutor runs requests read by the NIO selectors on a pool of
+ * worker threads, so that a slow storage call doesn't hold up every other
+ * connection served by the same selector.
+ * <p/>
+ * Requests are queued per store. Each store's queue is bounded, and at most a
+ * configured number of workers serve a store at once, so a store that is slow
+ * or overloaded can neither take all the workers nor queue without limit.
+ * Requests for the same store are started in the order they were submitted.
+ * A store's queue only exists while it has requests queued or running, so
+ * store names sent by clients never accumulate.
+ *
+ *
+ * @see NioSocketService
+ */
+
+public class StagedRequestExecutor {
+
+    private static final String NO_STORE = "";
+
+    private final ExecutorService workers;
+
+    private final int workersPerStore;
+
+    private final int maxQueuedPerStore;
+
+    private final ConcurrentMap<String, StoreQueue> storeQueues;
+
+    private final AtomicInteger queueDepth;
+
+    private final AtomicLong numRequests;
+
+    private final AtomicLong numRejectedRequests;
+
+    private final AtomicLong totalQueueWaitNs;
+
+    private final AtomicLong maxQueueWaitNs;
+
+    private final Logger logger = Logger.getLogger(getClass());
+
+    /**
+     * @param workers The number of worker threads
+     * @param workersPerStore The most workers that serve one store at once
+     * @param maxQueuedPerStore The most requests queued for one store; further
+     *        requests are rejected
+     */
+    public StagedRequestExecutor(int workers, int workersPerStore, int maxQueuedPerStore) {
+        if(workers <= 0)
+            throw new IllegalArgumentException("Number of workers must be positive.");
+        if(workersPerStore <= 0)
+            throw new IllegalArgumentException("Number of workers per store must be positive.");
+        if(maxQueuedPerStore <= 0)
+            throw new IllegalArgumentException("Queue size must be positive.");
+
+        this.workers = Executors.newFixedThreadPool(workers,
+                                                    new DaemonThreadFactory("voldemort-niosocket-worker"));
+        this.workersPerStore = Math.min(workers, workersPerStore);
+        this.maxQueuedPerStore = maxQueuedPerStore;
+        this.storeQueues = new ConcurrentHashMap<String, StoreQueue>();
+        this.queueDepth = new AtomicInteger(0);
+        this.numRequests = new AtomicLong(0);
+        this.numRejectedRequests = new AtomicLong(0);
+        this.totalQueueWaitNs = new AtomicLong(0);
+        this.maxQueueWaitNs = new AtomicLong(0);
+    }
+
+    /**
+     * Queue a request for the given store
+     *
+     * @param storeName The store the request is for, or null if it is not for
+     *        any one store
+     * @param request The request to run
+     * @throws RejectedExecutionException If the store's queue is full or the
+     *         executor is shut down
+     */
+    public void submit(String storeName, Runnable request) {
+        String queueName = storeName == null ? NO_STORE : storeName;
+        QueuedRequest queued = new QueuedRequest(request);
+        boolean startWorker = false;
+
+        StoreQueue storeQueue;
+        while(true) {
+            storeQueue = getStoreQueue(queueName);
+            synchronized(storeQueue) {
+                // the queue drained and was removed since we looked it up
+                if(storeQueue.removed)
+                    continue;
+                if(storeQueue.requests.size() >= maxQueuedPerStore) {
+                    numRejectedRequests.incrementAndGet();
+                    throw new RejectedExecutionException("Too many requests queued for store '"
+                                                         + storeName + "'");
+                }
+                storeQueue.requests.add(queued);
+                queueDepth.incrementAndGet();
+                if(storeQueue.activeWorkers < workersPerStore) {
+                    storeQueue.activeWorkers++;
+                    startWorker = true;
+                }
+                break;
+            }
+        }
+
+        if(startWorker) {
+            try {
+                workers.execute(storeQueue);
+            } catch(RejectedExecutionException e) {
+                synchronized(storeQueue) {
+                    storeQueue.activeWorkers--;
+                    if(storeQueue.requests.remove(queued))
+                        queueDepth.decrementAndGet();
+                    storeQueue.removeIfIdle();
+                }
+                throw e;
+            }
+        }
+    }
+
+    private StoreQueue getStoreQueue(String storeName) {
+        StoreQueue storeQueue = storeQueues.get(storeName);
+        if(storeQueue == null) {
+            storeQueue = new StoreQueue(storeName);
+            StoreQueue existing = storeQueues.putIfAbsent(storeName, storeQueue);
+            if(existing != null)
+                storeQueue = existing;
+        }
+        return storeQueue;
+    }
+
+    private void recordQueueWait(long waitNs) {
+        numRequests.incrementAndGet();
+        totalQueueWaitNs.addAndGet(waitNs);
+
+        long max = maxQueueWaitNs.get();
+        while(waitNs > max && !maxQueueWaitNs.compareAndSet(max, waitNs))
+            max = maxQueueWaitNs.get();
+    }
+
+    /**
+     * Stop the workers, waiting for the requests already queued to complete
+     *
+     * @param timeout How long to wait for the queued requests
+     * @param unit The unit of the timeout
+     * @return True if all the queued requests completed
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        workers.shutdown();
+        return workers.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * The number of requests waiting for a worker, over all stores
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * The number of requests waiting for a worker for the given store
+     *
+     * @param storeName The name of the store
+     */
+    public int getQueueDepth(String storeName) {
+        StoreQueue storeQueue = storeQueues.get(storeName == null ? NO_STORE : storeName);
+        if(storeQueue == null)
+            return 0;
+        synchronized(storeQueue) {
+            return storeQueue.requests.size();
+        }
+    }
+
+    /**
+     * The number of stores that currently have requests queued or running
+     */
+    public int getNumStoreQueues() {
+        return storeQueues.size();
+    }
+
+    /**
+     * The number of requests run so far
+     */
+    public long getNumRequests() {
+        return numRequests.get();
+    }
+
+    /**
+     * The number of requests rejected because their store's queue was full
+     */
+    public long getNumRejectedRequests() {
+        return numRejectedRequests.get();
+    }
+
+    /**
+     * The average time the requests run so far waited for a worker, in ms
+     */
+    public double getAverageQueueWaitMs() {
+        long requests = numRequests.get();
+        if(requests == 0)
+            return 0.0;
+        return totalQueueWaitNs.get() / (double) requests / Time.NS_PER_MS;
+    }
+
+    /**
+     * The longest time a request has waited for a worker, in ms
+     */
+    public double getMaxQueueWaitMs() {
+        return maxQueueWaitNs.get() / (double) Time.NS_PER_MS;
+    }
+
+    private static final class QueuedRequest {
+
+        private final Runnable request;
+
+        private final long queuedNs;
+
+        private QueuedRequest(Runnable request) {
+            this.request = request;
+            this.queuedNs = System.nanoTime();
+        }
+    }
+
+    /*
+     * The requests queued for one store. Each worker started for the store
+     * runs its requests until the queue is empty, and the last worker to
+     * stop removes the queue.
+     */
+    private final class StoreQueue implements Runnable {
+
+        private final String storeName;
+
+        private final Queue<QueuedRequest> requests = new LinkedList<QueuedRequest>();
+
+        private int activeWorkers = 0;
+
+        private boolean removed = false;
+
+        private StoreQueue(String storeName) {
+            this.storeName = storeName;
+        }
+
+        /*
+         * Must be called holding the lock on this queue
+         */
+        private void removeIfIdle() {
+            if(activeWorkers == 0 && requests.isEmpty()) {
+                removed = true;
+                storeQueues.remove(storeName, this);
+            }
+        }
+
+        public void run() {
+            while(true) {
+                QueuedRequest queued;
+                synchronized(this) {
+                    queued = requests.poll();
+                    if(queued == null) {
+                        activeWorkers--;
+                        removeIfIdle();
+                        return;
+                    }
+                }
+                queueDepth.decrementAndGet();
+                recordQueueWait(System.nanoTime() - queued.queuedNs);
+
+                try {
+                    queued.request.run();
+                } catch(Throwable t) {
+                    if(logger.isEnabledFor(Level.ERROR))
+                        logger.error(t.getMessage(), t);
+                }
+            }
+        }
+    }
+
+}
@@ -50,12 +50,28 @@ public interface RequestHandler {
      * definition not just block waiting for more data, it's possible to get
      * partial reads, and this identifies that case.
      * 
-     * @param buffer Buffer to check; the buffer is reset to position 0 before
-     *        calling this method and the caller must reset it after the call
-     *        returns
-     * @return True if the buffer holds a complete request, false otherwise
+     * @param buffer Buffer to check; the buffer is positioned at the start of
+     *        the request before calling this method and the caller must reset
+     *        it after the call returns
+     * @return True if the buffer holds a complete request, false otherwise.
+     *         Protocols that let clients pipeline requests return true if the
+     *         buffer starts with a complete request.
      */
 
     public boolean isCompleteRequest(ByteBuffer buffer);
 
+    /**
+     * This method is used by non-blocking code to find the store a complete
+     * request is for, so that requests for different stores can be queued
+     * separately before they are handled.
+     * 
+     * @param buffer Buffer holding a complete request; the buffer is reset to
+     *        position 0 before calling this method and the caller must reset
+     *        it after the call returns
+     * @return The name of the store, or null if the request is not for a store
+     *         or the name can't be determined without handling the request
+     */
+
+    public String getStoreName(ByteBuffer buffer);
+
 }
@@ -50,6 +50,11 @@ public class SocketRequestHandlerFactory implements RequestHandlerFactory {
                 return new VoldemortNativeRequestHandler(new ErrorCodeMapper(), repository, 1);
             case VOLDEMORT_V2:
                 return new VoldemortNativeRequestHandler(new ErrorCodeMapper(), repository, 2);
+            case VOLDEMORT_V3:
+                return new VoldemortNativeRequestHandler(new ErrorCodeMapper(),
+                                                        repository,
+                                                        metadata,
+                                                        3);
             case PROTOCOL_BUFFERS:
                 return new ProtoBuffRequestHandler(new ErrorCodeMapper(), repository);
             case ADMIN_PROTOCOL_BUFFERS:
@@ -25,6 +25,7 @@ import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.log4j.Logger;
@@ -45,6 +46,7 @@ import voldemort.server.protocol.StreamRequestHandler;
 import voldemort.server.rebalance.Rebalancer;
 import voldemort.server.storage.StorageService;
 import voldemort.store.ErrorCodeMapper;
+import voldemort.store.PartitionedStorageEngine;
 import voldemort.store.StorageEngine;
 import voldemort.store.StoreDefinition;
 import voldemort.store.StoreOperationFailureException;
@@ -574,7 +576,16 @@ public class AdminServiceRequestHandler implements RequestHandler {
             RoutingStrategy routingStrategy = metadataStore.getRoutingStrategy(storageEngine.getName());
 
             EventThrottler throttler = new EventThrottler(voldemortConfig.getStreamMaxReadBytesPerSec());
-            iterator = storageEngine.entries();
+            if(storageEngine instanceof PartitionedStorageEngine) {
+                // only read the partitions whose keys may be deleted
+                Set<Integer> masterPartitions = RebalanceUtils.getMasterPartitions(routingStrategy,
+                                                                                   metadataStore.getCluster()
+                                                                                                .getNumberOfPartitions(),
+                                                                                   partitions);
+                iterator = ((PartitionedStorageEngine<ByteArray, byte[]>) storageEngine).entries(masterPartitions);
+            } else {
+                iterator = storageEngine.entries();
+            }
             int deleteSuccess = 0;
 
             while(iterator.hasNext()) {
@@ -827,6 +838,14 @@ public class AdminServiceRequestHandler implements RequestHandler {
         }
     }
 
+    /**
+     * Admin requests are not for a single store, so they are never queued by
+     * store.
+     */
+    public String getStoreName(ByteBuffer buffer) {
+        return null;
+    }
+
     static VoldemortFilter getFilterFromRequest(VAdminProto.VoldemortFilter request,
                                                 VoldemortConfig voldemortConfig,
                                                 NetworkClassLoader networkClassLoader) {
@@ -3,6 +3,7 @@ package voldemort.server.protocol.admin;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.log4j.Logger;
 
@@ -17,12 +18,14 @@ import voldemort.server.StoreRepository;
 import voldemort.server.VoldemortConfig;
 import voldemort.server.protocol.StreamRequestHandler;
 import voldemort.store.ErrorCodeMapper;
+import voldemort.store.PartitionedStorageEngine;
 import voldemort.store.StorageEngine;
 import voldemort.store.metadata.MetadataStore;
 import voldemort.utils.ByteArray;
 import voldemort.utils.ClosableIterator;
 import voldemort.utils.EventThrottler;
 import voldemort.utils.NetworkClassLoader;
+import voldemort.utils.RebalanceUtils;
 
 public abstract class FetchStreamRequestHandler implements StreamRequestHandler {
 
@@ -74,7 +77,16 @@ public abstract class FetchStreamRequestHandler implements StreamRequestHandler
                 filter = new DefaultVoldemortFilter();
             }
         }
-        keyIterator = storageEngine.keys();
+        if(storageEngine instanceof PartitionedStorageEngine) {
+            // only read the partitions whose keys may be fetched
+            Set<Integer> masterPartitions = RebalanceUtils.getMasterPartitions(routingStrategy,
+                                                                               metadataStore.getCluster()
+                                                                                            .getNumberOfPartitions(),
+                                                                               partitionList);
+            keyIterator = ((PartitionedStorageEngine<ByteArray, byte[]>) storageEngine).keys(masterPartitions);
+        } else {
+            keyIterator = storageEngine.keys();
+        }
         startTime = System.currentTimeMillis();
     }
 
@@ -5,6 +5,7 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -21,10 +22,12 @@ import voldemort.server.protocol.StreamRequestHandler;
 import voldemort.store.ErrorCodeMapper;
 import voldemort.store.Store;
 import voldemort.utils.ByteArray;
+import voldemort.utils.ByteBufferBackedInputStream;
 import voldemort.versioning.Version;
 import voldemort.versioning.Versioned;
 
 import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
 import com.google.protobuf.Message;
 
 /**
@@ -71,6 +74,9 @@ public class ProtoBuffRequestHandler extends AbstractRequestHandler {
                 case GET_VERSION:
                     response = handleGetVersion(request.getGet(), store);
                     break;
+                case PUT_ALL:
+                    response = handlePutAll(request.getPutAll(), store);
+                    break;
                 default:
                     throw new VoldemortException("Unknown operation " + request.getType());
             }
@@ -99,6 +105,27 @@ public class ProtoBuffRequestHandler extends AbstractRequestHandler {
         return buffer.remaining() == size;
     }
 
+    public String getStoreName(ByteBuffer buffer) {
+        // Skip the size and scan the fields of the request up to the store,
+        // rather than parsing the whole request.
+        buffer.getInt();
+        CodedInputStream input = CodedInputStream.newInstance(new ByteBufferBackedInputStream(buffer));
+
+        try {
+            int tag;
+            while((tag = input.readTag()) != 0) {
+                if(tag >>> 3 == VoldemortRequest.STORE_FIELD_NUMBER)
+                    return input.readString();
+                else if(!input.skipField(tag))
+                    break;
+            }
+        } catch(IOException e) {
+            // Let the request handler report the malformed request
+        }
+
+        return null;
+    }
+
     private VProto.GetResponse handleGet(VProto.GetRequest request, Store<ByteArray, byte[]> store) {
         VProto.GetResponse.Builder response = VProto.GetResponse.newBuilder();
         try {
@@ -144,6 +171,22 @@ public class ProtoBuffRequestHandler extends AbstractRequestHandler {
         return response.build();
     }
 
+    private VProto.PutAllResponse handlePutAll(VProto.PutAllRequest request,
+                                               Store<ByteArray, byte[]> store) {
+        VProto.PutAllResponse.Builder response = VProto.PutAllResponse.newBuilder();
+        try {
+            Map<ByteArray, Versioned<byte[]>> entries = new HashMap<ByteArray, Versioned<byte[]>>(request.getPutsCount());
+            for(VProto.PutRequest put: request.getPutsList())
+                entries.put(ProtoUtils.decodeBytes(put.getKey()),
+                            ProtoUtils.decodeVersioned(put.getVersioned()));
+            for(ByteArray key: store.putAll(entries))
+                response.addObsoleteKeys(ProtoUtils.encodeBytes(key));
+        } catch(VoldemortException e) {
+            response.setError(ProtoUtils.encodeError(getErrorMapper(), e));
+        }
+        return response.build();
+    }
+
     private VProto.DeleteResponse handleDelete(VProto.DeleteRequest request,
                                                Store<ByteArray, byte[]> store) {
         VProto.DeleteResponse.Builder response = VProto.DeleteResponse.newBuilder();
@@ -170,6 +213,8 @@ public class ProtoBuffRequestHandler extends AbstractRequestHandler {
                 return VProto.GetAllResponse.newBuilder().setError(error).build();
             case PUT:
                 return VProto.PutResponse.newBuilder().setError(error).build();
+            case PUT_ALL:
+                return VProto.PutAllResponse.newBuilder().setError(error).build();
             case DELETE:
                 return VProto.DeleteResponse.newBuilder().setError(error).setSuccess(false).build();
             default:
@@ -5,8 +5,10 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.log4j.Logger;
 
@@ -19,15 +21,28 @@ import voldemort.server.protocol.RequestHandler;
 import voldemort.server.protocol.StreamRequestHandler;
 import voldemort.store.ErrorCodeMapper;
 import voldemort.store.Store;
+import voldemort.store.metadata.MetadataStore;
+import voldemort.store.versioned.VersionIncrementingStore;
 import voldemort.utils.ByteArray;
+import voldemort.utils.GatheringDataOutputStream;
 import voldemort.utils.ByteBufferBackedInputStream;
 import voldemort.utils.ByteUtils;
+import voldemort.utils.SystemTime;
 import voldemort.versioning.VectorClock;
 import voldemort.versioning.Version;
 import voldemort.versioning.Versioned;
 
 /**
  * Server-side request handler for voldemort native client protocol
+ * <p/>
+ * From version 3 on each request starts with a request id, which is echoed at
+ * the start of its response so the client can match them up. The buffer given
+ * to {@link #isCompleteRequest(ByteBuffer)} may then hold several pipelined
+ * requests.
+ * <p/>
+ * Version 3 also adds blind puts, which carry a value without a version. The
+ * versions stored for the key are merged and incremented for this server's
+ * node, and the resulting version is returned to the client.
  * 
  * 
  */
@@ -35,19 +50,36 @@ public class VoldemortNativeRequestHandler extends AbstractRequestHandler implem
 
     private final Logger logger = Logger.getLogger(VoldemortNativeRequestHandler.class);
 
+    private final MetadataStore metadata;
+
     private final int protocolVersion;
 
     public VoldemortNativeRequestHandler(ErrorCodeMapper errorMapper,
                                          StoreRepository repository,
                                          int protocolVersion) {
+        this(errorMapper, repository, null, protocolVersion);
+    }
+
+    /**
+     * @param metadata The metadata of this server, which gives the node id
+     *        that blind puts increment; blind puts fail if it is null
+     */
+    public VoldemortNativeRequestHandler(ErrorCodeMapper errorMapper,
+                                         StoreRepository repository,
+                                         MetadataStore metadata,
+                                         int protocolVersion) {
         super(errorMapper, repository);
-        if(protocolVersion < 0 || protocolVersion > 2)
+        if(protocolVersion < 0 || protocolVersion > 3)
             throw new IllegalArgumentException("Unknown protocol version: " + protocolVersion);
+        this.metadata = metadata;
         this.protocolVersion = protocolVersion;
     }
 
     public StreamRequestHandler handleRequest(DataInputStream inputStream,
                                               DataOutputStream outputStream) throws IOException {
+        if(protocolVersion > 2)
+            outputStream.writeInt(inputStream.readInt());
+
         byte opCode = inputStream.readByte();
         String storeName = inputStream.readUTF();
         RequestRoutingType routingType = getRoutingType(inputStream);
@@ -73,6 +105,16 @@ public class VoldemortNativeRequestHandler extends AbstractRequestHandler implem
                 case VoldemortOpCode.GET_VERSION_OP_CODE:
                     handleGetVersion(inputStream, outputStream, store);
                     break;
+                case VoldemortOpCode.BLIND_PUT_OP_CODE:
+                    if(protocolVersion < 3)
+                        throw new IOException("Unknown op code: " + opCode);
+                    handleBlindPut(inputStream, outputStream, store);
+                    break;
+                case VoldemortOpCode.PUT_ALL_OP_CODE:
+                    if(protocolVersion < 3)
+                        throw new IOException("Unknown op code: " + opCode);
+                    handlePutAll(inputStream, outputStream, store);
+                    break;
                 default:
                     throw new IOException("Unknown op code: " + opCode);
             }
@@ -127,6 +169,10 @@ public class VoldemortNativeRequestHandler extends AbstractRequestHandler implem
         DataInputStream inputStream = new DataInputStream(new ByteBufferBackedInputStream(buffer));
 
         try {
+            // Read the request id in, but just to skip the bytes.
+            if(protocolVersion > 2)
+                inputStream.readInt();
+
             byte opCode = inputStream.readByte();
 
             // Read the store name in, but just to skip the bytes.
@@ -136,6 +182,10 @@ public class VoldemortNativeRequestHandler extends AbstractRequestHandler implem
             if(protocolVersion > 0)
                 inputStream.readBoolean();
 
+            // Read the routing type in, but just to skip the byte.
+            if(protocolVersion > 1)
+                inputStream.readByte();
+
             switch(opCode) {
                 case VoldemortOpCode.GET_OP_CODE:
                 case VoldemortOpCode.GET_VERSION_OP_CODE:
@@ -150,20 +200,21 @@ public class VoldemortNativeRequestHandler extends AbstractRequestHandler implem
                         readKey(inputStream);
 
                     break;
-                case VoldemortOpCode.PUT_OP_CODE: {
+                case VoldemortOpCode.PUT_OP_CODE:
+                case VoldemortOpCode.BLIND_PUT_OP_CODE: {
                     readKey(inputStream);
+                    skipValue(inputStream, buffer);
+                    break;
+                }
+                case VoldemortOpCode.PUT_ALL_OP_CODE: {
+                    int numEntries = inputStream.readInt();
 
-                    int dataSize = inputStream.readInt();
-                    int newPosition = buffer.position() + dataSize;
-
-                    if(newPosition > buffer.limit() || newPosition < 0)
-                        throw new Exception("Data inconsistency on put - dataSize: " + dataSize
-                                            + ", position: " + buffer.position() + ", limit: "
-                                            + buffer.limit());
+                    // Read the keys and skip over the values of all entries.
+                    for(int i = 0; i < numEntries; i++) {
+                        readKey(inputStream);
+                        skipValue(inputStream, buffer);
+                    }
 
-                    // Here we skip over the data (without reading it in) and
-                    // move our position to just past it.
-                    buffer.position(newPosition);
                     break;
                 }
                 case VoldemortOpCode.DELETE_OP_CODE: {
@@ -187,8 +238,9 @@ public class VoldemortNativeRequestHandler extends AbstractRequestHandler implem
             }
 
             // If there aren't any remaining, we've "consumed" all the bytes and
-            // thus have a complete request...
-            return !buffer.hasRemaining();
+            // thus have a complete request. From version 3 on the client may
+            // pipeline requests, so it's enough to have read one.
+            return protocolVersion > 2 || !buffer.hasRemaining();
         } catch(Exception e) {
             // This could also occur if the various methods we call into
             // re-throw a corrupted value error as some other type of exception.
@@ -201,6 +253,39 @@ public class VoldemortNativeRequestHandler extends AbstractRequestHandler implem
         }
     }
 
+    /*
+     * Skips over the data of a put (without reading it in) and moves the
+     * position of the buffer to just past it.
+     */
+    private void skipValue(DataInputStream inputStream, ByteBuffer buffer) throws Exception {
+        int dataSize = inputStream.readInt();
+        int newPosition = buffer.position() + dataSize;
+
+        if(newPosition > buffer.limit() || newPosition < 0)
+            throw new Exception("Data inconsistency on put - dataSize: " + dataSize
+                                + ", position: " + buffer.position() + ", limit: "
+                                + buffer.limit());
+
+        buffer.position(newPosition);
+    }
+
+    public String getStoreName(ByteBuffer buffer) {
+        DataInputStream inputStream = new DataInputStream(new ByteBufferBackedInputStream(buffer));
+
+        try {
+            // Skip the request id and op code, the store name follows them.
+            if(protocolVersion > 2)
+                inputStream.readInt();
+            inputStream.readByte();
+            return inputStream.readUTF();
+        } catch(IOException e) {
+            if(logger.isDebugEnabled())
+                logger.debug("Could not read the store name of the request", e);
+
+            return null;
+        }
+    }
+
     private ByteArray readKey(DataInputStream inputStream) throws IOException {
         int keySize = inputStream.readInt();
         byte[] key = new byte[keySize];
@@ -216,7 +301,11 @@ public class VoldemortNativeRequestHandler extends AbstractRequestHandler implem
             byte[] value = v.getValue();
             outputStream.writeInt(clock.length + value.length);
             outputStream.write(clock);
-            outputStream.write(value);
+            // Large values go to the socket as they are when the stream allows
+            if(outputStream instanceof GatheringDataOutputStream)
+                ((GatheringDataOutputStream) outputStream).writeShared(value);
+            else
+                outputStream.write(value);
         }
     }
 
@@ -283,6 +372,62 @@ public class VoldemortNativeRequestHandler extends AbstractRequestHandler implem
         }
     }
 
+    private void handleBlindPut(DataInputStream inputStream,
+                                DataOutputStream outputStream,
+                                Store<ByteArray, byte[]> store) throws IOException {
+        ByteArray key = readKey(inputStream);
+        int valueSize = inputStream.readInt();
+        byte[] value = new byte[valueSize];
+        ByteUtils.read(inputStream, value);
+        byte[] clock = null;
+        try {
+            if(metadata == null)
+                throw new VoldemortException("Blind puts need the metadata of the server.");
+
+            VersionIncrementingStore<ByteArray, byte[]> versioningStore = new VersionIncrementingStore<ByteArray, byte[]>(store,
+                                                                                                                        metadata.getNodeId(),
+                                                                                                                        SystemTime.INSTANCE);
+            clock = ((VectorClock) versioningStore.blindPut(key, value)).toBytes();
+            outputStream.writeShort(0);
+        } catch(VoldemortException e) {
+            writeException(outputStream, e);
+            return;
+        }
+        outputStream.writeInt(clock.length);
+        outputStream.write(clock);
+    }
+
+    private void handlePutAll(DataInputStream inputStream,
+                              DataOutputStream outputStream,
+                              Store<ByteArray, byte[]> store) throws IOException {
+        int numEntries = inputStream.readInt();
+        Map<ByteArray, Versioned<byte[]>> entries = new HashMap<ByteArray, Versioned<byte[]>>(numEntries);
+        for(int i = 0; i < numEntries; i++) {
+            ByteArray key = readKey(inputStream);
+            int valueSize = inputStream.readInt();
+            byte[] bytes = new byte[valueSize];
+            ByteUtils.read(inputStream, bytes);
+            VectorClock clock = new VectorClock(bytes);
+            byte[] value = ByteUtils.copy(bytes, clock.sizeInBytes(), bytes.length);
+            entries.put(key, new Versioned<byte[]>(value, clock));
+        }
+
+        Set<ByteArray> obsoleteKeys = null;
+        try {
+            obsoleteKeys = store.putAll(entries);
+            outputStream.writeShort(0);
+        } catch(VoldemortException e) {
+            writeException(outputStream, e);
+            return;
+        }
+
+        outputStream.writeInt(obsoleteKeys.size());
+        for(ByteArray key: obsoleteKeys) {
+            outputStream.writeInt(key.length());
+            outputStream.write(key.get());
+        }
+    }
+
     private void handleDelete(DataInputStream inputStream,
                               DataOutputStream outputStream,
                               Store<ByteArray, byte[]> store) throws IOException {
@@ -17,10 +17,16 @@
 package voldemort.server.scheduler;
 
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.log4j.Logger;
 
+import voldemort.annotations.jmx.JmxGetter;
+import voldemort.annotations.jmx.JmxManaged;
+import voldemort.store.ExpiryIndex;
+import voldemort.store.NoSuchCapabilityException;
 import voldemort.store.StorageEngine;
+import voldemort.store.StoreCapabilityType;
 import voldemort.utils.ClosableIterator;
 import voldemort.utils.EventThrottler;
 import voldemort.utils.Pair;
@@ -31,9 +37,14 @@ import voldemort.versioning.Versioned;
 
 /**
  * Expire old data
+ * <p/>
+ * If the store keeps an {@link ExpiryIndex} only the keys it gives as written
+ * before the retention period are visited, otherwise all entries of the store
+ * are scanned.
  * 
  * 
  */
+@JmxManaged(description = "Deletes the data of a store which is past its retention period.")
 public class DataCleanupJob<K, V> implements Runnable {
 
     private static final Logger logger = Logger.getLogger(DataCleanupJob.class);
@@ -44,6 +55,13 @@ public class DataCleanupJob<K, V> implements Runnable {
     private final Time time;
     private final EventThrottler throttler;
 
+    private final AtomicLong totalEntriesScanned = new AtomicLong(0);
+    private final AtomicLong totalEntriesDeleted = new AtomicLong(0);
+    private volatile long entriesScanned;
+    private volatile long entriesDeleted;
+    private volatile long runStartMs;
+    private volatile long runEndMs;
+
     public DataCleanupJob(StorageEngine<K, V> store,
                           Semaphore cleanupPermits,
                           long maxAgeMs,
@@ -58,44 +76,88 @@ public class DataCleanupJob<K, V> implements Runnable {
 
     public void run() {
         acquireCleanupPermit();
-        ClosableIterator<Pair<K, Versioned<V>>> iterator = null;
+        ClosableIterator<?> iterator = null;
         try {
             logger.info("Starting data cleanup on store \"" + store.getName() + "\"...");
-            int deleted = 0;
-            long now = time.getMilliseconds();
-            iterator = store.entries();
-
-            while(iterator.hasNext()) {
-                // check if we have been interrupted
-                if(Thread.currentThread().isInterrupted()) {
-                    logger.info("Datacleanup job halted.");
-                    return;
-                }
+            entriesScanned = 0;
+            entriesDeleted = 0;
+            runStartMs = time.getMilliseconds();
+            runEndMs = 0;
+            long now = runStartMs;
+            ExpiryIndex<K> expiryIndex = getExpiryIndex();
 
-                Pair<K, Versioned<V>> keyAndVal = iterator.next();
-                VectorClock clock = (VectorClock) keyAndVal.getSecond().getVersion();
-                if(now - clock.getTimestamp() > maxAgeMs) {
-                    store.delete(keyAndVal.getFirst(), clock);
-                    deleted++;
-                    if(deleted % 10000 == 0)
-                        logger.debug("Deleted item " + deleted);
+            if(expiryIndex != null) {
+                ClosableIterator<K> keys = expiryIndex.keysWrittenBefore(now - maxAgeMs);
+                iterator = keys;
+                while(keys.hasNext()) {
+                    // check if we have been interrupted
+                    if(Thread.currentThread().isInterrupted()) {
+                        logger.info("Datacleanup job halted.");
+                        return;
+                    }
+
+                    K key = keys.next();
+                    for(Versioned<V> value: store.get(key))
+                        deleteIfExpired(key, value, now);
+                    // the versions of the key the entry is for are gone
+                    keys.remove();
+                    scanned();
                 }
+            } else {
+                ClosableIterator<Pair<K, Versioned<V>>> entries = store.entries();
+                iterator = entries;
+                while(entries.hasNext()) {
+                    // check if we have been interrupted
+                    if(Thread.currentThread().isInterrupted()) {
+                        logger.info("Datacleanup job halted.");
+                        return;
+                    }
 
-                // throttle on number of entries.
-                throttler.maybeThrottle(1);
+                    Pair<K, Versioned<V>> keyAndVal = entries.next();
+                    deleteIfExpired(keyAndVal.getFirst(), keyAndVal.getSecond(), now);
+                    scanned();
+                }
             }
-            logger.info("Data cleanup on store \"" + store.getName() + "\" is complete; " + deleted
-                        + " items deleted.");
+            logger.info("Data cleanup on store \"" + store.getName() + "\" is complete; "
+                        + entriesDeleted + " items deleted.");
         } catch(Exception e) {
             logger.error("Error in data cleanup job for store " + store.getName() + ": ", e);
         } finally {
+            runEndMs = time.getMilliseconds();
             closeIterator(iterator);
             logger.info("Releasing lock  after data cleanup on \"" + store.getName() + "\".");
             this.cleanupPermits.release();
         }
     }
 
-    private void closeIterator(ClosableIterator<Pair<K, Versioned<V>>> iterator) {
+    @SuppressWarnings("unchecked")
+    private ExpiryIndex<K> getExpiryIndex() {
+        try {
+            return (ExpiryIndex<K>) store.getCapability(StoreCapabilityType.EXPIRY_INDEX);
+        } catch(NoSuchCapabilityException e) {
+            return null;
+        }
+    }
+
+    private void deleteIfExpired(K key, Versioned<V> value, long now) {
+        VectorClock clock = (VectorClock) value.getVersion();
+        if(now - clock.getTimestamp() > maxAgeMs) {
+            store.delete(key, clock);
+            entriesDeleted++;
+            totalEntriesDeleted.incrementAndGet();
+            if(entriesDeleted % 10000 == 0)
+                logger.debug("Deleted item " + entriesDeleted);
+        }
+    }
+
+    private void scanned() {
+        entriesScanned++;
+        totalEntriesScanned.incrementAndGet();
+        // throttle on number of entries.
+        throttler.maybeThrottle(1);
+    }
+
+    private void closeIterator(ClosableIterator<?> iterator) {
         try {
             if(iterator != null)
                 iterator.close();
@@ -114,4 +176,47 @@ public class DataCleanupJob<K, V> implements Runnable {
         }
     }
 
+    @JmxGetter(name = "isRunning", description = "Whether a cleanup of the store is in progress.")
+    public boolean isRunning() {
+        return runStartMs != 0 && runEndMs == 0;
+    }
+
+    @JmxGetter(name = "usesExpiryIndex", description = "Whether the cleanup only visits the keys the expiry index of the store gives.")
+    public boolean usesExpiryIndex() {
+        return getExpiryIndex() != null;
+    }
+
+    @JmxGetter(name = "entriesScanned", description = "The number of entries, or keys of the expiry index, visited by the current or last cleanup.")
+    public long getEntriesScanned() {
+        return entriesScanned;
+    }
+
+    @JmxGetter(name = "entriesDeleted", description = "The number of entries deleted by the current or last cleanup.")
+    public long getEntriesDeleted() {
+        return entriesDeleted;
+    }
+
+    @JmxGetter(name = "runTimeMs", description = "The time the current or last cleanup has taken in ms.")
+    public long getRunTimeMs() {
+        if(runStartMs == 0)
+            return 0;
+        return (runEndMs == 0 ? time.getMilliseconds() : runEndMs) - runStartMs;
+    }
+
+    @JmxGetter(name = "deleteRate", description = "The entries deleted per second by the current or last cleanup.")
+    public double getDeleteRate() {
+        long runTimeMs = getRunTimeMs();
+        return runTimeMs == 0 ? 0.0 : entriesDeleted * (double) Time.MS_PER_SECOND / runTimeMs;
+    }
+
+    @JmxGetter(name = "totalEntriesScanned", description = "The number of entries visited by all cleanups.")
+    public long getTotalEntriesScanned() {
+        return totalEntriesScanned.get();
+    }
+
+    @JmxGetter(name = "totalEntriesDeleted", description = "The number of entries deleted by all cleanups.")
+    public long getTotalEntriesDeleted() {
+        return totalEntriesDeleted.get();
+    }
+
 }
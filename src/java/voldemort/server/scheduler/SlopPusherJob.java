@@ -1,12 +1,12 @@
 /*
  * Copyright 2008-2009 LinkedIn, Inc
- * 
+ *
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not
  * use this file except in compliance with the License. You may obtain a copy of
  * the License at
- * 
+ *
  * http://www.apache.org/licenses/LICENSE-2.0
- * 
+ *
  * Unless required by applicable law or agreed to in writing, software
  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
@@ -16,34 +16,95 @@
 
 package voldemort.server.scheduler;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 
+import voldemort.annotations.jmx.JmxGetter;
+import voldemort.annotations.jmx.JmxManaged;
+import voldemort.client.protocol.admin.AdminClient;
 import voldemort.server.StoreRepository;
 import voldemort.store.StorageEngine;
 import voldemort.store.Store;
+import voldemort.store.metadata.MetadataStore;
 import voldemort.store.slop.Slop;
 import voldemort.store.slop.Slop.Operation;
 import voldemort.utils.ByteArray;
 import voldemort.utils.ClosableIterator;
+import voldemort.utils.DaemonThreadFactory;
 import voldemort.utils.Pair;
-import voldemort.versioning.ObsoleteVersionException;
+import voldemort.utils.Time;
 import voldemort.versioning.Versioned;
 
 /**
  * A task which goes through the slop table and attempts to push out all the
  * slop to its rightful owner node
- * 
- * 
+ * <p/>
+ * Slops are grouped by the node they are for and pushed a batch at a time,
+ * with batches for several nodes in flight at once. The puts of a batch are
+ * streamed to the node over the admin update entries stream if an admin client
+ * is given, and otherwise written with a single putAll to the node's store.
+ * The slops of a batch are deleted once the node has acknowledged them.
+ *
+ *
  */
+@JmxManaged(description = "Pushes hinted handoff slops to the nodes they are for")
 public class SlopPusherJob implements Runnable {
 
     private static final Logger logger = Logger.getLogger(SlopPusherJob.class.getName());
 
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
     private final StoreRepository storeRepo;
+    private final MetadataStore metadataStore;
+    private final AdminClient adminClient;
+    private final int batchSize;
+    private final int maxParallelPushes;
+
+    private final AtomicLong totalSlopsPushed = new AtomicLong(0);
+    private volatile long backlog = 0;
+    private volatile double drainRate = 0;
 
     public SlopPusherJob(StoreRepository storeRepo) {
+        this(storeRepo, null, null, DEFAULT_BATCH_SIZE, 1);
+    }
+
+    /**
+     * @param storeRepo The repository of the slop store and the node stores
+     * @param metadataStore The metadata to refresh the cluster of the admin
+     *        client from before each run, or null to not refresh it
+     * @param adminClient The admin client to stream puts with, or null to put
+     *        them to the node stores of the repository
+     * @param batchSize The maximum number of slops pushed to a node at once
+     * @param maxParallelPushes The maximum number of batches in flight at once
+     */
+    public SlopPusherJob(StoreRepository storeRepo,
+                         MetadataStore metadataStore,
+                         AdminClient adminClient,
+                         int batchSize,
+                         int maxParallelPushes) {
+        if(batchSize < 1)
+            throw new IllegalArgumentException("Batch size must be at least 1.");
+        if(maxParallelPushes < 1)
+            throw new IllegalArgumentException("Parallel pushes must be at least 1.");
+
         this.storeRepo = storeRepo;
+        this.metadataStore = metadataStore;
+        this.adminClient = adminClient;
+        this.batchSize = batchSize;
+        this.maxParallelPushes = maxParallelPushes;
     }
 
     /**
@@ -52,8 +113,17 @@ public class SlopPusherJob implements Runnable {
      */
     public void run() {
         logger.debug("Pushing slop...");
-        int slopsPushed = 0;
+        long startNs = System.nanoTime();
+        final AtomicInteger slopsPushed = new AtomicInteger(0);
         int attemptedPushes = 0;
+
+        if(adminClient != null && metadataStore != null)
+            adminClient.setAdminClientCluster(metadataStore.getCluster());
+
+        ExecutorService executor = Executors.newFixedThreadPool(maxParallelPushes,
+                                                                new DaemonThreadFactory("voldemort-slop-pusher"));
+        final Semaphore pushPermits = new Semaphore(maxParallelPushes);
+        Map<Integer, List<Pair<ByteArray, Versioned<Slop>>>> batches = new HashMap<Integer, List<Pair<ByteArray, Versioned<Slop>>>>();
         ClosableIterator<Pair<ByteArray, Versioned<Slop>>> iterator = null;
         try {
             StorageEngine<ByteArray, Slop> slopStore = storeRepo.getSlopStore();
@@ -65,28 +135,29 @@ public class SlopPusherJob implements Runnable {
 
                 try {
                     Pair<ByteArray, Versioned<Slop>> keyAndVal = iterator.next();
-                    Versioned<Slop> versioned = keyAndVal.getSecond();
-                    Slop slop = versioned.getValue();
-                    Store<ByteArray, byte[]> store = storeRepo.getNodeStore(slop.getStoreName(),
-                                                                            slop.getNodeId());
-                    try {
-                        if(slop.getOperation() == Operation.PUT)
-                            store.put(keyAndVal.getFirst(),
-                                      new Versioned<byte[]>(slop.getValue(), versioned.getVersion()));
-                        else if(slop.getOperation() == Operation.DELETE)
-                            store.delete(keyAndVal.getFirst(), versioned.getVersion());
-                        else
-                            logger.error("Unknown slop operation: " + slop.getOperation());
-                        slopStore.delete(slop.makeKey(), versioned.getVersion());
-                        slopsPushed++;
-                    } catch(ObsoleteVersionException e) {
-                        // okay it is old, just delete it
-                        slopStore.delete(slop.makeKey(), versioned.getVersion());
+                    int nodeId = keyAndVal.getSecond().getValue().getNodeId();
+                    List<Pair<ByteArray, Versioned<Slop>>> batch = batches.get(nodeId);
+                    if(batch == null) {
+                        batch = new ArrayList<Pair<ByteArray, Versioned<Slop>>>(batchSize);
+                        batches.put(nodeId, batch);
                     }
+
+                    batch.add(keyAndVal);
+                    if(batch.size() >= batchSize)
+                        submitBatch(executor,
+                                    pushPermits,
+                                    nodeId,
+                                    batches.remove(nodeId),
+                                    slopsPushed);
+                } catch(InterruptedException e) {
+                    throw e;
                 } catch(Exception e) {
                     logger.error(e);
                 }
             }
+
+            for(Entry<Integer, List<Pair<ByteArray, Versioned<Slop>>>> entry: batches.entrySet())
+                submitBatch(executor, pushPermits, entry.getKey(), entry.getValue(), slopsPushed);
         } catch(Exception e) {
             logger.error(e);
         } finally {
@@ -96,13 +167,173 @@ public class SlopPusherJob implements Runnable {
             } catch(Exception e) {
                 logger.error("Failed to close iterator.", e);
             }
+
+            executor.shutdown();
+            try {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch(InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
         }
 
+        long elapsedMs = Math.max((System.nanoTime() - startNs) / Time.NS_PER_MS, 1);
+        totalSlopsPushed.addAndGet(slopsPushed.get());
+        backlog = attemptedPushes - slopsPushed.get();
+        drainRate = slopsPushed.get() * 1000.0 / elapsedMs;
+
         // typically not useful to hear that 0 items were attempted so log as
         // debug
         logger.log(attemptedPushes > 0 ? Level.INFO : Level.DEBUG,
                    "Attempted " + attemptedPushes + " hinted handoff pushes of which "
-                           + slopsPushed + " succeeded.");
+                           + slopsPushed.get() + " succeeded.");
+    }
+
+    /*
+     * Pushes the batch on the executor, once fewer than the maximum number of
+     * batches are in flight
+     */
+    private void submitBatch(ExecutorService executor,
+                             final Semaphore pushPermits,
+                             final int nodeId,
+                             final List<Pair<ByteArray, Versioned<Slop>>> batch,
+                             final AtomicInteger slopsPushed) throws InterruptedException {
+        pushPermits.acquire();
+        try {
+            executor.execute(new Runnable() {
+
+                public void run() {
+                    try {
+                        slopsPushed.addAndGet(pushBatch(nodeId, batch));
+                    } catch(Exception e) {
+                        logger.error("Failed to push slops to node " + nodeId, e);
+                    } finally {
+                        pushPermits.release();
+                    }
+                }
+
+            });
+        } catch(RuntimeException e) {
+            pushPermits.release();
+            throw e;
+        }
+    }
+
+    /*
+     * Pushes the slops of the batch to the node, grouped by store, and deletes
+     * those the node has acknowledged
+     *
+     * @return The number of slops pushed
+     */
+    private int pushBatch(int nodeId, List<Pair<ByteArray, Versioned<Slop>>> batch) {
+        Map<String, List<Pair<ByteArray, Versioned<Slop>>>> putsByStore = new HashMap<String, List<Pair<ByteArray, Versioned<Slop>>>>();
+        List<Pair<ByteArray, Versioned<Slop>>> pushed = new ArrayList<Pair<ByteArray, Versioned<Slop>>>(batch.size());
+
+        for(Pair<ByteArray, Versioned<Slop>> keyAndVal: batch) {
+            Versioned<Slop> versioned = keyAndVal.getSecond();
+            Slop slop = versioned.getValue();
+
+            if(slop.getOperation() == Operation.PUT) {
+                List<Pair<ByteArray, Versioned<Slop>>> puts = putsByStore.get(slop.getStoreName());
+                if(puts == null) {
+                    puts = new ArrayList<Pair<ByteArray, Versioned<Slop>>>();
+                    putsByStore.put(slop.getStoreName(), puts);
+                }
+                puts.add(keyAndVal);
+            } else if(slop.getOperation() == Operation.DELETE) {
+                try {
+                    getNodeStore(slop.getStoreName(), nodeId).delete(slop.getKey(),
+                                                                     versioned.getVersion());
+                    pushed.add(keyAndVal);
+                } catch(Exception e) {
+                    logger.error(e);
+                }
+            } else {
+                logger.error("Unknown slop operation: " + slop.getOperation());
+            }
+        }
+
+        for(Entry<String, List<Pair<ByteArray, Versioned<Slop>>>> entry: putsByStore.entrySet()) {
+            try {
+                pushPuts(nodeId, entry.getKey(), entry.getValue());
+                pushed.addAll(entry.getValue());
+            } catch(Exception e) {
+                logger.error(e);
+            }
+        }
+
+        // the node has the values, or newer ones, so the slops can go
+        StorageEngine<ByteArray, Slop> slopStore = storeRepo.getSlopStore();
+        int deleted = 0;
+        for(Pair<ByteArray, Versioned<Slop>> keyAndVal: pushed) {
+            try {
+                slopStore.delete(keyAndVal.getFirst(), keyAndVal.getSecond().getVersion());
+                deleted++;
+            } catch(Exception e) {
+                logger.error(e);
+            }
+        }
+
+        return deleted;
+    }
+
+    private void pushPuts(int nodeId, String storeName, List<Pair<ByteArray, Versioned<Slop>>> puts) {
+        if(adminClient != null) {
+            List<Pair<ByteArray, Versioned<byte[]>>> entries = new ArrayList<Pair<ByteArray, Versioned<byte[]>>>(puts.size());
+            for(Pair<ByteArray, Versioned<Slop>> keyAndVal: puts) {
+                Versioned<Slop> versioned = keyAndVal.getSecond();
+                entries.add(Pair.create(versioned.getValue().getKey(),
+                                        new Versioned<byte[]>(versioned.getValue().getValue(),
+                                                              versioned.getVersion())));
+            }
+
+            // obsolete versions are ignored by the node
+            adminClient.updateEntries(nodeId, storeName, entries.iterator(), null);
+        } else {
+            Map<ByteArray, Versioned<byte[]>> entries = new HashMap<ByteArray, Versioned<byte[]>>();
+            List<Pair<ByteArray, Versioned<Slop>>> later = new ArrayList<Pair<ByteArray, Versioned<Slop>>>();
+            for(Pair<ByteArray, Versioned<Slop>> keyAndVal: puts) {
+                Versioned<Slop> versioned = keyAndVal.getSecond();
+                Versioned<byte[]> value = new Versioned<byte[]>(versioned.getValue().getValue(),
+                                                                versioned.getVersion());
+                if(entries.containsKey(versioned.getValue().getKey()))
+                    later.add(keyAndVal);
+                else
+                    entries.put(versioned.getValue().getKey(), value);
+            }
+
+            // the keys that are obsolete are older than what the node has
+            Store<ByteArray, byte[]> store = getNodeStore(storeName, nodeId);
+            Set<ByteArray> obsoleteKeys = store.putAll(entries);
+            if(logger.isDebugEnabled() && obsoleteKeys != null && !obsoleteKeys.isEmpty())
+                logger.debug(obsoleteKeys.size() + " slops for node " + nodeId + " are obsolete");
+
+            // a key with several slops in the batch is put once per slop
+            if(!later.isEmpty())
+                pushPuts(nodeId, storeName, later);
+        }
+    }
+
+    private Store<ByteArray, byte[]> getNodeStore(String storeName, int nodeId) {
+        Store<ByteArray, byte[]> store = storeRepo.getNodeStore(storeName, nodeId);
+        if(store == null)
+            throw new IllegalStateException("No store " + storeName + " for node " + nodeId);
+        return store;
+    }
+
+    @JmxGetter(name = "backlog", description = "The number of slops left after the last run.")
+    public long getBacklog() {
+        return backlog;
+    }
+
+    @JmxGetter(name = "drainRate", description = "The slops pushed per second in the last run.")
+    public double getDrainRate() {
+        return drainRate;
+    }
+
+    @JmxGetter(name = "totalSlopsPushed", description = "The number of slops pushed since startup.")
+    public long getTotalSlopsPushed() {
+        return totalSlopsPushed.get();
     }
 
 }
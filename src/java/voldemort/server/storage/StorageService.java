@@ -43,11 +43,14 @@ import voldemort.VoldemortException;
 import voldemort.annotations.jmx.JmxManaged;
 import voldemort.annotations.jmx.JmxOperation;
 import voldemort.client.ClientThreadPool;
+import voldemort.client.protocol.admin.AdminClient;
 import voldemort.cluster.Cluster;
 import voldemort.cluster.Node;
 import voldemort.cluster.failuredetector.FailureDetector;
 import voldemort.cluster.failuredetector.FailureDetectorConfig;
 import voldemort.cluster.failuredetector.ServerStoreVerifier;
+import voldemort.routing.RoutingStrategy;
+import voldemort.routing.RoutingStrategyFactory;
 import voldemort.serialization.ByteArraySerializer;
 import voldemort.serialization.SlopSerializer;
 import voldemort.server.AbstractService;
@@ -57,10 +60,12 @@ import voldemort.server.StoreRepository;
 import voldemort.server.VoldemortConfig;
 import voldemort.server.scheduler.DataCleanupJob;
 import voldemort.server.scheduler.SchedulerService;
+import voldemort.server.scheduler.SlopPusherJob;
 import voldemort.store.StorageConfiguration;
 import voldemort.store.StorageEngine;
 import voldemort.store.Store;
 import voldemort.store.StoreDefinition;
+import voldemort.store.bdb.BdbStorageConfiguration;
 import voldemort.store.invalidmetadata.InvalidMetadataCheckingStore;
 import voldemort.store.logging.LoggingStore;
 import voldemort.store.metadata.MetadataStore;
@@ -78,6 +83,7 @@ import voldemort.store.stats.StatTrackingStore;
 import voldemort.store.stats.StoreStats;
 import voldemort.store.stats.StoreStatsJmx;
 import voldemort.store.versioned.InconsistencyResolvingStore;
+import voldemort.store.versioned.RetentionEnforcingStore;
 import voldemort.store.views.ViewStorageConfiguration;
 import voldemort.store.views.ViewStorageEngine;
 import voldemort.utils.ByteArray;
@@ -86,6 +92,7 @@ import voldemort.utils.ConfigurationException;
 import voldemort.utils.EventThrottler;
 import voldemort.utils.JmxUtils;
 import voldemort.utils.Pair;
+import voldemort.utils.RebalanceUtils;
 import voldemort.utils.ReflectUtils;
 import voldemort.utils.SystemTime;
 import voldemort.utils.Time;
@@ -114,6 +121,7 @@ public class StorageService extends AbstractService {
     private final FailureDetector failureDetector;
     private final StoreStats storeStats;
     private final RoutedStoreFactory routedStoreFactory;
+    private AdminClient slopPusherAdminClient;
 
     public StorageService(StoreRepository storeRepository,
                           MetadataStore metadata,
@@ -190,6 +198,9 @@ public class StorageService extends AbstractService {
             storeRepository.setSlopStore(SerializingStorageEngine.wrap(slopEngine,
                                                                        new ByteArraySerializer(),
                                                                        new SlopSerializer()));
+
+            if(voldemortConfig.isSlopPusherEnabled())
+                scheduleSlopPusherJob();
         }
         List<StoreDefinition> storeDefs = new ArrayList<StoreDefinition>(this.metadata.getStoreDefList());
         logger.info("Initializing stores:");
@@ -216,12 +227,11 @@ public class StorageService extends AbstractService {
 
     public void openStore(StoreDefinition storeDef) {
         logger.info("Opening store '" + storeDef.getName() + "' (" + storeDef.getType() + ").");
-        StorageEngine<ByteArray, byte[]> engine = getStorageEngine(storeDef.getName(),
-                                                                   storeDef.getType());
+        StorageEngine<ByteArray, byte[]> engine = getStorageEngine(storeDef);
 
         // openStore() should have atomic semantics
         try {
-            registerEngine(engine);
+            registerEngine(engine, storeDef);
 
             if(voldemortConfig.isServerRoutingEnabled())
                 registerNodeStores(storeDef, metadata.getCluster(), voldemortConfig.getNodeId());
@@ -267,6 +277,10 @@ public class StorageService extends AbstractService {
         if(!storeDef.isView())
             engine.truncate();
         engine.close();
+
+        StorageConfiguration config = storageConfigs.get(storeDef.getType());
+        if(config instanceof BdbStorageConfiguration)
+            ((BdbStorageConfiguration) config).removeStorageEngine(engineName);
     }
 
     /**
@@ -275,11 +289,26 @@ public class StorageService extends AbstractService {
      * @param engine Register the storage engine
      */
     public void registerEngine(StorageEngine<ByteArray, byte[]> engine) {
+        registerEngine(engine, null);
+    }
+
+    /**
+     * Register the given engine with the storage repository
+     * 
+     * @param engine Register the storage engine
+     * @param storeDef The definition of the store, or null if it has none
+     */
+    public void registerEngine(StorageEngine<ByteArray, byte[]> engine, StoreDefinition storeDef) {
         Cluster cluster = this.metadata.getCluster();
         storeRepository.addStorageEngine(engine);
 
         /* Now add any store wrappers that are enabled */
         Store<ByteArray, byte[]> store = engine;
+        if(storeDef != null && storeDef.hasRetentionPeriod())
+            store = new RetentionEnforcingStore(store,
+                                                storeDef.getRetentionDays() * Time.MS_PER_DAY,
+                                                SystemTime.INSTANCE);
+
         if(voldemortConfig.isVerboseLoggingEnabled())
             store = new LoggingStore<ByteArray, byte[]>(store,
                                                         cluster.getName(),
@@ -415,12 +444,16 @@ public class StorageService extends AbstractService {
 
         EventThrottler throttler = new EventThrottler(maxReadRate);
 
-        Runnable cleanupJob = new DataCleanupJob<ByteArray, byte[]>(engine,
-                                                                    cleanupPermits,
-                                                                    storeDef.getRetentionDays()
-                                                                            * Time.MS_PER_DAY,
-                                                                    SystemTime.INSTANCE,
-                                                                    throttler);
+        DataCleanupJob<ByteArray, byte[]> cleanupJob = new DataCleanupJob<ByteArray, byte[]>(engine,
+                                                                                             cleanupPermits,
+                                                                                             storeDef.getRetentionDays()
+                                                                                                     * Time.MS_PER_DAY,
+                                                                                             SystemTime.INSTANCE,
+                                                                                             throttler);
+        if(voldemortConfig.isJmxEnabled())
+            JmxUtils.registerMbean(cleanupJob,
+                                   JmxUtils.createObjectName(JmxUtils.getPackageName(cleanupJob.getClass()),
+                                                             "data-cleanup-" + storeDef.getName()));
 
         this.scheduler.schedule(cleanupJob,
                                 startTime,
@@ -429,13 +462,58 @@ public class StorageService extends AbstractService {
 
     }
 
+    /**
+     * Schedule the job that pushes the slops to the nodes they are for
+     */
+    private void scheduleSlopPusherJob() {
+        int maxParallelPushes = voldemortConfig.getSlopMaxParallelPushes();
+        if(voldemortConfig.isAdminServerEnabled())
+            slopPusherAdminClient = RebalanceUtils.createTempAdminClient(voldemortConfig,
+                                                                         metadata.getCluster(),
+                                                                         maxParallelPushes,
+                                                                         maxParallelPushes);
+
+        SlopPusherJob slopPusher = new SlopPusherJob(storeRepository,
+                                                     metadata,
+                                                     slopPusherAdminClient,
+                                                     voldemortConfig.getSlopBatchSize(),
+                                                     maxParallelPushes);
+        if(voldemortConfig.isJmxEnabled())
+            JmxUtils.registerMbean(slopPusher,
+                                   JmxUtils.createObjectName(JmxUtils.getPackageName(slopPusher.getClass()),
+                                                             "slop-pusher"));
+
+        logger.info("Scheduling slop pusher job every " + voldemortConfig.getPusherPollMs()
+                    + " ms.");
+        this.scheduler.schedule(slopPusher,
+                                new Date(System.currentTimeMillis()
+                                         + voldemortConfig.getPusherPollMs()),
+                                voldemortConfig.getPusherPollMs());
+    }
+
     private StorageEngine<ByteArray, byte[]> getStorageEngine(String name, String type) {
+        return getStorageConfiguration(name, type).getStore(name);
+    }
+
+    private StorageEngine<ByteArray, byte[]> getStorageEngine(StoreDefinition storeDef) {
+        StorageConfiguration config = getStorageConfiguration(storeDef.getName(),
+                                                              storeDef.getType());
+        // a bdb store may keep its keys in partition order and an expiry index
+        if(config instanceof BdbStorageConfiguration) {
+            RoutingStrategy routingStrategy = new RoutingStrategyFactory().updateRoutingStrategy(storeDef,
+                                                                                                 metadata.getCluster());
+            return ((BdbStorageConfiguration) config).getStore(storeDef, routingStrategy);
+        }
+        return config.getStore(storeDef.getName());
+    }
+
+    private StorageConfiguration getStorageConfiguration(String name, String type) {
         StorageConfiguration config = storageConfigs.get(type);
         if(config == null)
             throw new ConfigurationException("Attempt to open store " + name + " but " + type
                                              + " storage engine of type " + type
                                              + " has not been enabled.");
-        return config.getStore(name);
+        return config;
     }
 
     @Override
@@ -469,6 +547,9 @@ public class StorageService extends AbstractService {
         }
         logger.info("All stores closed.");
 
+        if(slopPusherAdminClient != null)
+            slopPusherAdminClient.stop();
+
         /* Close slop store if necessary */
         if(this.storeRepository.hasSlopStore()) {
             try {
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2010 LinkedIn, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store;
+
+import voldemort.VoldemortException;
+import voldemort.versioning.Version;
+
+/**
+ * A store that can put a value without a version, versioning it where it is
+ * stored. The versions stored for the key are merged and incremented for the
+ * node that stores the value, so the value supersedes all of them.
+ * <p/>
+ * This saves the round trip to read the versions that a put without a version
+ * otherwise needs. A store that decorates another implements this interface
+ * whether or not the store it decorates does, so callers must be ready to fall
+ * back to reading the versions themselves.
+ *
+ *
+ * @param <K> The type of the key being stored
+ * @param <V> The type of the value being stored
+ */
+public interface BlindPutStore<K, V> extends Store<K, V> {
+
+    /**
+     * Associate the value with the key, superseding all the versions stored for
+     * it
+     *
+     * @param key The key
+     * @param value The value
+     * @return The version the value was stored with
+     * @throws UnsupportedOperationException If the underlying store cannot do
+     *         blind puts
+     */
+    public Version blindPut(K key, V value) throws VoldemortException;
+
+}
@@ -18,6 +18,7 @@ package voldemort.store;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import voldemort.VoldemortException;
 import voldemort.utils.Utils;
@@ -68,6 +69,11 @@ public class DelegatingStore<K, V> implements Store<K, V> {
         innerStore.put(key, value);
     }
 
+    public Set<K> putAll(Map<K, Versioned<V>> entries) throws VoldemortException {
+        StoreUtils.assertValidKeys(entries.keySet());
+        return innerStore.putAll(entries);
+    }
+
     public Store<K, V> getInnerStore() {
         return innerStore;
     }
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2010 LinkedIn, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store;
+
+import voldemort.utils.ClosableIterator;
+
+/**
+ * An index of the keys of a storage engine by the time their versions were
+ * written, so that data past its retention can be found without scanning the
+ * whole store. A storage engine which keeps one returns it as its
+ * {@link StoreCapabilityType#EXPIRY_INDEX} capability.
+ * <p/>
+ * The index is kept in buckets of time and holds an entry for every key
+ * written in a bucket, with the timestamp of the written version. Entries are
+ * not removed when their versions are overwritten or deleted, so a key may
+ * come back from the index after its data has gone.
+ *
+ *
+ * @param <K> The type of the key being stored
+ */
+public interface ExpiryIndex<K> {
+
+    /**
+     * Get an iterator over the keys of the buckets which ended at or before
+     * the given time, oldest bucket first. A key appears once for every bucket
+     * it was written in.
+     * <p/>
+     * {@link ClosableIterator#remove()} removes the entry of the last key
+     * returned from the index, and should only be called once the versions of
+     * the key from before the given time are deleted.
+     *
+     * @param timeMs The time the buckets must have ended by
+     * @return An iterator over the keys written before the time
+     */
+    public ClosableIterator<K> keysWrittenBefore(long timeMs);
+
+}
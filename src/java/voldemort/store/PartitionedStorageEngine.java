@@ -0,0 +1,58 @@
+/*
+ * Copyright 2010 LinkedIn, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store;
+
+import java.util.Set;
+
+import voldemort.utils.ClosableIterator;
+import voldemort.utils.Pair;
+import voldemort.versioning.Versioned;
+
+/**
+ * A storage engine that keeps the keys of each partition together, so the keys
+ * or entries of some partitions can be read without scanning the whole store.
+ * <p/>
+ * The partition of a key is the partition it hashes to, the first of the
+ * partitions returned by
+ * {@link voldemort.routing.RoutingStrategy#getPartitionList(byte[])}; the
+ * partitions that only hold replicas of the key are not considered.
+ *
+ *
+ * @param <K> The type of the key being stored
+ * @param <V> The type of the value being stored
+ */
+public interface PartitionedStorageEngine<K, V> extends StorageEngine<K, V> {
+
+    /**
+     * Get an iterator over the entries of the given partitions, as
+     * {@link #entries()} does for all of them.
+     *
+     * @param partitions The partitions whose entries to iterate over
+     * @return An iterator over the entries of the partitions
+     */
+    public ClosableIterator<Pair<K, Versioned<V>>> entries(Set<Integer> partitions);
+
+    /**
+     * Get an iterator over the keys of the given partitions, as {@link #keys()}
+     * does for all of them.
+     *
+     * @param partitions The partitions whose keys to iterate over
+     * @return An iterator over the keys of the partitions
+     */
+    public ClosableIterator<K> keys(Set<Integer> partitions);
+
+}
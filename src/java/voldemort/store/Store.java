@@ -18,6 +18,7 @@ package voldemort.store;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import voldemort.VoldemortException;
 import voldemort.annotations.concurrency.Threadsafe;
@@ -66,6 +67,18 @@ public interface Store<K, V> {
      */
     public void put(K key, Versioned<V> value) throws VoldemortException;
 
+    /**
+     * Associate each value with its key and version in this store, as
+     * {@link #put(Object, Versioned)} does. A value whose version is obsolete
+     * is not stored, but does not stop the others from being stored.
+     * 
+     * @param entries The keys and the values to store with their versions
+     * @return The keys whose values were not stored because their versions
+     *         are obsolete
+     * @throws VoldemortException
+     */
+    public Set<K> putAll(Map<K, Versioned<V>> entries) throws VoldemortException;
+
     /**
      * Delete all entries prior to the given version
      * 
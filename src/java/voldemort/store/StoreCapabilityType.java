@@ -11,5 +11,6 @@ public enum StoreCapabilityType {
     SOCKET_POOL,
     VERSION_INCREMENTING,
     VIEW_TARGET,
-    ROLLBACK_FROM_BACKUP;
+    ROLLBACK_FROM_BACKUP,
+    EXPIRY_INDEX;
 }
@@ -21,8 +21,10 @@ import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.log4j.Logger;
 
@@ -34,6 +36,7 @@ import voldemort.serialization.SerializerFactory;
 import voldemort.utils.ByteArray;
 import voldemort.utils.ClosableIterator;
 import voldemort.utils.Pair;
+import voldemort.versioning.ObsoleteVersionException;
 import voldemort.versioning.Version;
 import voldemort.versioning.Versioned;
 
@@ -61,6 +64,36 @@ public class StoreUtils {
             throw new IllegalArgumentException("Key cannot be null.");
     }
 
+    /**
+     * Implements putAll by delegating to put.
+     */
+    public static <K, V> Set<K> putAll(Store<K, V> store, Map<K, Versioned<V>> entries) {
+        assertValidKeys(entries.keySet());
+        Set<K> obsoleteKeys = new HashSet<K>();
+        for(Map.Entry<K, Versioned<V>> entry: entries.entrySet()) {
+            try {
+                store.put(entry.getKey(), entry.getValue());
+            } catch(ObsoleteVersionException e) {
+                obsoleteKeys.add(entry.getKey());
+            }
+        }
+        return obsoleteKeys;
+    }
+
+    /**
+     * Implements blind put by delegating to the given store, if it can do
+     * them.
+     * 
+     * @throws UnsupportedOperationException If the store cannot do blind puts
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> Version blindPut(Store<K, V> store, K key, V value) {
+        if(!(store instanceof BlindPutStore))
+            throw new UnsupportedOperationException("Store '" + store.getName()
+                                                    + "' cannot do blind puts.");
+        return ((BlindPutStore<K, V>) store).blindPut(key, value);
+    }
+
     /**
      * Implements get by delegating to getAll.
      */
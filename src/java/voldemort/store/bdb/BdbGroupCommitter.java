@@ -0,0 +1,180 @@
+/*
+ * Copyright 2008-2010 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.bdb;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import voldemort.store.PersistenceFailureException;
+import voldemort.utils.Utils;
+
+import com.sleepycat.je.DatabaseException;
+import com.sleepycat.je.DbInternal;
+import com.sleepycat.je.Environment;
+import com.sleepycat.je.Transaction;
+
+/**
+ * Commits the transactions of an environment durably with one log flush shared
+ * by all the commits that arrive together.
+ * <p>
+ * Each transaction is committed without a flush of its own, and the committing
+ * thread then waits until a flush started after its commit has completed, so a
+ * commit returns only once it is on disk, just as a synchronous commit. The
+ * first waiting thread performs the flush for everyone: it first waits for the
+ * commit window so that more commits can join, then flushes and wakes all the
+ * commits it covered. Commits arriving during a flush are covered by the next.
+ * <p>
+ * If the flush fails once a transaction is committed, the transaction cannot
+ * be aborted any more, so the commit fails with a
+ * {@link PersistenceFailureException} instead.
+ * 
+ * 
+ */
+public class BdbGroupCommitter {
+
+    private final Environment environment;
+    private final long windowNs;
+    private final Object lock = new Object();
+    private final AtomicLong numCommits = new AtomicLong(0);
+    private final AtomicLong numFlushes = new AtomicLong(0);
+
+    /* the number of commits so far, and the number of those known durable */
+    private long committed = 0;
+    private long flushed = 0;
+    private boolean flushing = false;
+    private boolean closed = false;
+
+    /**
+     * @param environment The environment whose log is flushed
+     * @param window How long a flush waits for more commits to join it
+     * @param unit The unit of the window
+     */
+    public BdbGroupCommitter(Environment environment, long window, TimeUnit unit) {
+        this.environment = Utils.notNull(environment);
+        this.windowNs = unit.toNanos(window);
+    }
+
+    /**
+     * Commit the transaction and wait until it is durable
+     *
+     * @param transaction The transaction to commit
+     * @throws DatabaseException If the commit fails, the transaction is not
+     *         committed
+     * @throws PersistenceFailureException If the transaction was committed
+     *         but the flush failed
+     */
+    public void commit(Transaction transaction) throws DatabaseException {
+        boolean closing;
+        synchronized(lock) {
+            closing = closed;
+        }
+        if(closing) {
+            // commit on its own, failing like any commit if the environment
+            // is closed too
+            transaction.commit();
+            return;
+        }
+        transaction.commitNoSync();
+        numCommits.incrementAndGet();
+        long ticket;
+        synchronized(lock) {
+            ticket = ++committed;
+        }
+        try {
+            awaitFlush(ticket);
+        } catch(DatabaseException e) {
+            throw new PersistenceFailureException("Transaction committed, but flushing the log failed.",
+                                                  e);
+        }
+    }
+
+    /**
+     * Stop grouping commits, for when the environment is closed. Commits
+     * already made still wait for their flush, later ones commit on their
+     * own.
+     */
+    public void close() {
+        synchronized(lock) {
+            closed = true;
+        }
+    }
+
+    private void awaitFlush(long ticket) throws DatabaseException {
+        synchronized(lock) {
+            // the commit is already done, so wait for it to be durable even if
+            // interrupted
+            boolean interrupted = false;
+            while(flushed < ticket && flushing) {
+                try {
+                    lock.wait();
+                } catch(InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if(interrupted)
+                Thread.currentThread().interrupt();
+            if(flushed >= ticket)
+                return;
+            flushing = true;
+        }
+
+        // this thread flushes for all commits up to the time of the flush
+        long target = ticket;
+        boolean succeeded = false;
+        try {
+            if(windowNs > 0)
+                LockSupport.parkNanos(windowNs);
+            synchronized(lock) {
+                target = committed;
+            }
+            flush();
+            numFlushes.incrementAndGet();
+            succeeded = true;
+        } finally {
+            synchronized(lock) {
+                // on failure the waiting commits retry the flush themselves
+                if(succeeded)
+                    flushed = Math.max(flushed, target);
+                flushing = false;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /*
+     * Write the log buffers and fsync the log. JE 4.0 has no public call that
+     * does this without a checkpoint, so the log manager is used directly.
+     */
+    private void flush() throws DatabaseException {
+        DbInternal.getEnvironmentImpl(environment).getLogManager().flush();
+    }
+
+    /**
+     * The number of transactions committed
+     */
+    public long getNumCommits() {
+        return numCommits.get();
+    }
+
+    /**
+     * The number of log flushes the commits were made durable with
+     */
+    public long getNumFlushes() {
+        return numFlushes.get();
+    }
+}
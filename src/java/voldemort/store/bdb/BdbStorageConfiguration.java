@@ -18,25 +18,32 @@ package voldemort.store.bdb;
 
 import java.io.File;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.log4j.Logger;
 
 import voldemort.VoldemortException;
 import voldemort.annotations.jmx.JmxOperation;
+import voldemort.routing.RouteToAllStrategy;
+import voldemort.routing.RoutingStrategy;
 import voldemort.server.VoldemortConfig;
 import voldemort.store.StorageConfiguration;
 import voldemort.store.StorageEngine;
 import voldemort.store.StorageInitializationException;
+import voldemort.store.StoreDefinition;
 import voldemort.utils.ByteArray;
 import voldemort.utils.Time;
 
 import com.google.common.collect.Maps;
 import com.sleepycat.je.Database;
 import com.sleepycat.je.DatabaseConfig;
+import com.sleepycat.je.DatabaseEntry;
 import com.sleepycat.je.DatabaseException;
 import com.sleepycat.je.Environment;
 import com.sleepycat.je.EnvironmentConfig;
 import com.sleepycat.je.EnvironmentStats;
+import com.sleepycat.je.LockMode;
+import com.sleepycat.je.OperationStatus;
 import com.sleepycat.je.PreloadConfig;
 import com.sleepycat.je.StatsConfig;
 
@@ -51,6 +58,10 @@ public class BdbStorageConfiguration implements StorageConfiguration {
 
     public static final String TYPE_NAME = "bdb";
     private static final String SHARED_ENV_KEY = "shared";
+    private static final String EXPIRY_INDEX_SUFFIX = ".expiry-index";
+    private static final String KEY_LAYOUT_DATABASE = ".key-layouts";
+    private static final String PLAIN_KEY_LAYOUT = "plain";
+    private static final String PARTITION_PREFIXED_KEY_LAYOUT = "partition-prefixed";
 
     private static Logger logger = Logger.getLogger(BdbStorageConfiguration.class);
 
@@ -58,16 +69,23 @@ public class BdbStorageConfiguration implements StorageConfiguration {
     private final Map<String, Environment> environments = Maps.newHashMap();
     private final EnvironmentConfig environmentConfig;
     private final DatabaseConfig databaseConfig;
+    private final DatabaseConfig expiryIndexConfig;
+    private final DatabaseConfig keyLayoutConfig;
     private final Map<String, BdbStorageEngine> stores = Maps.newHashMap();
     private final String bdbMasterDir;
     private final boolean useOneEnvPerStore;
     private final VoldemortConfig voldemortConfig;
+    private final boolean useGroupCommit;
+    private final Map<Environment, BdbGroupCommitter> groupCommitters = Maps.newHashMap();
 
     public BdbStorageConfiguration(VoldemortConfig config) {
         this.voldemortConfig = config;
         environmentConfig = new EnvironmentConfig();
         environmentConfig.setTransactional(true);
         environmentConfig.setCacheSize(config.getBdbCacheSize());
+        // group commit only applies when commits are flushed
+        useGroupCommit = config.isBdbGroupCommitEnabled() && config.isBdbWriteTransactionsEnabled()
+                         && config.isBdbFlushTransactionsEnabled();
         if(config.isBdbWriteTransactionsEnabled() && config.isBdbFlushTransactionsEnabled()) {
             environmentConfig.setTxnNoSync(false);
             environmentConfig.setTxnWriteNoSync(false);
@@ -93,6 +111,13 @@ public class BdbStorageConfiguration implements StorageConfiguration {
         databaseConfig.setSortedDuplicates(config.isBdbSortedDuplicatesEnabled());
         databaseConfig.setNodeMaxEntries(config.getBdbBtreeFanout());
         databaseConfig.setTransactional(true);
+        expiryIndexConfig = new DatabaseConfig();
+        expiryIndexConfig.setAllowCreate(true);
+        expiryIndexConfig.setNodeMaxEntries(config.getBdbBtreeFanout());
+        expiryIndexConfig.setTransactional(true);
+        keyLayoutConfig = new DatabaseConfig();
+        keyLayoutConfig.setAllowCreate(true);
+        keyLayoutConfig.setTransactional(true);
         bdbMasterDir = config.getBdbDataDirectory();
         useOneEnvPerStore = config.isBdbOneEnvPerStore();
         if(useOneEnvPerStore)
@@ -100,22 +125,82 @@ public class BdbStorageConfiguration implements StorageConfiguration {
     }
 
     public StorageEngine<ByteArray, byte[]> getStore(String storeName) {
+        return getStore(storeName, null, false);
+    }
+
+    /**
+     * Get the store of the definition, keeping its keys in partition order if
+     * that layout is enabled and the store is routed to a partition, and with
+     * an expiry index if those are enabled and the store has a retention
+     * period.
+     * 
+     * @param storeDef The definition of the store
+     * @param routingStrategy The routing strategy of the store, or null if it
+     *        is not known
+     * @return The storage engine of the store
+     */
+    public StorageEngine<ByteArray, byte[]> getStore(StoreDefinition storeDef,
+                                                     RoutingStrategy routingStrategy) {
+        return getStore(storeDef.getName(),
+                        routingStrategy,
+                        voldemortConfig.isBdbExpiryIndexEnabled() && storeDef.hasRetentionPeriod());
+    }
+
+    private StorageEngine<ByteArray, byte[]> getStore(String storeName,
+                                                      RoutingStrategy routingStrategy,
+                                                      boolean useExpiryIndex) {
         synchronized(lock) {
             BdbStorageEngine store = stores.get(storeName);
             if(store != null)
                 return stores.get(storeName);
             try {
                 Environment environment = getEnvironment(storeName);
+                boolean isPartitionPrefixed = voldemortConfig.isBdbPartitionPrefixedKeysEnabled()
+                                              && routingStrategy != null
+                                              && !(routingStrategy instanceof RouteToAllStrategy);
+                checkKeyLayout(environment,
+                               storeName,
+                               isPartitionPrefixed ? PARTITION_PREFIXED_KEY_LAYOUT
+                                                  : PLAIN_KEY_LAYOUT);
+
                 Database db = environment.openDatabase(null, storeName, databaseConfig);
                 if(voldemortConfig.getBdbCursorPreload()) {
                     PreloadConfig preloadConfig = new PreloadConfig();
                     preloadConfig.setLoadLNs(true);
                     db.preload(preloadConfig);
                 }
-                BdbStorageEngine engine = new BdbStorageEngine(storeName,
-                                                               environment,
-                                                               db,
-                                                               voldemortConfig.getBdbCursorPreload());
+
+                // an index missing writes made without it is of no use
+                String expiryIndexName = storeName + EXPIRY_INDEX_SUFFIX;
+                boolean hasExpiryIndex = environment.getDatabaseNames().contains(expiryIndexName);
+                Database expiryIndexDb = null;
+                if(useExpiryIndex) {
+                    expiryIndexDb = environment.openDatabase(null,
+                                                             expiryIndexName,
+                                                             expiryIndexConfig);
+                } else if(hasExpiryIndex) {
+                    logger.info("Removing the expiry index of store " + storeName + ".");
+                    environment.removeDatabase(null, expiryIndexName);
+                }
+
+                BdbStorageEngine engine;
+                if(isPartitionPrefixed)
+                    engine = new PartitionPrefixedBdbStorageEngine(storeName,
+                                                                   environment,
+                                                                   db,
+                                                                   voldemortConfig.getBdbCursorPreload(),
+                                                                   getGroupCommitter(environment),
+                                                                   expiryIndexDb,
+                                                                   routingStrategy);
+                else
+                    engine = new BdbStorageEngine(storeName,
+                                                  environment,
+                                                  db,
+                                                  voldemortConfig.getBdbCursorPreload(),
+                                                  getGroupCommitter(environment),
+                                                  expiryIndexDb);
+                if(useExpiryIndex && !hasExpiryIndex)
+                    engine.buildExpiryIndex();
                 stores.put(storeName, engine);
                 return engine;
             } catch(DatabaseException d) {
@@ -124,6 +209,54 @@ public class BdbStorageConfiguration implements StorageConfiguration {
         }
     }
 
+    /*
+     * Records the key layout of a new store, or checks that an existing store
+     * has the layout it was created with, as the keys of a store opened with
+     * the other layout cannot be found. Stores created before the layouts
+     * were recorded have plain keys.
+     */
+    private void checkKeyLayout(Environment environment, String storeName, String layout)
+            throws DatabaseException {
+        boolean isNew = !environment.getDatabaseNames().contains(storeName);
+        Database layouts = environment.openDatabase(null, KEY_LAYOUT_DATABASE, keyLayoutConfig);
+        try {
+            DatabaseEntry key = new DatabaseEntry(storeName.getBytes());
+            DatabaseEntry value = new DatabaseEntry();
+            String recorded = PLAIN_KEY_LAYOUT;
+            if(!isNew && layouts.get(null, key, value, LockMode.READ_COMMITTED) == OperationStatus.SUCCESS)
+                recorded = new String(value.getData());
+
+            if(!isNew && !recorded.equals(layout))
+                throw new StorageInitializationException("Store " + storeName + " has " + recorded
+                                                         + " keys, but " + layout
+                                                         + " keys are configured, check"
+                                                         + " bdb.partition.prefixed.keys.");
+
+            layouts.put(null, key, new DatabaseEntry(layout.getBytes()));
+        } finally {
+            layouts.close();
+        }
+    }
+
+    /*
+     * The group committer shared by all stores of the environment, or null if
+     * group commit is not used
+     */
+    private BdbGroupCommitter getGroupCommitter(Environment environment) {
+        if(!useGroupCommit)
+            return null;
+        synchronized(lock) {
+            BdbGroupCommitter committer = groupCommitters.get(environment);
+            if(committer == null) {
+                committer = new BdbGroupCommitter(environment,
+                                                  voldemortConfig.getBdbGroupCommitWindowUs(),
+                                                  TimeUnit.MICROSECONDS);
+                groupCommitters.put(environment, committer);
+            }
+            return committer;
+        }
+    }
+
     private Environment getEnvironment(String storeName) throws DatabaseException {
         synchronized(lock) {
             if(useOneEnvPerStore) {
@@ -199,10 +332,43 @@ public class BdbStorageConfiguration implements StorageConfiguration {
         return envStats;
     }
 
+    /**
+     * Forget the store, after its engine is closed, so that opening it again
+     * opens a new engine. With one environment per store, the environment of
+     * the store is closed as well.
+     * 
+     * @param storeName The name of the store
+     */
+    public void removeStorageEngine(String storeName) {
+        synchronized(lock) {
+            stores.remove(storeName);
+            if(!useOneEnvPerStore)
+                return;
+
+            Environment environment = environments.remove(storeName);
+            if(environment == null)
+                return;
+            closeGroupCommitter(environment);
+            try {
+                environment.sync();
+                environment.close();
+            } catch(DatabaseException e) {
+                throw new VoldemortException(e);
+            }
+        }
+    }
+
+    private void closeGroupCommitter(Environment environment) {
+        BdbGroupCommitter committer = groupCommitters.remove(environment);
+        if(committer != null)
+            committer.close();
+    }
+
     public void close() {
         synchronized(lock) {
             try {
                 for(Environment environment: environments.values()) {
+                    closeGroupCommitter(environment);
                     environment.sync();
                     environment.close();
                 }
@@ -16,18 +16,25 @@
 
 package voldemort.store.bdb;
 
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.codec.binary.Hex;
 import org.apache.log4j.Logger;
 
 import voldemort.VoldemortException;
+import voldemort.annotations.jmx.JmxGetter;
 import voldemort.annotations.jmx.JmxOperation;
 import voldemort.serialization.IdentitySerializer;
 import voldemort.serialization.Serializer;
 import voldemort.serialization.VersionedSerializer;
+import voldemort.store.ExpiryIndex;
 import voldemort.store.NoSuchCapabilityException;
 import voldemort.store.PersistenceFailureException;
 import voldemort.store.StorageEngine;
@@ -39,6 +46,7 @@ import voldemort.utils.ByteArray;
 import voldemort.utils.ByteUtils;
 import voldemort.utils.ClosableIterator;
 import voldemort.utils.Pair;
+import voldemort.utils.Time;
 import voldemort.utils.Utils;
 import voldemort.versioning.ObsoleteVersionException;
 import voldemort.versioning.Occured;
@@ -47,12 +55,15 @@ import voldemort.versioning.Version;
 import voldemort.versioning.Versioned;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.sleepycat.je.Cursor;
 import com.sleepycat.je.Database;
 import com.sleepycat.je.DatabaseEntry;
 import com.sleepycat.je.DatabaseException;
 import com.sleepycat.je.DatabaseStats;
 import com.sleepycat.je.Environment;
+import com.sleepycat.je.EnvironmentStats;
 import com.sleepycat.je.LockMode;
 import com.sleepycat.je.OperationStatus;
 import com.sleepycat.je.PreloadConfig;
@@ -75,8 +86,32 @@ public class BdbStorageEngine implements StorageEngine<ByteArray, byte[]> {
     private final VersionedSerializer<byte[]> versionedSerializer;
     private final AtomicBoolean isOpen;
     private final boolean cursorPreload;
+    private final BdbGroupCommitter groupCommitter;
     private final Serializer<Version> versionSerializer;
     private final AtomicBoolean isTruncating = new AtomicBoolean(false);
+    private final AtomicLong numBatchGetKeys = new AtomicLong(0);
+    private final AtomicLong numBatchGetSearches = new AtomicLong(0);
+    private Database expiryIndexDatabase;
+    private final ExpiryIndex<ByteArray> expiryIndex;
+
+    /**
+     * The length of the buckets of the expiry index. The index is only read
+     * for buckets that have ended, so it must not change once a store has an
+     * index.
+     */
+    public static final long EXPIRY_INDEX_BUCKET_MS = Time.MS_PER_HOUR;
+
+    private static final int EXPIRY_INDEX_BATCH_SIZE = 10000;
+
+    /*
+     * The order of keys in the database, BDB compares keys as unsigned bytes
+     */
+    private static final Comparator<ByteArray> KEY_ORDER = new Comparator<ByteArray>() {
+
+        public int compare(ByteArray key1, ByteArray key2) {
+            return ByteUtils.compare(key1.get(), key2.get());
+        }
+    };
 
     public BdbStorageEngine(String name, Environment environment, Database database) {
         this(name, environment, database, false);
@@ -86,6 +121,33 @@ public class BdbStorageEngine implements StorageEngine<ByteArray, byte[]> {
                             Environment environment,
                             Database database,
                             boolean cursorPreload) {
+        this(name, environment, database, cursorPreload, null);
+    }
+
+    public BdbStorageEngine(String name,
+                            Environment environment,
+                            Database database,
+                            boolean cursorPreload,
+                            BdbGroupCommitter groupCommitter) {
+        this(name, environment, database, cursorPreload, groupCommitter, null);
+    }
+
+    /**
+     * @param name The name of the store
+     * @param environment The environment of the database
+     * @param database The database holding the store
+     * @param cursorPreload If true preload the database before iterating
+     * @param groupCommitter If not null, commit writes through it so that
+     *        concurrent commits share a log flush
+     * @param expiryIndexDatabase If not null, the database to keep the expiry
+     *        index of the store in
+     */
+    public BdbStorageEngine(String name,
+                            Environment environment,
+                            Database database,
+                            boolean cursorPreload,
+                            BdbGroupCommitter groupCommitter,
+                            Database expiryIndexDatabase) {
         this.name = Utils.notNull(name);
         this.bdbDatabase = Utils.notNull(database);
         this.environment = Utils.notNull(environment);
@@ -102,6 +164,9 @@ public class BdbStorageEngine implements StorageEngine<ByteArray, byte[]> {
         };
         this.isOpen = new AtomicBoolean(true);
         this.cursorPreload = cursorPreload;
+        this.groupCommitter = groupCommitter;
+        this.expiryIndexDatabase = expiryIndexDatabase;
+        this.expiryIndex = expiryIndexDatabase == null ? null : new BdbExpiryIndex();
     }
 
     public String getName() {
@@ -117,7 +182,7 @@ public class BdbStorageEngine implements StorageEngine<ByteArray, byte[]> {
             }
 
             Cursor cursor = getBdbDatabase().openCursor(null, null);
-            return new BdbEntriesIterator(cursor);
+            return new BdbEntriesIterator(cursor, null);
         } catch(DatabaseException e) {
             logger.error(e);
             throw new PersistenceFailureException(e);
@@ -125,15 +190,57 @@ public class BdbStorageEngine implements StorageEngine<ByteArray, byte[]> {
     }
 
     public ClosableIterator<ByteArray> keys() {
+        return keys(null);
+    }
+
+    /**
+     * Iterate over the entries whose keys in the database start with one of
+     * the given prefixes, seeking to each prefix in turn
+     * 
+     * @param prefixes The prefixes in database order, or null for all entries
+     */
+    protected ClosableIterator<Pair<ByteArray, Versioned<byte[]>>> entries(List<byte[]> prefixes) {
+        try {
+            Cursor cursor = getBdbDatabase().openCursor(null, null);
+            return new BdbEntriesIterator(cursor, prefixes);
+        } catch(DatabaseException e) {
+            logger.error(e);
+            throw new PersistenceFailureException(e);
+        }
+    }
+
+    /**
+     * Iterate over the keys which start with one of the given prefixes in the
+     * database, seeking to each prefix in turn
+     * 
+     * @param prefixes The prefixes in database order, or null for all keys
+     */
+    protected ClosableIterator<ByteArray> keys(List<byte[]> prefixes) {
         try {
             Cursor cursor = getBdbDatabase().openCursor(null, null);
-            return new BdbKeysIterator(cursor);
+            return new BdbKeysIterator(cursor, prefixes);
         } catch(DatabaseException e) {
             logger.error(e);
             throw new PersistenceFailureException(e);
         }
     }
 
+    /**
+     * The key under which a key is kept in the database, the key itself
+     * unless a subclass lays the database out differently
+     */
+    protected byte[] toStorageKey(ByteArray key) {
+        return key.get();
+    }
+
+    /**
+     * The key kept in the database under the given key, the inverse of
+     * {@link #toStorageKey(ByteArray)}
+     */
+    protected ByteArray fromStorageKey(byte[] storageKey) {
+        return new ByteArray(storageKey);
+    }
+
     public void truncate() {
 
         if(isTruncating.compareAndSet(false, true)) {
@@ -145,9 +252,15 @@ public class BdbStorageEngine implements StorageEngine<ByteArray, byte[]> {
 
                 // close current bdbDatabase first
                 bdbDatabase.close();
+                if(expiryIndexDatabase != null)
+                    expiryIndexDatabase.close();
 
                 // truncate the database
                 environment.truncateDatabase(transaction, this.getName(), false);
+                if(expiryIndexDatabase != null)
+                    environment.truncateDatabase(transaction,
+                                                 expiryIndexDatabase.getDatabaseName(),
+                                                 false);
                 succeeded = true;
             } catch(DatabaseException e) {
                 logger.error(e);
@@ -191,6 +304,10 @@ public class BdbStorageEngine implements StorageEngine<ByteArray, byte[]> {
             bdbDatabase = environment.openDatabase(null,
                                                    this.getName(),
                                                    this.bdbDatabase.getConfig());
+            if(expiryIndexDatabase != null)
+                expiryIndexDatabase = environment.openDatabase(null,
+                                                               expiryIndexDatabase.getDatabaseName(),
+                                                               expiryIndexDatabase.getConfig());
             return true;
         } catch(DatabaseException e) {
             throw new StorageInitializationException("Failed to reinitialize BdbStorageEngine for store:"
@@ -241,37 +358,76 @@ public class BdbStorageEngine implements StorageEngine<ByteArray, byte[]> {
         return bdbDatabase;
     }
 
+    /**
+     * Get the values of all keys with a single cursor. The keys are looked up
+     * in database order, so each search starts on B-tree nodes the previous
+     * one has just brought into the cache. A search lands on the first key at
+     * or after the one searched for, any later keys which sort before that key
+     * are known to be missing without searching again.
+     */
     public Map<ByteArray, List<Versioned<byte[]>>> getAll(Iterable<ByteArray> keys)
             throws VoldemortException {
         StoreUtils.assertValidKeys(keys);
         Map<ByteArray, List<Versioned<byte[]>>> result = StoreUtils.newEmptyHashMap(keys);
+        List<ByteArray> sortedKeys = Lists.newArrayList();
+        for(ByteArray key: keys)
+            sortedKeys.add(new ByteArray(toStorageKey(key)));
+        Collections.sort(sortedKeys, KEY_ORDER);
+
         Cursor cursor = null;
+        int numSearches = 0;
         try {
             cursor = getBdbDatabase().openCursor(null, null);
-            for(ByteArray key: keys) {
-                List<Versioned<byte[]>> values = get(cursor,
-                                                     key,
-                                                     LockMode.READ_UNCOMMITTED,
-                                                     versionedSerializer);
-                if(!values.isEmpty())
-                    result.put(key, values);
+            DatabaseEntry keyEntry = new DatabaseEntry();
+            DatabaseEntry valueEntry = new DatabaseEntry();
+            // the key the cursor is on, null once a search ran past the last key
+            byte[] cursorKey = null;
+            ByteArray previousKey = null;
+            for(ByteArray key: sortedKeys) {
+                if(previousKey != null && previousKey.equals(key))
+                    continue;
+                if(previousKey == null || ByteUtils.compare(cursorKey, key.get()) < 0) {
+                    keyEntry.setData(key.get());
+                    numSearches++;
+                    OperationStatus status = cursor.getSearchKeyRange(keyEntry,
+                                                                      valueEntry,
+                                                                      LockMode.READ_UNCOMMITTED);
+                    cursorKey = status == OperationStatus.SUCCESS ? keyEntry.getData() : null;
+                }
+                previousKey = key;
+                // all remaining keys sort after the last key in the database
+                if(cursorKey == null)
+                    break;
+                if(ByteUtils.compare(cursorKey, key.get()) != 0)
+                    continue;
+
+                // the cursor is on the first value of the key
+                List<Versioned<byte[]>> values = Lists.newArrayList();
+                OperationStatus status = OperationStatus.SUCCESS;
+                while(status == OperationStatus.SUCCESS) {
+                    values.add(versionedSerializer.toObject(valueEntry.getData()));
+                    status = cursor.getNextDup(keyEntry, valueEntry, LockMode.READ_UNCOMMITTED);
+                }
+                result.put(fromStorageKey(key.get()), values);
             }
         } catch(DatabaseException e) {
             logger.error(e);
             throw new PersistenceFailureException(e);
         } finally {
             attemptClose(cursor);
+            numBatchGetKeys.addAndGet(sortedKeys.size());
+            numBatchGetSearches.addAndGet(numSearches);
         }
         return result;
     }
 
-    private static <T> List<T> get(Cursor cursor,
-                                   ByteArray key,
-                                   LockMode lockMode,
-                                   Serializer<T> serializer) throws DatabaseException {
+    private <T> List<T> get(Cursor cursor,
+                            ByteArray key,
+                            LockMode lockMode,
+                            Serializer<T> serializer) throws DatabaseException {
         StoreUtils.assertValidKey(key);
 
-        DatabaseEntry keyEntry = new DatabaseEntry(key.get());
+        DatabaseEntry keyEntry = new DatabaseEntry(toStorageKey(key));
         DatabaseEntry valueEntry = new DatabaseEntry();
         List<T> results = Lists.newArrayList();
 
@@ -286,7 +442,7 @@ public class BdbStorageEngine implements StorageEngine<ByteArray, byte[]> {
     public void put(ByteArray key, Versioned<byte[]> value) throws PersistenceFailureException {
         StoreUtils.assertValidKey(key);
 
-        DatabaseEntry keyEntry = new DatabaseEntry(key.get());
+        DatabaseEntry keyEntry = new DatabaseEntry(toStorageKey(key));
         boolean succeeded = false;
         Transaction transaction = null;
         Cursor cursor = null;
@@ -321,6 +477,7 @@ public class BdbStorageEngine implements StorageEngine<ByteArray, byte[]> {
             OperationStatus status = cursor.put(keyEntry, valueEntry);
             if(status != OperationStatus.SUCCESS)
                 throw new PersistenceFailureException("Put operation failed with status: " + status);
+            addToExpiryIndex(transaction, keyEntry.getData(), value.getVersion());
             succeeded = true;
 
         } catch(DatabaseException e) {
@@ -335,6 +492,76 @@ public class BdbStorageEngine implements StorageEngine<ByteArray, byte[]> {
         }
     }
 
+    /**
+     * Put all the values in one transaction, visiting the keys in database
+     * order with a single cursor. A value whose version is obsolete is skipped
+     * and the rest are still committed.
+     */
+    public Set<ByteArray> putAll(Map<ByteArray, Versioned<byte[]>> entries)
+            throws PersistenceFailureException {
+        StoreUtils.assertValidKeys(entries.keySet());
+        Map<ByteArray, ByteArray> storageKeys = Maps.newHashMap();
+        for(ByteArray key: entries.keySet())
+            storageKeys.put(new ByteArray(toStorageKey(key)), key);
+        List<ByteArray> sortedKeys = Lists.newArrayList(storageKeys.keySet());
+        Collections.sort(sortedKeys, KEY_ORDER);
+
+        Set<ByteArray> obsoleteKeys = Sets.newHashSet();
+        boolean succeeded = false;
+        Transaction transaction = null;
+        Cursor cursor = null;
+        try {
+            transaction = this.environment.beginTransaction(null, null);
+            cursor = getBdbDatabase().openCursor(transaction, null);
+            for(ByteArray storageKey: sortedKeys) {
+                ByteArray key = storageKeys.get(storageKey);
+                Versioned<byte[]> value = entries.get(key);
+                DatabaseEntry keyEntry = new DatabaseEntry(storageKey.get());
+                DatabaseEntry valueEntry = new DatabaseEntry();
+
+                // skip the value if there is a version later than this one
+                boolean isObsolete = false;
+                OperationStatus status = cursor.getSearchKey(keyEntry, valueEntry, LockMode.RMW);
+                while(status == OperationStatus.SUCCESS && !isObsolete) {
+                    VectorClock clock = new VectorClock(valueEntry.getData());
+                    isObsolete = value.getVersion().compare(clock) == Occured.BEFORE;
+                    status = cursor.getNextDup(keyEntry, valueEntry, LockMode.RMW);
+                }
+                if(isObsolete) {
+                    obsoleteKeys.add(key);
+                    continue;
+                }
+
+                // delete the versions obsoleted by this value
+                status = cursor.getSearchKey(keyEntry, valueEntry, LockMode.RMW);
+                while(status == OperationStatus.SUCCESS) {
+                    VectorClock clock = new VectorClock(valueEntry.getData());
+                    if(value.getVersion().compare(clock) == Occured.AFTER)
+                        cursor.delete();
+                    status = cursor.getNextDup(keyEntry, valueEntry, LockMode.RMW);
+                }
+
+                valueEntry = new DatabaseEntry(versionedSerializer.toBytes(value));
+                status = cursor.put(keyEntry, valueEntry);
+                if(status != OperationStatus.SUCCESS)
+                    throw new PersistenceFailureException("Put operation failed with status: "
+                                                          + status);
+                addToExpiryIndex(transaction, storageKey.get(), value.getVersion());
+            }
+            succeeded = true;
+        } catch(DatabaseException e) {
+            logger.error(e);
+            throw new PersistenceFailureException(e);
+        } finally {
+            attemptClose(cursor);
+            if(succeeded)
+                attemptCommit(transaction);
+            else
+                attemptAbort(transaction);
+        }
+        return obsoleteKeys;
+    }
+
     public boolean delete(ByteArray key, Version version) throws PersistenceFailureException {
         StoreUtils.assertValidKey(key);
         boolean deletedSomething = false;
@@ -342,7 +569,7 @@ public class BdbStorageEngine implements StorageEngine<ByteArray, byte[]> {
         Transaction transaction = null;
         try {
             transaction = this.environment.beginTransaction(null, null);
-            DatabaseEntry keyEntry = new DatabaseEntry(key.get());
+            DatabaseEntry keyEntry = new DatabaseEntry(toStorageKey(key));
             DatabaseEntry valueEntry = new DatabaseEntry();
             cursor = getBdbDatabase().openCursor(transaction, null);
             OperationStatus status = cursor.getSearchKey(keyEntry,
@@ -370,9 +597,79 @@ public class BdbStorageEngine implements StorageEngine<ByteArray, byte[]> {
     }
 
     public Object getCapability(StoreCapabilityType capability) {
+        if(capability == StoreCapabilityType.EXPIRY_INDEX && expiryIndex != null)
+            return expiryIndex;
         throw new NoSuchCapabilityException(capability, getName());
     }
 
+    /*
+     * Index the version written under the key, in the transaction writing it
+     */
+    private void addToExpiryIndex(Transaction transaction, byte[] storageKey, Version version)
+            throws DatabaseException {
+        if(expiryIndexDatabase == null)
+            return;
+        long timestamp = ((VectorClock) version).getTimestamp();
+        byte[] indexKey = new byte[ByteUtils.SIZE_OF_LONG + storageKey.length];
+        ByteUtils.writeLong(indexKey, timestamp - timestamp % EXPIRY_INDEX_BUCKET_MS, 0);
+        System.arraycopy(storageKey, 0, indexKey, ByteUtils.SIZE_OF_LONG, storageKey.length);
+        OperationStatus status = expiryIndexDatabase.put(transaction,
+                                                         new DatabaseEntry(indexKey),
+                                                         new DatabaseEntry(new byte[0]));
+        if(status != OperationStatus.SUCCESS)
+            throw new PersistenceFailureException("Expiry index update failed with status: "
+                                                  + status);
+    }
+
+    /**
+     * Add every version in the store to the expiry index, for a store which
+     * had data before it had an index. The versions are indexed in a number of
+     * transactions, so writes to the store may go on meanwhile.
+     */
+    public void buildExpiryIndex() {
+        if(expiryIndexDatabase == null)
+            throw new IllegalStateException("Store " + getName() + " has no expiry index.");
+        logger.info("Building the expiry index of store " + getName() + "...");
+        Cursor cursor = null;
+        Transaction transaction = null;
+        boolean succeeded = false;
+        int numIndexed = 0;
+        try {
+            cursor = getBdbDatabase().openCursor(null, null);
+            DatabaseEntry keyEntry = new DatabaseEntry();
+            DatabaseEntry valueEntry = new DatabaseEntry();
+            OperationStatus status = cursor.getFirst(keyEntry,
+                                                     valueEntry,
+                                                     LockMode.READ_UNCOMMITTED);
+            while(status == OperationStatus.SUCCESS) {
+                if(transaction == null)
+                    transaction = this.environment.beginTransaction(null, null);
+                addToExpiryIndex(transaction,
+                                 keyEntry.getData(),
+                                 new VectorClock(valueEntry.getData()));
+                if(++numIndexed % EXPIRY_INDEX_BATCH_SIZE == 0) {
+                    attemptCommit(transaction);
+                    transaction = null;
+                }
+                status = cursor.getNext(keyEntry, valueEntry, LockMode.READ_UNCOMMITTED);
+            }
+            succeeded = true;
+        } catch(DatabaseException e) {
+            logger.error(e);
+            throw new PersistenceFailureException(e);
+        } finally {
+            attemptClose(cursor);
+            if(transaction != null) {
+                if(succeeded)
+                    attemptCommit(transaction);
+                else
+                    attemptAbort(transaction);
+            }
+        }
+        logger.info("Built the expiry index of store " + getName() + " with " + numIndexed
+                    + " versions.");
+    }
+
     @Override
     public int hashCode() {
         return name.hashCode();
@@ -388,8 +685,11 @@ public class BdbStorageEngine implements StorageEngine<ByteArray, byte[]> {
 
     public void close() throws PersistenceFailureException {
         try {
-            if(this.isOpen.compareAndSet(true, false))
+            if(this.isOpen.compareAndSet(true, false)) {
                 this.getBdbDatabase().close();
+                if(expiryIndexDatabase != null)
+                    expiryIndexDatabase.close();
+            }
         } catch(DatabaseException e) {
             logger.error(e);
             throw new PersistenceFailureException("Shutdown failed.", e);
@@ -407,11 +707,18 @@ public class BdbStorageEngine implements StorageEngine<ByteArray, byte[]> {
 
     private void attemptCommit(Transaction transaction) {
         try {
-            transaction.commit();
+            if(groupCommitter != null)
+                groupCommitter.commit(transaction);
+            else
+                transaction.commit();
         } catch(DatabaseException e) {
             logger.error("Transaction commit failed!", e);
             attemptAbort(transaction);
             throw new PersistenceFailureException(e);
+        } catch(PersistenceFailureException e) {
+            // the transaction may be committed already, so it is not aborted
+            logger.error("Transaction commit failed!", e);
+            throw e;
         }
     }
 
@@ -436,30 +743,93 @@ public class BdbStorageEngine implements StorageEngine<ByteArray, byte[]> {
         }
     }
 
+    /**
+     * The cache statistics of the environment of this store. The counters are
+     * totals since the environment was opened, shared by all stores in it.
+     */
+    public EnvironmentStats getCacheStats() {
+        try {
+            StatsConfig config = new StatsConfig();
+            config.setFast(true);
+            return this.environment.getStats(config);
+        } catch(DatabaseException e) {
+            logger.error(e);
+            throw new VoldemortException(e);
+        }
+    }
+
+    @JmxGetter(name = "numBatchGetKeys", description = "The number of keys requested through getAll.")
+    public long getNumBatchGetKeys() {
+        return numBatchGetKeys.get();
+    }
+
+    @JmxGetter(name = "numBatchGetSearches", description = "The number of B-tree searches getAll needed for its keys.")
+    public long getNumBatchGetSearches() {
+        return numBatchGetSearches.get();
+    }
+
+    @JmxGetter(name = "numGroupCommits", description = "The number of transactions committed through group commit by all stores of the environment.")
+    public long getNumGroupCommits() {
+        return groupCommitter == null ? 0 : groupCommitter.getNumCommits();
+    }
+
+    @JmxGetter(name = "numGroupCommitFlushes", description = "The number of log flushes shared by the group commits of all stores of the environment.")
+    public long getNumGroupCommitFlushes() {
+        return groupCommitter == null ? 0 : groupCommitter.getNumFlushes();
+    }
+
     @JmxOperation(description = "A variety of stats about the BDB for this store.")
     public String getBdbStats() {
-        String stats = getStats(false).toString();
-        return stats;
+        EnvironmentStats cacheStats = getCacheStats();
+        StringBuilder stats = new StringBuilder(getStats(false).toString());
+        stats.append("\nBatch gets:\n");
+        stats.append("keys=").append(getNumBatchGetKeys()).append('\n');
+        stats.append("searches=").append(getNumBatchGetSearches()).append('\n');
+        stats.append("Cache:\n");
+        stats.append("nCacheMiss=").append(cacheStats.getNCacheMiss()).append('\n');
+        stats.append("nNotResident=").append(cacheStats.getNNotResident()).append('\n');
+        stats.append("nBINsFetch=").append(cacheStats.getNBINsFetch()).append('\n');
+        stats.append("nBINsFetchMiss=").append(cacheStats.getNBINsFetchMiss()).append('\n');
+        stats.append("nLNsFetch=").append(cacheStats.getNLNsFetch()).append('\n');
+        stats.append("nLNsFetchMiss=").append(cacheStats.getNLNsFetchMiss()).append('\n');
+        return stats.toString();
+    }
+
+    private static boolean startsWith(byte[] bytes, byte[] prefix) {
+        if(bytes.length < prefix.length)
+            return false;
+        for(int i = 0; i < prefix.length; i++) {
+            if(bytes[i] != prefix[i])
+                return false;
+        }
+        return true;
     }
 
-    private static abstract class BdbIterator<T> implements ClosableIterator<T> {
+    private abstract class BdbIterator<T> implements ClosableIterator<T> {
 
         private final boolean noValues;
         final Cursor cursor;
+        private final List<byte[]> prefixes;
+        private int prefixIndex;
 
         private T current;
         private volatile boolean isOpen;
 
-        public BdbIterator(Cursor cursor, boolean noValues) {
+        public BdbIterator(Cursor cursor, boolean noValues, List<byte[]> prefixes) {
             this.cursor = cursor;
             isOpen = true;
             this.noValues = noValues;
+            this.prefixes = prefixes;
+            this.prefixIndex = -1;
             DatabaseEntry keyEntry = new DatabaseEntry();
             DatabaseEntry valueEntry = new DatabaseEntry();
             if(noValues)
                 valueEntry.setPartial(true);
             try {
-                cursor.getFirst(keyEntry, valueEntry, LockMode.READ_UNCOMMITTED);
+                if(prefixes == null)
+                    cursor.getFirst(keyEntry, valueEntry, LockMode.READ_UNCOMMITTED);
+                else
+                    seekNextPrefix(keyEntry, valueEntry);
             } catch(DatabaseException e) {
                 logger.error(e);
                 throw new PersistenceFailureException(e);
@@ -473,6 +843,27 @@ public class BdbStorageEngine implements StorageEngine<ByteArray, byte[]> {
         protected abstract void moveCursor(DatabaseEntry key, DatabaseEntry value)
                 throws DatabaseException;
 
+        /*
+         * Moves the cursor to the first key of the next prefix that has any
+         * keys, leaving the key empty if no remaining prefix has
+         */
+        private void seekNextPrefix(DatabaseEntry keyEntry, DatabaseEntry valueEntry)
+                throws DatabaseException {
+            while(++prefixIndex < prefixes.size()) {
+                byte[] prefix = prefixes.get(prefixIndex);
+                keyEntry.setData(prefix);
+                OperationStatus status = cursor.getSearchKeyRange(keyEntry,
+                                                                  valueEntry,
+                                                                  LockMode.READ_UNCOMMITTED);
+                // the remaining prefixes all sort after the last key
+                if(status != OperationStatus.SUCCESS)
+                    break;
+                if(startsWith(keyEntry.getData(), prefix))
+                    return;
+            }
+            keyEntry.setData(null);
+        }
+
         public final boolean hasNext() {
             return current != null;
         }
@@ -487,6 +878,10 @@ public class BdbStorageEngine implements StorageEngine<ByteArray, byte[]> {
                 valueEntry.setPartial(true);
             try {
                 moveCursor(keyEntry, valueEntry);
+                if(prefixes != null
+                   && (keyEntry.getData() == null || !startsWith(keyEntry.getData(),
+                                                                 prefixes.get(prefixIndex))))
+                    seekNextPrefix(keyEntry, valueEntry);
             } catch(DatabaseException e) {
                 logger.error(e);
                 throw new PersistenceFailureException(e);
@@ -523,15 +918,15 @@ public class BdbStorageEngine implements StorageEngine<ByteArray, byte[]> {
         }
     }
 
-    private static class BdbKeysIterator extends BdbIterator<ByteArray> {
+    private class BdbKeysIterator extends BdbIterator<ByteArray> {
 
-        public BdbKeysIterator(Cursor cursor) {
-            super(cursor, true);
+        public BdbKeysIterator(Cursor cursor, List<byte[]> prefixes) {
+            super(cursor, true, prefixes);
         }
 
         @Override
         protected ByteArray get(DatabaseEntry key, DatabaseEntry value) {
-            return new ByteArray(key.getData());
+            return fromStorageKey(key.getData());
         }
 
         @Override
@@ -541,10 +936,10 @@ public class BdbStorageEngine implements StorageEngine<ByteArray, byte[]> {
 
     }
 
-    private static class BdbEntriesIterator extends BdbIterator<Pair<ByteArray, Versioned<byte[]>>> {
+    private class BdbEntriesIterator extends BdbIterator<Pair<ByteArray, Versioned<byte[]>>> {
 
-        public BdbEntriesIterator(Cursor cursor) {
-            super(cursor, false);
+        public BdbEntriesIterator(Cursor cursor, List<byte[]> prefixes) {
+            super(cursor, false, prefixes);
         }
 
         @Override
@@ -553,7 +948,7 @@ public class BdbStorageEngine implements StorageEngine<ByteArray, byte[]> {
             byte[] bytes = ByteUtils.copy(value.getData(),
                                           clock.sizeInBytes(),
                                           value.getData().length);
-            return Pair.create(new ByteArray(key.getData()), new Versioned<byte[]>(bytes, clock));
+            return Pair.create(fromStorageKey(key.getData()), new Versioned<byte[]>(bytes, clock));
         }
 
         @Override
@@ -561,4 +956,105 @@ public class BdbStorageEngine implements StorageEngine<ByteArray, byte[]> {
             cursor.getNext(key, value, LockMode.READ_UNCOMMITTED);
         }
     }
+
+    private class BdbExpiryIndex implements ExpiryIndex<ByteArray> {
+
+        public ClosableIterator<ByteArray> keysWrittenBefore(long timeMs) {
+            try {
+                Cursor cursor = expiryIndexDatabase.openCursor(null, null);
+                return new BdbExpiryIndexIterator(cursor, timeMs);
+            } catch(DatabaseException e) {
+                logger.error(e);
+                throw new PersistenceFailureException(e);
+            }
+        }
+    }
+
+    /*
+     * Iterates over the index in order, which is bucket by bucket, until the
+     * first bucket that ends after the time
+     */
+    private class BdbExpiryIndexIterator implements ClosableIterator<ByteArray> {
+
+        private final Cursor cursor;
+        private final long timeMs;
+
+        // the index entries of the next key and of the last key returned
+        private byte[] nextIndexKey;
+        private byte[] lastIndexKey;
+        private volatile boolean isOpen;
+
+        public BdbExpiryIndexIterator(Cursor cursor, long timeMs) {
+            this.cursor = cursor;
+            this.timeMs = timeMs;
+            this.isOpen = true;
+            moveCursor(true);
+        }
+
+        private void moveCursor(boolean first) {
+            DatabaseEntry keyEntry = new DatabaseEntry();
+            DatabaseEntry valueEntry = new DatabaseEntry();
+            valueEntry.setPartial(true);
+            try {
+                OperationStatus status = first ? cursor.getFirst(keyEntry,
+                                                                 valueEntry,
+                                                                 LockMode.READ_UNCOMMITTED)
+                                              : cursor.getNext(keyEntry,
+                                                               valueEntry,
+                                                               LockMode.READ_UNCOMMITTED);
+                nextIndexKey = null;
+                if(status == OperationStatus.SUCCESS
+                   && ByteUtils.readLong(keyEntry.getData(), 0) + EXPIRY_INDEX_BUCKET_MS <= timeMs)
+                    nextIndexKey = keyEntry.getData();
+            } catch(DatabaseException e) {
+                logger.error(e);
+                throw new PersistenceFailureException(e);
+            }
+        }
+
+        public boolean hasNext() {
+            return nextIndexKey != null;
+        }
+
+        public ByteArray next() {
+            if(!isOpen)
+                throw new PersistenceFailureException("Call to next() on a closed iterator.");
+            if(nextIndexKey == null)
+                throw new NoSuchElementException();
+            lastIndexKey = nextIndexKey;
+            moveCursor(false);
+            return fromStorageKey(ByteUtils.copy(lastIndexKey,
+                                                 ByteUtils.SIZE_OF_LONG,
+                                                 lastIndexKey.length));
+        }
+
+        public void remove() {
+            if(lastIndexKey == null)
+                throw new IllegalStateException("No key to remove from the expiry index.");
+            try {
+                expiryIndexDatabase.delete(null, new DatabaseEntry(lastIndexKey));
+                lastIndexKey = null;
+            } catch(DatabaseException e) {
+                logger.error(e);
+                throw new PersistenceFailureException(e);
+            }
+        }
+
+        public void close() {
+            try {
+                cursor.close();
+                isOpen = false;
+            } catch(DatabaseException e) {
+                logger.error(e);
+            }
+        }
+
+        @Override
+        protected void finalize() {
+            if(isOpen) {
+                logger.error("Failure to close cursor, will be forcably closed.");
+                close();
+            }
+        }
+    }
 }
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2010 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.bdb;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import voldemort.routing.RoutingStrategy;
+import voldemort.store.PartitionedStorageEngine;
+import voldemort.utils.ByteArray;
+import voldemort.utils.ByteUtils;
+import voldemort.utils.ClosableIterator;
+import voldemort.utils.Pair;
+import voldemort.utils.Utils;
+import voldemort.versioning.Versioned;
+
+import com.google.common.collect.Lists;
+import com.sleepycat.je.Database;
+import com.sleepycat.je.Environment;
+
+/**
+ * A BDB store which keeps each key behind the id of its master partition, so
+ * the keys of a partition are contiguous in the database and the keys or
+ * entries of a few partitions are read by seeking to each of them rather than
+ * by scanning the whole store.
+ * <p/>
+ * The ids are written as 4 byte big endian integers, which BDB orders as it
+ * orders the partitions. The layout is not compatible with that of
+ * {@link BdbStorageEngine}, a store must keep the layout it was created with,
+ * which {@link BdbStorageConfiguration} records and checks.
+ * 
+ * 
+ */
+public class PartitionPrefixedBdbStorageEngine extends BdbStorageEngine implements
+        PartitionedStorageEngine<ByteArray, byte[]> {
+
+    private final RoutingStrategy routingStrategy;
+
+    public PartitionPrefixedBdbStorageEngine(String name,
+                                             Environment environment,
+                                             Database database,
+                                             RoutingStrategy routingStrategy) {
+        this(name, environment, database, false, null, routingStrategy);
+    }
+
+    public PartitionPrefixedBdbStorageEngine(String name,
+                                             Environment environment,
+                                             Database database,
+                                             boolean cursorPreload,
+                                             BdbGroupCommitter groupCommitter,
+                                             RoutingStrategy routingStrategy) {
+        this(name, environment, database, cursorPreload, groupCommitter, null, routingStrategy);
+    }
+
+    /**
+     * @param name The name of the store
+     * @param environment The environment of the database
+     * @param database The database holding the store
+     * @param cursorPreload If true preload the database before iterating
+     * @param groupCommitter If not null, commit writes through it so that
+     *        concurrent commits share a log flush
+     * @param expiryIndexDatabase If not null, the database to keep the expiry
+     *        index of the store in
+     * @param routingStrategy The routing strategy giving the master partition
+     *        of each key
+     */
+    public PartitionPrefixedBdbStorageEngine(String name,
+                                             Environment environment,
+                                             Database database,
+                                             boolean cursorPreload,
+                                             BdbGroupCommitter groupCommitter,
+                                             Database expiryIndexDatabase,
+                                             RoutingStrategy routingStrategy) {
+        super(name, environment, database, cursorPreload, groupCommitter, expiryIndexDatabase);
+        this.routingStrategy = Utils.notNull(routingStrategy);
+    }
+
+    public ClosableIterator<Pair<ByteArray, Versioned<byte[]>>> entries(Set<Integer> partitions) {
+        return entries(getPrefixes(partitions));
+    }
+
+    public ClosableIterator<ByteArray> keys(Set<Integer> partitions) {
+        return keys(getPrefixes(partitions));
+    }
+
+    @Override
+    protected byte[] toStorageKey(ByteArray key) {
+        byte[] storageKey = new byte[ByteUtils.SIZE_OF_INT + key.length()];
+        ByteUtils.writeInt(storageKey, getMasterPartition(key), 0);
+        System.arraycopy(key.get(), 0, storageKey, ByteUtils.SIZE_OF_INT, key.length());
+        return storageKey;
+    }
+
+    @Override
+    protected ByteArray fromStorageKey(byte[] storageKey) {
+        return new ByteArray(ByteUtils.copy(storageKey, ByteUtils.SIZE_OF_INT, storageKey.length));
+    }
+
+    private int getMasterPartition(ByteArray key) {
+        return routingStrategy.getPartitionList(key.get()).get(0);
+    }
+
+    /*
+     * The prefixes of the partitions, in the order of the database
+     */
+    private List<byte[]> getPrefixes(Set<Integer> partitions) {
+        List<byte[]> prefixes = Lists.newArrayList();
+        for(int partition: new TreeSet<Integer>(partitions)) {
+            byte[] prefix = new byte[ByteUtils.SIZE_OF_INT];
+            ByteUtils.writeInt(prefix, partition, 0);
+            prefixes.add(prefix);
+        }
+        return prefixes;
+    }
+
+}
@@ -0,0 +1,404 @@
+/*
+ * Copyright 2010 LinkedIn, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+
+import voldemort.VoldemortException;
+import voldemort.annotations.jmx.JmxGetter;
+import voldemort.annotations.jmx.JmxManaged;
+import voldemort.annotations.jmx.JmxOperation;
+import voldemort.store.BlindPutStore;
+import voldemort.store.DelegatingStore;
+import voldemort.store.Store;
+import voldemort.store.StoreUtils;
+import voldemort.utils.ByteArray;
+import voldemort.utils.SystemTime;
+import voldemort.utils.Time;
+import voldemort.versioning.Occured;
+import voldemort.versioning.VectorClock;
+import voldemort.versioning.Version;
+import voldemort.versioning.Versioned;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * A store that keeps the values it reads from its inner store in a bounded
+ * cache, and answers gets from the cache until the entries expire.
+ * <p/>
+ * The least recently used entries are evicted once the cache is full. Puts and
+ * deletes through this store invalidate the entries of their keys; the version
+ * written is remembered until the entry expires, and values read from the inner
+ * store are only cached if they are not older than what is remembered for the
+ * key, so that a read that raced with a write or with a newer read does not
+ * replace newer versions with stale ones. Writes made by other clients are only
+ * seen once the entries expire.
+ * <p/>
+ * The cache is split into segments by key, each with its own lock.
+ */
+@JmxManaged(description = "A cache of the values read from a store")
+public class NearCacheStore extends DelegatingStore<ByteArray, byte[]> implements
+        BlindPutStore<ByteArray, byte[]> {
+
+    private static final int MAX_SEGMENTS = 16;
+
+    private final List<Segment> segments;
+    private final long ttlMs;
+    private final Time time;
+
+    private final AtomicLong hits = new AtomicLong(0);
+    private final AtomicLong misses = new AtomicLong(0);
+    private final AtomicLong evictions = new AtomicLong(0);
+    private final AtomicLong invalidations = new AtomicLong(0);
+
+    public NearCacheStore(Store<ByteArray, byte[]> innerStore, int maxEntries, long ttlMs) {
+        this(innerStore, maxEntries, ttlMs, SystemTime.INSTANCE);
+    }
+
+    /**
+     * Create a near cache over the given store
+     *
+     * @param innerStore The store to cache the values of
+     * @param maxEntries The most keys to cache
+     * @param ttlMs The time for which a cached entry is served, in ms
+     * @param time The time to expire entries by
+     */
+    public NearCacheStore(Store<ByteArray, byte[]> innerStore,
+                          int maxEntries,
+                          long ttlMs,
+                          Time time) {
+        super(innerStore);
+
+        if(maxEntries <= 0)
+            throw new IllegalArgumentException("The near cache must hold at least one entry.");
+        if(ttlMs <= 0)
+            throw new IllegalArgumentException("The near cache TTL must be positive.");
+
+        int numSegments = Math.min(MAX_SEGMENTS, maxEntries);
+        this.segments = new ArrayList<Segment>(numSegments);
+
+        for(int i = 0; i < numSegments; i++)
+            this.segments.add(new Segment((maxEntries + numSegments - 1) / numSegments));
+
+        this.ttlMs = ttlMs;
+        this.time = time;
+    }
+
+    @Override
+    public List<Versioned<byte[]>> get(ByteArray key) throws VoldemortException {
+        StoreUtils.assertValidKey(key);
+        Segment segment = getSegment(key);
+        List<Versioned<byte[]>> cached = segment.get(key);
+
+        if(cached != null) {
+            hits.incrementAndGet();
+            return copy(cached);
+        }
+
+        misses.incrementAndGet();
+        List<Versioned<byte[]>> values = getInnerStore().get(key);
+        segment.install(key, values);
+        return values;
+    }
+
+    @Override
+    public Map<ByteArray, List<Versioned<byte[]>>> getAll(Iterable<ByteArray> keys)
+            throws VoldemortException {
+        StoreUtils.assertValidKeys(keys);
+        Map<ByteArray, List<Versioned<byte[]>>> result = Maps.newHashMap();
+        List<ByteArray> missing = Lists.newArrayList();
+
+        for(ByteArray key: keys) {
+            List<Versioned<byte[]>> cached = getSegment(key).get(key);
+
+            if(cached == null) {
+                missing.add(key);
+            } else {
+                hits.incrementAndGet();
+                if(!cached.isEmpty())
+                    result.put(key, copy(cached));
+            }
+        }
+
+        if(missing.isEmpty())
+            return result;
+
+        misses.addAndGet(missing.size());
+        Map<ByteArray, List<Versioned<byte[]>>> fetched = getInnerStore().getAll(missing);
+
+        for(ByteArray key: missing) {
+            List<Versioned<byte[]>> values = fetched.get(key);
+            getSegment(key).install(key,
+                                    values != null ? values
+                                                  : Collections.<Versioned<byte[]>> emptyList());
+        }
+
+        result.putAll(fetched);
+        return result;
+    }
+
+    @Override
+    public void put(ByteArray key, Versioned<byte[]> value) throws VoldemortException {
+        StoreUtils.assertValidKey(key);
+
+        // The entry is invalidated even if the put fails, as it may have been
+        // written to some of the nodes.
+        try {
+            getInnerStore().put(key, value);
+        } finally {
+            getSegment(key).invalidate(key, value.getVersion(), false);
+        }
+    }
+
+    public Version blindPut(ByteArray key, byte[] value) throws VoldemortException {
+        StoreUtils.assertValidKey(key);
+        Version version = null;
+
+        // If the put fails the version written is not known, so only the
+        // cached values are dropped
+        try {
+            version = StoreUtils.blindPut(getInnerStore(), key, value);
+            return version;
+        } finally {
+            getSegment(key).invalidate(key, version, false);
+        }
+    }
+
+    @Override
+    public Set<ByteArray> putAll(Map<ByteArray, Versioned<byte[]>> entries)
+            throws VoldemortException {
+        StoreUtils.assertValidKeys(entries.keySet());
+
+        try {
+            return getInnerStore().putAll(entries);
+        } finally {
+            for(Entry<ByteArray, Versioned<byte[]>> entry: entries.entrySet())
+                getSegment(entry.getKey()).invalidate(entry.getKey(),
+                                                      entry.getValue().getVersion(),
+                                                      false);
+        }
+    }
+
+    @Override
+    public boolean delete(ByteArray key, Version version) throws VoldemortException {
+        StoreUtils.assertValidKey(key);
+
+        try {
+            return getInnerStore().delete(key, version);
+        } finally {
+            getSegment(key).invalidate(key, version, true);
+        }
+    }
+
+    @JmxOperation(description = "Remove all the entries of the cache")
+    public void clear() {
+        for(Segment segment: segments)
+            segment.clear();
+    }
+
+    @JmxGetter(name = "size", description = "The number of keys cached, including expired ones.")
+    public int getSize() {
+        int size = 0;
+
+        for(Segment segment: segments)
+            size += segment.size();
+
+        return size;
+    }
+
+    @JmxGetter(name = "numberOfHits", description = "The number of keys read from the cache.")
+    public long getNumberOfHits() {
+        return hits.get();
+    }
+
+    @JmxGetter(name = "numberOfMisses", description = "The number of keys read from the store.")
+    public long getNumberOfMisses() {
+        return misses.get();
+    }
+
+    @JmxGetter(name = "hitRatio", description = "The fraction of keys read from the cache.")
+    public double getHitRatio() {
+        long hits = getNumberOfHits();
+        long total = hits + getNumberOfMisses();
+        return total > 0 ? hits / (double) total : 0;
+    }
+
+    @JmxGetter(name = "numberOfEvictions", description = "The number of entries evicted to bound the cache.")
+    public long getNumberOfEvictions() {
+        return evictions.get();
+    }
+
+    @JmxGetter(name = "numberOfInvalidations", description = "The number of entries invalidated by writes.")
+    public long getNumberOfInvalidations() {
+        return invalidations.get();
+    }
+
+    private Segment getSegment(ByteArray key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 20) ^ (hash >>> 12);
+        hash ^= (hash >>> 7) ^ (hash >>> 4);
+        return segments.get((hash & Integer.MAX_VALUE) % segments.size());
+    }
+
+    /*
+     * The cached versions are handed out as copies as the callers increment
+     * the clocks of the versions they are given when they write them back
+     */
+    private static List<Versioned<byte[]>> copy(List<Versioned<byte[]>> values) {
+        List<Versioned<byte[]>> copy = new ArrayList<Versioned<byte[]>>(values.size());
+
+        for(Versioned<byte[]> value: values)
+            copy.add(value.cloneVersioned());
+
+        return copy;
+    }
+
+    private static List<Version> versions(List<Versioned<byte[]>> values) {
+        List<Version> versions = new ArrayList<Version>(values.size());
+
+        for(Versioned<byte[]> value: values)
+            versions.add(value.getVersion());
+
+        return versions;
+    }
+
+    /*
+     * Is every version known for the key, equal to or before one of the values
+     * read, and are none of the values read ones that were deleted?
+     */
+    private static boolean isCurrent(List<Versioned<byte[]>> values, CacheEntry entry) {
+        for(Version known: entry.versions) {
+            boolean covered = false;
+
+            for(Versioned<byte[]> value: values) {
+                if(known.compare(value.getVersion()) == Occured.BEFORE) {
+                    covered = true;
+                    break;
+                }
+            }
+
+            if(!covered)
+                return false;
+        }
+
+        if(entry.deleted != null) {
+            for(Versioned<byte[]> value: values) {
+                if(value.getVersion().compare(entry.deleted) == Occured.BEFORE)
+                    return false;
+            }
+        }
+
+        return true;
+    }
+
+    /*
+     * What is known of a key: the values read for it, or null if it was written
+     * since, and the versions it holds at least until the entry expires
+     */
+    private static class CacheEntry {
+
+        private final List<Versioned<byte[]>> values;
+        private final List<Version> versions;
+        private final Version deleted;
+        private final long expiresMs;
+
+        public CacheEntry(List<Versioned<byte[]>> values,
+                          List<Version> versions,
+                          Version deleted,
+                          long expiresMs) {
+            this.values = values;
+            this.versions = versions;
+            this.deleted = deleted;
+            this.expiresMs = expiresMs;
+        }
+
+    }
+
+    private class Segment {
+
+        private final Map<ByteArray, CacheEntry> entries;
+
+        public Segment(final int maxEntries) {
+            this.entries = new LinkedHashMap<ByteArray, CacheEntry>(16, 0.75f, true) {
+
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<ByteArray, CacheEntry> eldest) {
+                    if(size() <= maxEntries)
+                        return false;
+
+                    evictions.incrementAndGet();
+                    return true;
+                }
+            };
+        }
+
+        public synchronized List<Versioned<byte[]>> get(ByteArray key) {
+            CacheEntry entry = entries.get(key);
+
+            if(entry == null || entry.values == null || entry.expiresMs <= time.getMilliseconds())
+                return null;
+
+            return entry.values;
+        }
+
+        public synchronized void install(ByteArray key, List<Versioned<byte[]>> values) {
+            long now = time.getMilliseconds();
+            CacheEntry entry = entries.get(key);
+
+            if(entry != null && entry.expiresMs > now && !isCurrent(values, entry))
+                return;
+
+            List<Versioned<byte[]>> copy = copy(values);
+            entries.put(key, new CacheEntry(copy, versions(copy), null, now + ttlMs));
+        }
+
+        public synchronized void invalidate(ByteArray key, Version version, boolean isDelete) {
+            // The caller may go on to increment the clock it wrote with
+            Version written = version != null ? ((VectorClock) version).clone() : null;
+            List<Version> versions = Collections.emptyList();
+
+            if(!isDelete && written != null)
+                versions = Collections.singletonList(written);
+
+            entries.put(key, new CacheEntry(null,
+                                            versions,
+                                            isDelete ? written : null,
+                                            time.getMilliseconds() + ttlMs));
+            invalidations.incrementAndGet();
+        }
+
+        public synchronized void clear() {
+            entries.clear();
+        }
+
+        public synchronized int size() {
+            return entries.size();
+        }
+
+    }
+
+}
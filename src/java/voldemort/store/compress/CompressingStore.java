@@ -20,8 +20,10 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import voldemort.VoldemortException;
+import voldemort.store.BlindPutStore;
 import voldemort.store.Store;
 import voldemort.store.StoreCapabilityType;
 import voldemort.store.StoreUtils;
@@ -32,6 +34,7 @@ import voldemort.versioning.Versioned;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 
 /**
  * A Store Decorator that compresses keys and values as it stores them and
@@ -43,7 +46,7 @@ import com.google.common.collect.Maps;
  * @see NoopCompressionStrategy
  * @see GzipCompressionStrategy
  */
-public class CompressingStore implements Store<ByteArray, byte[]> {
+public class CompressingStore implements BlindPutStore<ByteArray, byte[]> {
 
     private final Store<ByteArray, byte[]> innerStore;
     private final CompressionStrategy keysCompressionStrategy;
@@ -138,6 +141,29 @@ public class CompressingStore implements Store<ByteArray, byte[]> {
         innerStore.put(deflateKey(key), deflateValue(value));
     }
 
+    public Set<ByteArray> putAll(Map<ByteArray, Versioned<byte[]>> entries)
+            throws VoldemortException {
+        StoreUtils.assertValidKeys(entries.keySet());
+        Map<ByteArray, ByteArray> keysByDeflatedKey = Maps.newHashMapWithExpectedSize(entries.size());
+        Map<ByteArray, Versioned<byte[]>> deflatedEntries = Maps.newHashMapWithExpectedSize(entries.size());
+        for(Map.Entry<ByteArray, Versioned<byte[]>> entry: entries.entrySet()) {
+            ByteArray deflatedKey = deflateKey(entry.getKey());
+            keysByDeflatedKey.put(deflatedKey, entry.getKey());
+            deflatedEntries.put(deflatedKey, deflateValue(entry.getValue()));
+        }
+        Set<ByteArray> obsoleteKeys = Sets.newHashSet();
+        for(ByteArray deflatedKey: innerStore.putAll(deflatedEntries))
+            obsoleteKeys.add(keysByDeflatedKey.get(deflatedKey));
+        return obsoleteKeys;
+    }
+
+    public Version blindPut(ByteArray key, byte[] value) throws VoldemortException {
+        StoreUtils.assertValidKey(key);
+        return StoreUtils.blindPut(innerStore,
+                                   deflateKey(key),
+                                   deflate(valuesCompressionStrategy, value));
+    }
+
     public void close() throws VoldemortException {
         innerStore.close();
     }
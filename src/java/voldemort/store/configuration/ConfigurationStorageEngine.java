@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.io.FileUtils;
@@ -110,6 +111,11 @@ public class ConfigurationStorageEngine implements StorageEngine<String, String>
         return result;
     }
 
+    public synchronized Set<String> putAll(Map<String, Versioned<String>> entries)
+            throws VoldemortException {
+        return StoreUtils.putAll(this, entries);
+    }
+
     public String getName() {
         return name;
     }
@@ -20,6 +20,8 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.zip.GZIPInputStream;
 
 import org.apache.commons.io.IOUtils;
@@ -27,6 +29,7 @@ import org.apache.commons.io.IOUtils;
 import voldemort.VoldemortException;
 import voldemort.store.DelegatingStore;
 import voldemort.store.Store;
+import voldemort.store.StoreUtils;
 import voldemort.versioning.Versioned;
 
 /**
@@ -66,4 +69,9 @@ public class GzipStore<K> extends DelegatingStore<K, byte[]> implements Store<K,
         }
     }
 
+    @Override
+    public Set<K> putAll(Map<K, Versioned<byte[]>> entries) throws VoldemortException {
+        return StoreUtils.putAll(this, entries);
+    }
+
 }
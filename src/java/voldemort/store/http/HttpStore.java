@@ -23,6 +23,7 @@ import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.httpclient.HttpClient;
 import org.apache.commons.httpclient.HttpException;
@@ -133,6 +134,11 @@ public class HttpStore implements Store<ByteArray, byte[]> {
         }
     }
 
+    public Set<ByteArray> putAll(Map<ByteArray, Versioned<byte[]>> entries)
+            throws VoldemortException {
+        return StoreUtils.putAll(this, entries);
+    }
+
     public void put(ByteArray key, Versioned<byte[]> versioned) throws VoldemortException {
         StoreUtils.assertValidKey(key);
         PostMethod method = null;
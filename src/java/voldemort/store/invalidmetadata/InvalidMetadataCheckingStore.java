@@ -18,6 +18,7 @@ package voldemort.store.invalidmetadata;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import voldemort.VoldemortException;
 import voldemort.cluster.Node;
@@ -94,6 +95,18 @@ public class InvalidMetadataCheckingStore extends DelegatingStore<ByteArray, byt
         getInnerStore().put(key, value);
     }
 
+    @Override
+    public Set<ByteArray> putAll(Map<ByteArray, Versioned<byte[]>> entries)
+            throws VoldemortException {
+        StoreUtils.assertValidKeys(entries.keySet());
+        RoutingStrategy routingStrategy = metadata.getRoutingStrategy(getName());
+        Node node = metadata.getCluster().getNodeById(nodeId);
+        for(ByteArray key: entries.keySet())
+            StoreUtils.assertValidMetadata(key, routingStrategy, node);
+
+        return getInnerStore().putAll(entries);
+    }
+
     @Override
     public List<Versioned<byte[]>> get(ByteArray key) throws VoldemortException {
         StoreUtils.assertValidKey(key);
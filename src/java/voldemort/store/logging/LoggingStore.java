@@ -17,6 +17,8 @@
 package voldemort.store.logging;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.apache.log4j.Logger;
 
@@ -125,6 +127,22 @@ public class LoggingStore<K, V> extends DelegatingStore<K, V> {
         }
     }
 
+    @Override
+    public Set<K> putAll(Map<K, Versioned<V>> entries) throws VoldemortException {
+        long startTimeNs = 0;
+        boolean succeeded = false;
+        if(logger.isDebugEnabled()) {
+            startTimeNs = time.getNanoseconds();
+        }
+        try {
+            Set<K> obsoleteKeys = getInnerStore().putAll(entries);
+            succeeded = true;
+            return obsoleteKeys;
+        } finally {
+            printTimedMessage("PUT_ALL", succeeded, startTimeNs);
+        }
+    }
+
     private void printTimedMessage(String operation, boolean success, long startNs) {
         if(logger.isDebugEnabled()) {
             double elapsedMs = (time.getNanoseconds() - startNs) / (double) Time.NS_PER_MS;
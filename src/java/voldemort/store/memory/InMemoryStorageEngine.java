@@ -20,6 +20,7 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -119,6 +120,10 @@ public class InMemoryStorageEngine<K, V> implements StorageEngine<K, V> {
         return StoreUtils.getAll(this, keys);
     }
 
+    public Set<K> putAll(Map<K, Versioned<V>> entries) throws VoldemortException {
+        return StoreUtils.putAll(this, entries);
+    }
+
     public void put(K key, Versioned<V> value) throws VoldemortException {
         StoreUtils.assertValidKey(key);
 
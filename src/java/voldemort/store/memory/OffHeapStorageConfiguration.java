@@ -0,0 +1,105 @@
+/*
+ * Copyright 2010 LinkedIn, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.memory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import voldemort.annotations.jmx.JmxGetter;
+import voldemort.annotations.jmx.JmxManaged;
+import voldemort.server.VoldemortConfig;
+import voldemort.store.StorageConfiguration;
+import voldemort.store.StorageEngine;
+import voldemort.utils.ByteArray;
+
+/**
+ * A storage configuration for stores that keep their data outside the heap, in
+ * a fixed amount of memory per store, evicting the least recently used keys
+ * when it is used up. Suited to caches too large for the heap.
+ * 
+ * @see OffHeapStorageEngine
+ */
+@JmxManaged(description = "Off-heap in-memory stores")
+public class OffHeapStorageConfiguration implements StorageConfiguration {
+
+    public static final String TYPE_NAME = "offheap";
+
+    private final long storeSize;
+    private final int slabSize;
+    private final ConcurrentMap<String, OffHeapStorageEngine> engines = new ConcurrentHashMap<String, OffHeapStorageEngine>();
+
+    public OffHeapStorageConfiguration(VoldemortConfig config) {
+        this(config.getOffHeapStoreSize(), config.getOffHeapSlabSize());
+    }
+
+    public OffHeapStorageConfiguration(long storeSize, int slabSize) {
+        this.storeSize = storeSize;
+        this.slabSize = slabSize;
+    }
+
+    public StorageEngine<ByteArray, byte[]> getStore(String name) {
+        OffHeapStorageEngine engine = new OffHeapStorageEngine(name, storeSize, slabSize);
+        OffHeapStorageEngine previous = engines.put(name, engine);
+
+        if(previous != null)
+            previous.close();
+
+        return engine;
+    }
+
+    public String getType() {
+        return TYPE_NAME;
+    }
+
+    public void close() {
+        for(OffHeapStorageEngine engine: engines.values())
+            engine.close();
+
+        engines.clear();
+    }
+
+    @JmxGetter(name = "allocatedBytes", description = "The memory allocated for the data of the stores, in bytes.")
+    public long getAllocatedBytes() {
+        long bytes = 0;
+
+        for(OffHeapStorageEngine engine: engines.values())
+            bytes += engine.getAllocatedBytes();
+
+        return bytes;
+    }
+
+    @JmxGetter(name = "numberOfKeys", description = "The number of keys in the stores.")
+    public long getNumberOfKeys() {
+        long keys = 0;
+
+        for(OffHeapStorageEngine engine: engines.values())
+            keys += engine.getNumberOfKeys();
+
+        return keys;
+    }
+
+    @JmxGetter(name = "numberOfEvictions", description = "The number of keys evicted to make room for others.")
+    public long getNumberOfEvictions() {
+        long evictions = 0;
+
+        for(OffHeapStorageEngine engine: engines.values())
+            evictions += engine.getNumberOfEvictions();
+
+        return evictions;
+    }
+
+}
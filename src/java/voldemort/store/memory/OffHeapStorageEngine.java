@@ -0,0 +1,634 @@
+/*
+ * Copyright 2010 LinkedIn, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.memory;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import voldemort.VoldemortException;
+import voldemort.annotations.concurrency.NotThreadsafe;
+import voldemort.store.NoSuchCapabilityException;
+import voldemort.store.StorageEngine;
+import voldemort.store.StoreCapabilityType;
+import voldemort.store.StoreUtils;
+import voldemort.utils.ByteArray;
+import voldemort.utils.ClosableIterator;
+import voldemort.utils.Pair;
+import voldemort.utils.Utils;
+import voldemort.versioning.ObsoleteVersionException;
+import voldemort.versioning.Occured;
+import voldemort.versioning.VectorClock;
+import voldemort.versioning.Version;
+import voldemort.versioning.Versioned;
+
+/**
+ * A non-persistent store that keeps its data outside the heap, in a fixed
+ * budget of memory, and evicts the least recently used keys to make room for
+ * new ones. Its data is invisible to the garbage collector, so a large store
+ * does not lengthen collections as the {@link InMemoryStorageEngine} does.
+ * <p/>
+ * The store is split into segments by key, each with its own lock and an equal
+ * share of the memory. A segment writes its records, one per key with all the
+ * values of the key, one after the other into blocks of direct memory, the
+ * slabs, which it uses as a ring: once all of its slabs are allocated, the
+ * oldest slab is reclaimed before it is written to again. Keys read since the
+ * slab was last reclaimed get a second chance and are compacted at the start
+ * of the slab, the others are evicted. Records replaced by later writes are
+ * simply dropped. The records of a segment are found through an open
+ * addressing hash table of their addresses, which lives in the heap but is
+ * made of a few primitive arrays.
+ * <p/>
+ * Iterating over the entries does not hold any lock across entries, and
+ * entries written, deleted or evicted during the iteration may be missed.
+ */
+public class OffHeapStorageEngine implements StorageEngine<ByteArray, byte[]> {
+
+    private static final int MAX_SEGMENTS = 16;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final long EMPTY = -1L;
+
+    /*
+     * A record is its length, the hash and the length of its key, the key, and
+     * each value as the length of its clock, the clock, the length of the value
+     * and the value
+     */
+    private static final int RECORD_HEADER_SIZE = 12;
+
+    private final String name;
+    private final int slabSize;
+    private final Segment[] segments;
+
+    /**
+     * Create an off-heap store
+     *
+     * @param name The name of the store
+     * @param sizeInBytes The memory the store may use for its data
+     * @param slabSize The size of the blocks in which the memory is allocated,
+     *        which bounds the size of a key and its values
+     */
+    public OffHeapStorageEngine(String name, long sizeInBytes, int slabSize) {
+        this.name = Utils.notNull(name);
+
+        if(slabSize <= RECORD_HEADER_SIZE)
+            throw new IllegalArgumentException("Slab size must be greater than "
+                                               + RECORD_HEADER_SIZE + " bytes.");
+
+        long numSlabs = sizeInBytes / slabSize;
+
+        if(numSlabs < 2)
+            throw new IllegalArgumentException("The size of an off-heap store must be at least two slabs.");
+
+        int numSegments = (int) Math.min(MAX_SEGMENTS, numSlabs / 2);
+        this.slabSize = slabSize;
+        this.segments = new Segment[numSegments];
+
+        for(int i = 0; i < numSegments; i++)
+            this.segments[i] = new Segment((int) Math.min(Integer.MAX_VALUE, numSlabs
+                                                                              / numSegments));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<Versioned<byte[]>> get(ByteArray key) throws VoldemortException {
+        StoreUtils.assertValidKey(key);
+        int hash = hash(key);
+        return segmentFor(hash).get(key.get(), hash);
+    }
+
+    public Map<ByteArray, List<Versioned<byte[]>>> getAll(Iterable<ByteArray> keys)
+            throws VoldemortException {
+        StoreUtils.assertValidKeys(keys);
+        return StoreUtils.getAll(this, keys);
+    }
+
+    public List<Version> getVersions(ByteArray key) {
+        return StoreUtils.getVersions(get(key));
+    }
+
+    public void put(ByteArray key, Versioned<byte[]> value) throws VoldemortException {
+        StoreUtils.assertValidKey(key);
+        int hash = hash(key);
+        segmentFor(hash).put(key.get(), hash, value);
+    }
+
+    public Set<ByteArray> putAll(Map<ByteArray, Versioned<byte[]>> entries)
+            throws VoldemortException {
+        return StoreUtils.putAll(this, entries);
+    }
+
+    public boolean delete(ByteArray key, Version version) throws VoldemortException {
+        StoreUtils.assertValidKey(key);
+        int hash = hash(key);
+        return segmentFor(hash).delete(key.get(), hash, version);
+    }
+
+    public ClosableIterator<Pair<ByteArray, Versioned<byte[]>>> entries() {
+        return new OffHeapIterator();
+    }
+
+    public ClosableIterator<ByteArray> keys() {
+        return StoreUtils.keys(entries());
+    }
+
+    public void truncate() {
+        for(Segment segment: segments)
+            segment.clear();
+    }
+
+    public Object getCapability(StoreCapabilityType capability) {
+        throw new NoSuchCapabilityException(capability, getName());
+    }
+
+    /**
+     * The slabs are left to the garbage collector, which frees their memory
+     */
+    public void close() throws VoldemortException {
+        truncate();
+    }
+
+    /**
+     * @return The memory allocated for the data of the store, in bytes
+     */
+    public long getAllocatedBytes() {
+        long slabs = 0;
+
+        for(Segment segment: segments)
+            slabs += segment.getNumberOfSlabs();
+
+        return slabs * slabSize;
+    }
+
+    /**
+     * @return The number of keys in the store
+     */
+    public long getNumberOfKeys() {
+        long keys = 0;
+
+        for(Segment segment: segments)
+            keys += segment.getSize();
+
+        return keys;
+    }
+
+    /**
+     * @return The number of keys evicted to make room for others
+     */
+    public long getNumberOfEvictions() {
+        long evictions = 0;
+
+        for(Segment segment: segments)
+            evictions += segment.getEvictions();
+
+        return evictions;
+    }
+
+    private static int hash(ByteArray key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 20) ^ (hash >>> 12);
+        return hash ^ (hash >>> 7) ^ (hash >>> 4);
+    }
+
+    /*
+     * The slot of a key in the hash table of its segment comes from the low
+     * bits of the hash, so the segment is picked from bits that depend on all
+     * of them
+     */
+    private Segment segmentFor(int hash) {
+        return segments[((hash * 0x9E3779B9) >>> 24) % segments.length];
+    }
+
+    private static long address(int slab, int offset) {
+        return ((long) slab << 32) | offset;
+    }
+
+    private static int slab(long address) {
+        return (int) (address >>> 32);
+    }
+
+    private static int offset(long address) {
+        return (int) address;
+    }
+
+    private final class Segment {
+
+        private final int maxSlabs;
+        private final List<ByteBuffer> slabs;
+        private final int[] slabUsed;
+        private final byte[] scratch = new byte[4096];
+        private int head;
+
+        private int[] hashes;
+        private long[] addresses;
+        private boolean[] referenced;
+        private int size;
+        private long evictions;
+
+        public Segment(int maxSlabs) {
+            this.maxSlabs = maxSlabs;
+            this.slabs = new ArrayList<ByteBuffer>();
+            this.slabUsed = new int[maxSlabs];
+            reset();
+        }
+
+        private void reset() {
+            this.slabs.clear();
+            this.head = -1;
+            this.hashes = new int[INITIAL_CAPACITY];
+            this.addresses = new long[INITIAL_CAPACITY];
+            this.referenced = new boolean[INITIAL_CAPACITY];
+            this.size = 0;
+            Arrays.fill(addresses, EMPTY);
+        }
+
+        public synchronized void clear() {
+            reset();
+        }
+
+        public synchronized int getNumberOfSlabs() {
+            return slabs.size();
+        }
+
+        public synchronized int getSize() {
+            return size;
+        }
+
+        public synchronized long getEvictions() {
+            return evictions;
+        }
+
+        public synchronized List<Versioned<byte[]>> get(byte[] key, int hash) {
+            int slot = find(key, hash);
+
+            if(slot < 0)
+                return new ArrayList<Versioned<byte[]>>(0);
+
+            referenced[slot] = true;
+            return readValues(addresses[slot]);
+        }
+
+        public synchronized void put(byte[] key, int hash, Versioned<byte[]> value) {
+            int slot = find(key, hash);
+            List<Versioned<byte[]>> values = slot >= 0 ? readValues(addresses[slot])
+                                                      : new ArrayList<Versioned<byte[]>>(1);
+
+            // Check for existing versions, and drop the ones this one replaces
+            Iterator<Versioned<byte[]>> iterator = values.iterator();
+            while(iterator.hasNext()) {
+                Occured occured = value.getVersion().compare(iterator.next().getVersion());
+                if(occured == Occured.BEFORE)
+                    throw new ObsoleteVersionException("Obsolete version for key '"
+                                                       + new ByteArray(key) + "': "
+                                                       + value.getVersion());
+                else if(occured == Occured.AFTER)
+                    iterator.remove();
+            }
+
+            values.add(value);
+            write(key, hash, values);
+        }
+
+        public synchronized boolean delete(byte[] key, int hash, Version version) {
+            int slot = find(key, hash);
+
+            if(slot < 0)
+                return false;
+
+            if(version == null) {
+                remove(slot);
+                return true;
+            }
+
+            List<Versioned<byte[]>> values = readValues(addresses[slot]);
+            boolean deletedSomething = false;
+            Iterator<Versioned<byte[]>> iterator = values.iterator();
+            while(iterator.hasNext()) {
+                if(iterator.next().getVersion().compare(version) == Occured.BEFORE) {
+                    iterator.remove();
+                    deletedSomething = true;
+                }
+            }
+
+            if(values.isEmpty())
+                remove(slot);
+            else if(deletedSomething)
+                write(key, hash, values);
+
+            return deletedSomething;
+        }
+
+        /*
+         * Reads the entry in the first used slot at or after the cursor, and
+         * moves the cursor past it. Returns null if there is none.
+         */
+        public synchronized Pair<ByteArray, List<Versioned<byte[]>>> next(int[] cursor) {
+            for(int slot = cursor[0]; slot < addresses.length; slot++) {
+                if(addresses[slot] != EMPTY) {
+                    cursor[0] = slot + 1;
+                    return Pair.create(new ByteArray(readKey(addresses[slot])),
+                                       readValues(addresses[slot]));
+                }
+            }
+
+            cursor[0] = addresses.length;
+            return null;
+        }
+
+        private void write(byte[] key, int hash, List<Versioned<byte[]>> values) {
+            int length = RECORD_HEADER_SIZE + key.length;
+            for(Versioned<byte[]> value: values)
+                length += 8 + ((VectorClock) value.getVersion()).sizeInBytes()
+                          + value.getValue().length;
+
+            if(length > slabSize)
+                throw new VoldemortException("The values of key '" + new ByteArray(key)
+                                             + "' take " + length
+                                             + " bytes, more than the slab size of " + slabSize
+                                             + " bytes.");
+
+            // Making room may move or evict the record of the key itself
+            long address = allocate(length);
+            ByteBuffer slab = slabs.get(slab(address));
+            slab.position(offset(address));
+            slab.putInt(length);
+            slab.putInt(hash);
+            slab.putInt(key.length);
+            slab.put(key);
+
+            for(Versioned<byte[]> value: values) {
+                byte[] clock = ((VectorClock) value.getVersion()).toBytes();
+                slab.putInt(clock.length);
+                slab.put(clock);
+                slab.putInt(value.getValue().length);
+                slab.put(value.getValue());
+            }
+
+            int slot = find(key, hash);
+            if(slot >= 0)
+                addresses[slot] = address;
+            else
+                insert(hash, address);
+        }
+
+        private long allocate(int length) {
+            while(head < 0 || slabUsed[head] + length > slabSize) {
+                if(slabs.size() < maxSlabs) {
+                    slabs.add(ByteBuffer.allocateDirect(slabSize));
+                    head = slabs.size() - 1;
+                    slabUsed[head] = 0;
+                } else {
+                    // Every pass clears the references of the keys it keeps,
+                    // so at worst a full turn of the ring empties a slab
+                    head = (head + 1) % slabs.size();
+                    reclaim(head);
+                }
+            }
+
+            long address = address(head, slabUsed[head]);
+            slabUsed[head] += length;
+            return address;
+        }
+
+        private void reclaim(int slabIndex) {
+            ByteBuffer slab = slabs.get(slabIndex);
+            int end = slabUsed[slabIndex];
+            int read = 0;
+            int write = 0;
+
+            while(read < end) {
+                int length = slab.getInt(read);
+                int slot = findAddress(slab.getInt(read + 4), address(slabIndex, read));
+
+                if(slot >= 0) {
+                    if(referenced[slot]) {
+                        referenced[slot] = false;
+                        move(slab, read, write, length);
+                        addresses[slot] = address(slabIndex, write);
+                        write += length;
+                    } else {
+                        remove(slot);
+                        evictions++;
+                    }
+                }
+
+                read += length;
+            }
+
+            slabUsed[slabIndex] = write;
+        }
+
+        /*
+         * Moves bytes towards the start of the slab; as the destination is
+         * before the source, copying front to back never overwrites bytes yet to
+         * be copied
+         */
+        private void move(ByteBuffer slab, int from, int to, int length) {
+            if(from == to)
+                return;
+
+            for(int copied = 0; copied < length; copied += scratch.length) {
+                int n = Math.min(scratch.length, length - copied);
+                slab.position(from + copied);
+                slab.get(scratch, 0, n);
+                slab.position(to + copied);
+                slab.put(scratch, 0, n);
+            }
+        }
+
+        private byte[] readKey(long address) {
+            ByteBuffer slab = slabs.get(slab(address));
+            int offset = offset(address);
+            byte[] key = new byte[slab.getInt(offset + 8)];
+            slab.position(offset + RECORD_HEADER_SIZE);
+            slab.get(key);
+            return key;
+        }
+
+        private List<Versioned<byte[]>> readValues(long address) {
+            ByteBuffer slab = slabs.get(slab(address));
+            int offset = offset(address);
+            int end = offset + slab.getInt(offset);
+            List<Versioned<byte[]>> values = new ArrayList<Versioned<byte[]>>(1);
+            slab.position(offset + RECORD_HEADER_SIZE + slab.getInt(offset + 8));
+
+            while(slab.position() < end) {
+                byte[] clock = new byte[slab.getInt()];
+                slab.get(clock);
+                byte[] value = new byte[slab.getInt()];
+                slab.get(value);
+                values.add(new Versioned<byte[]>(value, new VectorClock(clock)));
+            }
+
+            return values;
+        }
+
+        private boolean keyEquals(long address, byte[] key) {
+            ByteBuffer slab = slabs.get(slab(address));
+            int offset = offset(address);
+
+            if(slab.getInt(offset + 8) != key.length)
+                return false;
+
+            offset += RECORD_HEADER_SIZE;
+            for(int i = 0; i < key.length; i++) {
+                if(slab.get(offset + i) != key[i])
+                    return false;
+            }
+
+            return true;
+        }
+
+        private int find(byte[] key, int hash) {
+            int mask = addresses.length - 1;
+
+            for(int slot = hash & mask; addresses[slot] != EMPTY; slot = (slot + 1) & mask) {
+                if(hashes[slot] == hash && keyEquals(addresses[slot], key))
+                    return slot;
+            }
+
+            return -1;
+        }
+
+        private int findAddress(int hash, long address) {
+            int mask = addresses.length - 1;
+
+            for(int slot = hash & mask; addresses[slot] != EMPTY; slot = (slot + 1) & mask) {
+                if(addresses[slot] == address)
+                    return slot;
+            }
+
+            return -1;
+        }
+
+        private void insert(int hash, long address) {
+            if((size + 1) * 2 > addresses.length)
+                resize(addresses.length * 2);
+
+            int mask = addresses.length - 1;
+            int slot = hash & mask;
+            while(addresses[slot] != EMPTY)
+                slot = (slot + 1) & mask;
+
+            hashes[slot] = hash;
+            addresses[slot] = address;
+            referenced[slot] = false;
+            size++;
+        }
+
+        /*
+         * Empties the slot, and moves back the entries after it that can no
+         * longer be reached past it
+         */
+        private void remove(int slot) {
+            int mask = addresses.length - 1;
+            addresses[slot] = EMPTY;
+            size--;
+
+            for(int next = (slot + 1) & mask; addresses[next] != EMPTY; next = (next + 1) & mask) {
+                int home = hashes[next] & mask;
+
+                // Leave the entry if its home is cyclically in (slot, next]
+                if(slot <= next ? (slot < home && home <= next) : (slot < home || home <= next))
+                    continue;
+
+                hashes[slot] = hashes[next];
+                addresses[slot] = addresses[next];
+                referenced[slot] = referenced[next];
+                addresses[next] = EMPTY;
+                slot = next;
+            }
+        }
+
+        private void resize(int capacity) {
+            int[] oldHashes = hashes;
+            long[] oldAddresses = addresses;
+            boolean[] oldReferenced = referenced;
+            int mask = capacity - 1;
+
+            hashes = new int[capacity];
+            addresses = new long[capacity];
+            referenced = new boolean[capacity];
+            Arrays.fill(addresses, EMPTY);
+
+            for(int i = 0; i < oldAddresses.length; i++) {
+                if(oldAddresses[i] == EMPTY)
+                    continue;
+
+                int slot = oldHashes[i] & mask;
+                while(addresses[slot] != EMPTY)
+                    slot = (slot + 1) & mask;
+
+                hashes[slot] = oldHashes[i];
+                addresses[slot] = oldAddresses[i];
+                referenced[slot] = oldReferenced[i];
+            }
+        }
+
+    }
+
+    @NotThreadsafe
+    private class OffHeapIterator implements ClosableIterator<Pair<ByteArray, Versioned<byte[]>>> {
+
+        private final int[] cursor = new int[1];
+        private int segment = 0;
+        private ByteArray currentKey;
+        private Iterator<Versioned<byte[]>> currentValues;
+
+        public boolean hasNext() {
+            while(currentValues == null || !currentValues.hasNext()) {
+                if(segment >= segments.length)
+                    return false;
+
+                Pair<ByteArray, List<Versioned<byte[]>>> entry = segments[segment].next(cursor);
+
+                if(entry == null) {
+                    segment++;
+                    cursor[0] = 0;
+                } else {
+                    currentKey = entry.getFirst();
+                    currentValues = entry.getSecond().iterator();
+                }
+            }
+
+            return true;
+        }
+
+        public Pair<ByteArray, Versioned<byte[]>> next() {
+            if(!hasNext())
+                throw new NoSuchElementException();
+
+            return Pair.create(currentKey, currentValues.next());
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException("No removal y'all.");
+        }
+
+        public void close() {}
+
+    }
+
+}
@@ -362,6 +362,11 @@ public class MetadataStore implements StorageEngine<ByteArray, byte[]> {
         return StoreUtils.getAll(this, keys);
     }
 
+    public Set<ByteArray> putAll(Map<ByteArray, Versioned<byte[]>> entries)
+            throws VoldemortException {
+        return StoreUtils.putAll(this, entries);
+    }
+
     /**
      * Initializes the metadataCache for MetadataStore
      */
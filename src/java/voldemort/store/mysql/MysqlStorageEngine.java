@@ -22,6 +22,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.sql.DataSource;
 
@@ -244,6 +245,11 @@ public class MysqlStorageEngine implements StorageEngine<ByteArray, byte[]> {
         return name;
     }
 
+    public Set<ByteArray> putAll(Map<ByteArray, Versioned<byte[]>> entries)
+            throws VoldemortException {
+        return StoreUtils.putAll(this, entries);
+    }
+
     public void put(ByteArray key, Versioned<byte[]> value) throws PersistenceFailureException {
         StoreUtils.assertValidKey(key);
         boolean doCommit = false;
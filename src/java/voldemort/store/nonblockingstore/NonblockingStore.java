@@ -16,6 +16,8 @@
 
 package voldemort.store.nonblockingstore;
 
+import java.util.Map;
+
 import voldemort.VoldemortException;
 import voldemort.store.Store;
 import voldemort.store.routed.RoutedStore;
@@ -71,6 +73,26 @@ public interface NonblockingStore {
                                  Versioned<byte[]> value,
                                  NonblockingStoreCallback callback);
 
+    /**
+     * Submit a put of a value without a version, as
+     * {@link voldemort.store.BlindPutStore#blindPut(Object, Object)} does. The
+     * callback is given the version the value was stored with. If the store
+     * cannot do blind puts, either this method throws an
+     * {@link UnsupportedOperationException} or the callback is given one.
+     */
+    public void submitBlindPutRequest(ByteArray key,
+                                      byte[] value,
+                                      NonblockingStoreCallback callback);
+
+    /**
+     * Submit a put of the values of several keys, as
+     * {@link Store#putAll(java.util.Map)} does. The callback is given the set
+     * of keys whose values were not stored because their versions are
+     * obsolete.
+     */
+    public void submitPutAllRequest(Map<ByteArray, Versioned<byte[]>> entries,
+                                    NonblockingStoreCallback callback);
+
     public void submitDeleteRequest(ByteArray key,
                                     Version version,
                                     NonblockingStoreCallback callback);
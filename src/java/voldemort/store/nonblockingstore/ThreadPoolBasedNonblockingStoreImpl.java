@@ -18,11 +18,13 @@ package voldemort.store.nonblockingstore;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 
 import voldemort.VoldemortException;
 import voldemort.store.Store;
 import voldemort.store.StoreRequest;
+import voldemort.store.StoreUtils;
 import voldemort.utils.ByteArray;
 import voldemort.utils.Time;
 import voldemort.utils.Utils;
@@ -85,6 +87,29 @@ public class ThreadPoolBasedNonblockingStoreImpl implements NonblockingStore {
         }, callback);
     }
 
+    public void submitBlindPutRequest(final ByteArray key,
+                                      final byte[] value,
+                                      NonblockingStoreCallback callback) {
+        submit(new StoreRequest<Version>() {
+
+            public Version request(Store<ByteArray, byte[]> store) {
+                return StoreUtils.blindPut(innerStore, key, value);
+            }
+
+        }, callback);
+    }
+
+    public void submitPutAllRequest(final Map<ByteArray, Versioned<byte[]>> entries,
+                                    NonblockingStoreCallback callback) {
+        submit(new StoreRequest<Set<ByteArray>>() {
+
+            public Set<ByteArray> request(Store<ByteArray, byte[]> store) {
+                return innerStore.putAll(entries);
+            }
+
+        }, callback);
+    }
+
     public void submitDeleteRequest(final ByteArray key,
                                     final Version version,
                                     NonblockingStoreCallback callback) {
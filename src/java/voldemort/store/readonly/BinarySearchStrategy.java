@@ -2,8 +2,6 @@ package voldemort.store.readonly;
 
 import java.nio.ByteBuffer;
 
-import voldemort.utils.ByteUtils;
-
 /**
  * A search strategy that does a simple binary search into the buffer to find
  * the key
@@ -12,18 +10,19 @@ import voldemort.utils.ByteUtils;
  */
 public class BinarySearchStrategy implements SearchStrategy {
 
-    public int indexOf(ByteBuffer index, byte[] key, int indexFileSize) {
-        byte[] keyBuffer = new byte[ReadOnlyUtils.KEY_HASH_SIZE];
+    public long indexOf(ByteBuffer index,
+                        byte[] key,
+                        int indexFileSize,
+                        ReadOnlyStorageFormat format) {
+        int entrySize = format.getIndexEntrySize();
         int low = 0;
-        int high = indexFileSize / ReadOnlyUtils.INDEX_ENTRY_SIZE - 1;
+        int high = indexFileSize / entrySize - 1;
         while(low <= high) {
             int mid = (low + high) / 2;
-            ReadOnlyUtils.readKey(index, mid * ReadOnlyUtils.INDEX_ENTRY_SIZE, keyBuffer);
-            int cmp = ByteUtils.compare(keyBuffer, key);
+            int cmp = ReadOnlyUtils.compareKey(index, mid * entrySize, key);
             if(cmp == 0) {
                 // they are equal, return the location stored here
-                index.position(mid * ReadOnlyUtils.INDEX_ENTRY_SIZE + ReadOnlyUtils.KEY_HASH_SIZE);
-                return index.getInt();
+                return format.readPosition(index, mid * entrySize + ReadOnlyUtils.KEY_HASH_SIZE);
             } else if(cmp > 0) {
                 // midVal is bigger
                 high = mid - 1;
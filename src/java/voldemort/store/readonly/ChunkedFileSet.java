@@ -3,12 +3,16 @@ package voldemort.store.readonly;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileChannel.MapMode;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.log4j.Logger;
 
@@ -17,6 +21,11 @@ import voldemort.utils.Utils;
 
 /**
  * A set of chunked data and index files for a read-only store
+ * <p>
+ * The file set is reference counted so that it can be replaced while it is
+ * being read: readers pin it with {@link #acquire()} and {@link #release()},
+ * and {@link #close()} only drops the reference of its owner. The files are
+ * closed once the last reference is released.
  * 
  * 
  */
@@ -24,22 +33,85 @@ public class ChunkedFileSet {
 
     private static Logger logger = Logger.getLogger(ChunkedFileSet.class);
 
+    /*
+     * The largest region mapped by a single buffer, data files larger than
+     * this are mapped as several consecutive segments
+     */
+    public static final int MAX_SEGMENT_SIZE = Integer.MAX_VALUE;
+
+    /*
+     * Values at most this far apart are fetched with a single read when
+     * reading several values through the file channel, and a single read
+     * covers at most MAX_COALESCED_READ bytes
+     */
+    public static final int MAX_COALESCING_GAP = 16 * 1024;
+    public static final int MAX_COALESCED_READ = 256 * 1024;
+
+    /* the bytes read past the last value start, to catch its size and body */
+    private static final int COALESCED_READ_TAIL = 1024;
+
     private final int numChunks;
     private final File baseDir;
+    private final ReadOnlyStorageFormat format;
     private final List<Integer> indexFileSizes;
-    private final List<Integer> dataFileSizes;
+    private final List<Long> dataFileSizes;
     private final List<MappedByteBuffer> indexFiles;
     private final List<FileChannel> dataFiles;
+    private final List<MappedByteBuffer[]> dataBuffers;
+    private final List<SparseIndex> sparseIndexes;
+    private final boolean mapDataFiles;
+    private final int segmentSize;
+    private final AtomicInteger references;
+    private final AtomicBoolean closed;
 
     public ChunkedFileSet(File directory) {
+        this(directory, false);
+    }
+
+    /**
+     * Open the chunks in the given version directory
+     * 
+     * @param directory The version directory containing the .index and .data
+     *        files
+     * @param mapDataFiles If true the .data files are memory mapped and values
+     *        are copied out of the mapping, otherwise values are read through
+     *        the file channel
+     */
+    public ChunkedFileSet(File directory, boolean mapDataFiles) {
+        this(directory, mapDataFiles, 0);
+    }
+
+    /**
+     * Open the chunks in the given version directory
+     * 
+     * @param directory The version directory containing the .index and .data
+     *        files
+     * @param mapDataFiles If true the .data files are memory mapped and values
+     *        are copied out of the mapping, otherwise values are read through
+     *        the file channel
+     * @param sparseIndexInterval If positive, keep an in-memory sample of
+     *        every n-th key of each sorted index to narrow lookups with
+     */
+    public ChunkedFileSet(File directory, boolean mapDataFiles, int sparseIndexInterval) {
+        this(directory, mapDataFiles, sparseIndexInterval, MAX_SEGMENT_SIZE);
+    }
+
+    ChunkedFileSet(File directory, boolean mapDataFiles, int sparseIndexInterval, int segmentSize) {
         this.baseDir = directory;
+        this.mapDataFiles = mapDataFiles;
+        this.segmentSize = segmentSize;
+        this.references = new AtomicInteger(1);
+        this.closed = new AtomicBoolean(false);
         if(!Utils.isReadableDir(directory))
             throw new VoldemortException(directory.getAbsolutePath()
                                          + " is not a readable directory.");
+        this.format = ReadOnlyStorageFormat.readFormat(directory);
         this.indexFileSizes = new ArrayList<Integer>();
-        this.dataFileSizes = new ArrayList<Integer>();
+        this.dataFileSizes = new ArrayList<Long>();
         this.indexFiles = new ArrayList<MappedByteBuffer>();
         this.dataFiles = new ArrayList<FileChannel>();
+        this.dataBuffers = new ArrayList<MappedByteBuffer[]>();
+        this.sparseIndexes = new ArrayList<SparseIndex>();
 
         // if the directory is empty create empty files
         if(baseDir.list() != null && baseDir.list().length == 0) {
@@ -68,37 +140,86 @@ public class ChunkedFileSet {
             long dataLength = data.length();
             validateFileSizes(indexLength, dataLength);
             indexFileSizes.add((int) indexLength);
-            dataFileSizes.add((int) dataLength);
+            dataFileSizes.add(dataLength);
 
-            /* Add the file channel for data */
-            dataFiles.add(openChannel(data));
-            indexFiles.add(mapFile(index));
+            /* Add the file channel or the mapping for data */
+            if(mapDataFiles)
+                dataBuffers.add(mapSegments(data));
+            else
+                dataFiles.add(openChannel(data));
+            MappedByteBuffer indexBuffer = mapFile(index);
+            indexFiles.add(indexBuffer);
+            if(sparseIndexInterval > 0 && format.isSortedIndex())
+                sparseIndexes.add(new SparseIndex(indexBuffer,
+                                                  (int) indexLength,
+                                                  format.getIndexEntrySize(),
+                                                  sparseIndexInterval));
             chunkId++;
         }
         if(chunkId == 0)
             throw new VoldemortException("No data chunks found in directory " + baseDir.toString());
         this.numChunks = chunkId;
-        logger.trace("Opened chunked file set for " + baseDir + " with " + indexFileSizes.size()
-                     + " chunks.");
+        logger.trace("Opened chunked file set for " + baseDir + " in format " + format.getCode()
+                     + " with " + indexFileSizes.size() + " chunks"
+                     + (mapDataFiles ? " and memory mapped data files." : "."));
     }
 
     public void validateFileSizes(long indexLength, long dataLength) {
         /* sanity check file sizes */
-        if(indexLength > Integer.MAX_VALUE || dataLength > Integer.MAX_VALUE)
-            throw new VoldemortException("Index or data file exceeds " + Integer.MAX_VALUE
-                                         + " bytes.");
-        if(indexLength % ReadOnlyUtils.INDEX_ENTRY_SIZE != 0L)
+        if(indexLength > Integer.MAX_VALUE)
+            throw new VoldemortException("Index file exceeds " + Integer.MAX_VALUE + " bytes.");
+        if(dataLength > format.getMaxDataFileSize())
+            throw new VoldemortException("Data file exceeds " + format.getMaxDataFileSize()
+                                         + " bytes, which is the limit for format "
+                                         + format.getCode() + ".");
+        if(indexLength % format.getIndexEntrySize() != 0L)
             throw new VoldemortException("Invalid index file, file length must be a multiple of "
-                                         + (ReadOnlyUtils.KEY_HASH_SIZE + ReadOnlyUtils.POSITION_SIZE)
-                                         + " but is only " + indexLength + " bytes.");
+                                         + format.getIndexEntrySize() + " but is only "
+                                         + indexLength + " bytes.");
 
-        if(dataLength < 4 * indexLength / ReadOnlyUtils.INDEX_ENTRY_SIZE)
+        if(dataLength < 4 * indexLength / format.getIndexEntrySize())
             throw new VoldemortException("Invalid data file, file length must not be less than num_index_entries * 4 bytes, but data file is only "
                                          + dataLength + " bytes.");
     }
 
+    /**
+     * Pin the file set so that it stays open until {@link #release()} is
+     * called
+     * 
+     * @return true if the file set was pinned, false if it has already been
+     *         closed
+     */
+    public boolean acquire() {
+        while(true) {
+            int count = references.get();
+            if(count == 0 || closed.get())
+                return false;
+            if(references.compareAndSet(count, count + 1))
+                return true;
+        }
+    }
+
+    /**
+     * Unpin the file set, closing the files if it was closed and this was the
+     * last reference
+     */
+    public void release() {
+        if(references.decrementAndGet() == 0)
+            closeFiles();
+    }
+
+    /**
+     * Close the file set. The files stay open until the readers which have
+     * acquired it release it, after that it can no longer be acquired.
+     */
     public void close() {
-        for(int chunk = 0; chunk < this.numChunks; chunk++) {
+        if(closed.compareAndSet(false, true))
+            release();
+    }
+
+    private void closeFiles() {
+        // mapped buffers are released when they are garbage collected
+        for(int chunk = 0; chunk < this.dataFiles.size(); chunk++) {
             FileChannel channel = dataFileFor(chunk);
             try {
                 channel.close();
@@ -127,10 +248,37 @@ public class ChunkedFileSet {
         }
     }
 
+    /*
+     * Map the file as consecutive segments of at most segmentSize bytes, an
+     * empty file is mapped as a single empty segment
+     */
+    private MappedByteBuffer[] mapSegments(File file) {
+        try {
+            FileChannel channel = new FileInputStream(file).getChannel();
+            long length = file.length();
+            int numSegments = Math.max(1, (int) ((length + segmentSize - 1) / segmentSize));
+            MappedByteBuffer[] segments = new MappedByteBuffer[numSegments];
+            for(int i = 0; i < numSegments; i++) {
+                long start = (long) i * segmentSize;
+                segments[i] = channel.map(MapMode.READ_ONLY,
+                                          start,
+                                          Math.min(segmentSize, length - start));
+            }
+            channel.close();
+            return segments;
+        } catch(IOException e) {
+            throw new VoldemortException(e);
+        }
+    }
+
     public int getNumChunks() {
         return this.numChunks;
     }
 
+    public ReadOnlyStorageFormat getFormat() {
+        return this.format;
+    }
+
     public int getChunkForKey(byte[] key) {
         return ReadOnlyUtils.chunk(key, numChunks);
     }
@@ -139,16 +287,196 @@ public class ChunkedFileSet {
         return indexFiles.get(chunk).duplicate();
     }
 
+    /**
+     * The part of the chunk's index that may contain the key. This is the
+     * whole index unless a sparse index is kept for the chunk.
+     * 
+     * @param chunk The chunk of the key
+     * @param key The md5 of the key
+     * @return A buffer over the index entries to search
+     */
+    public ByteBuffer indexFileFor(int chunk, byte[] key) {
+        if(sparseIndexes.isEmpty())
+            return indexFileFor(chunk);
+        return sparseIndexes.get(chunk).narrow(indexFiles.get(chunk),
+                                               key,
+                                               format.getIndexEntrySize());
+    }
+
+    /**
+     * The heap memory held by the sparse indexes of all chunks, in bytes
+     */
+    public long getSparseIndexSizeInBytes() {
+        long size = 0;
+        for(SparseIndex sparseIndex: sparseIndexes)
+            size += sparseIndex.getSizeInBytes();
+        return size;
+    }
+
+    /**
+     * The total size of the index files of all chunks, in bytes
+     */
+    public long getIndexSizeInBytes() {
+        long size = 0;
+        for(int indexFileSize: indexFileSizes)
+            size += indexFileSize;
+        return size;
+    }
+
+    /**
+     * Page in the index files of all chunks, so that the first lookups do not
+     * each fault index pages in from disk. The kernel is advised up front that
+     * all indexes will be needed, so it can read ahead while they are loaded
+     * one at a time.
+     * 
+     * @param bytesWarmed Incremented by the size of each index once it is
+     *        loaded
+     */
+    public void warmUp(AtomicLong bytesWarmed) {
+        for(MappedByteBuffer index: indexFiles)
+            Utils.adviseWillNeed(index);
+        for(MappedByteBuffer index: indexFiles) {
+            index.load();
+            bytesWarmed.addAndGet(index.capacity());
+        }
+    }
+
+    /**
+     * Open the data file of a chunk for a sequential scan. The stream reads
+     * independently of the lookups served by the file set, and stays readable
+     * if the version directory is deleted while it is open.
+     * 
+     * @param chunk The chunk to scan
+     * @return A new stream over the data file, which the caller must close
+     */
+    public InputStream openDataFile(int chunk) {
+        try {
+            return new FileInputStream(new File(baseDir, Integer.toString(chunk) + ".data"));
+        } catch(IOException e) {
+            throw new VoldemortException(e);
+        }
+    }
+
     public FileChannel dataFileFor(int chunk) {
         return dataFiles.get(chunk);
     }
 
+    public boolean isDataMapped() {
+        return this.mapDataFiles;
+    }
+
+    /**
+     * Read the value stored at the given offset of the chunk's data file. Each
+     * value is stored as a 4 byte size followed by the value bytes.
+     * 
+     * @param chunk The chunk to read from
+     * @param valueLocation The offset of the value in the data file
+     * @return The value bytes
+     */
+    public byte[] readValue(int chunk, long valueLocation) {
+        if(mapDataFiles) {
+            MappedByteBuffer[] segments = dataBuffers.get(chunk);
+            byte[] sizeBytes = new byte[4];
+            readMapped(segments, valueLocation, sizeBytes);
+            byte[] value = new byte[ByteBuffer.wrap(sizeBytes).getInt()];
+            readMapped(segments, valueLocation + 4, value);
+            return value;
+        } else {
+            FileChannel dataFile = dataFileFor(chunk);
+            try {
+                ByteBuffer sizeBuffer = ByteBuffer.allocate(4);
+                dataFile.read(sizeBuffer, valueLocation);
+                int size = sizeBuffer.getInt(0);
+                ByteBuffer valueBuffer = ByteBuffer.allocate(size);
+                dataFile.read(valueBuffer, valueLocation + 4);
+                return valueBuffer.array();
+            } catch(IOException e) {
+                throw new VoldemortException(e);
+            }
+        }
+    }
+
+    /**
+     * Read several values of the chunk. Through the file channel, values that
+     * lie close together are fetched with a single read, values that do not
+     * fit the coalesced read are read on their own.
+     * 
+     * @param chunk The chunk to read from
+     * @param valueLocations The offsets of the values, in ascending order
+     * @return The value bytes, in the order of the given offsets
+     */
+    public byte[][] readValues(int chunk, long[] valueLocations) {
+        byte[][] values = new byte[valueLocations.length][];
+        if(mapDataFiles) {
+            for(int i = 0; i < valueLocations.length; i++)
+                values[i] = readValue(chunk, valueLocations[i]);
+            return values;
+        }
+
+        FileChannel dataFile = dataFileFor(chunk);
+        long dataFileSize = getDataFileSize(chunk);
+        int first = 0;
+        while(first < valueLocations.length) {
+            // extend the run while the next value is close enough
+            int last = first;
+            while(last + 1 < valueLocations.length) {
+                long next = valueLocations[last + 1];
+                if(next - valueLocations[last] > MAX_COALESCING_GAP
+                   || next + COALESCED_READ_TAIL - valueLocations[first] > MAX_COALESCED_READ)
+                    break;
+                last++;
+            }
+
+            if(first == last) {
+                values[first] = readValue(chunk, valueLocations[first]);
+            } else {
+                long start = valueLocations[first];
+                long end = Math.min(valueLocations[last] + COALESCED_READ_TAIL, dataFileSize);
+                ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+                try {
+                    while(buffer.hasRemaining()
+                          && dataFile.read(buffer, start + buffer.position()) >= 0) {}
+                } catch(IOException e) {
+                    throw new VoldemortException(e);
+                }
+                for(int i = first; i <= last; i++) {
+                    int offset = (int) (valueLocations[i] - start);
+                    int size = offset + 4 <= buffer.position() ? buffer.getInt(offset) : -1;
+                    if(size >= 0 && offset + 4 + size <= buffer.position()) {
+                        values[i] = new byte[size];
+                        System.arraycopy(buffer.array(), offset + 4, values[i], 0, size);
+                    } else {
+                        values[i] = readValue(chunk, valueLocations[i]);
+                    }
+                }
+            }
+            first = last + 1;
+        }
+        return values;
+    }
+
+    /*
+     * Copy dest.length bytes starting at the given file position, crossing
+     * segment boundaries as needed
+     */
+    private void readMapped(MappedByteBuffer[] segments, long position, byte[] dest) {
+        int copied = 0;
+        while(copied < dest.length) {
+            long current = position + copied;
+            ByteBuffer segment = segments[(int) (current / segmentSize)].duplicate();
+            segment.position((int) (current % segmentSize));
+            int length = Math.min(dest.length - copied, segment.remaining());
+            segment.get(dest, copied, length);
+            copied += length;
+        }
+    }
+
     public int getIndexFileSize(int chunk) {
         return this.indexFileSizes.get(chunk);
     }
 
-    public int getDataFileSize(int chunk) {
-        return this.indexFileSizes.get(chunk);
+    public long getDataFileSize(int chunk) {
+        return this.dataFileSizes.get(chunk);
     }
 
 }
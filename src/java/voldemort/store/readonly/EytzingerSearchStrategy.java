@@ -0,0 +1,69 @@
+package voldemort.store.readonly;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A search strategy for indexes laid out in Eytzinger order, that is the
+ * entries of an implicit balanced binary search tree stored breadth first: the
+ * children of the k-th entry (counting from 1) are entries 2k and 2k + 1.
+ * <p>
+ * The first levels of the tree, which every lookup touches, are packed at the
+ * start of the index and stay in the page cache, and each further step moves
+ * forward through the file. A binary search over a sorted index instead
+ * touches a different page for nearly every probe.
+ * <p>
+ * This strategy can only be used on indexes of a format without a sorted
+ * index, such as {@link ReadOnlyStorageFormat#READONLY_V2}.
+ * 
+ * 
+ */
+public class EytzingerSearchStrategy implements SearchStrategy {
+
+    public long indexOf(ByteBuffer index,
+                        byte[] key,
+                        int indexFileSize,
+                        ReadOnlyStorageFormat format) {
+        int entrySize = format.getIndexEntrySize();
+        int numEntries = indexFileSize / entrySize;
+        int k = 1;
+        while(k <= numEntries) {
+            int offset = (k - 1) * entrySize;
+            int cmp = ReadOnlyUtils.compareKey(index, offset, key);
+            if(cmp == 0)
+                return format.readPosition(index, offset + ReadOnlyUtils.KEY_HASH_SIZE);
+            // go left if the entry is bigger, right if the key is bigger
+            k = 2 * k + (cmp < 0 ? 1 : 0);
+        }
+        return -1;
+    }
+
+    /**
+     * Copy the entries of a sorted index into Eytzinger order. The sorted index
+     * is read sequentially once.
+     * 
+     * @param sorted The sorted index, read from position 0 to its limit
+     * @param eytzinger The buffer to write the entries to, at least as large
+     *        as the sorted index
+     * @param entrySize The size of an index entry
+     */
+    public static void layout(ByteBuffer sorted, ByteBuffer eytzinger, int entrySize) {
+        sorted.position(0);
+        layout(sorted, eytzinger, new byte[entrySize], sorted.limit() / entrySize, 1);
+    }
+
+    /* in-order walk of the implicit tree rooted at the k-th entry */
+    private static void layout(ByteBuffer sorted,
+                               ByteBuffer eytzinger,
+                               byte[] entry,
+                               int numEntries,
+                               int k) {
+        if(k > numEntries)
+            return;
+        layout(sorted, eytzinger, entry, numEntries, 2 * k);
+        sorted.get(entry);
+        eytzinger.position((k - 1) * entry.length);
+        eytzinger.put(entry);
+        layout(sorted, eytzinger, entry, numEntries, 2 * k + 1);
+    }
+
+}
@@ -20,10 +20,15 @@ import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.security.MessageDigest;
 import java.util.Comparator;
 import java.util.List;
@@ -77,6 +82,7 @@ public class JsonStoreBuilder {
     private final int numChunks;
     private final int ioBufferSize;
     private final boolean gzipIntermediate;
+    private final ReadOnlyStorageFormat format;
 
     public JsonStoreBuilder(JsonReader reader,
                             Cluster cluster,
@@ -89,6 +95,32 @@ public class JsonStoreBuilder {
                             int numChunks,
                             int ioBufferSize,
                             boolean gzipIntermediate) {
+        this(reader,
+             cluster,
+             storeDefinition,
+             routingStrategy,
+             outputDir,
+             tempDir,
+             internalSortSize,
+             numThreads,
+             numChunks,
+             ioBufferSize,
+             gzipIntermediate,
+             ReadOnlyStorageFormat.READONLY_V0);
+    }
+
+    public JsonStoreBuilder(JsonReader reader,
+                            Cluster cluster,
+                            StoreDefinition storeDefinition,
+                            RoutingStrategy routingStrategy,
+                            File outputDir,
+                            File tempDir,
+                            int internalSortSize,
+                            int numThreads,
+                            int numChunks,
+                            int ioBufferSize,
+                            boolean gzipIntermediate,
+                            ReadOnlyStorageFormat format) {
         if(cluster.getNumberOfNodes() < storeDefinition.getReplicationFactor())
             throw new IllegalStateException("Number of nodes is " + cluster.getNumberOfNodes()
                                             + " but the replication factor is "
@@ -107,6 +139,7 @@ public class JsonStoreBuilder {
         this.numChunks = numChunks;
         this.ioBufferSize = ioBufferSize;
         this.gzipIntermediate = gzipIntermediate;
+        this.format = format;
     }
 
     /**
@@ -145,6 +178,10 @@ public class JsonStoreBuilder {
               .withRequiredArg()
               .describedAs("temp dir");
         parser.accepts("gzip", "compress intermediate chunk files");
+        parser.accepts("format",
+                       "read-only storage format to build (ro0, ro1, ro2 or ro3), defaults to ro0")
+              .withRequiredArg()
+              .describedAs("format");
         OptionSet options = parser.parse(args);
 
         if(options.has("help")) {
@@ -175,6 +212,9 @@ public class JsonStoreBuilder {
         int numChunks = CmdUtils.valueOf(options, "chunks", 2);
         int ioBufferSize = CmdUtils.valueOf(options, "io-buffer-size", 1000000);
         boolean gzipIntermediate = options.has("gzip");
+        ReadOnlyStorageFormat format = ReadOnlyStorageFormat.fromCode(CmdUtils.valueOf(options,
+                                                                                       "format",
+                                                                                       ReadOnlyStorageFormat.READONLY_V0.getCode()));
         File tempDir = new File(CmdUtils.valueOf(options,
                                                  "temp-dir",
                                                  System.getProperty("java.io.tmpdir")));
@@ -209,7 +249,8 @@ public class JsonStoreBuilder {
                                  numThreads,
                                  numChunks,
                                  ioBufferSize,
-                                 gzipIntermediate).build();
+                                 gzipIntermediate,
+                                 format).build();
         } catch(FileNotFoundException e) {
             Utils.croak(e.getMessage());
         }
@@ -217,16 +258,19 @@ public class JsonStoreBuilder {
 
     public void build() throws IOException {
         logger.info("Building store " + storeDefinition.getName() + " for "
-                    + cluster.getNumberOfNodes() + " with " + numChunks + " chunks per node.");
+                    + cluster.getNumberOfNodes() + " with " + numChunks
+                    + " chunks per node in format " + format.getCode() + ".");
         // initialize nodes
         int numNodes = cluster.getNumberOfNodes();
         DataOutputStream[][] indexes = new DataOutputStream[numNodes][numChunks];
         DataOutputStream[][] datas = new DataOutputStream[numNodes][numChunks];
-        int[][] positions = new int[numNodes][numChunks];
+        long[][] positions = new long[numNodes][numChunks];
         for(Node node: cluster.getNodes()) {
             int nodeId = node.getId();
             File nodeDir = new File(outputDir, "node-" + Integer.toString(nodeId));
             nodeDir.mkdirs();
+            if(format != ReadOnlyStorageFormat.READONLY_V0)
+                ReadOnlyStorageFormat.writeFormat(nodeDir, format);
             for(int chunk = 0; chunk < numChunks; chunk++) {
                 File indexFile = new File(nodeDir, chunk + ".index");
                 File dataFile = new File(nodeDir, chunk + ".data");
@@ -254,12 +298,10 @@ public class JsonStoreBuilder {
             for(int i = 0; i < this.storeDefinition.getReplicationFactor(); i++) {
                 int nodeId = nodes.get(i).getId();
                 int chunk = ReadOnlyUtils.chunk(keyMd5, numChunks);
-                int numBytes = pair.getValue().length;
-                datas[nodeId][chunk].writeInt(numBytes);
-                datas[nodeId][chunk].write(pair.getValue());
+                format.writeDataEntry(datas[nodeId][chunk], pair.getKey(), pair.getValue());
                 indexes[nodeId][chunk].write(keyMd5);
-                indexes[nodeId][chunk].writeInt(positions[nodeId][chunk]);
-                positions[nodeId][chunk] += numBytes + 4;
+                format.writePosition(indexes[nodeId][chunk], positions[nodeId][chunk]);
+                positions[nodeId][chunk] += format.getDataEntrySize(pair.getKey(), pair.getValue());
                 checkOverFlow(chunk, positions[nodeId][chunk]);
             }
             count++;
@@ -275,13 +317,41 @@ public class JsonStoreBuilder {
                 datas[node][chunk].close();
             }
         }
+
+        if(!format.isSortedIndex()) {
+            logger.info("Laying out index files in Eytzinger order.");
+            for(Node node: cluster.getNodes()) {
+                File nodeDir = new File(outputDir, "node-" + Integer.toString(node.getId()));
+                for(int chunk = 0; chunk < numChunks; chunk++)
+                    layoutIndex(new File(nodeDir, chunk + ".index"));
+            }
+        }
+    }
+
+    /* Rewrite the sorted index file in Eytzinger order */
+    private void layoutIndex(File indexFile) throws IOException {
+        File layoutFile = new File(indexFile.getParentFile(), indexFile.getName() + ".tmp");
+        FileChannel sortedChannel = new FileInputStream(indexFile).getChannel();
+        RandomAccessFile layout = new RandomAccessFile(layoutFile, "rw");
+        try {
+            long length = sortedChannel.size();
+            layout.setLength(length);
+            MappedByteBuffer sorted = sortedChannel.map(MapMode.READ_ONLY, 0, length);
+            MappedByteBuffer eytzinger = layout.getChannel().map(MapMode.READ_WRITE, 0, length);
+            EytzingerSearchStrategy.layout(sorted, eytzinger, format.getIndexEntrySize());
+            eytzinger.force();
+        } finally {
+            sortedChannel.close();
+            layout.close();
+        }
+        Utils.move(layoutFile, indexFile);
     }
 
-    /* Check if the position has exceeded Integer.MAX_VALUE */
-    private void checkOverFlow(int chunk, int position) {
-        if(position < 0)
+    /* Check if the position has exceeded what the format can address */
+    private void checkOverFlow(int chunk, long position) {
+        if(position > format.getMaxDataFileSize())
             throw new VoldemortException("Chunk overflow: chunk " + chunk + " has exceeded "
-                                         + Integer.MAX_VALUE + " bytes.");
+                                         + format.getMaxDataFileSize() + " bytes.");
     }
 
     private static class KeyValuePairSerializer implements Serializer<KeyValuePair> {
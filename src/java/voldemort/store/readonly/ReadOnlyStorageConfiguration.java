@@ -21,6 +21,10 @@ import java.lang.management.ManagementFactory;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.management.MBeanServer;
 import javax.management.ObjectName;
@@ -29,6 +33,7 @@ import voldemort.server.VoldemortConfig;
 import voldemort.store.StorageConfiguration;
 import voldemort.store.StorageEngine;
 import voldemort.utils.ByteArray;
+import voldemort.utils.DaemonThreadFactory;
 import voldemort.utils.JmxUtils;
 import voldemort.utils.ReflectUtils;
 
@@ -41,6 +46,10 @@ public class ReadOnlyStorageConfiguration implements StorageConfiguration {
     private final Set<ObjectName> registeredBeans;
     private final SearchStrategy searcher;
     private final int nodeId;
+    private final boolean mapDataFiles;
+    private final int sparseIndexInterval;
+    private final boolean warmUpOnSwap;
+    private final ExecutorService getAllExecutor;
 
     public ReadOnlyStorageConfiguration(VoldemortConfig config) {
         this.storageDir = new File(config.getReadOnlyDataStorageDirectory());
@@ -49,9 +58,28 @@ public class ReadOnlyStorageConfiguration implements StorageConfiguration {
         this.searcher = (SearchStrategy) ReflectUtils.callConstructor(ReflectUtils.loadClass(config.getReadOnlySearchStrategy()
                                                                                                    .trim()));
         this.nodeId = config.getNodeId();
+        this.mapDataFiles = config.isReadOnlyMapDataFilesEnabled();
+        this.sparseIndexInterval = config.getReadOnlySparseIndexInterval();
+        this.warmUpOnSwap = config.isReadOnlyWarmUpEnabled();
+        int getAllThreads = config.getReadOnlyGetAllThreads();
+        if(getAllThreads > 0) {
+            // a multi-get runs its remaining chunks itself when all threads are
+            // busy, so the pool bounds the parallelism without queueing
+            this.getAllExecutor = new ThreadPoolExecutor(getAllThreads,
+                                                         getAllThreads,
+                                                         0L,
+                                                         TimeUnit.MILLISECONDS,
+                                                         new SynchronousQueue<Runnable>(),
+                                                         new DaemonThreadFactory("voldemort-readonly-getall-"),
+                                                         new ThreadPoolExecutor.CallerRunsPolicy());
+        } else {
+            this.getAllExecutor = null;
+        }
     }
 
     public void close() {
+        if(getAllExecutor != null)
+            getAllExecutor.shutdownNow();
         MBeanServer server = ManagementFactory.getPlatformMBeanServer();
         for(ObjectName name: registeredBeans)
             JmxUtils.unregisterMbean(server, name);
@@ -61,7 +89,11 @@ public class ReadOnlyStorageConfiguration implements StorageConfiguration {
         ReadOnlyStorageEngine store = new ReadOnlyStorageEngine(name,
                                                                 this.searcher,
                                                                 new File(storageDir, name),
-                                                                numBackups);
+                                                                numBackups,
+                                                                mapDataFiles,
+                                                                sparseIndexInterval,
+                                                                getAllExecutor,
+                                                                warmUpOnSwap);
         ObjectName objName = JmxUtils.createObjectName(JmxUtils.getPackageName(store.getClass()),
                                                        name + nodeId);
         JmxUtils.registerMbean(ManagementFactory.getPlatformMBeanServer(),
@@ -16,18 +16,29 @@
 
 package voldemort.store.readonly;
 
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
-import java.nio.channels.FileChannel;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.log4j.Logger;
 
@@ -67,8 +78,18 @@ public class ReadOnlyStorageEngine implements StorageEngine<ByteArray, byte[]> {
     private final int numBackups;
     private long currentVersionId;
     private final File storeDir;
-    private final ReadWriteLock fileModificationLock;
+    private final Lock fileModificationLock;
     private final SearchStrategy searchStrategy;
+    private final SearchStrategy eytzingerSearchStrategy;
+    private final boolean mapDataFiles;
+    private final int sparseIndexInterval;
+    private final ExecutorService getAllExecutor;
+    private final boolean warmUpOnSwap;
+    private final AtomicLong warmUpBytesTotal;
+    private final AtomicLong warmUpBytesDone;
+    private volatile boolean warmingUp;
+    private final AtomicLong numLookups;
+    private final AtomicLong indexBytesSearched;
     private volatile ChunkedFileSet fileSet;
     private volatile boolean isOpen;
 
@@ -84,17 +105,123 @@ public class ReadOnlyStorageEngine implements StorageEngine<ByteArray, byte[]> {
                                  SearchStrategy searchStrategy,
                                  File storeDir,
                                  int numBackups) {
+        this(name, searchStrategy, storeDir, numBackups, false);
+    }
+
+    /**
+     * Create an instance of the store
+     * 
+     * @param name The name of the store
+     * @param searchStrategy The algorithm to use for searching for keys
+     * @param storeDir The directory in which the .data and .index files reside
+     * @param numBackups The number of backups of these files to retain
+     * @param mapDataFiles If true memory map the .data files instead of
+     *        reading values through the file channel
+     */
+    public ReadOnlyStorageEngine(String name,
+                                 SearchStrategy searchStrategy,
+                                 File storeDir,
+                                 int numBackups,
+                                 boolean mapDataFiles) {
+        this(name, searchStrategy, storeDir, numBackups, mapDataFiles, 0);
+    }
+
+    /**
+     * Create an instance of the store
+     * 
+     * @param name The name of the store
+     * @param searchStrategy The algorithm to use for searching for keys
+     * @param storeDir The directory in which the .data and .index files reside
+     * @param numBackups The number of backups of these files to retain
+     * @param mapDataFiles If true memory map the .data files instead of
+     *        reading values through the file channel
+     * @param sparseIndexInterval If positive, sample every n-th key of each
+     *        sorted index in memory to narrow searches of the mapped index
+     */
+    public ReadOnlyStorageEngine(String name,
+                                 SearchStrategy searchStrategy,
+                                 File storeDir,
+                                 int numBackups,
+                                 boolean mapDataFiles,
+                                 int sparseIndexInterval) {
+        this(name, searchStrategy, storeDir, numBackups, mapDataFiles, sparseIndexInterval, null);
+    }
+
+    /**
+     * Create an instance of the store
+     * 
+     * @param name The name of the store
+     * @param searchStrategy The algorithm to use for searching for keys
+     * @param storeDir The directory in which the .data and .index files reside
+     * @param numBackups The number of backups of these files to retain
+     * @param mapDataFiles If true memory map the .data files instead of
+     *        reading values through the file channel
+     * @param sparseIndexInterval If positive, sample every n-th key of each
+     *        sorted index in memory to narrow searches of the mapped index
+     * @param getAllExecutor If not null, getAll looks up the keys of different
+     *        chunks in parallel on this executor
+     */
+    public ReadOnlyStorageEngine(String name,
+                                 SearchStrategy searchStrategy,
+                                 File storeDir,
+                                 int numBackups,
+                                 boolean mapDataFiles,
+                                 int sparseIndexInterval,
+                                 ExecutorService getAllExecutor) {
+        this(name,
+             searchStrategy,
+             storeDir,
+             numBackups,
+             mapDataFiles,
+             sparseIndexInterval,
+             getAllExecutor,
+             false);
+    }
+
+    /**
+     * Create an instance of the store
+     * 
+     * @param name The name of the store
+     * @param searchStrategy The algorithm to use for searching for keys
+     * @param storeDir The directory in which the .data and .index files reside
+     * @param numBackups The number of backups of these files to retain
+     * @param mapDataFiles If true memory map the .data files instead of
+     *        reading values through the file channel
+     * @param sparseIndexInterval If positive, sample every n-th key of each
+     *        sorted index in memory to narrow searches of the mapped index
+     * @param getAllExecutor If not null, getAll looks up the keys of different
+     *        chunks in parallel on this executor
+     * @param warmUpOnSwap If true page in the index files of a new version
+     *        before swapping to it
+     */
+    public ReadOnlyStorageEngine(String name,
+                                 SearchStrategy searchStrategy,
+                                 File storeDir,
+                                 int numBackups,
+                                 boolean mapDataFiles,
+                                 int sparseIndexInterval,
+                                 ExecutorService getAllExecutor,
+                                 boolean warmUpOnSwap) {
         this.storeDir = storeDir;
         this.numBackups = numBackups;
         this.name = Utils.notNull(name);
         this.searchStrategy = searchStrategy;
+        this.eytzingerSearchStrategy = new EytzingerSearchStrategy();
+        this.mapDataFiles = mapDataFiles;
+        this.sparseIndexInterval = sparseIndexInterval;
+        this.getAllExecutor = getAllExecutor;
+        this.warmUpOnSwap = warmUpOnSwap;
+        this.warmUpBytesTotal = new AtomicLong(0);
+        this.warmUpBytesDone = new AtomicLong(0);
+        this.numLookups = new AtomicLong(0);
+        this.indexBytesSearched = new AtomicLong(0);
         this.fileSet = null;
         this.currentVersionId = 0L;
         /*
-         * A lock that blocks reads during swap(), open(), and close()
-         * operations
+         * A lock that serializes swap(), rollback(), open() and close()
+         * operations, reads do not take it but pin the current file set
          */
-        this.fileModificationLock = new ReentrantReadWriteLock();
+        this.fileModificationLock = new ReentrantLock();
         this.isOpen = false;
         open(null);
     }
@@ -108,7 +235,7 @@ public class ReadOnlyStorageEngine implements StorageEngine<ByteArray, byte[]> {
      */
     public void open(File versionDir) {
         /* acquire modification lock */
-        fileModificationLock.writeLock().lock();
+        fileModificationLock.lock();
         try {
             /* check that the store is currently closed */
             if(isOpen)
@@ -128,21 +255,35 @@ public class ReadOnlyStorageEngine implements StorageEngine<ByteArray, byte[]> {
                 throw new VoldemortException("Unable to parse id from version directory "
                                              + versionDir.getAbsolutePath());
             }
-            currentVersionId = versionId;
             Utils.mkdirs(versionDir);
-
-            // Create symbolic link
-            logger.info("Creating symbolic link for '" + getName() + "' using directory "
-                        + versionDir.getAbsolutePath());
-            Utils.symlink(versionDir.getAbsolutePath(), storeDir.getAbsolutePath() + File.separator
-                                                        + "latest");
-            this.fileSet = new ChunkedFileSet(versionDir);
-            isOpen = true;
+            switchTo(versionDir,
+                     versionId,
+                     new ChunkedFileSet(versionDir, mapDataFiles, sparseIndexInterval));
         } finally {
-            fileModificationLock.writeLock().unlock();
+            fileModificationLock.unlock();
         }
     }
 
+    /*
+     * Make the given file set the current one and point the latest link at its
+     * directory. The previous file set is closed, but its files stay open until
+     * the reads which pinned it have finished. Must be called with the
+     * modification lock held.
+     */
+    private void switchTo(File versionDir, long versionId, ChunkedFileSet newFileSet) {
+        // Create symbolic link
+        logger.info("Creating symbolic link for '" + getName() + "' using directory "
+                    + versionDir.getAbsolutePath());
+        Utils.symlink(versionDir.getAbsolutePath(), storeDir.getAbsolutePath() + File.separator
+                                                    + "latest");
+        ChunkedFileSet previousFileSet = this.fileSet;
+        this.fileSet = newFileSet;
+        this.currentVersionId = versionId;
+        this.isOpen = true;
+        if(previousFileSet != null)
+            previousFileSet.close();
+    }
+
     /**
      * Retrieve the dir pointed to by 'latest' symbolic-link or the max version
      * dir
@@ -176,6 +317,39 @@ public class ReadOnlyStorageEngine implements StorageEngine<ByteArray, byte[]> {
         return currentVersionId;
     }
 
+    @JmxGetter(name = "dataFilesMapped", description = "True if the .data files are memory mapped.")
+    public boolean isDataMapped() {
+        return mapDataFiles;
+    }
+
+    @JmxGetter(name = "sparseIndexBytes", description = "The heap memory held by the in-memory sparse indexes of the current version.")
+    public long getSparseIndexSizeInBytes() {
+        ChunkedFileSet current = fileSet;
+        return current == null ? 0 : current.getSparseIndexSizeInBytes();
+    }
+
+    @JmxGetter(name = "averageIndexBytesSearched", description = "The average number of index bytes a lookup has to search, which bounds the index pages it touches.")
+    public double getAverageIndexBytesSearched() {
+        long lookups = numLookups.get();
+        return lookups == 0 ? 0.0 : indexBytesSearched.get() / (double) lookups;
+    }
+
+    @JmxGetter(name = "warmUpOnSwap", description = "True if the index files of a new version are paged in before swapping to it.")
+    public boolean isWarmUpOnSwap() {
+        return warmUpOnSwap;
+    }
+
+    @JmxGetter(name = "warmUpInProgress", description = "True while the index files of a new version are being paged in.")
+    public boolean isWarmingUp() {
+        return warmingUp;
+    }
+
+    @JmxGetter(name = "warmUpProgress", description = "The fraction of the index bytes of the last (or current) warm-up paged in so far.")
+    public double getWarmUpProgress() {
+        long total = warmUpBytesTotal.get();
+        return total == 0 ? 1.0 : warmUpBytesDone.get() / (double) total;
+    }
+
     public String getStoreDirPath() {
         return storeDir.getAbsolutePath();
     }
@@ -185,7 +359,7 @@ public class ReadOnlyStorageEngine implements StorageEngine<ByteArray, byte[]> {
      */
     public void close() throws VoldemortException {
         logger.debug("Close called for read-only store.");
-        this.fileModificationLock.writeLock().lock();
+        this.fileModificationLock.lock();
 
         try {
             if(isOpen) {
@@ -195,7 +369,7 @@ public class ReadOnlyStorageEngine implements StorageEngine<ByteArray, byte[]> {
                 logger.debug("Attempt to close already closed store " + getName());
             }
         } finally {
-            this.fileModificationLock.writeLock().unlock();
+            this.fileModificationLock.unlock();
         }
     }
 
@@ -219,47 +393,69 @@ public class ReadOnlyStorageEngine implements StorageEngine<ByteArray, byte[]> {
                                          + newVersionDir
                                          + "'. Either parent directory is incorrect or format(version-n) is incorrect");
 
-        // retrieve previous version for (a) check if last write is winning
-        // (b) if failure, rollback use
-        File previousVersionDir = getCurrentVersion();
-        if(previousVersionDir == null)
-            throw new VoldemortException("Could not find any latest directory to swap with in store '"
-                                         + getName() + "'");
-
         long newVersionId = ReadOnlyUtils.getVersionId(newVersionDir);
-        long previousVersionId = ReadOnlyUtils.getVersionId(previousVersionDir);
-        if(newVersionId == -1 || previousVersionId == -1)
-            throw new VoldemortException("Unable to parse folder names (" + newVersionDir.getName()
-                                         + "," + previousVersionDir.getName()
-                                         + ") since format(version-n) is incorrect");
-
-        // check if we're greater than latest since we want last write to win
-        if(previousVersionId > newVersionId) {
-            logger.info("No swap required since current latest version " + previousVersionId
-                        + " is greater than swap version " + newVersionId);
-            deleteBackups();
-            return;
-        }
-
-        logger.info("Acquiring write lock on '" + getName() + "':");
-        fileModificationLock.writeLock().lock();
-        boolean success = false;
+        if(newVersionId == -1)
+            throw new VoldemortException("Unable to parse folder name " + newVersionDir.getName()
+                                         + " since format(version-n) is incorrect");
+
+        // open (and warm up) the new version before taking the lock, reads
+        // are never blocked and keep using the current version until the switch
+        logger.info("Opening primary files for store '" + getName() + "' at "
+                    + newStoreDirectory);
+        ChunkedFileSet newFileSet = null;
         try {
-            close();
-            logger.info("Opening primary files for store '" + getName() + "' at "
-                        + newStoreDirectory);
+            newFileSet = new ChunkedFileSet(newVersionDir, mapDataFiles, sparseIndexInterval);
+            if(warmUpOnSwap)
+                warmUp(newFileSet);
+        } catch(RuntimeException e) {
+            // nothing has been switched yet, the current version keeps serving
+            logger.error("Swap operation failed, could not open " + newStoreDirectory, e);
+            if(newFileSet != null)
+                newFileSet.close();
+            throw e;
+        }
 
-            // open the latest store
-            open(newVersionDir);
-            success = true;
+        logger.info("Acquiring modification lock on '" + getName() + "':");
+        fileModificationLock.lock();
+        boolean success = false;
+        boolean swapped = false;
+        File previousVersionDir = null;
+        try {
+            // retrieve previous version for (a) check if last write is winning
+            // (b) if failure, rollback use
+            previousVersionDir = getCurrentVersion();
+            if(previousVersionDir == null)
+                throw new VoldemortException("Could not find any latest directory to swap with in store '"
+                                             + getName() + "'");
+
+            long previousVersionId = ReadOnlyUtils.getVersionId(previousVersionDir);
+            if(previousVersionId == -1)
+                throw new VoldemortException("Unable to parse folder name "
+                                             + previousVersionDir.getName()
+                                             + " since format(version-n) is incorrect");
+
+            // check if we're greater than latest since we want last write to win
+            if(previousVersionId > newVersionId) {
+                logger.info("No swap required since current latest version " + previousVersionId
+                            + " is greater than swap version " + newVersionId);
+                newFileSet.close();
+                success = true;
+            } else {
+                swapped = true;
+                switchTo(newVersionDir, newVersionId, newFileSet);
+                success = true;
+            }
         } finally {
             try {
-                // we failed to do the swap, attempt a rollback to last version
-                if(!success)
-                    rollback(previousVersionDir);
+                if(!success) {
+                    newFileSet.close();
+                    // we failed to do the swap, attempt a rollback to last version
+                    if(swapped)
+                        rollback(previousVersionDir);
+                }
 
             } finally {
-                fileModificationLock.writeLock().unlock();
+                fileModificationLock.unlock();
                 if(success)
                     logger.info("Swap operation completed successfully on store " + getName()
                                 + ", releasing lock.");
@@ -273,6 +469,23 @@ public class ReadOnlyStorageEngine implements StorageEngine<ByteArray, byte[]> {
         deleteBackups();
     }
 
+    /*
+     * Page in the index files of a file set which is not yet serving requests
+     */
+    private void warmUp(ChunkedFileSet newFileSet) {
+        long start = System.currentTimeMillis();
+        warmUpBytesDone.set(0);
+        warmUpBytesTotal.set(newFileSet.getIndexSizeInBytes());
+        warmingUp = true;
+        try {
+            newFileSet.warmUp(warmUpBytesDone);
+        } finally {
+            warmingUp = false;
+        }
+        logger.info("Warmed up " + warmUpBytesDone.get() + " index bytes of store '" + getName()
+                    + "' in " + (System.currentTimeMillis() - start) + " ms.");
+    }
+
     /**
      * Delete all backups asynchronously
      */
@@ -320,7 +533,7 @@ public class ReadOnlyStorageEngine implements StorageEngine<ByteArray, byte[]> {
     @JmxOperation(description = "Rollback to a previous version")
     public void rollback(File rollbackToDir) {
         logger.info("Rolling back store '" + getName() + "'");
-        fileModificationLock.writeLock().lock();
+        fileModificationLock.lock();
         try {
             if(rollbackToDir == null || !rollbackToDir.exists())
                 throw new VoldemortException("Version directory specified to rollback to does not exist or is null");
@@ -336,11 +549,10 @@ public class ReadOnlyStorageEngine implements StorageEngine<ByteArray, byte[]> {
             }
             backUpDirs = ReadOnlyUtils.findKthVersionedDir(backUpDirs, 0, backUpDirs.length - 1);
 
-            if(isOpen)
-                close();
-
             // open the rollback directory
-            open(rollbackToDir);
+            switchTo(rollbackToDir,
+                     versionId,
+                     new ChunkedFileSet(rollbackToDir, mapDataFiles, sparseIndexInterval));
 
             // back-up all other directories
             DateFormat df = new SimpleDateFormat("MM-dd-yyyy");
@@ -350,19 +562,33 @@ public class ReadOnlyStorageEngine implements StorageEngine<ByteArray, byte[]> {
             }
 
         } finally {
-            fileModificationLock.writeLock().unlock();
+            fileModificationLock.unlock();
             logger.info("Rollback operation completed on '" + getName() + "', releasing lock.");
         }
     }
 
     public ClosableIterator<ByteArray> keys() {
-        throw new UnsupportedOperationException("Iteration is not supported for "
-                                                + getClass().getName());
+        return StoreUtils.keys(iterate(true));
     }
 
     public ClosableIterator<Pair<ByteArray, Versioned<byte[]>>> entries() {
-        throw new UnsupportedOperationException("Iteration is not supported for "
-                                                + getClass().getName());
+        return iterate(false);
+    }
+
+    /*
+     * Iterate over the current version, which must be in a format storing the
+     * keys. The version stays open until the iterator is closed.
+     */
+    private ClosableIterator<Pair<ByteArray, Versioned<byte[]>>> iterate(boolean noValues) {
+        ChunkedFileSet current = acquireFileSet();
+        if(!current.getFormat().storesKeys()) {
+            current.release();
+            throw new UnsupportedOperationException("Iteration is not supported for "
+                                                    + getClass().getName() + " in format "
+                                                    + current.getFormat().getCode()
+                                                    + ", it requires a format storing keys.");
+        }
+        return new ChunkedFileSetIterator(current, noValues);
     }
 
     public void truncate() {
@@ -375,15 +601,18 @@ public class ReadOnlyStorageEngine implements StorageEngine<ByteArray, byte[]> {
     public List<Versioned<byte[]>> get(ByteArray key) throws VoldemortException {
         StoreUtils.assertValidKey(key);
         byte[] keyMd5 = ByteUtils.md5(key.get());
-        int chunk = fileSet.getChunkForKey(keyMd5);
-        int location = searchStrategy.indexOf(fileSet.indexFileFor(chunk),
-                                              keyMd5,
-                                              fileSet.getIndexFileSize(chunk));
-        if(location >= 0) {
-            byte[] value = readValue(chunk, location);
-            return Collections.singletonList(Versioned.value(value));
-        } else {
-            return Collections.emptyList();
+        ChunkedFileSet current = acquireFileSet();
+        try {
+            int chunk = current.getChunkForKey(keyMd5);
+            long location = searchIndex(current, searchStrategyFor(current), chunk, keyMd5);
+            if(location >= 0) {
+                byte[] value = current.readValue(chunk, location);
+                return Collections.singletonList(Versioned.value(value));
+            } else {
+                return Collections.emptyList();
+            }
+        } finally {
+            current.release();
         }
     }
 
@@ -391,44 +620,135 @@ public class ReadOnlyStorageEngine implements StorageEngine<ByteArray, byte[]> {
             throws VoldemortException {
         StoreUtils.assertValidKeys(keys);
         Map<ByteArray, List<Versioned<byte[]>>> results = StoreUtils.newEmptyHashMap(keys);
+        final ChunkedFileSet current = acquireFileSet();
         try {
-            fileModificationLock.readLock().lock();
-            List<KeyValueLocation> keysAndValueLocations = Lists.newArrayList();
+            final SearchStrategy strategy = searchStrategyFor(current);
+
+            // group the keys by chunk
+            Map<Integer, ChunkKeys> keysByChunk = new HashMap<Integer, ChunkKeys>();
             for(ByteArray key: keys) {
                 byte[] keyMd5 = ByteUtils.md5(key.get());
-                int chunk = fileSet.getChunkForKey(keyMd5);
-                int valueLocation = searchStrategy.indexOf(fileSet.indexFileFor(chunk),
-                                                           keyMd5,
-                                                           fileSet.getIndexFileSize(chunk));
-                if(valueLocation >= 0)
-                    keysAndValueLocations.add(new KeyValueLocation(chunk, key, valueLocation));
+                int chunk = current.getChunkForKey(keyMd5);
+                ChunkKeys chunkKeys = keysByChunk.get(chunk);
+                if(chunkKeys == null) {
+                    chunkKeys = new ChunkKeys(chunk);
+                    keysByChunk.put(chunk, chunkKeys);
+                }
+                chunkKeys.add(key, keyMd5);
             }
-            Collections.sort(keysAndValueLocations);
 
-            for(KeyValueLocation keyVal: keysAndValueLocations) {
-                byte[] value = readValue(keyVal.getChunk(), keyVal.getValueLocation());
-                results.put(keyVal.getKey(), Collections.singletonList(Versioned.value(value)));
+            // look up all but one chunk in parallel, the last on this thread
+            List<Future<List<Pair<ByteArray, byte[]>>>> futures = Lists.newArrayList();
+            List<Pair<ByteArray, byte[]>> found = Lists.newArrayList();
+            int remaining = keysByChunk.size();
+            for(final ChunkKeys chunkKeys: keysByChunk.values()) {
+                remaining--;
+                if(getAllExecutor == null || remaining == 0) {
+                    found.addAll(getAll(current, strategy, chunkKeys));
+                } else {
+                    futures.add(getAllExecutor.submit(new Callable<List<Pair<ByteArray, byte[]>>>() {
+
+                        public List<Pair<ByteArray, byte[]>> call() {
+                            return getAll(current, strategy, chunkKeys);
+                        }
+                    }));
+                }
             }
+            for(Future<List<Pair<ByteArray, byte[]>>> future: futures)
+                found.addAll(getUninterruptibly(future));
+
+            for(Pair<ByteArray, byte[]> keyAndValue: found)
+                results.put(keyAndValue.getFirst(),
+                            Collections.singletonList(Versioned.value(keyAndValue.getSecond())));
             return results;
         } finally {
-            fileModificationLock.readLock().unlock();
+            current.release();
+        }
+    }
+
+    /*
+     * Pin the current file set for a read. If a swap closes the file set read
+     * here before it is pinned, the file set it was swapped for is used.
+     */
+    private ChunkedFileSet acquireFileSet() {
+        while(true) {
+            ChunkedFileSet current = fileSet;
+            if(current != null && current.acquire())
+                return current;
+            if(current == fileSet)
+                throw new VoldemortException("Read-only store '" + getName() + "' is closed.");
+        }
+    }
+
+    /*
+     * Look up the keys of a single chunk, reading the values in file order
+     */
+    private List<Pair<ByteArray, byte[]>> getAll(ChunkedFileSet current,
+                                                 SearchStrategy strategy,
+                                                 ChunkKeys chunkKeys) {
+        int chunk = chunkKeys.getChunk();
+        List<KeyValueLocation> keysAndValueLocations = Lists.newArrayList();
+        for(int i = 0; i < chunkKeys.size(); i++) {
+            long valueLocation = searchIndex(current, strategy, chunk, chunkKeys.getKeyMd5(i));
+            if(valueLocation >= 0)
+                keysAndValueLocations.add(new KeyValueLocation(chunk,
+                                                               chunkKeys.getKey(i),
+                                                               valueLocation));
         }
+        Collections.sort(keysAndValueLocations);
+
+        long[] valueLocations = new long[keysAndValueLocations.size()];
+        for(int i = 0; i < valueLocations.length; i++)
+            valueLocations[i] = keysAndValueLocations.get(i).getValueLocation();
+        byte[][] values = current.readValues(chunk, valueLocations);
+
+        List<Pair<ByteArray, byte[]>> found = Lists.newArrayListWithCapacity(values.length);
+        for(int i = 0; i < values.length; i++)
+            found.add(Pair.create(keysAndValueLocations.get(i).getKey(), values[i]));
+        return found;
     }
 
-    private byte[] readValue(int chunk, int valueLocation) {
-        FileChannel dataFile = fileSet.dataFileFor(chunk);
+    private <T> T getUninterruptibly(Future<T> future) {
+        boolean interrupted = false;
         try {
-            ByteBuffer sizeBuffer = ByteBuffer.allocate(4);
-            dataFile.read(sizeBuffer, valueLocation);
-            int size = sizeBuffer.getInt(0);
-            ByteBuffer valueBuffer = ByteBuffer.allocate(size);
-            dataFile.read(valueBuffer, valueLocation + 4);
-            return valueBuffer.array();
-        } catch(IOException e) {
-            throw new VoldemortException(e);
+            while(true) {
+                try {
+                    return future.get();
+                } catch(InterruptedException e) {
+                    interrupted = true;
+                } catch(ExecutionException e) {
+                    if(e.getCause() instanceof VoldemortException)
+                        throw (VoldemortException) e.getCause();
+                    throw new VoldemortException(e.getCause());
+                }
+            }
+        } finally {
+            if(interrupted)
+                Thread.currentThread().interrupt();
         }
     }
 
+    /*
+     * The configured strategy only applies to sorted indexes, other layouts can
+     * only be searched by the strategy matching their layout
+     */
+    private SearchStrategy searchStrategyFor(ChunkedFileSet fileSet) {
+        if(fileSet.getFormat().isSortedIndex())
+            return searchStrategy;
+        else
+            return eytzingerSearchStrategy;
+    }
+
+    private long searchIndex(ChunkedFileSet current,
+                             SearchStrategy strategy,
+                             int chunk,
+                             byte[] keyMd5) {
+        ByteBuffer index = current.indexFileFor(chunk, keyMd5);
+        numLookups.incrementAndGet();
+        indexBytesSearched.addAndGet(index.limit());
+        return strategy.indexOf(index, keyMd5, index.limit(), current.getFormat());
+    }
+
     /**
      * Not supported, throws UnsupportedOperationException if called
      */
@@ -443,6 +763,11 @@ public class ReadOnlyStorageEngine implements StorageEngine<ByteArray, byte[]> {
         throw new UnsupportedOperationException("Put is not supported on this store, it is read-only.");
     }
 
+    public Set<ByteArray> putAll(Map<ByteArray, Versioned<byte[]>> entries)
+            throws VoldemortException {
+        throw new UnsupportedOperationException("Put is not supported on this store, it is read-only.");
+    }
+
     @JmxGetter(name = "name", description = "The name of the store.")
     public String getName() {
         return name;
@@ -452,13 +777,147 @@ public class ReadOnlyStorageEngine implements StorageEngine<ByteArray, byte[]> {
         throw new NoSuchCapabilityException(capability, getName());
     }
 
+    /*
+     * Reads the data files of a pinned file set sequentially, chunk by chunk,
+     * through a large read-ahead buffer. All data files are opened up front so
+     * that the iteration survives the deletion of the version directory.
+     */
+    private static class ChunkedFileSetIterator implements
+            ClosableIterator<Pair<ByteArray, Versioned<byte[]>>> {
+
+        private static final int READ_AHEAD_SIZE = 1024 * 1024;
+
+        private final ChunkedFileSet fileSet;
+        private final boolean noValues;
+        private final List<InputStream> dataFiles;
+        private int chunk;
+        private long remaining;
+        private DataInputStream input;
+        private volatile boolean isOpen;
+
+        public ChunkedFileSetIterator(ChunkedFileSet fileSet, boolean noValues) {
+            this.fileSet = fileSet;
+            this.noValues = noValues;
+            this.dataFiles = Lists.newArrayList();
+            this.isOpen = true;
+            try {
+                for(int i = 0; i < fileSet.getNumChunks(); i++)
+                    dataFiles.add(fileSet.openDataFile(i));
+            } catch(RuntimeException e) {
+                close();
+                throw e;
+            }
+            this.chunk = -1;
+            this.remaining = 0;
+        }
+
+        public boolean hasNext() {
+            while(remaining == 0) {
+                if(!isOpen || chunk + 1 >= dataFiles.size()) {
+                    close();
+                    return false;
+                }
+                chunk++;
+                input = new DataInputStream(new BufferedInputStream(dataFiles.get(chunk),
+                                                                    READ_AHEAD_SIZE));
+                remaining = fileSet.getDataFileSize(chunk);
+            }
+            return true;
+        }
+
+        public Pair<ByteArray, Versioned<byte[]>> next() {
+            if(!hasNext())
+                throw new NoSuchElementException("No more entries in read-only store.");
+            try {
+                int valueSize = input.readInt();
+                byte[] value = null;
+                if(noValues) {
+                    skipFully(valueSize);
+                } else {
+                    value = new byte[valueSize];
+                    input.readFully(value);
+                }
+                byte[] key = new byte[input.readInt()];
+                input.readFully(key);
+                remaining -= 8 + valueSize + key.length;
+                return Pair.create(new ByteArray(key), noValues ? null : Versioned.value(value));
+            } catch(IOException e) {
+                close();
+                throw new VoldemortException("Error reading chunk " + chunk + " of read-only store.",
+                                             e);
+            }
+        }
+
+        private void skipFully(int bytes) throws IOException {
+            while(bytes > 0) {
+                int skipped = input.skipBytes(bytes);
+                if(skipped <= 0)
+                    throw new EOFException();
+                bytes -= skipped;
+            }
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException("No removal y'all.");
+        }
+
+        public void close() {
+            if(!isOpen)
+                return;
+            isOpen = false;
+            remaining = 0;
+            for(InputStream dataFile: dataFiles) {
+                try {
+                    dataFile.close();
+                } catch(IOException e) {
+                    logger.error("Error while closing file.", e);
+                }
+            }
+            fileSet.release();
+        }
+    }
+
+    private final static class ChunkKeys {
+
+        private final int chunk;
+        private final List<ByteArray> keys;
+        private final List<byte[]> keyMd5s;
+
+        private ChunkKeys(int chunk) {
+            this.chunk = chunk;
+            this.keys = Lists.newArrayList();
+            this.keyMd5s = Lists.newArrayList();
+        }
+
+        public void add(ByteArray key, byte[] keyMd5) {
+            keys.add(key);
+            keyMd5s.add(keyMd5);
+        }
+
+        public int getChunk() {
+            return chunk;
+        }
+
+        public int size() {
+            return keys.size();
+        }
+
+        public ByteArray getKey(int i) {
+            return keys.get(i);
+        }
+
+        public byte[] getKeyMd5(int i) {
+            return keyMd5s.get(i);
+        }
+    }
+
     private final static class KeyValueLocation implements Comparable<KeyValueLocation> {
 
         private final int chunk;
         private final ByteArray key;
-        private final int valueLocation;
+        private final long valueLocation;
 
-        private KeyValueLocation(int chunk, ByteArray key, int valueLocation) {
+        private KeyValueLocation(int chunk, ByteArray key, long valueLocation) {
             super();
             this.chunk = chunk;
             this.key = key;
@@ -473,7 +932,7 @@ public class ReadOnlyStorageEngine implements StorageEngine<ByteArray, byte[]> {
             return key;
         }
 
-        public int getValueLocation() {
+        public long getValueLocation() {
             return valueLocation;
         }
 
@@ -482,7 +941,7 @@ public class ReadOnlyStorageEngine implements StorageEngine<ByteArray, byte[]> {
                 if(valueLocation == kvl.getValueLocation())
                     return ByteUtils.compare(getKey().get(), kvl.getKey().get());
                 else
-                    return Integer.signum(valueLocation - kvl.getValueLocation());
+                    return valueLocation < kvl.getValueLocation() ? -1 : 1;
             } else {
                 return getChunk() - kvl.getChunk();
             }
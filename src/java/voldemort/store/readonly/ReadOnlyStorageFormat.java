@@ -0,0 +1,192 @@
+/*
+ * Copyright 2008-2010 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.readonly;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.commons.io.FileUtils;
+
+import voldemort.VoldemortException;
+
+/**
+ * An enumeration of the on-disk formats of a read-only version directory. The
+ * format is recorded in a small file inside the version directory, directories
+ * without it are in the original format.
+ * 
+ * <ul>
+ * <li>ro0 - index entries are a 16 byte md5 followed by a 4 byte data file
+ * offset, so data files are limited to {@link Integer#MAX_VALUE} bytes</li>
+ * <li>ro1 - index entries are a 16 byte md5 followed by an 8 byte data file
+ * offset</li>
+ * <li>ro2 - index entries as in ro1, but laid out in Eytzinger (breadth first)
+ * order instead of sorted order, see {@link EytzingerSearchStrategy}</li>
+ * <li>ro3 - index entries as in ro1, and each value in the data file is
+ * followed by a 4 byte key size and the key, so the store can be iterated</li>
+ * </ul>
+ * 
+ */
+public enum ReadOnlyStorageFormat {
+    READONLY_V0("ro0", 4, true, false),
+    READONLY_V1("ro1", 8, true, false),
+    READONLY_V2("ro2", 8, false, false),
+    READONLY_V3("ro3", 8, true, true);
+
+    public static final String FORMAT_FILE = "format";
+
+    private final String code;
+    private final int positionSize;
+    private final boolean sortedIndex;
+    private final boolean storesKeys;
+
+    private ReadOnlyStorageFormat(String code,
+                                  int positionSize,
+                                  boolean sortedIndex,
+                                  boolean storesKeys) {
+        this.code = code;
+        this.positionSize = positionSize;
+        this.sortedIndex = sortedIndex;
+        this.storesKeys = storesKeys;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public int getPositionSize() {
+        return positionSize;
+    }
+
+    /**
+     * True if the index entries are sorted by md5, false if they are in
+     * Eytzinger order
+     */
+    public boolean isSortedIndex() {
+        return sortedIndex;
+    }
+
+    /**
+     * True if the data files hold the keys next to the values, which is needed
+     * to iterate over the store
+     */
+    public boolean storesKeys() {
+        return storesKeys;
+    }
+
+    /**
+     * The number of bytes a key and value take in the data file
+     */
+    public long getDataEntrySize(byte[] key, byte[] value) {
+        return 4 + value.length + (storesKeys ? 4 + key.length : 0);
+    }
+
+    /**
+     * Write a key and value to the data file. The value is written as its
+     * size followed by the value bytes, formats storing keys follow it with
+     * the size of the key and the key bytes.
+     */
+    public void writeDataEntry(DataOutputStream data, byte[] key, byte[] value)
+            throws IOException {
+        data.writeInt(value.length);
+        data.write(value);
+        if(storesKeys) {
+            data.writeInt(key.length);
+            data.write(key);
+        }
+    }
+
+    public int getIndexEntrySize() {
+        return ReadOnlyUtils.KEY_HASH_SIZE + positionSize;
+    }
+
+    /**
+     * The largest data file this format can address
+     */
+    public long getMaxDataFileSize() {
+        return positionSize == 4 ? Integer.MAX_VALUE : Long.MAX_VALUE;
+    }
+
+    /**
+     * Read the data file position from the current position of the index
+     */
+    public long readPosition(ByteBuffer index) {
+        return positionSize == 4 ? index.getInt() : index.getLong();
+    }
+
+    /**
+     * Read the data file position stored at the given index offset
+     */
+    public long readPosition(ByteBuffer index, int indexByteOffset) {
+        return positionSize == 4 ? index.getInt(indexByteOffset) : index.getLong(indexByteOffset);
+    }
+
+    public void writePosition(DataOutputStream index, long position) throws IOException {
+        if(positionSize == 4) {
+            if(position > Integer.MAX_VALUE)
+                throw new VoldemortException("Position " + position + " exceeds "
+                                             + Integer.MAX_VALUE + " bytes in format " + code
+                                             + ".");
+            index.writeInt((int) position);
+        } else {
+            index.writeLong(position);
+        }
+    }
+
+    public static ReadOnlyStorageFormat fromCode(String code) {
+        for(ReadOnlyStorageFormat format: ReadOnlyStorageFormat.values())
+            if(format.getCode().equals(code))
+                return format;
+        throw new IllegalArgumentException("No read-only storage format '" + code
+                                           + "' was found");
+    }
+
+    /**
+     * Read the format of the given version directory
+     * 
+     * @param versionDir The version directory
+     * @return The format recorded in the directory, or {@link #READONLY_V0} if
+     *         none is recorded
+     */
+    public static ReadOnlyStorageFormat readFormat(File versionDir) {
+        File formatFile = new File(versionDir, FORMAT_FILE);
+        if(!formatFile.exists())
+            return READONLY_V0;
+        try {
+            return fromCode(FileUtils.readFileToString(formatFile).trim());
+        } catch(IOException e) {
+            throw new VoldemortException("Error reading format file " + formatFile, e);
+        } catch(IllegalArgumentException e) {
+            throw new VoldemortException("Invalid format file " + formatFile, e);
+        }
+    }
+
+    /**
+     * Record the given format in the version directory
+     * 
+     * @param versionDir The version directory
+     * @param format The format of the files in the directory
+     */
+    public static void writeFormat(File versionDir, ReadOnlyStorageFormat format) {
+        try {
+            FileUtils.writeStringToFile(new File(versionDir, FORMAT_FILE), format.getCode());
+        } catch(IOException e) {
+            throw new VoldemortException("Error writing format file in " + versionDir, e);
+        }
+    }
+}
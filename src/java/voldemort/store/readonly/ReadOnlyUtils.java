@@ -14,6 +14,10 @@ import voldemort.utils.ByteUtils;
 public class ReadOnlyUtils {
 
     public static final int KEY_HASH_SIZE = 16;
+    /*
+     * Position and entry sizes of the original (ro0) format, see
+     * ReadOnlyStorageFormat for the sizes of the other formats
+     */
     public static final int POSITION_SIZE = 4;
     public static final int INDEX_ENTRY_SIZE = KEY_HASH_SIZE + POSITION_SIZE;
 
@@ -30,6 +34,27 @@ public class ReadOnlyUtils {
         return foundKey;
     }
 
+    /**
+     * Compare the md5 stored at the given offset of the index with the key,
+     * without copying it out of the buffer. Bytes are compared unsigned as in
+     * {@link ByteUtils#compare(byte[], byte[])}.
+     * 
+     * @param index The index buffer
+     * @param indexByteOffset The offset of the entry in the index
+     * @param key The md5 to compare against
+     * @return A negative number, zero or a positive number as the stored md5 is
+     *         less than, equal to or greater than the key
+     */
+    public static int compareKey(ByteBuffer index, int indexByteOffset, byte[] key) {
+        for(int i = 0; i < KEY_HASH_SIZE; i++) {
+            int a = index.get(indexByteOffset + i) & 0xff;
+            int b = key[i] & 0xff;
+            if(a != b)
+                return a - b;
+        }
+        return 0;
+    }
+
     /**
      * Checks if the name of the file follows the version-n format
      * 
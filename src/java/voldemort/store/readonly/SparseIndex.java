@@ -0,0 +1,86 @@
+package voldemort.store.readonly;
+
+import java.nio.ByteBuffer;
+
+import voldemort.utils.ByteUtils;
+
+/**
+ * An in-memory sample of a sorted chunk index: the first 8 bytes of every n-th
+ * md5. It is used to narrow a lookup to the few index entries between two
+ * samples before the mapped index itself is searched, so a lookup only touches
+ * the index pages holding those entries.
+ * 
+ * 
+ */
+public class SparseIndex {
+
+    private final long[] samples;
+    private final int interval;
+    private final int numEntries;
+
+    /**
+     * Sample the given sorted index
+     * 
+     * @param index The sorted index
+     * @param indexSize The size of the index in bytes
+     * @param entrySize The size of an index entry
+     * @param interval The number of entries per sample
+     */
+    public SparseIndex(ByteBuffer index, int indexSize, int entrySize, int interval) {
+        if(interval < 1)
+            throw new IllegalArgumentException("Sparse index interval must be positive.");
+        this.interval = interval;
+        this.numEntries = indexSize / entrySize;
+        this.samples = new long[(numEntries + interval - 1) / interval];
+        for(int i = 0; i < samples.length; i++)
+            samples[i] = unsigned(index.getLong(i * interval * entrySize));
+    }
+
+    /**
+     * Narrow the index down to the entries which may contain the key
+     * 
+     * @param index The index this sample was taken from
+     * @param key The md5 to look for
+     * @param entrySize The size of an index entry
+     * @return A buffer over the entries between the samples surrounding the key
+     */
+    public ByteBuffer narrow(ByteBuffer index, byte[] key, int entrySize) {
+        long prefix = unsigned(ByteUtils.readLong(key, 0));
+
+        // the first sample greater than the key bounds the range from above
+        int low = 0;
+        int high = samples.length;
+        while(low < high) {
+            int mid = (low + high) >>> 1;
+            if(samples[mid] <= prefix)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        int end = low == samples.length ? numEntries : low * interval;
+
+        // samples equal to the key prefix may still be the key, so step back
+        // to the last sample strictly less than it
+        int start = low - 1;
+        while(start >= 0 && samples[start] == prefix)
+            start--;
+        start = start < 0 ? 0 : start * interval + 1;
+
+        ByteBuffer range = index.duplicate();
+        range.limit(Math.max(start, end) * entrySize);
+        range.position(start * entrySize);
+        return range.slice();
+    }
+
+    /**
+     * The heap memory held by the samples, in bytes
+     */
+    public long getSizeInBytes() {
+        return 8L * samples.length;
+    }
+
+    /* flip the sign bit so that signed comparison orders the bytes unsigned */
+    private static long unsigned(long value) {
+        return value ^ Long.MIN_VALUE;
+    }
+}
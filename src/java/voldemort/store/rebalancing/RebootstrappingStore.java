@@ -19,6 +19,7 @@ package voldemort.store.rebalancing;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import voldemort.VoldemortException;
 import voldemort.client.DefaultStoreClient;
@@ -180,4 +181,18 @@ public class RebootstrappingStore extends DelegatingStore<ByteArray, byte[]> {
         throw new VoldemortException(this.maxMetadataRefreshAttempts
                                      + " metadata refresh attempts failed for server side routing.");
     }
+
+    @Override
+    public Set<ByteArray> putAll(Map<ByteArray, Versioned<byte[]>> entries)
+            throws ObsoleteVersionException {
+        for(int attempts = 0; attempts < this.maxMetadataRefreshAttempts; attempts++) {
+            try {
+                return super.putAll(entries);
+            } catch(InvalidMetadataException e) {
+                reinit();
+            }
+        }
+        throw new VoldemortException(this.maxMetadataRefreshAttempts
+                                     + " metadata refresh attempts failed for server side routing.");
+    }
 }
@@ -18,6 +18,7 @@ package voldemort.store.rebalancing;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Iterables;
@@ -90,6 +91,12 @@ public class RedirectingStore extends DelegatingStore<ByteArray, byte[]> {
         getInnerStore().put(key, value);
     }
 
+    @Override
+    public Set<ByteArray> putAll(Map<ByteArray, Versioned<byte[]>> entries)
+            throws VoldemortException {
+        return StoreUtils.putAll(this, entries);
+    }
+
     private RebalancePartitionsInfo redirectingKey(ByteArray key) {
         if (VoldemortState.REBALANCING_MASTER_SERVER.equals(metadata.getServerState()) &&
             !getName().equals(MetadataStore.METADATA_STORE_NAME)) {
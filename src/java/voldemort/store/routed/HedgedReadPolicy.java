@@ -0,0 +1,87 @@
+/*
+ * Copyright 2010 LinkedIn, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.routed;
+
+import voldemort.annotations.concurrency.Threadsafe;
+import voldemort.store.stats.Histogram;
+
+/**
+ * Decides how long a read waits for its replicas before a speculative request
+ * is sent to the next replica.
+ * <p/>
+ * The delay is the configured percentile of the request times seen by the
+ * store. Request times are collected in windows of {@link #SAMPLES_PER_WINDOW}
+ * requests, and the delay is taken from the last complete window, so no read
+ * is hedged until the first window is complete.
+ *
+ *
+ */
+@Threadsafe
+public class HedgedReadPolicy {
+
+    public static final int SAMPLES_PER_WINDOW = 1000;
+
+    private static final int MAX_BUCKETS = 10000;
+
+    private final double percentile;
+
+    private final Histogram requestTimes;
+
+    private volatile long delayMs;
+
+    /**
+     * @param percentile The percentile of request times after which a read is
+     *        hedged, between 0 and 100 exclusive
+     * @param maxRequestTimeMs The longest request time to track, normally the
+     *        routing timeout
+     */
+    public HedgedReadPolicy(double percentile, long maxRequestTimeMs) {
+        if(percentile <= 0 || percentile >= 100)
+            throw new IllegalArgumentException("Percentile must be between 0 and 100.");
+        if(maxRequestTimeMs <= 0)
+            throw new IllegalArgumentException("Maximum request time must be positive.");
+
+        int step = (int) Math.max(1, (maxRequestTimeMs + MAX_BUCKETS - 1) / MAX_BUCKETS);
+        this.percentile = percentile;
+        this.requestTimes = new Histogram((int) (maxRequestTimeMs / step) + 1, step);
+        this.delayMs = -1;
+    }
+
+    public void recordRequestTime(long requestTimeMs) {
+        synchronized(requestTimes) {
+            requestTimes.insert(requestTimeMs);
+            if(requestTimes.getCount() >= SAMPLES_PER_WINDOW) {
+                delayMs = requestTimes.getQuantile(percentile / 100);
+                requestTimes.reset();
+            }
+        }
+    }
+
+    /**
+     * The time to wait for replicas before hedging a read
+     *
+     * @return The delay in ms, or -1 if too few request times have been seen
+     */
+    public long getDelayMs() {
+        return delayMs;
+    }
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+}
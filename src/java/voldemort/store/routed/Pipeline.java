@@ -19,14 +19,20 @@ package voldemort.store.routed;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 
 import voldemort.VoldemortException;
 import voldemort.store.InsufficientOperationalNodesException;
 import voldemort.store.routed.action.Action;
+import voldemort.store.routed.action.NonblockingAction;
 
 /**
  * A Pipeline is the main conduit through which an {@link Action} is run. An
@@ -43,6 +49,16 @@ import voldemort.store.routed.action.Action;
  * A Pipeline instance is created per-request inside {@link RoutedStore}. This
  * is due to the fact that it includes internal state, specific to each
  * operation request (get, getAll, getVersions, put, and delete) invocation.
+ * 
+ * <p/>
+ * 
+ * A Pipeline is either executed by a thread that waits for each event in turn
+ * ({@link #execute()}), or asynchronously
+ * ({@link #executeAsync(Executor, ScheduledExecutorService, CompletionListener)}
+ * ), in which case no thread waits for the Pipeline to complete. The events
+ * are then processed by the thread that starts the Pipeline, or on the
+ * executor when they are added from the callbacks of requests, which run on
+ * selector threads.
  */
 
 public class Pipeline {
@@ -66,6 +82,7 @@ public class Pipeline {
         GET_ALL,
         GET_VERSIONS,
         PUT,
+        PUT_ALL,
         DELETE;
 
         public String getSimpleName() {
@@ -84,6 +101,20 @@ public class Pipeline {
 
     private final Map<Event, Action> eventActions;
 
+    private final AtomicBoolean isProcessingEvents;
+
+    private final AtomicBoolean isComplete;
+
+    private volatile boolean isAsync;
+
+    private Executor executor;
+
+    private ScheduledExecutorService scheduler;
+
+    private CompletionListener completionListener;
+
+    private volatile Thread eventThread;
+
     private final Logger logger = Logger.getLogger(getClass());
 
     /**
@@ -99,6 +130,8 @@ public class Pipeline {
         this.unit = unit;
         this.eventQueue = new LinkedBlockingQueue<Event>();
         this.eventActions = new ConcurrentHashMap<Event, Action>();
+        this.isProcessingEvents = new AtomicBoolean(false);
+        this.isComplete = new AtomicBoolean(false);
     }
 
     public Operation getOperation() {
@@ -131,6 +164,188 @@ public class Pipeline {
             logger.trace("Adding event " + event);
 
         eventQueue.add(event);
+
+        if(!isAsync)
+            return;
+
+        if(Thread.currentThread() == eventThread) {
+            processEvents();
+        } else {
+            try {
+                executor.execute(new Runnable() {
+
+                    public void run() {
+                        processEvents();
+                    }
+
+                });
+            } catch(RuntimeException e) {
+                complete(e);
+            }
+        }
+    }
+
+    /**
+     * Returns true if the Pipeline is being executed asynchronously, in which
+     * case a {@link NonblockingAction} must not wait for its responses.
+     */
+
+    public boolean isAsync() {
+        return isAsync;
+    }
+
+    /**
+     * Run a task after a delay, for example to time out the requests of a
+     * {@link NonblockingAction}. Only an asynchronously executed Pipeline has
+     * a scheduler.
+     * 
+     * @param task The task to run
+     * @param delay The delay before running the task
+     * @param unit The unit of the delay
+     * @return The future of the scheduled task, which can be used to cancel it
+     */
+
+    public ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+        if(scheduler == null)
+            throw new IllegalStateException(operation.getSimpleName()
+                                            + " pipeline is not executed asynchronously");
+
+        return scheduler.schedule(task, delay, unit);
+    }
+
+    /**
+     * Submit requests to the nonblocking stores of an asynchronously executed
+     * Pipeline. The requests are submitted right away by the thread processing
+     * the events, and on the executor from any other thread, such as a
+     * selector thread completing an earlier request: checking out a
+     * connection may wait for one to be freed or negotiated, which needs the
+     * selector threads. A synchronously executed Pipeline submits them right
+     * away.
+     * 
+     * @param task The task submitting the requests
+     */
+
+    public void submitRequest(Runnable task) {
+        if(!isAsync || Thread.currentThread() == eventThread) {
+            task.run();
+            return;
+        }
+
+        try {
+            executor.execute(task);
+        } catch(RuntimeException e) {
+            complete(e);
+        }
+    }
+
+    /**
+     * Process events as they are added, without waiting for them. The events
+     * already added are processed before returning.
+     * 
+     * <p/>
+     * 
+     * A {@link NonblockingAction} is run on the thread processing the events:
+     * the calling thread, or the executor for the events added by other
+     * threads. Any other action may block, so it is always run on the given
+     * executor, to keep it off the threads that complete requests.
+     * 
+     * @param executor The executor to run the blocking actions
+     * @param scheduler The scheduler for the timeouts of the nonblocking
+     *        actions
+     * @param completionListener Notified once, when the Pipeline completes or
+     *        an action fails
+     */
+
+    public void executeAsync(Executor executor,
+                             ScheduledExecutorService scheduler,
+                             CompletionListener completionListener) {
+        this.executor = executor;
+        this.scheduler = scheduler;
+        this.completionListener = completionListener;
+        this.isAsync = true;
+
+        processEvents();
+    }
+
+    private void processEvents() {
+        while(!eventQueue.isEmpty()) {
+            // Only one thread processes events at a time, the others leave
+            // their events to it.
+            if(!isProcessingEvents.compareAndSet(false, true))
+                return;
+
+            eventThread = Thread.currentThread();
+
+            try {
+                Event event;
+                while((event = eventQueue.poll()) != null) {
+                    if(!isComplete.get())
+                        processEvent(event);
+                }
+            } finally {
+                eventThread = null;
+                isProcessingEvents.set(false);
+            }
+        }
+    }
+
+    private void processEvent(Event event) {
+        if(event.equals(Event.ERROR) || event.equals(Event.COMPLETED)) {
+            if(logger.isTraceEnabled())
+                logger.trace(operation.getSimpleName() + " request, events complete"
+                             + (event.equals(Event.ERROR) ? " due to error" : ""));
+
+            complete(null);
+            return;
+        }
+
+        final Action action = eventActions.get(event);
+
+        if(action == null) {
+            complete(new IllegalStateException("action was null for event " + event));
+            return;
+        }
+
+        if(logger.isTraceEnabled())
+            logger.trace(operation.getSimpleName() + " request, action "
+                         + action.getClass().getSimpleName() + " to handle " + event + " event");
+
+        if(action instanceof NonblockingAction) {
+            executeAction(action);
+        } else {
+            try {
+                executor.execute(new Runnable() {
+
+                    public void run() {
+                        executeAction(action);
+                    }
+
+                });
+            } catch(RuntimeException e) {
+                complete(e);
+            }
+        }
+    }
+
+    private void executeAction(Action action) {
+        try {
+            action.execute(this);
+        } catch(RuntimeException e) {
+            complete(e);
+        }
+    }
+
+    private void complete(RuntimeException e) {
+        if(!isComplete.compareAndSet(false, true))
+            return;
+
+        try {
+            completionListener.pipelineComplete(e);
+        } catch(RuntimeException listenerException) {
+            if(logger.isEnabledFor(Level.ERROR))
+                logger.error("Error notifying completion of " + operation.getSimpleName()
+                             + " request", listenerException);
+        }
     }
 
     /**
@@ -183,4 +398,20 @@ public class Pipeline {
         }
     }
 
+    /**
+     * Notified when an asynchronously executed {@link Pipeline} completes.
+     */
+
+    public interface CompletionListener {
+
+        /**
+         * @param e The exception an action failed with, or null if the
+         *        Pipeline completed normally, which includes completing with
+         *        an {@link Event#ERROR} event
+         */
+
+        public void pipelineComplete(RuntimeException e);
+
+    }
+
 }
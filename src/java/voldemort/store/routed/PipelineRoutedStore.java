@@ -19,7 +19,10 @@ package voldemort.store.routed;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import voldemort.VoldemortException;
@@ -28,6 +31,7 @@ import voldemort.cluster.Node;
 import voldemort.cluster.Zone;
 import voldemort.cluster.failuredetector.FailureDetector;
 import voldemort.routing.RoutingStrategyType;
+import voldemort.store.BlindPutStore;
 import voldemort.store.Store;
 import voldemort.store.StoreDefinition;
 import voldemort.store.StoreRequest;
@@ -44,24 +48,49 @@ import voldemort.store.routed.action.IncrementClock;
 import voldemort.store.routed.action.PerformParallelGetAllRequests;
 import voldemort.store.routed.action.PerformParallelPutRequests;
 import voldemort.store.routed.action.PerformParallelRequests;
+import voldemort.store.routed.action.PerformPutAllRequests;
 import voldemort.store.routed.action.PerformSerialGetAllRequests;
 import voldemort.store.routed.action.PerformSerialPutRequests;
 import voldemort.store.routed.action.PerformSerialRequests;
 import voldemort.store.routed.action.PerformZoneSerialRequests;
+import voldemort.store.routed.action.PutAllConfigureNodes;
 import voldemort.store.routed.action.ReadRepair;
 import voldemort.utils.ByteArray;
 import voldemort.utils.SystemTime;
+import voldemort.utils.Time;
 import voldemort.versioning.Version;
 import voldemort.versioning.Versioned;
 
 /**
  * A Store which multiplexes requests to different internal Stores
  * 
+ * <p/>
+ * 
+ * Requests are also accepted as a {@link NonblockingStore}, if the store has a
+ * scheduler, in which case the pipeline is advanced by the callbacks of the
+ * requests it makes rather than by a waiting thread.
+ * 
+ * <p/>
+ * 
+ * Blind puts are versioned by the master node, or, if it cannot do blind
+ * puts, by merging the versions the master has, so they take a single round
+ * trip to the master rather than a quorum read of the versions first.
+ * 
+ * <p/>
+ * 
+ * A put all sends one request per node for all the keys it holds, rather than
+ * a put pipeline per key; zone requirements are not enforced for it.
+ * 
  * 
  */
-public class PipelineRoutedStore extends RoutedStore {
+public class PipelineRoutedStore extends RoutedStore implements BlindPutStore<ByteArray, byte[]>,
+        NonblockingStore {
 
     private final Map<Integer, NonblockingStore> nonblockingStores;
+    private final Executor executor;
+    private final ScheduledExecutorService scheduler;
+    private final HedgedReadPolicy hedgedReadPolicy;
+    private final boolean readCompleteOnRequired;
     private Zone clientZone;
     private boolean zoneRoutingEnabled;
 
@@ -86,6 +115,76 @@ public class PipelineRoutedStore extends RoutedStore {
                                int clientZoneId,
                                long timeoutMs,
                                FailureDetector failureDetector) {
+        this(name,
+             innerStores,
+             nonblockingStores,
+             cluster,
+             storeDef,
+             repairReads,
+             clientZoneId,
+             timeoutMs,
+             failureDetector,
+             null,
+             null,
+             0);
+    }
+
+    public PipelineRoutedStore(String name,
+                               Map<Integer, Store<ByteArray, byte[]>> innerStores,
+                               Map<Integer, NonblockingStore> nonblockingStores,
+                               Cluster cluster,
+                               StoreDefinition storeDef,
+                               boolean repairReads,
+                               int clientZoneId,
+                               long timeoutMs,
+                               FailureDetector failureDetector,
+                               Executor executor,
+                               ScheduledExecutorService scheduler,
+                               double hedgedReadPercentile) {
+        this(name,
+             innerStores,
+             nonblockingStores,
+             cluster,
+             storeDef,
+             repairReads,
+             clientZoneId,
+             timeoutMs,
+             failureDetector,
+             executor,
+             scheduler,
+             hedgedReadPercentile,
+             false);
+    }
+
+    /**
+     * Create a PipelineRoutedStore. If readCompleteOnRequired is set, a get
+     * completes as soon as the required number of reads have succeeded, and
+     * the responses that arrive later are read repaired on the given executor.
+     * Otherwise it waits for the preferred number of reads.
+     * 
+     * @param executor The executor to read repair responses that arrive after
+     *        a get has completed, and to run the blocking actions of requests
+     *        submitted as a {@link NonblockingStore}, or null to do neither
+     * @param scheduler The scheduler for the timeouts of requests submitted as
+     *        a {@link NonblockingStore}, or null to not accept them
+     * @param hedgedReadPercentile The percentile of read times after which a
+     *        read is also sent to the next node, or 0 to never do so
+     * @param readCompleteOnRequired Complete gets once the required number of
+     *        reads succeed, rather than the preferred number
+     */
+    public PipelineRoutedStore(String name,
+                               Map<Integer, Store<ByteArray, byte[]>> innerStores,
+                               Map<Integer, NonblockingStore> nonblockingStores,
+                               Cluster cluster,
+                               StoreDefinition storeDef,
+                               boolean repairReads,
+                               int clientZoneId,
+                               long timeoutMs,
+                               FailureDetector failureDetector,
+                               Executor executor,
+                               ScheduledExecutorService scheduler,
+                               double hedgedReadPercentile,
+                               boolean readCompleteOnRequired) {
         super(name,
               innerStores,
               cluster,
@@ -103,12 +202,45 @@ public class PipelineRoutedStore extends RoutedStore {
         }
 
         this.nonblockingStores = new ConcurrentHashMap<Integer, NonblockingStore>(nonblockingStores);
+        this.executor = executor;
+        this.scheduler = scheduler;
+        this.hedgedReadPolicy = hedgedReadPercentile > 0 ? new HedgedReadPolicy(hedgedReadPercentile,
+                                                                                timeoutMs)
+                                                        : null;
+        this.readCompleteOnRequired = readCompleteOnRequired;
     }
 
     public List<Versioned<byte[]>> get(final ByteArray key) {
         StoreUtils.assertValidKey(key);
 
         BasicPipelineData<List<Versioned<byte[]>>> pipelineData = new BasicPipelineData<List<Versioned<byte[]>>>();
+        Pipeline pipeline = createGetPipeline(key, pipelineData);
+
+        pipeline.addEvent(Event.STARTED);
+        pipeline.execute();
+
+        if(pipelineData.getFatalError() != null)
+            throw pipelineData.getFatalError();
+
+        return getValues(pipelineData);
+    }
+
+    public void submitGetRequest(ByteArray key, NonblockingStoreCallback callback) {
+        StoreUtils.assertValidKey(key);
+
+        final BasicPipelineData<List<Versioned<byte[]>>> pipelineData = new BasicPipelineData<List<Versioned<byte[]>>>();
+        submit(createGetPipeline(key, pipelineData), new PipelineCallback(pipelineData, callback) {
+
+            @Override
+            protected Object getResult() {
+                return getValues(pipelineData);
+            }
+
+        });
+    }
+
+    private Pipeline createGetPipeline(final ByteArray key,
+                                       BasicPipelineData<List<Versioned<byte[]>>> pipelineData) {
         if(zoneRoutingEnabled)
             pipelineData.setZonesRequired(storeDef.getZoneCountReads());
         else
@@ -140,6 +272,15 @@ public class PipelineRoutedStore extends RoutedStore {
                                                                                                                         routingStrategy,
                                                                                                                         key,
                                                                                                                         clientZone));
+        ReadRepair<BasicPipelineData<List<Versioned<byte[]>>>> readRepair = null;
+        if(repairReads)
+            readRepair = new ReadRepair<BasicPipelineData<List<Versioned<byte[]>>>>(pipelineData,
+                                                                                    Event.COMPLETED,
+                                                                                    storeDef.getPreferredReads(),
+                                                                                    nonblockingStores,
+                                                                                    readRepairer,
+                                                                                    executor);
+
         pipeline.addEventAction(Event.CONFIGURED,
                                 new PerformParallelRequests<List<Versioned<byte[]>>, BasicPipelineData<List<Versioned<byte[]>>>>(pipelineData,
                                                                                                                                  repairReads ? Event.RESPONSES_RECEIVED
@@ -152,7 +293,10 @@ public class PipelineRoutedStore extends RoutedStore {
                                                                                                                                  nonblockingStores,
                                                                                                                                  nonblockingStoreRequest,
                                                                                                                                  Event.INSUFFICIENT_SUCCESSES,
-                                                                                                                                 Event.INSUFFICIENT_ZONES));
+                                                                                                                                 Event.INSUFFICIENT_ZONES,
+                                                                                                                                 readCompleteOnRequired,
+                                                                                                                                 hedgedReadPolicy,
+                                                                                                                                 readRepair));
         pipeline.addEventAction(Event.INSUFFICIENT_SUCCESSES,
                                 new PerformSerialRequests<List<Versioned<byte[]>>, BasicPipelineData<List<Versioned<byte[]>>>>(pipelineData,
                                                                                                                                repairReads ? Event.RESPONSES_RECEIVED
@@ -166,12 +310,7 @@ public class PipelineRoutedStore extends RoutedStore {
                                                                                                                                null));
 
         if(repairReads)
-            pipeline.addEventAction(Event.RESPONSES_RECEIVED,
-                                    new ReadRepair<BasicPipelineData<List<Versioned<byte[]>>>>(pipelineData,
-                                                                                               Event.COMPLETED,
-                                                                                               storeDef.getPreferredReads(),
-                                                                                               nonblockingStores,
-                                                                                               readRepairer));
+            pipeline.addEventAction(Event.RESPONSES_RECEIVED, readRepair);
 
         if(zoneRoutingEnabled)
             pipeline.addEventAction(Event.INSUFFICIENT_ZONES,
@@ -183,12 +322,10 @@ public class PipelineRoutedStore extends RoutedStore {
                                                                                                                                        innerStores,
                                                                                                                                        blockingStoreRequest));
 
-        pipeline.addEvent(Event.STARTED);
-        pipeline.execute();
-
-        if(pipelineData.getFatalError() != null)
-            throw pipelineData.getFatalError();
+        return pipeline;
+    }
 
+    private List<Versioned<byte[]>> getValues(BasicPipelineData<List<Versioned<byte[]>>> pipelineData) {
         List<Versioned<byte[]>> results = new ArrayList<Versioned<byte[]>>();
 
         for(Response<ByteArray, List<Versioned<byte[]>>> response: pipelineData.getResponses()) {
@@ -206,6 +343,33 @@ public class PipelineRoutedStore extends RoutedStore {
         StoreUtils.assertValidKeys(keys);
 
         GetAllPipelineData pipelineData = new GetAllPipelineData();
+        Pipeline pipeline = createGetAllPipeline(keys, pipelineData);
+
+        pipeline.addEvent(Event.STARTED);
+        pipeline.execute();
+
+        if(pipelineData.getFatalError() != null)
+            throw pipelineData.getFatalError();
+
+        return pipelineData.getResult();
+    }
+
+    public void submitGetAllRequest(Iterable<ByteArray> keys, NonblockingStoreCallback callback) {
+        StoreUtils.assertValidKeys(keys);
+
+        final GetAllPipelineData pipelineData = new GetAllPipelineData();
+        submit(createGetAllPipeline(keys, pipelineData), new PipelineCallback(pipelineData,
+                                                                              callback) {
+
+            @Override
+            protected Object getResult() {
+                return pipelineData.getResult();
+            }
+
+        });
+    }
+
+    private Pipeline createGetAllPipeline(Iterable<ByteArray> keys, GetAllPipelineData pipelineData) {
         if(zoneRoutingEnabled)
             pipelineData.setZonesRequired(storeDef.getZoneCountReads());
         else
@@ -245,19 +409,41 @@ public class PipelineRoutedStore extends RoutedStore {
                                                          nonblockingStores,
                                                          readRepairer));
 
+        return pipeline;
+    }
+
+    public List<Version> getVersions(final ByteArray key) {
+        StoreUtils.assertValidKey(key);
+
+        BasicPipelineData<List<Version>> pipelineData = new BasicPipelineData<List<Version>>();
+        Pipeline pipeline = createGetVersionsPipeline(key, pipelineData);
+
         pipeline.addEvent(Event.STARTED);
         pipeline.execute();
 
         if(pipelineData.getFatalError() != null)
             throw pipelineData.getFatalError();
 
-        return pipelineData.getResult();
+        return getVersions(pipelineData);
     }
 
-    public List<Version> getVersions(final ByteArray key) {
+    public void submitGetVersionsRequest(ByteArray key, NonblockingStoreCallback callback) {
         StoreUtils.assertValidKey(key);
 
-        BasicPipelineData<List<Version>> pipelineData = new BasicPipelineData<List<Version>>();
+        final BasicPipelineData<List<Version>> pipelineData = new BasicPipelineData<List<Version>>();
+        submit(createGetVersionsPipeline(key, pipelineData), new PipelineCallback(pipelineData,
+                                                                                  callback) {
+
+            @Override
+            protected Object getResult() {
+                return getVersions(pipelineData);
+            }
+
+        });
+    }
+
+    private Pipeline createGetVersionsPipeline(final ByteArray key,
+                                               BasicPipelineData<List<Version>> pipelineData) {
         if(zoneRoutingEnabled)
             pipelineData.setZonesRequired(storeDef.getZoneCountReads());
         else
@@ -293,14 +479,15 @@ public class PipelineRoutedStore extends RoutedStore {
                                                                                                              nonblockingStores,
                                                                                                              storeRequest,
                                                                                                              null,
+                                                                                                             null,
+                                                                                                             false,
+                                                                                                             hedgedReadPolicy,
                                                                                                              null));
 
-        pipeline.addEvent(Event.STARTED);
-        pipeline.execute();
-
-        if(pipelineData.getFatalError() != null)
-            throw pipelineData.getFatalError();
+        return pipeline;
+    }
 
+    private List<Version> getVersions(BasicPipelineData<List<Version>> pipelineData) {
         List<Version> results = new ArrayList<Version>();
 
         for(Response<ByteArray, List<Version>> response: pipelineData.getResponses())
@@ -313,6 +500,37 @@ public class PipelineRoutedStore extends RoutedStore {
         StoreUtils.assertValidKey(key);
 
         BasicPipelineData<Boolean> pipelineData = new BasicPipelineData<Boolean>();
+        Pipeline pipeline = createDeletePipeline(key, version, pipelineData);
+
+        pipeline.addEvent(Event.STARTED);
+        pipeline.execute();
+
+        if(pipelineData.getFatalError() != null)
+            throw pipelineData.getFatalError();
+
+        return isDeleted(pipelineData);
+    }
+
+    public void submitDeleteRequest(ByteArray key,
+                                    Version version,
+                                    NonblockingStoreCallback callback) {
+        StoreUtils.assertValidKey(key);
+
+        final BasicPipelineData<Boolean> pipelineData = new BasicPipelineData<Boolean>();
+        submit(createDeletePipeline(key, version, pipelineData),
+               new PipelineCallback(pipelineData, callback) {
+
+                   @Override
+                   protected Object getResult() {
+                       return isDeleted(pipelineData);
+                   }
+
+               });
+    }
+
+    private Pipeline createDeletePipeline(final ByteArray key,
+                                          final Version version,
+                                          BasicPipelineData<Boolean> pipelineData) {
         if(zoneRoutingEnabled)
             pipelineData.setZonesRequired(storeDef.getZoneCountWrites());
         else
@@ -376,12 +594,10 @@ public class PipelineRoutedStore extends RoutedStore {
                                                                                                        innerStores,
                                                                                                        blockingDelete));
 
-        pipeline.addEvent(Event.STARTED);
-        pipeline.execute();
-
-        if(pipelineData.getFatalError() != null)
-            throw pipelineData.getFatalError();
+        return pipeline;
+    }
 
+    private boolean isDeleted(BasicPipelineData<Boolean> pipelineData) {
         for(Response<ByteArray, Boolean> response: pipelineData.getResponses()) {
             if(response.getValue().booleanValue())
                 return true;
@@ -394,6 +610,35 @@ public class PipelineRoutedStore extends RoutedStore {
         StoreUtils.assertValidKey(key);
 
         PutPipelineData pipelineData = new PutPipelineData();
+        Pipeline pipeline = createPutPipeline(key, versioned, pipelineData);
+
+        pipeline.addEvent(Event.STARTED);
+        pipeline.execute();
+
+        if(pipelineData.getFatalError() != null)
+            throw pipelineData.getFatalError();
+    }
+
+    public void submitPutRequest(ByteArray key,
+                                 Versioned<byte[]> versioned,
+                                 NonblockingStoreCallback callback) {
+        StoreUtils.assertValidKey(key);
+
+        PutPipelineData pipelineData = new PutPipelineData();
+        submit(createPutPipeline(key, versioned, pipelineData), new PipelineCallback(pipelineData,
+                                                                                     callback) {
+
+            @Override
+            protected Object getResult() {
+                return null;
+            }
+
+        });
+    }
+
+    private Pipeline createPutPipeline(ByteArray key,
+                                       Versioned<byte[]> versioned,
+                                       PutPipelineData pipelineData) {
         if(zoneRoutingEnabled)
             pipelineData.setZonesRequired(storeDef.getZoneCountWrites());
         else
@@ -416,10 +661,12 @@ public class PipelineRoutedStore extends RoutedStore {
                                                              key,
                                                              failureDetector,
                                                              innerStores,
+                                                             nonblockingStores,
                                                              storeDef.getRequiredWrites(),
                                                              versioned,
                                                              time,
-                                                             Event.MASTER_DETERMINED));
+                                                             Event.MASTER_DETERMINED,
+                                                             timeoutMs));
         pipeline.addEventAction(Event.MASTER_DETERMINED,
                                 new PerformParallelPutRequests(pipelineData,
                                                                Event.RESPONSES_RECEIVED,
@@ -434,11 +681,149 @@ public class PipelineRoutedStore extends RoutedStore {
                                                                              versioned,
                                                                              time));
 
+        return pipeline;
+    }
+
+    public Version blindPut(ByteArray key, byte[] value) throws VoldemortException {
+        StoreUtils.assertValidKey(key);
+
+        PutPipelineData pipelineData = new PutPipelineData();
+        Pipeline pipeline = createBlindPutPipeline(key, value, pipelineData);
+
         pipeline.addEvent(Event.STARTED);
         pipeline.execute();
 
         if(pipelineData.getFatalError() != null)
             throw pipelineData.getFatalError();
+
+        return pipelineData.getVersionedCopy().getVersion();
+    }
+
+    public void submitBlindPutRequest(ByteArray key,
+                                      byte[] value,
+                                      NonblockingStoreCallback callback) {
+        StoreUtils.assertValidKey(key);
+
+        final PutPipelineData pipelineData = new PutPipelineData();
+        submit(createBlindPutPipeline(key, value, pipelineData),
+               new PipelineCallback(pipelineData, callback) {
+
+                   @Override
+                   protected Object getResult() {
+                       return pipelineData.getVersionedCopy().getVersion();
+                   }
+
+               });
+    }
+
+    private Pipeline createBlindPutPipeline(ByteArray key,
+                                            byte[] value,
+                                            PutPipelineData pipelineData) {
+        if(zoneRoutingEnabled)
+            pipelineData.setZonesRequired(storeDef.getZoneCountWrites());
+        else
+            pipelineData.setZonesRequired(null);
+        pipelineData.setStartTimeNs(System.nanoTime());
+
+        Pipeline pipeline = new Pipeline(Operation.PUT, timeoutMs, TimeUnit.MILLISECONDS);
+
+        pipeline.addEventAction(Event.STARTED,
+                                new ConfigureNodes<Void, PutPipelineData>(pipelineData,
+                                                                          Event.CONFIGURED,
+                                                                          failureDetector,
+                                                                          storeDef.getRequiredWrites(),
+                                                                          routingStrategy,
+                                                                          key,
+                                                                          clientZone));
+        pipeline.addEventAction(Event.CONFIGURED,
+                                new PerformSerialPutRequests(pipelineData,
+                                                             Event.COMPLETED,
+                                                             key,
+                                                             failureDetector,
+                                                             nonblockingStores,
+                                                             storeDef.getRequiredWrites(),
+                                                             value,
+                                                             time,
+                                                             Event.MASTER_DETERMINED,
+                                                             timeoutMs));
+        pipeline.addEventAction(Event.MASTER_DETERMINED,
+                                new PerformParallelPutRequests(pipelineData,
+                                                               Event.COMPLETED,
+                                                               key,
+                                                               failureDetector,
+                                                               storeDef.getPreferredWrites(),
+                                                               storeDef.getRequiredWrites(),
+                                                               timeoutMs,
+                                                               nonblockingStores));
+
+        return pipeline;
+    }
+
+    public Set<ByteArray> putAll(Map<ByteArray, Versioned<byte[]>> entries)
+            throws VoldemortException {
+        StoreUtils.assertValidKeys(entries.keySet());
+
+        PutAllPipelineData pipelineData = new PutAllPipelineData();
+        Pipeline pipeline = createPutAllPipeline(entries, pipelineData);
+
+        pipeline.addEvent(Event.STARTED);
+        pipeline.execute();
+
+        if(pipelineData.getFatalError() != null)
+            throw pipelineData.getFatalError();
+
+        return pipelineData.getObsoleteKeys();
+    }
+
+    public void submitPutAllRequest(Map<ByteArray, Versioned<byte[]>> entries,
+                                    NonblockingStoreCallback callback) {
+        StoreUtils.assertValidKeys(entries.keySet());
+
+        final PutAllPipelineData pipelineData = new PutAllPipelineData();
+        submit(createPutAllPipeline(entries, pipelineData), new PipelineCallback(pipelineData,
+                                                                                 callback) {
+
+            @Override
+            protected Object getResult() {
+                return pipelineData.getObsoleteKeys();
+            }
+
+        });
+    }
+
+    private Pipeline createPutAllPipeline(Map<ByteArray, Versioned<byte[]>> entries,
+                                          PutAllPipelineData pipelineData) {
+        pipelineData.setStartTimeNs(System.nanoTime());
+
+        Pipeline pipeline = new Pipeline(Operation.PUT_ALL, timeoutMs, TimeUnit.MILLISECONDS);
+
+        pipeline.addEventAction(Event.STARTED,
+                                new PutAllConfigureNodes(pipelineData,
+                                                         Event.CONFIGURED,
+                                                         failureDetector,
+                                                         storeDef.getRequiredWrites(),
+                                                         routingStrategy,
+                                                         entries.keySet()));
+        pipeline.addEventAction(Event.CONFIGURED,
+                                new PerformPutAllRequests(pipelineData,
+                                                          Event.COMPLETED,
+                                                          entries,
+                                                          failureDetector,
+                                                          storeDef.getRequiredWrites(),
+                                                          timeoutMs,
+                                                          nonblockingStores,
+                                                          time));
+
+        return pipeline;
+    }
+
+    private void submit(Pipeline pipeline, PipelineCallback callback) {
+        if(scheduler == null || executor == null)
+            throw new IllegalStateException("Store " + getName()
+                                            + " does not accept nonblocking requests");
+
+        pipeline.addEvent(Event.STARTED);
+        pipeline.executeAsync(executor, scheduler, callback);
     }
 
     @Override
@@ -459,4 +844,44 @@ public class PipelineRoutedStore extends RoutedStore {
         super.close();
     }
 
+    /*
+     * Completes a request submitted as a NonblockingStore with the result of
+     * its pipeline.
+     */
+    private abstract class PipelineCallback implements Pipeline.CompletionListener {
+
+        private final PipelineData<?, ?> pipelineData;
+
+        private final NonblockingStoreCallback callback;
+
+        private final long startNs;
+
+        private PipelineCallback(PipelineData<?, ?> pipelineData, NonblockingStoreCallback callback) {
+            this.pipelineData = pipelineData;
+            this.callback = callback;
+            this.startNs = System.nanoTime();
+        }
+
+        protected abstract Object getResult();
+
+        public void pipelineComplete(RuntimeException e) {
+            Object result;
+
+            if(e != null) {
+                result = e;
+            } else if(pipelineData.getFatalError() != null) {
+                result = pipelineData.getFatalError();
+            } else {
+                try {
+                    result = getResult();
+                } catch(RuntimeException resultException) {
+                    result = resultException;
+                }
+            }
+
+            callback.requestComplete(result, (System.nanoTime() - startNs) / Time.NS_PER_MS);
+        }
+
+    }
+
 }
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2010 LinkedIn, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.routed;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import voldemort.cluster.Node;
+import voldemort.utils.ByteArray;
+import voldemort.versioning.Versioned;
+
+/**
+ * This is used only by the "put all" operation as it includes data specific
+ * only to that operation.
+ */
+public class PutAllPipelineData extends
+        PipelineData<Map<ByteArray, Versioned<byte[]>>, Set<ByteArray>> {
+
+    private final Set<ByteArray> obsoleteKeys;
+
+    // The nodes each key may be written to, in preference order
+    private Map<ByteArray, List<Node>> keyToNodesMap;
+
+    // The node each key was first written to, and the version it was written
+    // with there
+    private final Map<ByteArray, Node> keyToMaster;
+
+    private final Map<ByteArray, Versioned<byte[]>> keyToVersionedCopy;
+
+    private long startTimeNs;
+
+    public PutAllPipelineData() {
+        this.obsoleteKeys = new HashSet<ByteArray>();
+        this.keyToMaster = new HashMap<ByteArray, Node>();
+        this.keyToVersionedCopy = new HashMap<ByteArray, Versioned<byte[]>>();
+    }
+
+    /**
+     * @return The keys that were not stored because their versions are
+     *         obsolete
+     */
+    public Set<ByteArray> getObsoleteKeys() {
+        return obsoleteKeys;
+    }
+
+    public Map<ByteArray, List<Node>> getKeyToNodesMap() {
+        return keyToNodesMap;
+    }
+
+    public void setKeyToNodesMap(Map<ByteArray, List<Node>> keyToNodesMap) {
+        this.keyToNodesMap = keyToNodesMap;
+    }
+
+    public Map<ByteArray, Node> getKeyToMaster() {
+        return keyToMaster;
+    }
+
+    public Map<ByteArray, Versioned<byte[]>> getKeyToVersionedCopy() {
+        return keyToVersionedCopy;
+    }
+
+    public long getStartTimeNs() {
+        return this.startTimeNs;
+    }
+
+    public void setStartTimeNs(long startTimeNs) {
+        this.startTimeNs = startTimeNs;
+    }
+
+}
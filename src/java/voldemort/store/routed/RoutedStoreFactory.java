@@ -2,6 +2,7 @@ package voldemort.store.routed;
 
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
 
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
@@ -28,14 +29,58 @@ public class RoutedStoreFactory {
 
     private final long routingTimeoutMs;
 
+    private final double hedgedReadPercentile;
+
+    private final boolean readCompleteOnRequired;
+
+    private final ScheduledExecutorService scheduler;
+
     private final Logger logger = Logger.getLogger(getClass());
 
     public RoutedStoreFactory(boolean isPipelineRoutedStoreEnabled,
                               ExecutorService threadPool,
                               long routingTimeoutMs) {
+        this(isPipelineRoutedStoreEnabled, threadPool, null, routingTimeoutMs, 0);
+    }
+
+    /**
+     * @param scheduler The scheduler for the timeouts of requests submitted to
+     *        a pipeline routed store as a {@link NonblockingStore}, or null if
+     *        the store is only used for blocking requests
+     * @param hedgedReadPercentile The percentile of read times after which the
+     *        pipeline routed store also sends a read to the next node, or 0 to
+     *        never do so
+     */
+    public RoutedStoreFactory(boolean isPipelineRoutedStoreEnabled,
+                              ExecutorService threadPool,
+                              ScheduledExecutorService scheduler,
+                              long routingTimeoutMs,
+                              double hedgedReadPercentile) {
+        this(isPipelineRoutedStoreEnabled,
+             threadPool,
+             scheduler,
+             routingTimeoutMs,
+             hedgedReadPercentile,
+             false);
+    }
+
+    /**
+     * @param readCompleteOnRequired Have the pipeline routed store complete
+     *        gets once the required number of reads succeed, rather than the
+     *        preferred number
+     */
+    public RoutedStoreFactory(boolean isPipelineRoutedStoreEnabled,
+                              ExecutorService threadPool,
+                              ScheduledExecutorService scheduler,
+                              long routingTimeoutMs,
+                              double hedgedReadPercentile,
+                              boolean readCompleteOnRequired) {
         this.isPipelineRoutedStoreEnabled = isPipelineRoutedStoreEnabled;
         this.threadPool = threadPool;
+        this.scheduler = scheduler;
         this.routingTimeoutMs = routingTimeoutMs;
+        this.hedgedReadPercentile = hedgedReadPercentile;
+        this.readCompleteOnRequired = readCompleteOnRequired;
     }
 
     public NonblockingStore toNonblockingStore(Store<ByteArray, byte[]> store) {
@@ -64,7 +109,11 @@ public class RoutedStoreFactory {
                                            repairReads,
                                            clientZoneId,
                                            routingTimeoutMs,
-                                           failureDetector);
+                                           failureDetector,
+                                           threadPool,
+                                           scheduler,
+                                           hedgedReadPercentile,
+                                           readCompleteOnRequired);
         } else {
             if(storeDefinition.getRoutingStrategyType()
                               .compareTo(RoutingStrategyType.ZONE_STRATEGY) == 0) {
@@ -22,6 +22,7 @@ import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -604,6 +605,11 @@ public class ThreadPoolRoutedStore extends RoutedStore {
         return builder.toString();
     }
 
+    public Set<ByteArray> putAll(Map<ByteArray, Versioned<byte[]>> entries)
+            throws VoldemortException {
+        return StoreUtils.putAll(this, entries);
+    }
+
     public void put(final ByteArray key, final Versioned<byte[]> versioned)
             throws VoldemortException {
         long startNs = System.nanoTime();
@@ -28,7 +28,7 @@ import voldemort.store.routed.Pipeline.Event;
 import voldemort.utils.ByteArray;
 
 public abstract class AbstractConfigureNodes<K, V, PD extends PipelineData<K, V>> extends
-        AbstractAction<K, V, PD> {
+        AbstractAction<K, V, PD> implements NonblockingAction {
 
     protected final FailureDetector failureDetector;
 
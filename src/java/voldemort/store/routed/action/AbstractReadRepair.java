@@ -59,6 +59,13 @@ public abstract class AbstractReadRepair<K, V, PD extends PipelineData<K, V>> ex
     protected abstract void insertNodeValues();
 
     protected void insertNodeValue(Node node, ByteArray key, List<Versioned<byte[]>> value) {
+        insertNodeValue(nodeValues, node, key, value);
+    }
+
+    protected static void insertNodeValue(List<NodeValue<ByteArray, byte[]>> nodeValues,
+                                          Node node,
+                                          ByteArray key,
+                                          List<Versioned<byte[]>> value) {
         if(value.size() == 0) {
             Versioned<byte[]> versioned = new Versioned<byte[]>(null);
             nodeValues.add(new NodeValue<ByteArray, byte[]>(node.getId(), key, versioned));
@@ -70,7 +77,16 @@ public abstract class AbstractReadRepair<K, V, PD extends PipelineData<K, V>> ex
 
     public void execute(Pipeline pipeline) {
         insertNodeValues();
+        repair(nodeValues);
+        pipeline.addEvent(completeEvent);
+    }
 
+    /**
+     * Submit the puts needed to bring the given node values up to date
+     * 
+     * @param nodeValues The values read from each node
+     */
+    protected void repair(List<NodeValue<ByteArray, byte[]>> nodeValues) {
         if(nodeValues.size() > 1 && preferred > 1) {
             List<NodeValue<ByteArray, byte[]>> toReadRepair = Lists.newArrayList();
 
@@ -108,8 +124,6 @@ public abstract class AbstractReadRepair<K, V, PD extends PipelineData<K, V>> ex
                 }
             }
         }
-
-        pipeline.addEvent(completeEvent);
     }
 
 }
@@ -24,7 +24,8 @@ import voldemort.utils.Time;
 import voldemort.versioning.VectorClock;
 import voldemort.versioning.Versioned;
 
-public class IncrementClock extends AbstractAction<ByteArray, Void, PutPipelineData> {
+public class IncrementClock extends AbstractAction<ByteArray, Void, PutPipelineData> implements
+        NonblockingAction {
 
     private final Versioned<byte[]> versioned;
 
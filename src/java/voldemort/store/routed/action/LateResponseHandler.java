@@ -0,0 +1,41 @@
+/*
+ * Copyright 2010 LinkedIn, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.routed.action;
+
+import java.util.List;
+
+import voldemort.store.routed.Response;
+
+/**
+ * Receives the successful responses that arrive after the action that made
+ * the requests has moved on.
+ * <p/>
+ * The handler is called on the thread that completed the request, which may
+ * be a selector thread, so it must not block.
+ *
+ *
+ * @see PerformParallelRequests
+ */
+public interface LateResponseHandler<K, V> {
+
+    /**
+     * @param responses The responses the action completed with
+     * @param lateResponse The response that arrived late
+     */
+    public void handleLateResponse(List<Response<K, V>> responses, Response<K, V> lateResponse);
+
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2010 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.routed.action;
+
+import voldemort.store.routed.Pipeline;
+
+/**
+ * A NonblockingAction is an {@link Action} that doesn't block when its
+ * {@link Pipeline} is executed asynchronously. Instead of waiting for
+ * responses, it returns once its requests are submitted and adds the next
+ * event from the request callbacks, or from a task scheduled with
+ * {@link Pipeline#schedule(Runnable, long, java.util.concurrent.TimeUnit)}.
+ * 
+ * <p/>
+ * 
+ * An asynchronous Pipeline runs NonblockingActions on the thread processing
+ * its events, which is never a selector thread. Any other action is handed to
+ * the Pipeline's executor. Requests submitted later, from the callbacks of
+ * other requests or from scheduled tasks, must be submitted through
+ * {@link Pipeline#submitRequest(Runnable)}.
+ * 
+ * @see Pipeline#executeAsync(java.util.concurrent.Executor,
+ *      java.util.concurrent.ScheduledExecutorService,
+ *      voldemort.store.routed.Pipeline.CompletionListener)
+ */
+
+public interface NonblockingAction extends Action {
+
+}
@@ -16,13 +16,18 @@
 
 package voldemort.store.routed.action;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.commons.lang.mutable.MutableInt;
 import org.apache.log4j.Level;
@@ -42,7 +47,8 @@ import com.google.common.collect.Lists;
 
 public class PerformParallelGetAllRequests
         extends
-        AbstractAction<Iterable<ByteArray>, Map<ByteArray, List<Versioned<byte[]>>>, GetAllPipelineData> {
+        AbstractAction<Iterable<ByteArray>, Map<ByteArray, List<Versioned<byte[]>>>, GetAllPipelineData>
+        implements NonblockingAction {
 
     private final long timeoutMs;
 
@@ -61,11 +67,13 @@ public class PerformParallelGetAllRequests
         this.nonblockingStores = nonblockingStores;
     }
 
-    @SuppressWarnings("unchecked")
     public void execute(final Pipeline pipeline) {
         int attempts = pipelineData.getNodeToKeysMap().size();
         final Map<Integer, Response<Iterable<ByteArray>, Object>> responses = new ConcurrentHashMap<Integer, Response<Iterable<ByteArray>, Object>>();
         final CountDownLatch latch = new CountDownLatch(attempts);
+        final AtomicInteger remaining = new AtomicInteger(attempts);
+        final AtomicBoolean isComplete = new AtomicBoolean(false);
+        final AtomicReference<ScheduledFuture<?>> timeout = new AtomicReference<ScheduledFuture<?>>();
 
         if(logger.isTraceEnabled())
             logger.trace("Attempting " + attempts + " " + pipeline.getOperation().getSimpleName()
@@ -89,6 +97,15 @@ public class PerformParallelGetAllRequests
                                                                             result,
                                                                             requestTime));
                     latch.countDown();
+
+                    // In an asynchronous pipeline the last response completes
+                    // the action
+                    if(pipeline.isAsync() && remaining.decrementAndGet() == 0
+                       && isComplete.compareAndSet(false, true)) {
+                        if(timeout.get() != null)
+                            timeout.get().cancel(false);
+                        complete(pipeline, responses);
+                    }
                 }
 
             };
@@ -101,6 +118,24 @@ public class PerformParallelGetAllRequests
             store.submitGetAllRequest(keys, callback);
         }
 
+        if(pipeline.isAsync()) {
+            timeout.set(pipeline.schedule(new Runnable() {
+
+                public void run() {
+                    if(isComplete.compareAndSet(false, true))
+                        complete(pipeline, responses);
+                }
+
+            }, timeoutMs * 3, TimeUnit.MILLISECONDS));
+
+            // All the responses may have arrived while submitting
+            if(remaining.get() == 0 && isComplete.compareAndSet(false, true)) {
+                timeout.get().cancel(false);
+                complete(pipeline, responses);
+            }
+            return;
+        }
+
         try {
             latch.await(timeoutMs * 3, TimeUnit.MILLISECONDS);
         } catch(InterruptedException e) {
@@ -108,7 +143,15 @@ public class PerformParallelGetAllRequests
                 logger.warn(e, e);
         }
 
-        for(Response<Iterable<ByteArray>, Object> response: responses.values()) {
+        complete(pipeline, responses);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void complete(Pipeline pipeline,
+                          Map<Integer, Response<Iterable<ByteArray>, Object>> responseMap) {
+        List<Response<Iterable<ByteArray>, Object>> responses = new ArrayList<Response<Iterable<ByteArray>, Object>>(responseMap.values());
+
+        for(Response<Iterable<ByteArray>, Object> response: responses) {
             if(response.getValue() instanceof Exception) {
                 if(handleResponseError(response, pipeline, failureDetector))
                     return;
@@ -18,10 +18,14 @@ package voldemort.store.routed.action;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.log4j.Level;
 
@@ -39,8 +43,15 @@ import voldemort.utils.ByteArray;
 import voldemort.utils.Time;
 import voldemort.versioning.Versioned;
 
+/**
+ * Puts the value on the nodes after the master in parallel, once the master
+ * has been written by {@link PerformSerialPutRequests}.
+ * <p/>
+ * In an asynchronous pipeline the action returns once the requests are
+ * submitted, and completes from the request callbacks or its timeout.
+ */
 public class PerformParallelPutRequests extends
-        AbstractKeyBasedAction<ByteArray, Void, PutPipelineData> {
+        AbstractKeyBasedAction<ByteArray, Void, PutPipelineData> implements NonblockingAction {
 
     private final int preferred;
 
@@ -81,6 +92,11 @@ public class PerformParallelPutRequests extends
         int attempts = nodes.size() - firstParallelNodeIndex;
         int blocks = Math.min(preferred - 1, attempts);
 
+        if(pipeline.isAsync()) {
+            executeAsync(pipeline, firstParallelNodeIndex, attempts, blocks);
+            return;
+        }
+
         final Map<Integer, Response<ByteArray, Object>> responses = new ConcurrentHashMap<Integer, Response<ByteArray, Object>>();
         final CountDownLatch attemptsLatch = new CountDownLatch(attempts);
         final CountDownLatch blocksLatch = new CountDownLatch(blocks);
@@ -236,4 +252,176 @@ public class PerformParallelPutRequests extends
             }
         }
     }
+
+    private void executeAsync(final Pipeline pipeline,
+                              int firstParallelNodeIndex,
+                              int attempts,
+                              int blocks) {
+        List<Node> nodes = pipelineData.getNodes();
+        Versioned<byte[]> versionedCopy = pipelineData.getVersionedCopy();
+        final AsyncPuts puts = new AsyncPuts(pipeline, attempts, blocks);
+
+        if(logger.isTraceEnabled())
+            logger.trace("Attempting " + attempts + " " + pipeline.getOperation().getSimpleName()
+                         + " operations in parallel");
+
+        for(int i = firstParallelNodeIndex; i < (firstParallelNodeIndex + attempts); i++) {
+            final Node node = nodes.get(i);
+            pipelineData.incrementNodeIndex();
+
+            NonblockingStoreCallback callback = new NonblockingStoreCallback() {
+
+                public void requestComplete(Object result, long requestTime) {
+                    if(logger.isTraceEnabled())
+                        logger.trace(pipeline.getOperation().getSimpleName()
+                                     + " response received (" + requestTime + " ms.) from node "
+                                     + node.getId());
+
+                    puts.offer(new Response<ByteArray, Object>(node, key, result, requestTime));
+                }
+
+            };
+
+            if(logger.isTraceEnabled())
+                logger.trace("Submitting " + pipeline.getOperation().getSimpleName()
+                             + " request on node " + node.getId());
+
+            NonblockingStore store = nonblockingStores.get(node.getId());
+            try {
+                store.submitPutRequest(key, versionedCopy, callback);
+            } catch(Exception e) {
+                callback.requestComplete(e, 0);
+            }
+        }
+
+        puts.start();
+    }
+
+    private boolean isZonesSatisfied() {
+        return pipelineData.getZonesRequired() == null
+               || pipelineData.getZoneResponses().size() >= (pipelineData.getZonesRequired() + 1);
+    }
+
+    /*
+     * The state of the action in an asynchronous pipeline. Each response and
+     * the timeout run the action's work, one run at a time, so that the
+     * pipeline data is only changed by one thread at once. Responses that
+     * arrive after the action completes are ignored.
+     */
+    private class AsyncPuts implements Runnable {
+
+        private final Pipeline pipeline;
+
+        private final int attempts;
+
+        private final int blocks;
+
+        private final Queue<Response<ByteArray, Object>> responses = new ConcurrentLinkedQueue<Response<ByteArray, Object>>();
+
+        private final AtomicInteger pendingRuns = new AtomicInteger(0);
+
+        private int answered = 0;
+
+        private boolean isComplete = false;
+
+        private volatile boolean isTimedOut = false;
+
+        private volatile ScheduledFuture<?> timeout;
+
+        private AsyncPuts(Pipeline pipeline, int attempts, int blocks) {
+            this.pipeline = pipeline;
+            this.attempts = attempts;
+            this.blocks = blocks;
+        }
+
+        private void offer(Response<ByteArray, Object> response) {
+            responses.add(response);
+            run();
+        }
+
+        private void start() {
+            long ellapsedNs = System.nanoTime() - pipelineData.getStartTimeNs();
+            long remainingNs = (timeoutMs * Time.NS_PER_MS) - ellapsedNs;
+            if(remainingNs > 0) {
+                timeout = pipeline.schedule(new Runnable() {
+
+                    public void run() {
+                        isTimedOut = true;
+                        AsyncPuts.this.run();
+                    }
+
+                }, remainingNs, TimeUnit.NANOSECONDS);
+            } else {
+                isTimedOut = true;
+            }
+
+            run();
+        }
+
+        public void run() {
+            if(pendingRuns.getAndIncrement() != 0)
+                return;
+
+            do {
+                if(!isComplete)
+                    advance();
+            } while(pendingRuns.decrementAndGet() != 0);
+        }
+
+        private void advance() {
+            Response<ByteArray, Object> response;
+            while((response = responses.poll()) != null) {
+                answered++;
+                if(response.getValue() instanceof Exception) {
+                    if(handleResponseError(response, pipeline, failureDetector)) {
+                        finish();
+                        return;
+                    }
+                } else {
+                    pipelineData.incrementSuccesses();
+                    failureDetector.recordSuccess(response.getNode(), response.getRequestTime());
+                    pipelineData.getZoneResponses().add(response.getNode().getZoneId());
+                }
+            }
+
+            boolean isSatisfied = pipelineData.getSuccesses() >= required && isZonesSatisfied();
+            if(!isTimedOut && answered < attempts && (answered < blocks || !isSatisfied))
+                return;
+
+            finish();
+
+            if(pipelineData.getSuccesses() < required) {
+                pipelineData.setFatalError(new InsufficientOperationalNodesException(required
+                                                                                             + " "
+                                                                                             + pipeline.getOperation()
+                                                                                                       .getSimpleName()
+                                                                                             + "s required, but only "
+                                                                                             + pipelineData.getSuccesses()
+                                                                                             + " succeeded",
+                                                                                     pipelineData.getFailures()));
+                pipeline.addEvent(Event.ERROR);
+            } else if(!isZonesSatisfied()) {
+                pipelineData.setFatalError(new InsufficientZoneResponsesException((pipelineData.getZonesRequired() + 1)
+                                                                                  + " "
+                                                                                  + pipeline.getOperation()
+                                                                                            .getSimpleName()
+                                                                                  + "s required zone, but only "
+                                                                                  + pipelineData.getZoneResponses()
+                                                                                                .size()
+                                                                                  + " succeeded"));
+                pipeline.addEvent(Event.ERROR);
+            } else {
+                pipeline.addEvent(completeEvent);
+            }
+        }
+
+        private void finish() {
+            isComplete = true;
+
+            if(timeout != null)
+                timeout.cancel(false);
+        }
+
+    }
+
 }
@@ -16,11 +16,14 @@
 
 package voldemort.store.routed.action;
 
+import java.util.ArrayList;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CountDownLatch;
+import java.util.Queue;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.log4j.Level;
 
@@ -28,17 +31,37 @@ import voldemort.cluster.Node;
 import voldemort.cluster.failuredetector.FailureDetector;
 import voldemort.store.InsufficientOperationalNodesException;
 import voldemort.store.InsufficientZoneResponsesException;
+import voldemort.store.UnreachableStoreException;
 import voldemort.store.nonblockingstore.NonblockingStore;
 import voldemort.store.nonblockingstore.NonblockingStoreCallback;
 import voldemort.store.nonblockingstore.NonblockingStoreRequest;
 import voldemort.store.routed.BasicPipelineData;
+import voldemort.store.routed.HedgedReadPolicy;
 import voldemort.store.routed.Pipeline;
 import voldemort.store.routed.Response;
 import voldemort.store.routed.Pipeline.Event;
 import voldemort.utils.ByteArray;
-
+import voldemort.utils.Time;
+
+/**
+ * Sends a request to the preferred number of nodes in parallel and completes
+ * as soon as enough of them have succeeded, or all of them have answered, or
+ * the timeout runs out.
+ * <p/>
+ * By default the action waits for the preferred number of successes. If it is
+ * set to complete on the required number instead, the responses that arrive
+ * afterwards are given to a {@link LateResponseHandler}, so that for example
+ * they can still be read repaired.
+ * <p/>
+ * With a {@link HedgedReadPolicy}, if not enough nodes have succeeded after
+ * the policy's delay, the request is also sent to the next node, and so on for
+ * each further delay, until the nodes run out.
+ * <p/>
+ * In an asynchronous pipeline the action returns once the requests are
+ * submitted, and completes from the request callbacks or its timeout.
+ */
 public class PerformParallelRequests<V, PD extends BasicPipelineData<V>> extends
-        AbstractKeyBasedAction<ByteArray, V, PD> {
+        AbstractKeyBasedAction<ByteArray, V, PD> implements NonblockingAction {
 
     private final int preferred;
 
@@ -56,6 +79,12 @@ public class PerformParallelRequests<V, PD extends BasicPipelineData<V>> extends
 
     private final Event insufficientZonesEvent;
 
+    private final boolean completeOnRequired;
+
+    private final HedgedReadPolicy hedgedReadPolicy;
+
+    private final LateResponseHandler<ByteArray, V> lateResponseHandler;
+
     public PerformParallelRequests(PD pipelineData,
                                    Event completeEvent,
                                    ByteArray key,
@@ -67,6 +96,45 @@ public class PerformParallelRequests<V, PD extends BasicPipelineData<V>> extends
                                    NonblockingStoreRequest storeRequest,
                                    Event insufficientSuccessesEvent,
                                    Event insufficientZonesEvent) {
+        this(pipelineData,
+             completeEvent,
+             key,
+             failureDetector,
+             preferred,
+             required,
+             timeoutMs,
+             nonblockingStores,
+             storeRequest,
+             insufficientSuccessesEvent,
+             insufficientZonesEvent,
+             false,
+             null,
+             null);
+    }
+
+    /**
+     * @param completeOnRequired Complete once the required number of nodes
+     *        have succeeded, rather than the preferred number
+     * @param hedgedReadPolicy The policy deciding when to send the request to
+     *        further nodes, or null to never do so
+     * @param lateResponseHandler The handler for successful responses arriving
+     *        after the action has completed, or null to only record them with
+     *        the failure detector
+     */
+    public PerformParallelRequests(PD pipelineData,
+                                   Event completeEvent,
+                                   ByteArray key,
+                                   FailureDetector failureDetector,
+                                   int preferred,
+                                   int required,
+                                   long timeoutMs,
+                                   Map<Integer, NonblockingStore> nonblockingStores,
+                                   NonblockingStoreRequest storeRequest,
+                                   Event insufficientSuccessesEvent,
+                                   Event insufficientZonesEvent,
+                                   boolean completeOnRequired,
+                                   HedgedReadPolicy hedgedReadPolicy,
+                                   LateResponseHandler<ByteArray, V> lateResponseHandler) {
         super(pipelineData, completeEvent, key);
         this.failureDetector = failureDetector;
         this.preferred = preferred;
@@ -76,66 +144,132 @@ public class PerformParallelRequests<V, PD extends BasicPipelineData<V>> extends
         this.storeRequest = storeRequest;
         this.insufficientSuccessesEvent = insufficientSuccessesEvent;
         this.insufficientZonesEvent = insufficientZonesEvent;
+        this.completeOnRequired = completeOnRequired;
+        this.hedgedReadPolicy = hedgedReadPolicy;
+        this.lateResponseHandler = lateResponseHandler;
     }
 
-    @SuppressWarnings("unchecked")
     public void execute(final Pipeline pipeline) {
         List<Node> nodes = pipelineData.getNodes();
         int attempts = Math.min(preferred, nodes.size());
-        final Map<Integer, Response<ByteArray, Object>> responses = new ConcurrentHashMap<Integer, Response<ByteArray, Object>>();
-        final CountDownLatch latch = new CountDownLatch(attempts);
 
         if(logger.isTraceEnabled())
             logger.trace("Attempting " + attempts + " " + pipeline.getOperation().getSimpleName()
                          + " operations in parallel");
 
-        for(int i = 0; i < attempts; i++) {
-            final Node node = nodes.get(i);
-            pipelineData.incrementNodeIndex();
-
-            NonblockingStoreCallback callback = new NonblockingStoreCallback() {
-
-                public void requestComplete(Object result, long requestTime) {
-                    if(logger.isTraceEnabled())
-                        logger.trace(pipeline.getOperation().getSimpleName()
-                                     + " response received (" + requestTime + " ms.) from node "
-                                     + node.getId());
+        if(pipeline.isAsync())
+            executeAsync(pipeline, attempts);
+        else
+            executeSync(pipeline, attempts);
+    }
 
-                    responses.put(node.getId(), new Response<ByteArray, Object>(node,
-                                                                                key,
-                                                                                result,
-                                                                                requestTime));
-                    latch.countDown();
+    private void executeSync(Pipeline pipeline, int attempts) {
+        long startNs = System.nanoTime();
+        List<Node> nodes = pipelineData.getNodes();
+        ResponseQueue responses = new ResponseQueue(null);
+
+        for(int i = 0; i < attempts; i++)
+            submit(nodes.get(i), pipeline, responses);
+
+        long hedgeDelayNs = getHedgeDelayNs();
+        long nextHedgeNs = startNs + hedgeDelayNs;
+        int answered = 0;
+
+        while(!isDone(answered, attempts)) {
+            long nowNs = System.nanoTime();
+            long remainingNs = (timeoutMs * Time.NS_PER_MS) - (nowNs - startNs);
+            if(remainingNs <= 0)
+                break;
+
+            if(hedgeDelayNs > 0 && pipelineData.getNodeIndex() < nodes.size()) {
+                if(nowNs >= nextHedgeNs) {
+                    hedge(pipeline, responses);
+                    attempts++;
+                    nextHedgeNs = nowNs + hedgeDelayNs;
+                    continue;
                 }
+                remainingNs = Math.min(remainingNs, nextHedgeNs - nowNs);
+            }
 
-            };
+            Response<ByteArray, Object> response;
+            try {
+                response = responses.poll(remainingNs);
+            } catch(InterruptedException e) {
+                if(logger.isEnabledFor(Level.WARN))
+                    logger.warn(e, e);
+                break;
+            }
 
-            if(logger.isTraceEnabled())
-                logger.trace("Submitting " + pipeline.getOperation().getSimpleName()
-                             + " request on node " + node.getId());
+            if(response == null)
+                continue;
 
-            NonblockingStore store = nonblockingStores.get(node.getId());
-            storeRequest.submit(node, store, callback);
+            answered++;
+            if(processResponse(response, pipeline)) {
+                completeResponses(responses, null);
+                return;
+            }
         }
 
-        try {
-            latch.await(timeoutMs, TimeUnit.MILLISECONDS);
-        } catch(InterruptedException e) {
-            if(logger.isEnabledFor(Level.WARN))
-                logger.warn(e, e);
-        }
+        complete(pipeline, responses);
+    }
 
-        for(Response<ByteArray, Object> response: responses.values()) {
-            if(response.getValue() instanceof Exception) {
-                if(handleResponseError(response, pipeline, failureDetector))
-                    return;
-            } else {
-                pipelineData.incrementSuccesses();
-                pipelineData.getResponses().add((Response<ByteArray, V>) response);
-                failureDetector.recordSuccess(response.getNode(), response.getRequestTime());
-                pipelineData.getZoneResponses().add(response.getNode().getZoneId());
-            }
-        }
+    private void executeAsync(Pipeline pipeline, int attempts) {
+        AsyncRequests requests = new AsyncRequests(pipeline, attempts);
+        List<Node> nodes = pipelineData.getNodes();
+
+        for(int i = 0; i < attempts; i++)
+            submit(nodes.get(i), pipeline, requests.responses);
+
+        requests.start();
+    }
+
+    /*
+     * Whether the action can stop waiting for responses
+     */
+    private boolean isDone(int answered, int attempts) {
+        if(answered >= attempts)
+            return true;
+
+        int successesWanted = completeOnRequired ? required : preferred;
+        return pipelineData.getSuccesses() >= successesWanted && isZonesSatisfied();
+    }
+
+    private long getHedgeDelayNs() {
+        if(hedgedReadPolicy == null || hedgedReadPolicy.getDelayMs() < 0)
+            return -1;
+        return Math.max(1, hedgedReadPolicy.getDelayMs()) * Time.NS_PER_MS;
+    }
+
+    private void hedge(Pipeline pipeline, ResponseQueue responses) {
+        Node node = pipelineData.getNodes().get(pipelineData.getNodeIndex());
+
+        if(logger.isDebugEnabled())
+            logger.debug("Hedging " + pipeline.getOperation().getSimpleName() + " request on node "
+                         + node.getId() + " after " + hedgedReadPolicy.getDelayMs() + " ms.");
+
+        submit(node, pipeline, responses);
+    }
+
+    /*
+     * Adds the response to the pipeline data, returning true if the response
+     * is a fatal error
+     */
+    @SuppressWarnings("unchecked")
+    private boolean processResponse(Response<ByteArray, Object> response, Pipeline pipeline) {
+        if(response.getValue() instanceof Exception)
+            return handleResponseError(response, pipeline, failureDetector);
+
+        pipelineData.incrementSuccesses();
+        pipelineData.getResponses().add((Response<ByteArray, V>) response);
+        failureDetector.recordSuccess(response.getNode(), response.getRequestTime());
+        pipelineData.getZoneResponses().add(response.getNode().getZoneId());
+        return false;
+    }
+
+    private void complete(Pipeline pipeline, ResponseQueue responses) {
+        completeResponses(responses,
+                          lateResponseHandler != null ? new ArrayList<Response<ByteArray, V>>(pipelineData.getResponses())
+                                                     : null);
 
         if(pipelineData.getSuccesses() < required) {
             if(insufficientSuccessesEvent != null) {
@@ -171,6 +305,8 @@ public class PerformParallelRequests<V, PD extends BasicPipelineData<V>> extends
                                                                                           + "s required zone, but only "
                                                                                           + zonesSatisfied
                                                                                           + " succeeded"));
+
+                        pipeline.addEvent(Event.ERROR);
                     }
 
                 }
@@ -181,4 +317,261 @@ public class PerformParallelRequests<V, PD extends BasicPipelineData<V>> extends
         }
     }
 
+    private boolean isZonesSatisfied() {
+        return pipelineData.getZonesRequired() == null
+               || pipelineData.getZoneResponses().size() >= pipelineData.getZonesRequired() + 1;
+    }
+
+    private void submit(final Node node, final Pipeline pipeline, final ResponseQueue responses) {
+        pipelineData.incrementNodeIndex();
+
+        final NonblockingStoreCallback callback = new NonblockingStoreCallback() {
+
+            public void requestComplete(Object result, long requestTime) {
+                if(logger.isTraceEnabled())
+                    logger.trace(pipeline.getOperation().getSimpleName()
+                                 + " response received (" + requestTime + " ms.) from node "
+                                 + node.getId());
+
+                if(hedgedReadPolicy != null && !(result instanceof Exception))
+                    hedgedReadPolicy.recordRequestTime(requestTime);
+
+                Response<ByteArray, Object> response = new Response<ByteArray, Object>(node,
+                                                                                       key,
+                                                                                       result,
+                                                                                       requestTime);
+                if(!responses.offer(response))
+                    handleLateResponse(response, responses.getCompletedResponses());
+            }
+
+        };
+
+        if(logger.isTraceEnabled())
+            logger.trace("Submitting " + pipeline.getOperation().getSimpleName()
+                         + " request on node " + node.getId());
+
+        final NonblockingStore store = nonblockingStores.get(node.getId());
+
+        // Hedged requests are submitted from the thread running the action,
+        // which may be completing another request
+        pipeline.submitRequest(new Runnable() {
+
+            public void run() {
+                try {
+                    storeRequest.submit(node, store, callback);
+                } catch(Exception e) {
+                    callback.requestComplete(e, 0);
+                }
+            }
+
+        });
+    }
+
+    private void completeResponses(ResponseQueue responses,
+                                   List<Response<ByteArray, V>> completedResponses) {
+        for(Response<ByteArray, Object> response: responses.complete(completedResponses))
+            handleLateResponse(response, completedResponses);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void handleLateResponse(Response<ByteArray, Object> response,
+                                    List<Response<ByteArray, V>> completedResponses) {
+        if(response.getValue() instanceof UnreachableStoreException) {
+            failureDetector.recordException(response.getNode(),
+                                            response.getRequestTime(),
+                                            (UnreachableStoreException) response.getValue());
+        } else if(!(response.getValue() instanceof Exception)) {
+            failureDetector.recordSuccess(response.getNode(), response.getRequestTime());
+
+            if(lateResponseHandler != null && completedResponses != null) {
+                try {
+                    lateResponseHandler.handleLateResponse(completedResponses,
+                                                           (Response<ByteArray, V>) response);
+                } catch(Exception e) {
+                    if(logger.isEnabledFor(Level.WARN))
+                        logger.warn("Error handling late response from node "
+                                    + response.getNode().getId(), e);
+                }
+            }
+        }
+    }
+
+    /*
+     * The responses received while the action is waiting. Once the action has
+     * completed, responses are no longer queued and the responses the action
+     * completed with are kept for the late responses to be handled against.
+     */
+    private class ResponseQueue {
+
+        private final Queue<Response<ByteArray, Object>> queue = new LinkedList<Response<ByteArray, Object>>();
+
+        private boolean isComplete = false;
+
+        private List<Response<ByteArray, V>> completedResponses;
+
+        private final Runnable listener;
+
+        /**
+         * @param listener Run after each response is queued, or null
+         */
+        public ResponseQueue(Runnable listener) {
+            this.listener = listener;
+        }
+
+        public boolean offer(Response<ByteArray, Object> response) {
+            synchronized(this) {
+                if(isComplete)
+                    return false;
+
+                queue.add(response);
+                notifyAll();
+            }
+
+            if(listener != null)
+                listener.run();
+            return true;
+        }
+
+        public synchronized Response<ByteArray, Object> poll() {
+            return queue.poll();
+        }
+
+        public synchronized Response<ByteArray, Object> poll(long timeoutNs)
+                throws InterruptedException {
+            long deadlineNs = System.nanoTime() + timeoutNs;
+            while(queue.isEmpty()) {
+                long remainingNs = deadlineNs - System.nanoTime();
+                if(remainingNs <= 0)
+                    return null;
+                TimeUnit.NANOSECONDS.timedWait(this, remainingNs);
+            }
+            return queue.poll();
+        }
+
+        public synchronized List<Response<ByteArray, Object>> complete(List<Response<ByteArray, V>> completedResponses) {
+            this.isComplete = true;
+            this.completedResponses = completedResponses;
+            List<Response<ByteArray, Object>> remaining = new ArrayList<Response<ByteArray, Object>>(queue);
+            queue.clear();
+            return remaining;
+        }
+
+        public synchronized List<Response<ByteArray, V>> getCompletedResponses() {
+            return completedResponses;
+        }
+
+    }
+
+    /*
+     * The state of the action in an asynchronous pipeline. Each response, the
+     * timeout and each hedge delay run the action's work, one run at a time,
+     * so that the pipeline data is only changed by one thread at once.
+     */
+    private class AsyncRequests implements Runnable {
+
+        private final Pipeline pipeline;
+
+        private final ResponseQueue responses;
+
+        private final AtomicInteger pendingRuns = new AtomicInteger(0);
+
+        private final long hedgeDelayNs;
+
+        private int attempts;
+
+        private int answered = 0;
+
+        private boolean isComplete = false;
+
+        private volatile boolean isTimedOut = false;
+
+        private volatile boolean isHedgeDue = false;
+
+        private volatile ScheduledFuture<?> timeout;
+
+        private volatile ScheduledFuture<?> hedge;
+
+        private AsyncRequests(Pipeline pipeline, int attempts) {
+            this.pipeline = pipeline;
+            this.attempts = attempts;
+            this.responses = new ResponseQueue(this);
+            this.hedgeDelayNs = getHedgeDelayNs();
+        }
+
+        private void start() {
+            timeout = pipeline.schedule(new Runnable() {
+
+                public void run() {
+                    isTimedOut = true;
+                    AsyncRequests.this.run();
+                }
+
+            }, timeoutMs, TimeUnit.MILLISECONDS);
+
+            scheduleHedge();
+            run();
+        }
+
+        private void scheduleHedge() {
+            if(hedgeDelayNs <= 0 || pipelineData.getNodeIndex() >= pipelineData.getNodes().size())
+                return;
+
+            hedge = pipeline.schedule(new Runnable() {
+
+                public void run() {
+                    isHedgeDue = true;
+                    AsyncRequests.this.run();
+                }
+
+            }, hedgeDelayNs, TimeUnit.NANOSECONDS);
+        }
+
+        public void run() {
+            if(pendingRuns.getAndIncrement() != 0)
+                return;
+
+            do {
+                if(!isComplete)
+                    advance();
+            } while(pendingRuns.decrementAndGet() != 0);
+        }
+
+        private void advance() {
+            Response<ByteArray, Object> response;
+            while((response = responses.poll()) != null) {
+                answered++;
+                if(processResponse(response, pipeline)) {
+                    finish();
+                    completeResponses(responses, null);
+                    return;
+                }
+            }
+
+            if(isTimedOut || isDone(answered, attempts)) {
+                finish();
+                complete(pipeline, responses);
+                return;
+            }
+
+            if(isHedgeDue) {
+                isHedgeDue = false;
+                if(pipelineData.getNodeIndex() < pipelineData.getNodes().size()) {
+                    attempts++;
+                    hedge(pipeline, responses);
+                    scheduleHedge();
+                }
+            }
+        }
+
+        private void finish() {
+            isComplete = true;
+
+            if(timeout != null)
+                timeout.cancel(false);
+            if(hedge != null)
+                hedge.cancel(false);
+        }
+
+    }
+
 }
@@ -0,0 +1,312 @@
+/*
+ * Copyright 2010 LinkedIn, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.routed.action;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.mutable.MutableInt;
+import org.apache.log4j.Level;
+
+import voldemort.cluster.Node;
+import voldemort.cluster.failuredetector.FailureDetector;
+import voldemort.store.InsufficientOperationalNodesException;
+import voldemort.store.UnreachableStoreException;
+import voldemort.store.nonblockingstore.NonblockingStore;
+import voldemort.store.nonblockingstore.NonblockingStoreCallback;
+import voldemort.store.routed.Pipeline;
+import voldemort.store.routed.PutAllPipelineData;
+import voldemort.store.routed.Response;
+import voldemort.store.routed.Pipeline.Event;
+import voldemort.utils.ByteArray;
+import voldemort.utils.Time;
+import voldemort.versioning.VectorClock;
+import voldemort.versioning.Versioned;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Puts the values of a put all with one request per node rather than one per
+ * key.
+ * <p/>
+ * As for a single put, each value is first written to a master node, with its
+ * version incremented for that node; the keys are grouped by their master and
+ * a key whose master fails moves on to its next node. The versioned copies are
+ * then written to the remaining nodes of every key, again grouped by node, in
+ * parallel. Keys whose versions are obsolete on their master are not written
+ * further and are reported as the result. Finally the versions of the caller
+ * are incremented for the master of each key.
+ */
+public class PerformPutAllRequests extends
+        AbstractAction<Map<ByteArray, Versioned<byte[]>>, Set<ByteArray>, PutAllPipelineData> {
+
+    private final Map<ByteArray, Versioned<byte[]>> entries;
+
+    private final FailureDetector failureDetector;
+
+    private final int required;
+
+    private final long timeoutMs;
+
+    private final Map<Integer, NonblockingStore> nonblockingStores;
+
+    private final Time time;
+
+    public PerformPutAllRequests(PutAllPipelineData pipelineData,
+                                 Event completeEvent,
+                                 Map<ByteArray, Versioned<byte[]>> entries,
+                                 FailureDetector failureDetector,
+                                 int required,
+                                 long timeoutMs,
+                                 Map<Integer, NonblockingStore> nonblockingStores,
+                                 Time time) {
+        super(pipelineData, completeEvent);
+        this.entries = entries;
+        this.failureDetector = failureDetector;
+        this.required = required;
+        this.timeoutMs = timeoutMs;
+        this.nonblockingStores = nonblockingStores;
+        this.time = time;
+    }
+
+    public void execute(Pipeline pipeline) {
+        if(!putMasters(pipeline) || !putReplicas(pipeline))
+            return;
+
+        for(Entry<ByteArray, Node> entry: pipelineData.getKeyToMaster().entrySet()) {
+            VectorClock versionedClock = (VectorClock) entries.get(entry.getKey()).getVersion();
+            versionedClock.incrementVersion(entry.getValue().getId(), time.getMilliseconds());
+        }
+
+        pipeline.addEvent(completeEvent);
+    }
+
+    /*
+     * Writes every key to the first of its nodes that accepts it, a round of
+     * requests at a time
+     */
+    private boolean putMasters(Pipeline pipeline) {
+        Map<ByteArray, List<Node>> keyToNodesMap = pipelineData.getKeyToNodesMap();
+        Map<ByteArray, Integer> keyToNodeIndex = Maps.newHashMap();
+        Set<ByteArray> pending = Sets.newHashSet(entries.keySet());
+
+        while(!pending.isEmpty()) {
+            Map<Node, Map<ByteArray, Versioned<byte[]>>> batches = Maps.newHashMap();
+
+            for(ByteArray key: pending) {
+                Integer nodeIndex = keyToNodeIndex.get(key);
+                List<Node> nodes = keyToNodesMap.get(key);
+
+                if(nodeIndex == null)
+                    nodeIndex = 0;
+
+                if(nodeIndex >= nodes.size()) {
+                    pipelineData.setFatalError(new InsufficientOperationalNodesException("No master node succeeded for key "
+                                                                                                 + key,
+                                                                                         pipelineData.getFailures()));
+                    pipeline.addEvent(Event.ERROR);
+                    return false;
+                }
+
+                Node node = nodes.get(nodeIndex);
+                keyToNodeIndex.put(key, nodeIndex + 1);
+
+                VectorClock versionedClock = (VectorClock) entries.get(key).getVersion();
+                Versioned<byte[]> versionedCopy = new Versioned<byte[]>(entries.get(key)
+                                                                               .getValue(),
+                                                                        versionedClock.incremented(node.getId(),
+                                                                                                   time.getMilliseconds()));
+                getBatch(batches, node).put(key, versionedCopy);
+            }
+
+            pending = Sets.newHashSet();
+
+            for(Response<Map<ByteArray, Versioned<byte[]>>, Object> response: submit(pipeline,
+                                                                                     batches)) {
+                Map<ByteArray, Versioned<byte[]>> batch = response.getKey();
+
+                if(response.getValue() instanceof Exception) {
+                    if(handleResponseError(response, pipeline, failureDetector))
+                        return false;
+
+                    pending.addAll(batch.keySet());
+                    continue;
+                }
+
+                failureDetector.recordSuccess(response.getNode(), response.getRequestTime());
+                Set<?> obsoleteKeys = (Set<?>) response.getValue();
+
+                for(Entry<ByteArray, Versioned<byte[]>> entry: batch.entrySet()) {
+                    if(obsoleteKeys.contains(entry.getKey())) {
+                        pipelineData.getObsoleteKeys().add(entry.getKey());
+                    } else {
+                        pipelineData.getKeyToMaster().put(entry.getKey(), response.getNode());
+                        pipelineData.getKeyToVersionedCopy().put(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /*
+     * Writes the versioned copy of every key to the nodes after its master
+     */
+    private boolean putReplicas(Pipeline pipeline) {
+        Map<Node, Map<ByteArray, Versioned<byte[]>>> batches = Maps.newHashMap();
+        Map<ByteArray, MutableInt> keyToSuccessCount = Maps.newHashMap();
+
+        for(Entry<ByteArray, Node> entry: pipelineData.getKeyToMaster().entrySet()) {
+            ByteArray key = entry.getKey();
+            List<Node> nodes = pipelineData.getKeyToNodesMap().get(key);
+            keyToSuccessCount.put(key, new MutableInt(1));
+
+            for(int i = nodes.indexOf(entry.getValue()) + 1; i < nodes.size(); i++)
+                getBatch(batches, nodes.get(i)).put(key,
+                                                    pipelineData.getKeyToVersionedCopy().get(key));
+        }
+
+        for(Response<Map<ByteArray, Versioned<byte[]>>, Object> response: submit(pipeline, batches)) {
+            if(response.getValue() instanceof Exception) {
+                if(handleResponseError(response, pipeline, failureDetector))
+                    return false;
+
+                continue;
+            }
+
+            failureDetector.recordSuccess(response.getNode(), response.getRequestTime());
+            Set<?> obsoleteKeys = (Set<?>) response.getValue();
+
+            for(ByteArray key: response.getKey().keySet()) {
+                if(!obsoleteKeys.contains(key))
+                    keyToSuccessCount.get(key).increment();
+            }
+        }
+
+        for(Entry<ByteArray, MutableInt> entry: keyToSuccessCount.entrySet()) {
+            int successes = entry.getValue().intValue();
+
+            if(successes < required) {
+                pipelineData.setFatalError(new InsufficientOperationalNodesException(required
+                                                                                             + " "
+                                                                                             + pipeline.getOperation()
+                                                                                                       .getSimpleName()
+                                                                                             + "s required for key "
+                                                                                             + entry.getKey()
+                                                                                             + ", but only "
+                                                                                             + successes
+                                                                                             + " succeeded",
+                                                                                     pipelineData.getFailures()));
+                pipeline.addEvent(Event.ERROR);
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private Map<ByteArray, Versioned<byte[]>> getBatch(Map<Node, Map<ByteArray, Versioned<byte[]>>> batches,
+                                                       Node node) {
+        Map<ByteArray, Versioned<byte[]>> batch = batches.get(node);
+
+        if(batch == null) {
+            batch = Maps.newHashMap();
+            batches.put(node, batch);
+        }
+
+        return batch;
+    }
+
+    /*
+     * Submits the batches in parallel and waits for their responses until the
+     * pipeline times out. A node that has not answered by then is recorded as
+     * unreachable.
+     */
+    private Iterable<Response<Map<ByteArray, Versioned<byte[]>>, Object>> submit(final Pipeline pipeline,
+                                                                                  Map<Node, Map<ByteArray, Versioned<byte[]>>> batches) {
+        final Map<Node, Response<Map<ByteArray, Versioned<byte[]>>, Object>> responses = new ConcurrentHashMap<Node, Response<Map<ByteArray, Versioned<byte[]>>, Object>>();
+        final CountDownLatch latch = new CountDownLatch(batches.size());
+
+        for(Entry<Node, Map<ByteArray, Versioned<byte[]>>> entry: batches.entrySet()) {
+            final Node node = entry.getKey();
+            final Map<ByteArray, Versioned<byte[]>> batch = entry.getValue();
+
+            NonblockingStoreCallback callback = new NonblockingStoreCallback() {
+
+                public void requestComplete(Object result, long requestTime) {
+                    if(logger.isTraceEnabled())
+                        logger.trace(pipeline.getOperation().getSimpleName()
+                                     + " response received (" + requestTime + " ms.) from node "
+                                     + node.getId());
+
+                    responses.put(node, new Response<Map<ByteArray, Versioned<byte[]>>, Object>(node,
+                                                                                                 batch,
+                                                                                                 result,
+                                                                                                 requestTime));
+                    latch.countDown();
+                }
+
+            };
+
+            if(logger.isTraceEnabled())
+                logger.trace("Submitting " + pipeline.getOperation().getSimpleName() + " of "
+                             + batch.size() + " keys on node " + node.getId());
+
+            try {
+                nonblockingStores.get(node.getId()).submitPutAllRequest(batch, callback);
+            } catch(Exception e) {
+                callback.requestComplete(e, 0);
+            }
+        }
+
+        try {
+            long ellapsedNs = System.nanoTime() - pipelineData.getStartTimeNs();
+            long remainingNs = (timeoutMs * Time.NS_PER_MS) - ellapsedNs;
+            if(remainingNs > 0)
+                latch.await(remainingNs, TimeUnit.NANOSECONDS);
+        } catch(InterruptedException e) {
+            if(logger.isEnabledFor(Level.WARN))
+                logger.warn(e, e);
+        }
+
+        for(Entry<Node, Map<ByteArray, Versioned<byte[]>>> entry: batches.entrySet()) {
+            Node node = entry.getKey();
+            if(!responses.containsKey(node)) {
+                UnreachableStoreException e = new UnreachableStoreException(pipeline.getOperation()
+                                                                                    .getSimpleName()
+                                                                            + " on node "
+                                                                            + node.getId()
+                                                                            + " timed out");
+                responses.put(node,
+                              new Response<Map<ByteArray, Versioned<byte[]>>, Object>(node,
+                                                                                       entry.getValue(),
+                                                                                       e,
+                                                                                       timeoutMs));
+            }
+        }
+
+        return responses.values();
+    }
+
+}
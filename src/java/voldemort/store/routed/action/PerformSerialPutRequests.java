@@ -18,22 +18,50 @@ package voldemort.store.routed.action;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import voldemort.cluster.Node;
 import voldemort.cluster.failuredetector.FailureDetector;
 import voldemort.store.InsufficientOperationalNodesException;
 import voldemort.store.InsufficientZoneResponsesException;
 import voldemort.store.Store;
+import voldemort.store.nonblockingstore.NonblockingStore;
+import voldemort.store.nonblockingstore.NonblockingStoreCallback;
 import voldemort.store.routed.Pipeline;
 import voldemort.store.routed.PutPipelineData;
 import voldemort.store.routed.Pipeline.Event;
 import voldemort.utils.ByteArray;
 import voldemort.utils.Time;
 import voldemort.versioning.VectorClock;
+import voldemort.versioning.Version;
 import voldemort.versioning.Versioned;
 
+/**
+ * Puts the value on the nodes one at a time until one succeeds, which becomes
+ * the master whose clock is used for the remaining nodes.
+ * <p/>
+ * In an asynchronous pipeline the puts are made through the nonblocking
+ * stores, each from the callback of the last, and the action fails if no
+ * master has succeeded within the timeout.
+ * <p/>
+ * A blind put has a value but no version. The master is sent a blind put, and
+ * the version it stores the value with is used for the remaining nodes; a
+ * master that cannot do blind puts is asked for its versions, which are merged
+ * and incremented for it instead. Blind puts are always made through the
+ * nonblocking stores, and in a synchronous pipeline the action waits for them.
+ * <p/>
+ * The puts after the first are never submitted from the callback threads, as
+ * checking out a connection there could wait on the selector that completes
+ * it. They are submitted through {@link Pipeline#submitRequest(Runnable)} in
+ * an asynchronous pipeline, and by the waiting thread in a synchronous one.
+ */
 public class PerformSerialPutRequests extends
-        AbstractKeyBasedAction<ByteArray, Void, PutPipelineData> {
+        AbstractKeyBasedAction<ByteArray, Void, PutPipelineData> implements NonblockingAction {
 
     private final FailureDetector failureDetector;
 
@@ -43,10 +71,16 @@ public class PerformSerialPutRequests extends
 
     private final Versioned<byte[]> versioned;
 
+    private final byte[] value;
+
     private final Time time;
 
     private final Event masterDeterminedEvent;
 
+    private final Map<Integer, NonblockingStore> nonblockingStores;
+
+    private final long timeoutMs;
+
     public PerformSerialPutRequests(PutPipelineData pipelineData,
                                     Event completeEvent,
                                     ByteArray key,
@@ -56,16 +90,119 @@ public class PerformSerialPutRequests extends
                                     Versioned<byte[]> versioned,
                                     Time time,
                                     Event masterDeterminedEvent) {
+        this(pipelineData,
+             completeEvent,
+             key,
+             failureDetector,
+             stores,
+             null,
+             required,
+             versioned,
+             time,
+             masterDeterminedEvent,
+             0);
+    }
+
+    /**
+     * @param nonblockingStores The stores used in an asynchronous pipeline
+     * @param timeoutMs The time an asynchronous pipeline waits for a master
+     */
+    public PerformSerialPutRequests(PutPipelineData pipelineData,
+                                    Event completeEvent,
+                                    ByteArray key,
+                                    FailureDetector failureDetector,
+                                    Map<Integer, Store<ByteArray, byte[]>> stores,
+                                    Map<Integer, NonblockingStore> nonblockingStores,
+                                    int required,
+                                    Versioned<byte[]> versioned,
+                                    Time time,
+                                    Event masterDeterminedEvent,
+                                    long timeoutMs) {
+        this(pipelineData,
+             completeEvent,
+             key,
+             failureDetector,
+             stores,
+             nonblockingStores,
+             required,
+             versioned,
+             null,
+             time,
+             masterDeterminedEvent,
+             timeoutMs);
+    }
+
+    /**
+     * Creates the action for a blind put
+     * 
+     * @param value The value to put, without a version
+     * @param timeoutMs The time the action waits for a master
+     */
+    public PerformSerialPutRequests(PutPipelineData pipelineData,
+                                    Event completeEvent,
+                                    ByteArray key,
+                                    FailureDetector failureDetector,
+                                    Map<Integer, NonblockingStore> nonblockingStores,
+                                    int required,
+                                    byte[] value,
+                                    Time time,
+                                    Event masterDeterminedEvent,
+                                    long timeoutMs) {
+        this(pipelineData,
+             completeEvent,
+             key,
+             failureDetector,
+             null,
+             nonblockingStores,
+             required,
+             null,
+             value,
+             time,
+             masterDeterminedEvent,
+             timeoutMs);
+    }
+
+    private PerformSerialPutRequests(PutPipelineData pipelineData,
+                                     Event completeEvent,
+                                     ByteArray key,
+                                     FailureDetector failureDetector,
+                                     Map<Integer, Store<ByteArray, byte[]>> stores,
+                                     Map<Integer, NonblockingStore> nonblockingStores,
+                                     int required,
+                                     Versioned<byte[]> versioned,
+                                     byte[] value,
+                                     Time time,
+                                     Event masterDeterminedEvent,
+                                     long timeoutMs) {
         super(pipelineData, completeEvent, key);
         this.failureDetector = failureDetector;
         this.stores = stores;
+        this.nonblockingStores = nonblockingStores;
         this.required = required;
         this.versioned = versioned;
+        this.value = value;
         this.time = time;
         this.masterDeterminedEvent = masterDeterminedEvent;
+        this.timeoutMs = timeoutMs;
     }
 
     public void execute(Pipeline pipeline) {
+        if(pipeline.isAsync() || isBlind()) {
+            if(nonblockingStores == null)
+                throw new IllegalStateException("No nonblocking stores to perform an asynchronous put");
+
+            if(logger.isDebugEnabled())
+                logger.debug("Performing serial put requests to determine master");
+
+            AsyncPut put = new AsyncPut(pipeline);
+            put.start();
+
+            if(!pipeline.isAsync())
+                put.await();
+
+            return;
+        }
+
         int currentNode = 0;
         List<Node> nodes = pipelineData.getNodes();
 
@@ -76,10 +213,7 @@ public class PerformSerialPutRequests extends
             Node node = nodes.get(currentNode);
             pipelineData.incrementNodeIndex();
 
-            VectorClock versionedClock = (VectorClock) versioned.getVersion();
-            final Versioned<byte[]> versionedCopy = new Versioned<byte[]>(versioned.getValue(),
-                                                                          versionedClock.incremented(node.getId(),
-                                                                                                     time.getMilliseconds()));
+            final Versioned<byte[]> versionedCopy = incremented(node);
 
             if(logger.isTraceEnabled())
                 logger.trace("Attempt #" + (currentNode + 1) + " to perform put (node "
@@ -90,15 +224,7 @@ public class PerformSerialPutRequests extends
             try {
                 stores.get(node.getId()).put(key, versionedCopy);
                 long requestTime = (System.nanoTime() - start) / Time.NS_PER_MS;
-                pipelineData.incrementSuccesses();
-                failureDetector.recordSuccess(node, requestTime);
-
-                if(logger.isTraceEnabled())
-                    logger.trace("Put on node " + node.getId() + " succeeded, using as master");
-
-                pipelineData.setMaster(node);
-                pipelineData.setVersionedCopy(versionedCopy);
-                pipelineData.getZoneResponses().add(node.getZoneId());
+                setMaster(node, versionedCopy, requestTime);
                 break;
             } catch(Exception e) {
                 long requestTime = (System.nanoTime() - start) / Time.NS_PER_MS;
@@ -108,6 +234,39 @@ public class PerformSerialPutRequests extends
             }
         }
 
+        completeMaster(pipeline, currentNode);
+    }
+
+    private boolean isBlind() {
+        return versioned == null;
+    }
+
+    private Versioned<byte[]> incremented(Node node) {
+        VectorClock versionedClock = (VectorClock) versioned.getVersion();
+        return new Versioned<byte[]>(versioned.getValue(),
+                                     versionedClock.incremented(node.getId(),
+                                                                time.getMilliseconds()));
+    }
+
+    private void setMaster(Node node, Versioned<byte[]> versionedCopy, long requestTime) {
+        pipelineData.incrementSuccesses();
+        failureDetector.recordSuccess(node, requestTime);
+
+        if(logger.isTraceEnabled())
+            logger.trace("Put on node " + node.getId() + " succeeded, using as master");
+
+        pipelineData.setMaster(node);
+        pipelineData.setVersionedCopy(versionedCopy);
+        pipelineData.getZoneResponses().add(node.getZoneId());
+    }
+
+    /*
+     * Adds the next event once the nodes up to and including currentNode have
+     * been tried
+     */
+    private void completeMaster(Pipeline pipeline, int currentNode) {
+        List<Node> nodes = pipelineData.getNodes();
+
         if(pipelineData.getSuccesses() < 1) {
             List<Exception> failures = pipelineData.getFailures();
             pipelineData.setFatalError(new InsufficientOperationalNodesException("No master node succeeded!",
@@ -157,4 +316,250 @@ public class PerformSerialPutRequests extends
             pipeline.addEvent(masterDeterminedEvent);
         }
     }
+
+    /*
+     * The state of the action when it is performed through the nonblocking
+     * stores. Each put is submitted once the one before it completes;
+     * whichever of the last callback and the timeout comes first completes the
+     * action.
+     */
+    private class AsyncPut {
+
+        private final Pipeline pipeline;
+
+        private final AtomicBoolean isComplete = new AtomicBoolean(false);
+
+        private final CountDownLatch latch = new CountDownLatch(1);
+
+        private final BlockingQueue<Runnable> requests = new LinkedBlockingQueue<Runnable>();
+
+        private volatile Thread waitingThread;
+
+        private volatile ScheduledFuture<?> timeout;
+
+        private AsyncPut(Pipeline pipeline) {
+            this.pipeline = pipeline;
+        }
+
+        private void start() {
+            if(pipeline.isAsync()) {
+                timeout = pipeline.schedule(new Runnable() {
+
+                    public void run() {
+                        timeOut();
+                    }
+
+                }, timeoutMs, TimeUnit.MILLISECONDS);
+            } else {
+                waitingThread = Thread.currentThread();
+            }
+
+            submit(0);
+        }
+
+        /*
+         * Waits for the action to complete in a synchronous pipeline, making
+         * the requests handed over by the callbacks
+         */
+        private void await() {
+            long deadlineNs = System.nanoTime() + timeoutMs * Time.NS_PER_MS;
+
+            try {
+                while(latch.getCount() > 0) {
+                    long remainingNs = deadlineNs - System.nanoTime();
+                    if(remainingNs <= 0)
+                        break;
+
+                    Runnable request = requests.poll(remainingNs, TimeUnit.NANOSECONDS);
+                    if(request != null)
+                        request.run();
+                }
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            if(latch.getCount() > 0)
+                timeOut();
+        }
+
+        private void submitRequest(Runnable request) {
+            if(pipeline.isAsync())
+                pipeline.submitRequest(request);
+            else if(Thread.currentThread() == waitingThread)
+                request.run();
+            else
+                requests.add(request);
+        }
+
+        private void timeOut() {
+            if(!isComplete.compareAndSet(false, true))
+                return;
+
+            List<Exception> failures = pipelineData.getFailures();
+            pipelineData.setFatalError(new InsufficientOperationalNodesException("No master node succeeded in "
+                                                                                         + timeoutMs
+                                                                                         + " ms.",
+                                                                                 failures.size() > 0 ? failures.get(0)
+                                                                                                    : null));
+            pipeline.addEvent(Event.ERROR);
+            countDown();
+        }
+
+        private void submit(int currentNode) {
+            List<Node> nodes = pipelineData.getNodes();
+            if(currentNode >= nodes.size()) {
+                complete(currentNode);
+                return;
+            }
+
+            Node node = nodes.get(currentNode);
+            pipelineData.incrementNodeIndex();
+
+            if(logger.isTraceEnabled())
+                logger.trace("Attempt #" + (currentNode + 1) + " to perform put (node "
+                             + node.getId() + ")");
+
+            if(isBlind())
+                submitBlindPut(currentNode, node);
+            else
+                submitPut(currentNode, node, incremented(node));
+        }
+
+        private void submitPut(final int currentNode,
+                               final Node node,
+                               final Versioned<byte[]> versionedCopy) {
+            final NonblockingStoreCallback callback = new NonblockingStoreCallback() {
+
+                public void requestComplete(Object result, long requestTime) {
+                    if(isComplete.get())
+                        return;
+
+                    if(result instanceof Exception) {
+                        handleError((Exception) result, currentNode, node, requestTime);
+                    } else {
+                        setMaster(node, versionedCopy, requestTime);
+                        complete(currentNode);
+                    }
+                }
+
+            };
+
+            submitRequest(new Runnable() {
+
+                public void run() {
+                    try {
+                        nonblockingStores.get(node.getId()).submitPutRequest(key, versionedCopy, callback);
+                    } catch(Exception e) {
+                        callback.requestComplete(e, 0);
+                    }
+                }
+
+            });
+        }
+
+        private void submitBlindPut(final int currentNode, final Node node) {
+            final NonblockingStoreCallback callback = new NonblockingStoreCallback() {
+
+                public void requestComplete(Object result, long requestTime) {
+                    if(isComplete.get())
+                        return;
+
+                    if(result instanceof UnsupportedOperationException) {
+                        submitGetVersions(currentNode, node);
+                    } else if(result instanceof Exception) {
+                        handleError((Exception) result, currentNode, node, requestTime);
+                    } else {
+                        setMaster(node, new Versioned<byte[]>(value, (Version) result), requestTime);
+                        complete(currentNode);
+                    }
+                }
+
+            };
+
+            submitRequest(new Runnable() {
+
+                public void run() {
+                    try {
+                        nonblockingStores.get(node.getId()).submitBlindPutRequest(key, value, callback);
+                    } catch(Exception e) {
+                        callback.requestComplete(e, 0);
+                    }
+                }
+
+            });
+        }
+
+        /*
+         * Versions a blind put on a node that cannot do them: the versions of
+         * the node are merged and incremented for it.
+         */
+        private void submitGetVersions(final int currentNode, final Node node) {
+            final NonblockingStoreCallback callback = new NonblockingStoreCallback() {
+
+                @SuppressWarnings("unchecked")
+                public void requestComplete(Object result, long requestTime) {
+                    if(isComplete.get())
+                        return;
+
+                    if(result instanceof Exception) {
+                        handleError((Exception) result, currentNode, node, requestTime);
+                    } else {
+                        VectorClock clock = new VectorClock();
+                        for(Version version: (List<Version>) result)
+                            clock = clock.merge((VectorClock) version);
+                        clock.incrementVersion(node.getId(), time.getMilliseconds());
+                        submitPut(currentNode, node, new Versioned<byte[]>(value, clock));
+                    }
+                }
+
+            };
+
+            submitRequest(new Runnable() {
+
+                public void run() {
+                    try {
+                        nonblockingStores.get(node.getId()).submitGetVersionsRequest(key, callback);
+                    } catch(Exception e) {
+                        callback.requestComplete(e, 0);
+                    }
+                }
+
+            });
+        }
+
+        private void handleError(Exception e, int currentNode, Node node, long requestTime) {
+            if(!handleResponseError(e, node, requestTime, pipeline, failureDetector))
+                submit(currentNode + 1);
+            else if(isComplete.compareAndSet(false, true))
+                finish();
+        }
+
+        private void complete(int currentNode) {
+            if(!isComplete.compareAndSet(false, true))
+                return;
+
+            completeMaster(pipeline, currentNode);
+            finish();
+        }
+
+        private void finish() {
+            if(timeout != null)
+                timeout.cancel(false);
+
+            countDown();
+        }
+
+        private void countDown() {
+            latch.countDown();
+
+            // Wakes up the waiting thread
+            requests.add(new Runnable() {
+
+                public void run() {}
+
+            });
+        }
+
+    }
+
 }
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2010 LinkedIn, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.routed.action;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import voldemort.VoldemortException;
+import voldemort.cluster.Node;
+import voldemort.cluster.failuredetector.FailureDetector;
+import voldemort.routing.RoutingStrategy;
+import voldemort.store.routed.Pipeline;
+import voldemort.store.routed.PutAllPipelineData;
+import voldemort.store.routed.Pipeline.Event;
+import voldemort.utils.ByteArray;
+import voldemort.versioning.Versioned;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Finds the available nodes of every key of a put all.
+ */
+public class PutAllConfigureNodes extends
+        AbstractConfigureNodes<Map<ByteArray, Versioned<byte[]>>, Set<ByteArray>, PutAllPipelineData> {
+
+    private final Iterable<ByteArray> keys;
+
+    public PutAllConfigureNodes(PutAllPipelineData pipelineData,
+                                Event completeEvent,
+                                FailureDetector failureDetector,
+                                int required,
+                                RoutingStrategy routingStrategy,
+                                Iterable<ByteArray> keys) {
+        super(pipelineData, completeEvent, failureDetector, required, routingStrategy);
+        this.keys = keys;
+    }
+
+    public void execute(Pipeline pipeline) {
+        Map<ByteArray, List<Node>> keyToNodesMap = Maps.newHashMap();
+
+        for(ByteArray key: keys) {
+            try {
+                keyToNodesMap.put(key, getNodes(key));
+            } catch(VoldemortException e) {
+                pipelineData.setFatalError(e);
+                pipeline.addEvent(Event.ERROR);
+                return;
+            }
+        }
+
+        pipelineData.setKeyToNodesMap(keyToNodesMap);
+
+        pipeline.addEvent(completeEvent);
+    }
+
+}
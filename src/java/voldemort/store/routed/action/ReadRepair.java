@@ -18,24 +18,49 @@ package voldemort.store.routed.action;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.log4j.Level;
 
 import voldemort.store.nonblockingstore.NonblockingStore;
 import voldemort.store.routed.BasicPipelineData;
+import voldemort.store.routed.NodeValue;
 import voldemort.store.routed.ReadRepairer;
 import voldemort.store.routed.Response;
 import voldemort.store.routed.Pipeline.Event;
 import voldemort.utils.ByteArray;
 import voldemort.versioning.Versioned;
 
+import com.google.common.collect.Lists;
+
+/**
+ * Repairs the nodes that returned stale values for a get. Responses that
+ * arrive after the get has completed are repaired against the responses the
+ * get completed with, if an executor to run those repairs on is given.
+ */
 public class ReadRepair<PD extends BasicPipelineData<List<Versioned<byte[]>>>> extends
-        AbstractReadRepair<ByteArray, List<Versioned<byte[]>>, PD> {
+        AbstractReadRepair<ByteArray, List<Versioned<byte[]>>, PD> implements
+        LateResponseHandler<ByteArray, List<Versioned<byte[]>>> {
+
+    private final Executor lateRepairExecutor;
 
     public ReadRepair(PD pipelineData,
                       Event completeEvent,
                       int preferred,
                       Map<Integer, NonblockingStore> nonblockingStores,
                       ReadRepairer<ByteArray, byte[]> readRepairer) {
+        this(pipelineData, completeEvent, preferred, nonblockingStores, readRepairer, null);
+    }
+
+    public ReadRepair(PD pipelineData,
+                      Event completeEvent,
+                      int preferred,
+                      Map<Integer, NonblockingStore> nonblockingStores,
+                      ReadRepairer<ByteArray, byte[]> readRepairer,
+                      Executor lateRepairExecutor) {
         super(pipelineData, completeEvent, preferred, nonblockingStores, readRepairer);
+        this.lateRepairExecutor = lateRepairExecutor;
     }
 
     @Override
@@ -44,4 +69,32 @@ public class ReadRepair<PD extends BasicPipelineData<List<Versioned<byte[]>>>> e
             insertNodeValue(response.getNode(), response.getKey(), response.getValue());
     }
 
+    public void handleLateResponse(List<Response<ByteArray, List<Versioned<byte[]>>>> responses,
+                                   Response<ByteArray, List<Versioned<byte[]>>> lateResponse) {
+        if(lateRepairExecutor == null)
+            return;
+
+        final List<NodeValue<ByteArray, byte[]>> nodeValues = Lists.newArrayListWithExpectedSize(responses.size() + 1);
+        for(Response<ByteArray, List<Versioned<byte[]>>> response: responses)
+            insertNodeValue(nodeValues, response.getNode(), response.getKey(), response.getValue());
+        insertNodeValue(nodeValues,
+                        lateResponse.getNode(),
+                        lateResponse.getKey(),
+                        lateResponse.getValue());
+
+        try {
+            lateRepairExecutor.execute(new Runnable() {
+
+                public void run() {
+                    repair(nodeValues);
+                }
+
+            });
+        } catch(RejectedExecutionException e) {
+            if(logger.isEnabledFor(Level.WARN))
+                logger.warn("Read repair of late response from node "
+                            + lateResponse.getNode().getId() + " rejected: " + e.getMessage());
+        }
+    }
+
 }
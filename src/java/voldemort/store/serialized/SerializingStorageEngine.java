@@ -17,7 +17,9 @@
 package voldemort.store.serialized;
 
 import voldemort.serialization.Serializer;
+import voldemort.store.ExpiryIndex;
 import voldemort.store.StorageEngine;
+import voldemort.store.StoreCapabilityType;
 import voldemort.utils.ByteArray;
 import voldemort.utils.ClosableIterator;
 import voldemort.utils.Pair;
@@ -62,6 +64,23 @@ public class SerializingStorageEngine<K, V> extends SerializingStore<K, V> imple
         storageEngine.truncate();
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object getCapability(StoreCapabilityType capability) {
+        Object result = super.getCapability(capability);
+        if(capability != StoreCapabilityType.EXPIRY_INDEX || result == null)
+            return result;
+
+        // the index gives the keys of the inner store
+        final ExpiryIndex<ByteArray> expiryIndex = (ExpiryIndex<ByteArray>) result;
+        return new ExpiryIndex<K>() {
+
+            public ClosableIterator<K> keysWrittenBefore(long timeMs) {
+                return new KeysIterator(expiryIndex.keysWrittenBefore(timeMs));
+            }
+        };
+    }
+
     private class KeysIterator implements ClosableIterator<K> {
 
         private final ClosableIterator<ByteArray> iterator;
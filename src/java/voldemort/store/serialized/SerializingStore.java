@@ -19,9 +19,11 @@ package voldemort.store.serialized;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import voldemort.VoldemortException;
 import voldemort.serialization.Serializer;
+import voldemort.store.BlindPutStore;
 import voldemort.store.Store;
 import voldemort.store.StoreCapabilityType;
 import voldemort.store.StoreUtils;
@@ -32,6 +34,7 @@ import voldemort.versioning.Versioned;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 
 /**
  * A store that transforms requests to a Store<ByteArray,byte[]> to a Store<K,V>
@@ -40,7 +43,7 @@ import com.google.common.collect.Maps;
  * @param <K> The type of the key being stored
  * @param <V> The type of the value being stored
  */
-public class SerializingStore<K, V> implements Store<K, V> {
+public class SerializingStore<K, V> implements BlindPutStore<K, V> {
 
     private final Store<ByteArray, byte[]> store;
     private final Serializer<K> keySerializer;
@@ -110,6 +113,28 @@ public class SerializingStore<K, V> implements Store<K, V> {
                                                          value.getVersion()));
     }
 
+    public Set<K> putAll(Map<K, Versioned<V>> entries) throws VoldemortException {
+        StoreUtils.assertValidKeys(entries.keySet());
+        Map<ByteArray, K> byteKeyToKey = Maps.newHashMapWithExpectedSize(entries.size());
+        Map<ByteArray, Versioned<byte[]>> byteEntries = Maps.newHashMapWithExpectedSize(entries.size());
+        for(Map.Entry<K, Versioned<V>> entry: entries.entrySet()) {
+            ByteArray byteKey = keyToBytes(entry.getKey());
+            byteKeyToKey.put(byteKey, entry.getKey());
+            byteEntries.put(byteKey,
+                            new Versioned<byte[]>(valueSerializer.toBytes(entry.getValue()
+                                                                               .getValue()),
+                                                  entry.getValue().getVersion()));
+        }
+        Set<K> obsoleteKeys = Sets.newHashSet();
+        for(ByteArray byteKey: store.putAll(byteEntries))
+            obsoleteKeys.add(byteKeyToKey.get(byteKey));
+        return obsoleteKeys;
+    }
+
+    public Version blindPut(K key, V value) throws VoldemortException {
+        return StoreUtils.blindPut(store, keyToBytes(key), valueSerializer.toBytes(value));
+    }
+
     public List<Version> getVersions(K key) {
         return store.getVersions(keyToBytes(key));
     }
@@ -20,6 +20,8 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import voldemort.VoldemortException;
 import voldemort.store.DelegatingStore;
@@ -143,6 +145,12 @@ public class SloppyStore extends DelegatingStore<ByteArray, byte[]> {
         }
     }
 
+    @Override
+    public Set<ByteArray> putAll(Map<ByteArray, Versioned<byte[]>> entries)
+            throws VoldemortException {
+        return StoreUtils.putAll(this, entries);
+    }
+
     public List<Store<ByteArray, Slop>> getBackupStores() {
         return new ArrayList<Store<ByteArray, Slop>>(backupStores);
     }
@@ -20,20 +20,26 @@ import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import voldemort.VoldemortException;
 import voldemort.client.protocol.RequestFormat;
 import voldemort.client.protocol.RequestFormatFactory;
 import voldemort.server.RequestRoutingType;
+import voldemort.store.BlindPutStore;
 import voldemort.store.NoSuchCapabilityException;
-import voldemort.store.Store;
 import voldemort.store.StoreCapabilityType;
 import voldemort.store.StoreUtils;
 import voldemort.store.UnreachableStoreException;
 import voldemort.store.nonblockingstore.NonblockingStore;
 import voldemort.store.nonblockingstore.NonblockingStoreCallback;
+import voldemort.store.socket.clientrequest.BlindPutClientRequest;
 import voldemort.store.socket.clientrequest.BlockingClientRequest;
 import voldemort.store.socket.clientrequest.ClientRequest;
 import voldemort.store.socket.clientrequest.ClientRequestExecutor;
@@ -42,10 +48,12 @@ import voldemort.store.socket.clientrequest.DeleteClientRequest;
 import voldemort.store.socket.clientrequest.GetAllClientRequest;
 import voldemort.store.socket.clientrequest.GetClientRequest;
 import voldemort.store.socket.clientrequest.GetVersionsClientRequest;
+import voldemort.store.socket.clientrequest.PutAllClientRequest;
 import voldemort.store.socket.clientrequest.PutClientRequest;
 import voldemort.utils.ByteArray;
 import voldemort.utils.Time;
 import voldemort.utils.Utils;
+import voldemort.versioning.ObsoleteVersionException;
 import voldemort.versioning.Version;
 import voldemort.versioning.Versioned;
 
@@ -60,9 +68,16 @@ import voldemort.versioning.Versioned;
  * {@link ClientRequestExecutor} instance from the
  * {@link ClientRequestExecutorPool pool} and adds an appropriate
  * {@link ClientRequest request} to be processed by the NIO thread.
+ * 
+ * <p/>
+ * 
+ * Blind puts are only supported by request formats that have them; for other
+ * formats they fail with an {@link UnsupportedOperationException} without
+ * making a request. A putAll is made as one request by formats that have it,
+ * and as a put per key by other formats.
  */
 
-public class SocketStore implements Store<ByteArray, byte[]>, NonblockingStore {
+public class SocketStore implements BlindPutStore<ByteArray, byte[]>, NonblockingStore {
 
     private final RequestFormatFactory requestFormatFactory = new RequestFormatFactory();
 
@@ -134,6 +149,32 @@ public class SocketStore implements Store<ByteArray, byte[]>, NonblockingStore {
         requestAsync(clientRequest, callback);
     }
 
+    public void submitBlindPutRequest(ByteArray key,
+                                      byte[] value,
+                                      NonblockingStoreCallback callback) {
+        StoreUtils.assertValidKey(key);
+        BlindPutClientRequest clientRequest = newBlindPutClientRequest(key, value);
+        requestAsync(clientRequest, callback);
+    }
+
+    public void submitPutAllRequest(Map<ByteArray, Versioned<byte[]>> entries,
+                                    NonblockingStoreCallback callback) {
+        StoreUtils.assertValidKeys(entries.keySet());
+        if(destination.getRequestFormatType().hasPutAll()) {
+            PutAllClientRequest clientRequest = new PutAllClientRequest(storeName,
+                                                                        requestFormat,
+                                                                        requestRoutingType,
+                                                                        entries);
+            requestAsync(clientRequest, callback);
+        } else {
+            PutAllCallback putAllCallback = new PutAllCallback(entries.size(), callback);
+            for(Map.Entry<ByteArray, Versioned<byte[]>> entry: entries.entrySet())
+                submitPutRequest(entry.getKey(),
+                                 entry.getValue(),
+                                 putAllCallback.newPutCallback(entry.getKey()));
+        }
+    }
+
     public boolean delete(ByteArray key, Version version) throws VoldemortException {
         StoreUtils.assertValidKey(key);
         DeleteClientRequest clientRequest = new DeleteClientRequest(storeName,
@@ -182,6 +223,34 @@ public class SocketStore implements Store<ByteArray, byte[]>, NonblockingStore {
         request(clientRequest, "put");
     }
 
+    public Set<ByteArray> putAll(Map<ByteArray, Versioned<byte[]>> entries)
+            throws VoldemortException {
+        if(!destination.getRequestFormatType().hasPutAll())
+            return StoreUtils.putAll(this, entries);
+
+        StoreUtils.assertValidKeys(entries.keySet());
+        PutAllClientRequest clientRequest = new PutAllClientRequest(storeName,
+                                                                    requestFormat,
+                                                                    requestRoutingType,
+                                                                    entries);
+        return request(clientRequest, "putAll");
+    }
+
+    public Version blindPut(ByteArray key, byte[] value) throws VoldemortException {
+        StoreUtils.assertValidKey(key);
+        BlindPutClientRequest clientRequest = newBlindPutClientRequest(key, value);
+        return request(clientRequest, "blindPut");
+    }
+
+    private BlindPutClientRequest newBlindPutClientRequest(ByteArray key, byte[] value) {
+        if(!destination.getRequestFormatType().hasBlindPut())
+            throw new UnsupportedOperationException("Blind puts are not supported by "
+                                                    + destination.getRequestFormatType()
+                                                                 .getDisplayName() + ".");
+
+        return new BlindPutClientRequest(storeName, requestFormat, requestRoutingType, key, value);
+    }
+
     public Object getCapability(StoreCapabilityType capability) {
         if(StoreCapabilityType.SOCKET_POOL.equals(capability))
             return this.pool;
@@ -214,10 +283,19 @@ public class SocketStore implements Store<ByteArray, byte[]>, NonblockingStore {
 
     private <T> T request(ClientRequest<T> delegate, String operationName) {
         ClientRequestExecutor clientRequestExecutor = pool.checkout(destination);
+        boolean isCheckedIn = false;
 
         try {
             BlockingClientRequest<T> blockingClientRequest = new BlockingClientRequest<T>(delegate);
             clientRequestExecutor.addClientRequest(blockingClientRequest);
+
+            // A multiplexed connection can take other requests while this one
+            // is in flight.
+            if(clientRequestExecutor.isMultiplexed()) {
+                pool.checkin(destination, clientRequestExecutor);
+                isCheckedIn = true;
+            }
+
             blockingClientRequest.await();
             return blockingClientRequest.getResult();
         } catch(InterruptedException e) {
@@ -228,7 +306,8 @@ public class SocketStore implements Store<ByteArray, byte[]>, NonblockingStore {
             throw new UnreachableStoreException("Failure in " + operationName + " on "
                                                 + destination + ": " + e.getMessage(), e);
         } finally {
-            pool.checkin(destination, clientRequestExecutor);
+            if(!isCheckedIn)
+                pool.checkin(destination, clientRequestExecutor);
         }
     }
 
@@ -253,6 +332,63 @@ public class SocketStore implements Store<ByteArray, byte[]>, NonblockingStore {
                                                                                                               clientRequestExecutor,
                                                                                                               callback);
         clientRequestExecutor.addClientRequest(clientRequest);
+
+        // A multiplexed connection can take other requests while this one is
+        // in flight, otherwise it is checked in once the request completes.
+        if(clientRequestExecutor.isMultiplexed())
+            pool.checkin(destination, clientRequestExecutor);
+    }
+
+    /**
+     * Completes a putAll made as a put per key once all the puts complete,
+     * with the keys whose versions are obsolete or the first other failure.
+     */
+    private static class PutAllCallback {
+
+        private final NonblockingStoreCallback callback;
+
+        private final Set<ByteArray> obsoleteKeys = Collections.synchronizedSet(new HashSet<ByteArray>());
+
+        private final AtomicInteger remaining;
+
+        private final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+
+        private final long startNs = System.nanoTime();
+
+        private PutAllCallback(int numPuts, NonblockingStoreCallback callback) {
+            this.remaining = new AtomicInteger(numPuts);
+            this.callback = callback;
+            if(numPuts == 0)
+                complete();
+        }
+
+        private NonblockingStoreCallback newPutCallback(final ByteArray key) {
+            return new NonblockingStoreCallback() {
+
+                public void requestComplete(Object result, long requestTime) {
+                    if(result instanceof ObsoleteVersionException)
+                        obsoleteKeys.add(key);
+                    else if(result instanceof Exception)
+                        failure.compareAndSet(null, (Exception) result);
+
+                    if(remaining.decrementAndGet() == 0)
+                        complete();
+                }
+
+            };
+        }
+
+        private void complete() {
+            if(callback == null)
+                return;
+
+            long requestTime = (System.nanoTime() - startNs) / Time.NS_PER_MS;
+            if(failure.get() != null)
+                callback.requestComplete(failure.get(), requestTime);
+            else
+                callback.requestComplete(new HashSet<ByteArray>(obsoleteKeys), requestTime);
+        }
+
     }
 
     private class NonblockingStoreCallbackClientRequest<T> implements ClientRequest<T> {
@@ -287,7 +423,8 @@ public class SocketStore implements Store<ByteArray, byte[]>, NonblockingStore {
                 if(callback != null)
                     callback.requestComplete(e, (System.nanoTime() - startNs) / Time.NS_PER_MS);
             } finally {
-                pool.checkin(destination, clientRequestExecutor);
+                if(!clientRequestExecutor.isMultiplexed())
+                    pool.checkin(destination, clientRequestExecutor);
                 isComplete = true;
             }
         }
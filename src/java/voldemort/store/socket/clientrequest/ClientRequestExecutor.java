@@ -22,12 +22,19 @@ import java.io.EOFException;
 import java.io.IOException;
 import java.net.Socket;
 import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.log4j.Level;
 
+import voldemort.utils.ByteBufferBackedOutputStream;
+import voldemort.utils.ByteBufferPool;
 import voldemort.utils.SelectorManagerWorker;
 
 /**
@@ -40,6 +47,14 @@ import voldemort.utils.SelectorManagerWorker;
  * has exclusive access to that instance. Then the
  * {@link #addClientRequest(ClientRequest) request can be executed}.
  * 
+ * If the connection uses a multiplexed request format (see
+ * {@link voldemort.client.protocol.RequestFormatType#isMultiplexed()}), it can
+ * have many requests in flight instead. Each request is
+ * queued for writing behind a request id, and the response with that id
+ * completes it, in whatever order the responses arrive. Such an instance can
+ * be checked back in as soon as the request is added, to be shared with other
+ * callers.
+ * 
  * @see SelectorManagerWorker
  * @see ClientRequestExecutorPool
  */
@@ -48,10 +63,43 @@ public class ClientRequestExecutor extends SelectorManagerWorker {
 
     private ClientRequest<?> clientRequest;
 
+    private volatile boolean isMultiplexed;
+
+    // For multiplexed connections, guarded by this: the requests in flight by
+    // id, and the requests added while others are being written.
+    private final Map<Integer, ClientRequest<?>> outstandingRequests;
+
+    private final ByteBufferBackedOutputStream pendingOutputStream;
+
+    private final DataInputStream dataInputStream;
+
+    private final DataOutputStream dataOutputStream;
+
+    private final DataOutputStream pendingDataOutputStream;
+
+    private int nextRequestId;
+
     public ClientRequestExecutor(Selector selector,
                                  SocketChannel socketChannel,
                                  int socketBufferSize) {
-        super(selector, socketChannel, socketBufferSize);
+        this(selector, socketChannel, socketBufferSize, null);
+    }
+
+    /**
+     * @param bufferPool The pool to take buffers from, or null to allocate
+     *        them on the heap
+     */
+    public ClientRequestExecutor(Selector selector,
+                                 SocketChannel socketChannel,
+                                 int socketBufferSize,
+                                 ByteBufferPool bufferPool) {
+        super(selector, socketChannel, socketBufferSize, bufferPool);
+        this.outstandingRequests = new HashMap<Integer, ClientRequest<?>>();
+        this.pendingOutputStream = new ByteBufferBackedOutputStream(allocate(socketBufferSize),
+                                                                    bufferPool);
+        this.dataInputStream = new DataInputStream(inputStream);
+        this.dataOutputStream = new DataOutputStream(outputStream);
+        this.pendingDataOutputStream = new DataOutputStream(pendingOutputStream);
     }
 
     public SocketChannel getSocketChannel() {
@@ -66,22 +114,93 @@ public class ClientRequestExecutor extends SelectorManagerWorker {
         return !s.isClosed() && s.isBound() && s.isConnected();
     }
 
-    public synchronized void addClientRequest(ClientRequest<?> clientRequest) {
+    /**
+     * Switches the connection to a multiplexed request format once the
+     * protocol has been negotiated, before the connection is used for any
+     * other request.
+     */
+
+    public synchronized void enableMultiplexing() {
+        // The output buffer holds the bytes being written, so start it empty
+        // and ready for reading.
+        outputStream.getBuffer().clear();
+        outputStream.getBuffer().flip();
+        inputStream.getBuffer().clear();
+        isMultiplexed = true;
+    }
+
+    public boolean isMultiplexed() {
+        return isMultiplexed;
+    }
+
+    public void addClientRequest(ClientRequest<?> clientRequest) {
+        if(isMultiplexed)
+            addMultiplexedClientRequest(clientRequest);
+        else
+            addSingleClientRequest(clientRequest);
+    }
+
+    private void addMultiplexedClientRequest(ClientRequest<?> clientRequest) {
+        boolean wasSuccessful = false;
+
+        synchronized(this) {
+            if(!isClosed()) {
+                int requestId = nextRequestId++;
+                ByteBuffer pendingBuffer = pendingOutputStream.getBuffer();
+                int start = pendingBuffer.position();
+
+                try {
+                    pendingDataOutputStream.writeInt(requestId);
+                    wasSuccessful = clientRequest.formatRequest(pendingDataOutputStream);
+                } catch(IOException e) {
+                    wasSuccessful = false;
+                }
+
+                if(wasSuccessful) {
+                    outstandingRequests.put(requestId, clientRequest);
+
+                    SelectionKey selectionKey = socketChannel.keyFor(selector);
+
+                    try {
+                        selectionKey.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+
+                        // This wakeup is required because it's invoked by the
+                        // calling code in a different thread than the
+                        // SelectorManager.
+                        selector.wakeup();
+                    } catch(CancelledKeyException e) {
+                        outstandingRequests.remove(requestId);
+                        wasSuccessful = false;
+                    }
+                } else {
+                    // Drop whatever part of the request was buffered.
+                    pendingOutputStream.getBuffer().position(start);
+                }
+            }
+        }
+
+        if(!wasSuccessful) {
+            if(logger.isEnabledFor(Level.WARN))
+                logger.warn("Client associated with " + socketChannel.socket()
+                            + " did not successfully buffer output for request");
+
+            clientRequest.complete();
+        }
+    }
+
+    private synchronized void addSingleClientRequest(ClientRequest<?> clientRequest) {
         if(logger.isTraceEnabled())
             logger.trace("Associating client with " + socketChannel.socket());
 
         this.clientRequest = clientRequest;
         outputStream.getBuffer().clear();
 
-        boolean wasSuccessful = clientRequest.formatRequest(new DataOutputStream(outputStream));
+        boolean wasSuccessful = clientRequest.formatRequest(dataOutputStream);
 
         if(logger.isTraceEnabled())
             traceInputBufferState("About to clear read buffer");
 
-        if(inputStream.getBuffer().capacity() >= resizeThreshold)
-            inputStream.setBuffer(ByteBuffer.allocate(socketBufferSize));
-        else
-            inputStream.getBuffer().clear();
+        inputStream.setBuffer(reset(inputStream.getBuffer()));
 
         if(logger.isTraceEnabled())
             traceInputBufferState("Cleared read buffer");
@@ -121,12 +240,21 @@ public class ClientRequestExecutor extends SelectorManagerWorker {
         if(!isClosed.compareAndSet(false, true))
             return;
 
-        completeClientRequest();
+        if(isMultiplexed)
+            completeOutstandingRequests();
+        else
+            completeClientRequest();
+
         closeInternal();
     }
 
     @Override
     protected void read(SelectionKey selectionKey) throws IOException {
+        if(isMultiplexed) {
+            readMultiplexed();
+            return;
+        }
+
         int count = 0;
 
         if((count = socketChannel.read(inputStream.getBuffer())) == -1)
@@ -160,7 +288,7 @@ public class ClientRequestExecutor extends SelectorManagerWorker {
         if(logger.isTraceEnabled())
             logger.trace("Starting read for " + socketChannel.socket());
 
-        clientRequest.parseResponse(new DataInputStream(inputStream));
+        clientRequest.parseResponse(dataInputStream);
 
         // At this point we've completed a full stand-alone request. So clear
         // our input buffer and prepare for outputting back to the client.
@@ -171,8 +299,107 @@ public class ClientRequestExecutor extends SelectorManagerWorker {
         completeClientRequest();
     }
 
+    /*
+     * Reads whatever responses are complete, each preceded by the id of its
+     * request, and keeps the start of an incomplete one for the next read.
+     */
+    private void readMultiplexed() throws IOException {
+        int count = 0;
+
+        if((count = socketChannel.read(inputStream.getBuffer())) == -1)
+            throw new EOFException("EOF for " + socketChannel.socket());
+
+        if(logger.isTraceEnabled())
+            traceInputBufferState("Read " + count + " bytes");
+
+        if(count == 0)
+            return;
+
+        ByteBuffer inputBuffer = inputStream.getBuffer();
+        inputBuffer.flip();
+
+        while(inputBuffer.remaining() >= 4) {
+            int start = inputBuffer.position();
+            int requestId = inputBuffer.getInt();
+            ClientRequest<?> request;
+
+            synchronized(this) {
+                request = outstandingRequests.get(requestId);
+            }
+
+            if(request == null)
+                throw new IOException("Response for unknown request " + requestId + " from "
+                                      + socketChannel.socket());
+
+            boolean isComplete = request.isCompleteResponse(inputBuffer);
+            inputBuffer.position(start + 4);
+
+            if(!isComplete) {
+                inputBuffer.position(start);
+                break;
+            }
+
+            request.parseResponse(dataInputStream);
+
+            synchronized(this) {
+                outstandingRequests.remove(requestId);
+            }
+
+            request.complete();
+        }
+
+        if(!inputBuffer.hasRemaining() && inputBuffer.capacity() >= resizeThreshold) {
+            inputStream.setBuffer(reset(inputBuffer));
+            return;
+        }
+
+        inputBuffer.compact();
+
+        // A response larger than the buffer needs a larger buffer to complete.
+        if(!inputBuffer.hasRemaining())
+            inputStream.setBuffer(expand(inputBuffer, inputBuffer.capacity() * 2));
+    }
+
+    /*
+     * Writes the requests added so far. The requests added while others are
+     * being written are buffered separately, and swapped in when the current
+     * ones are written.
+     */
+    private synchronized void writeMultiplexed(SelectionKey selectionKey) throws IOException {
+        ByteBuffer outputBuffer = outputStream.getBuffer();
+
+        if(!outputBuffer.hasRemaining() && pendingOutputStream.getBuffer().position() > 0) {
+            ByteBuffer pendingBuffer = pendingOutputStream.getBuffer();
+            pendingBuffer.flip();
+
+            outputBuffer = reset(outputBuffer);
+
+            pendingOutputStream.setBuffer(outputBuffer);
+            outputStream.setBuffer(pendingBuffer);
+            outputBuffer = pendingBuffer;
+        }
+
+        if(outputBuffer.hasRemaining()) {
+            int count = socketChannel.write(outputBuffer);
+
+            if(logger.isTraceEnabled())
+                logger.trace("Wrote " + count + " bytes, remaining: " + outputBuffer.remaining()
+                             + " for " + socketChannel.socket());
+        }
+
+        // Keep reading responses, and only stop writing once everything added
+        // so far has been written.
+        if(!outputBuffer.hasRemaining() && pendingOutputStream.getBuffer().position() == 0)
+            selectionKey.interestOps(SelectionKey.OP_READ);
+    }
+
     @Override
     protected void write(SelectionKey selectionKey) throws IOException {
+        if(isMultiplexed) {
+            writeMultiplexed(selectionKey);
+            return;
+        }
+
         if(outputStream.getBuffer().hasRemaining()) {
             // If we have data, write what we can now...
             int count = socketChannel.write(outputStream.getBuffer());
@@ -194,16 +421,26 @@ public class ClientRequestExecutor extends SelectorManagerWorker {
 
         // If we don't have anything else to write, that means we're done with
         // the request! So clear the buffers (resizing if necessary).
-        if(outputStream.getBuffer().capacity() >= resizeThreshold)
-            outputStream.setBuffer(ByteBuffer.allocate(socketBufferSize));
-        else
-            outputStream.getBuffer().clear();
+        outputStream.setBuffer(reset(outputStream.getBuffer()));
 
         // If we're not streaming writes, signal the Selector that we're
         // ready to read the next request.
         selectionKey.interestOps(SelectionKey.OP_READ);
     }
 
+    private void completeOutstandingRequests() {
+        List<ClientRequest<?>> requests;
+
+        synchronized(this) {
+            requests = new ArrayList<ClientRequest<?>>(outstandingRequests.values());
+            outstandingRequests.clear();
+        }
+
+        // The requests were not parsed, so they complete with an error.
+        for(ClientRequest<?> request: requests)
+            request.complete();
+    }
+
     private synchronized void completeClientRequest() {
         if(clientRequest == null) {
             if(logger.isEnabledFor(Level.WARN))
@@ -33,6 +33,7 @@ import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 
 import voldemort.store.socket.SocketDestination;
+import voldemort.utils.ByteBufferPool;
 import voldemort.utils.DaemonThreadFactory;
 import voldemort.utils.SelectorManager;
 import voldemort.utils.Time;
@@ -51,6 +52,7 @@ public class ClientRequestExecutorFactory implements
     private final AtomicInteger created;
     private final AtomicInteger destroyed;
     private final boolean socketKeepAlive;
+    private final ByteBufferPool bufferPool;
     private final ClientRequestSelectorManager[] selectorManagers;
     private final ExecutorService selectorManagerThreadPool;
     private final AtomicInteger counter = new AtomicInteger();
@@ -60,11 +62,24 @@ public class ClientRequestExecutorFactory implements
                                         int soTimeoutMs,
                                         int socketBufferSize,
                                         boolean socketKeepAlive) {
+        this(selectors, soTimeoutMs, socketBufferSize, socketKeepAlive, null);
+    }
+
+    /**
+     * @param bufferPool The pool the connections take their buffers from, or
+     *        null to allocate them on the heap
+     */
+    public ClientRequestExecutorFactory(int selectors,
+                                        int soTimeoutMs,
+                                        int socketBufferSize,
+                                        boolean socketKeepAlive,
+                                        ByteBufferPool bufferPool) {
         this.soTimeoutMs = soTimeoutMs;
         this.created = new AtomicInteger(0);
         this.destroyed = new AtomicInteger(0);
         this.socketBufferSize = socketBufferSize;
         this.socketKeepAlive = socketKeepAlive;
+        this.bufferPool = bufferPool;
 
         this.selectorManagers = new ClientRequestSelectorManager[selectors];
         this.selectorManagerThreadPool = Executors.newFixedThreadPool(selectorManagers.length,
@@ -134,7 +149,8 @@ public class ClientRequestExecutorFactory implements
         Selector selector = selectorManager.getSelector();
         ClientRequestExecutor clientRequestExecutor = new ClientRequestExecutor(selector,
                                                                                 socketChannel,
-                                                                                socketBufferSize);
+                                                                                socketBufferSize,
+                                                                                bufferPool);
         BlockingClientRequest<String> clientRequest = new BlockingClientRequest<String>(new ProtocolNegotiatorClientRequest(dest.getRequestFormatType()));
         clientRequestExecutor.addClientRequest(clientRequest);
 
@@ -149,6 +165,9 @@ public class ClientRequestExecutorFactory implements
         // ignore.
         clientRequest.getResult();
 
+        if(dest.getRequestFormatType().isMultiplexed())
+            clientRequestExecutor.enableMultiplexing();
+
         return clientRequestExecutor;
     }
 
@@ -189,6 +208,10 @@ public class ClientRequestExecutorFactory implements
         return this.soTimeoutMs;
     }
 
+    public ByteBufferPool getBufferPool() {
+        return bufferPool;
+    }
+
     public int getNumberCreated() {
         return this.created.get();
     }
@@ -30,6 +30,7 @@ import voldemort.store.UnreachableStoreException;
 import voldemort.store.socket.SocketDestination;
 import voldemort.store.socket.SocketStore;
 import voldemort.store.socket.SocketStoreFactory;
+import voldemort.utils.ByteBufferPool;
 import voldemort.utils.Time;
 import voldemort.utils.Utils;
 import voldemort.utils.pool.KeyedResourcePool;
@@ -62,6 +63,26 @@ public class ClientRequestExecutorPool implements SocketStoreFactory {
                                      int soTimeoutMs,
                                      int socketBufferSize,
                                      boolean socketKeepAlive) {
+        this(selectors,
+             maxConnectionsPerNode,
+             connectionTimeoutMs,
+             soTimeoutMs,
+             socketBufferSize,
+             socketKeepAlive,
+             0);
+    }
+
+    /**
+     * @param bufferPoolSize The most bytes of direct buffers kept for reuse by
+     *        the connections, or 0 to allocate their buffers on the heap
+     */
+    public ClientRequestExecutorPool(int selectors,
+                                     int maxConnectionsPerNode,
+                                     int connectionTimeoutMs,
+                                     int soTimeoutMs,
+                                     int socketBufferSize,
+                                     boolean socketKeepAlive,
+                                     long bufferPoolSize) {
         ResourcePoolConfig config = new ResourcePoolConfig().setIsFair(true)
                                                             .setMaxPoolSize(maxConnectionsPerNode)
                                                             .setMaxInvalidAttempts(maxConnectionsPerNode)
@@ -70,7 +91,9 @@ public class ClientRequestExecutorPool implements SocketStoreFactory {
         this.factory = new ClientRequestExecutorFactory(selectors,
                                                         soTimeoutMs,
                                                         socketBufferSize,
-                                                        socketKeepAlive);
+                                                        socketKeepAlive,
+                                                        bufferPoolSize > 0 ? new ByteBufferPool(bufferPoolSize)
+                                                                          : null);
         this.pool = new KeyedResourcePool<SocketDestination, ClientRequestExecutor>(factory, config);
         this.checkouts = new AtomicInteger(0);
         this.waitNs = new AtomicLong(0);
@@ -188,6 +211,18 @@ public class ClientRequestExecutorPool implements SocketStoreFactory {
         return this.avgWaitNs.doubleValue() / Time.NS_PER_MS;
     }
 
+    @JmxGetter(name = "bufferPoolHitRatio", description = "The fraction of buffers taken from the buffer pool which were reused.")
+    public double getBufferPoolHitRatio() {
+        ByteBufferPool bufferPool = factory.getBufferPool();
+        return bufferPool == null ? 0.0 : bufferPool.getHitRatio();
+    }
+
+    @JmxGetter(name = "bufferPoolBytes", description = "The number of bytes in buffers waiting in the buffer pool.")
+    public long getBufferPoolBytes() {
+        ByteBufferPool bufferPool = factory.getBufferPool();
+        return bufferPool == null ? 0 : bufferPool.getPooledBytes();
+    }
+
     @JmxSetter(name = "monitoringInterval", description = "The number of checkouts over which performance statistics are calculated.")
     public void setMonitoringInterval(int count) {
         if(count <= 0)
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2010 LinkedIn, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.stats;
+
+import java.util.Arrays;
+
+import voldemort.annotations.concurrency.Threadsafe;
+
+/**
+ * A histogram of non-negative values, such as request times, with a fixed
+ * number of equally sized buckets. Values beyond the last bucket are counted in
+ * the last bucket.
+ *
+ *
+ */
+@Threadsafe
+public class Histogram {
+
+    private final int nBuckets;
+
+    private final int step;
+
+    private final long[] buckets;
+
+    private long size;
+
+    /**
+     * @param nBuckets The number of buckets
+     * @param step The width of each bucket
+     */
+    public Histogram(int nBuckets, int step) {
+        if(nBuckets <= 0)
+            throw new IllegalArgumentException("Number of buckets must be positive.");
+        if(step <= 0)
+            throw new IllegalArgumentException("Bucket width must be positive.");
+
+        this.nBuckets = nBuckets;
+        this.step = step;
+        this.buckets = new long[nBuckets];
+        this.size = 0;
+    }
+
+    public synchronized void insert(long data) {
+        buckets[findBucket(data)]++;
+        size++;
+    }
+
+    public synchronized void reset() {
+        Arrays.fill(buckets, 0);
+        size = 0;
+    }
+
+    public synchronized long getCount() {
+        return size;
+    }
+
+    /**
+     * Find the value below which the given fraction of the inserted values
+     * fall, to the precision of one bucket
+     *
+     * @param quantile The fraction, between 0 and 1
+     * @return The upper bound of the bucket holding the quantile, or 0 if
+     *         nothing has been inserted
+     */
+    public synchronized long getQuantile(double quantile) {
+        if(size == 0)
+            return 0;
+
+        long target = (long) Math.ceil(quantile * size);
+        long total = 0;
+        for(int i = 0; i < nBuckets; i++) {
+            total += buckets[i];
+            if(total >= target)
+                return (long) (i + 1) * step;
+        }
+        return (long) nBuckets * step;
+    }
+
+    private int findBucket(long data) {
+        if(data < 0)
+            return 0;
+        return (int) Math.min(data / step, nBuckets - 1);
+    }
+
+}
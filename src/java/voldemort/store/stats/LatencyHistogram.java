@@ -0,0 +1,138 @@
+/*
+ * Copyright 2010 LinkedIn, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.stats;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import voldemort.annotations.concurrency.Threadsafe;
+
+/**
+ * A histogram of request times in ns, with buckets whose width grows with the
+ * times they hold, so that any time up to about half an hour is counted within
+ * 1/16 of its value in a fixed, small number of buckets.
+ * <p/>
+ * Unlike the {@link Histogram}, inserting takes no lock and allocates nothing,
+ * so it can be done on every request.
+ *
+ *
+ */
+@Threadsafe
+public class LatencyHistogram {
+
+    /*
+     * Each power of two above SUB_BUCKETS is split into SUB_BUCKETS buckets,
+     * the times below it have a bucket each
+     */
+    private static final int SUB_BUCKET_BITS = 4;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private static final int MAX_EXPONENT = 40;
+
+    public static final int NUM_BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets;
+
+    private final AtomicLong count;
+
+    public LatencyHistogram() {
+        this.buckets = new AtomicLongArray(NUM_BUCKETS);
+        this.count = new AtomicLong(0);
+    }
+
+    public void insert(long timeNS) {
+        buckets.incrementAndGet(findBucket(timeNS));
+        count.incrementAndGet();
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Find the time below which the given fraction of the inserted times fall,
+     * to the precision of one bucket
+     *
+     * @param quantile The fraction, between 0 and 1
+     * @return The upper bound of the bucket holding the quantile in ns, or 0 if
+     *         nothing has been inserted
+     */
+    public long getQuantile(double quantile) {
+        return getQuantile(quantile, this);
+    }
+
+    /**
+     * Find the time below which the given fraction of the times inserted in
+     * any of the histograms fall, as if they were one
+     *
+     * @param quantile The fraction, between 0 and 1
+     * @param histograms The histograms
+     * @return The upper bound of the bucket holding the quantile in ns, or 0 if
+     *         nothing has been inserted
+     */
+    public static long getQuantile(double quantile, LatencyHistogram... histograms) {
+        long size = 0;
+        for(LatencyHistogram histogram: histograms)
+            size += histogram.getCount();
+
+        if(size == 0)
+            return 0;
+
+        long target = Math.max(1, (long) Math.ceil(quantile * size));
+        long total = 0;
+        for(int i = 0; i < NUM_BUCKETS; i++) {
+            for(LatencyHistogram histogram: histograms)
+                total += histogram.buckets.get(i);
+
+            if(total >= target)
+                return getUpperBound(i);
+        }
+
+        // The counts of the buckets were read after the sizes and may trail
+        // them
+        return getUpperBound(NUM_BUCKETS - 1);
+    }
+
+    static int findBucket(long timeNS) {
+        if(timeNS < SUB_BUCKETS)
+            return (int) Math.max(timeNS, 0);
+
+        int exponent = 63 - Long.numberOfLeadingZeros(timeNS);
+        if(exponent > MAX_EXPONENT)
+            return NUM_BUCKETS - 1;
+
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (timeNS >>> shift) - SUB_BUCKETS;
+    }
+
+    static long getLowerBound(int bucket) {
+        if(bucket < SUB_BUCKETS)
+            return bucket;
+
+        int shift = bucket / SUB_BUCKETS - 1;
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+    }
+
+    static long getUpperBound(int bucket) {
+        if(bucket == NUM_BUCKETS - 1)
+            return (1L << (MAX_EXPONENT + 1)) - 1;
+
+        return getLowerBound(bucket + 1) - 1;
+    }
+
+}
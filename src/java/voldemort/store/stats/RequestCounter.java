@@ -1,18 +1,21 @@
 package voldemort.store.stats;
 
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import voldemort.utils.Time;
 
 /**
  * A thread-safe request counter that calculates throughput for a specified
- * duration of time.
+ * duration of time, and percentiles of the request times over the last one or
+ * two durations.
  * 
  * 
  */
 public class RequestCounter {
 
     private final AtomicReference<Accumulator> values;
+    private final AtomicLong total;
     private final int durationMS;
 
     /**
@@ -20,16 +23,17 @@ public class RequestCounter {
      *        counter (in milliseconds).
      */
     public RequestCounter(int durationMS) {
-        this.values = new AtomicReference<Accumulator>(new Accumulator());
+        this.values = new AtomicReference<Accumulator>(new Accumulator(null));
+        this.total = new AtomicLong(0);
         this.durationMS = durationMS;
     }
 
     public long getCount() {
-        return getValidAccumulator().count;
+        return getValidAccumulator().count.get();
     }
 
     public long getTotalCount() {
-        return getValidAccumulator().total;
+        return total.get();
     }
 
     public float getThroughput() {
@@ -37,7 +41,7 @@ public class RequestCounter {
         double elapsed = (System.currentTimeMillis() - oldv.startTimeMS)
                          / (double) Time.MS_PER_SECOND;
         if(elapsed > 0f) {
-            return (float) (oldv.count / elapsed);
+            return (float) (oldv.count.get() / elapsed);
         } else {
             return -1f;
         }
@@ -55,6 +59,28 @@ public class RequestCounter {
         return String.format("%.4f", getAverageTimeInMs());
     }
 
+    /**
+     * Find the request time below which the given fraction of the requests
+     * fall, over the current duration and the one before it
+     * 
+     * @param quantile The fraction, between 0 and 1
+     * @return The request time in ms, to within 1/16 of it, or 0 if there were
+     *         no requests
+     */
+    public double getQuantileInMs(double quantile) {
+        Accumulator accum = getValidAccumulator();
+        Accumulator previous = accum.previous;
+        long timeNS = previous == null ? accum.histogram.getQuantile(quantile)
+                                      : LatencyHistogram.getQuantile(quantile,
+                                                                     accum.histogram,
+                                                                     previous.histogram);
+        return timeNS / (double) Time.NS_PER_MS;
+    }
+
+    public String getDisplayQuantileInMs(double quantile) {
+        return String.format("%.4f", getQuantileInMs(quantile));
+    }
+
     public int getDuration() {
         return durationMS;
     }
@@ -73,66 +99,56 @@ public class RequestCounter {
 
         /*
          * try to set. if we fail, then someone else set it, so just return that
-         * new one
+         * new one. The window that ends is kept for the percentiles, unless it
+         * ended more than a duration ago.
          */
 
-        Accumulator newWithTotal = accum.newWithTotal();
+        Accumulator next = new Accumulator(now - accum.startTimeMS <= 2L * durationMS ? accum
+                                                                                        : null);
 
-        if(values.compareAndSet(accum, newWithTotal)) {
-            return newWithTotal;
+        if(values.compareAndSet(accum, next)) {
+            accum.previous = null;
+            return next;
         }
 
         return values.get();
     }
 
     /*
-     * Updates the stats accumulator with another operation. We need to make
-     * sure that the request is only added to a non-expired pair. If so, start a
-     * new counter pair with recent time. We'll only try to do this 3 times - if
-     * other threads keep modifying while we're doing our own work, just bail.
+     * Updates the stats accumulator with another operation. The accumulator is
+     * only replaced once per duration, so recording a request allocates nothing;
+     * a request that races with the replacement may be counted in the window
+     * that just ended.
      * 
      * @param timeNS time of operation, in nanoseconds
      */
     public void addRequest(long timeNS) {
-
-        for(int i = 0; i < 3; i++) {
-            Accumulator oldv = getValidAccumulator();
-
-            long startTimeMS = oldv.startTimeMS;
-            long count = oldv.count + 1;
-            long totalTimeNS = oldv.totalTimeNS + timeNS;
-            long total = oldv.total + 1;
-
-            if(values.compareAndSet(oldv, new Accumulator(startTimeMS, count, totalTimeNS, total))) {
-                return;
-            }
-        }
+        Accumulator accum = getValidAccumulator();
+        accum.count.incrementAndGet();
+        accum.totalTimeNS.addAndGet(timeNS);
+        accum.histogram.insert(timeNS);
+        total.incrementAndGet();
     }
 
     private static class Accumulator {
 
         final long startTimeMS;
-        final long count;
-        final long totalTimeNS;
-        final long total;
-
-        public Accumulator() {
-            this(System.currentTimeMillis(), 0, 0, 0);
-        }
-
-        public Accumulator newWithTotal() {
-            return new Accumulator(System.currentTimeMillis(), 0, 0, total);
-        }
-
-        public Accumulator(long startTimeMS, long count, long totalTimeNS, long total) {
-            this.startTimeMS = startTimeMS;
-            this.count = count;
-            this.totalTimeNS = totalTimeNS;
-            this.total = total;
+        final AtomicLong count;
+        final AtomicLong totalTimeNS;
+        final LatencyHistogram histogram;
+        volatile Accumulator previous;
+
+        public Accumulator(Accumulator previous) {
+            this.startTimeMS = System.currentTimeMillis();
+            this.count = new AtomicLong(0);
+            this.totalTimeNS = new AtomicLong(0);
+            this.histogram = new LatencyHistogram();
+            this.previous = previous;
         }
 
         public double getAverageTimeNS() {
-            return count > 0 ? 1f * totalTimeNS / count : -0f;
+            long count = this.count.get();
+            return count > 0 ? 1f * totalTimeNS.get() / count : -0f;
         }
     }
 }
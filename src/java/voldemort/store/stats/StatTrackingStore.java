@@ -18,14 +18,17 @@ package voldemort.store.stats;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.management.MBeanOperationInfo;
 
 import voldemort.VoldemortException;
 import voldemort.annotations.jmx.JmxOperation;
+import voldemort.store.BlindPutStore;
 import voldemort.store.DelegatingStore;
 import voldemort.store.Store;
 import voldemort.store.StoreCapabilityType;
+import voldemort.store.StoreUtils;
 import voldemort.versioning.ObsoleteVersionException;
 import voldemort.versioning.Version;
 import voldemort.versioning.Versioned;
@@ -35,7 +38,8 @@ import voldemort.versioning.Versioned;
  * 
  * 
  */
-public class StatTrackingStore<K, V> extends DelegatingStore<K, V> {
+public class StatTrackingStore<K, V> extends DelegatingStore<K, V> implements
+        BlindPutStore<K, V> {
 
     private StoreStats stats;
 
@@ -99,6 +103,37 @@ public class StatTrackingStore<K, V> extends DelegatingStore<K, V> {
         }
     }
 
+    @Override
+    public Set<K> putAll(Map<K, Versioned<V>> entries) throws VoldemortException {
+        long start = System.nanoTime();
+        try {
+            Set<K> obsoleteKeys = super.putAll(entries);
+            if(!obsoleteKeys.isEmpty())
+                stats.recordTime(Tracked.OBSOLETE, System.nanoTime() - start);
+            return obsoleteKeys;
+        } catch(VoldemortException e) {
+            stats.recordTime(Tracked.EXCEPTION, System.nanoTime() - start);
+            throw e;
+        } finally {
+            stats.recordTime(Tracked.PUT_ALL, System.nanoTime() - start);
+        }
+    }
+
+    public Version blindPut(K key, V value) throws VoldemortException {
+        long start = System.nanoTime();
+        try {
+            return StoreUtils.blindPut(getInnerStore(), key, value);
+        } catch(ObsoleteVersionException e) {
+            stats.recordTime(Tracked.OBSOLETE, System.nanoTime() - start);
+            throw e;
+        } catch(VoldemortException e) {
+            stats.recordTime(Tracked.EXCEPTION, System.nanoTime() - start);
+            throw e;
+        } finally {
+            stats.recordTime(Tracked.PUT, System.nanoTime() - start);
+        }
+    }
+
     @Override
     public Object getCapability(StoreCapabilityType capability) {
         if(StoreCapabilityType.STAT_TRACKER.equals(capability))
@@ -43,6 +43,10 @@ public class StoreStats {
         return counters.get(op).getAverageTimeInMs();
     }
 
+    public double getQuantileInMs(Tracked op, double quantile) {
+        return counters.get(op).getQuantileInMs(quantile);
+    }
+
     public void recordTime(Tracked op, long timeNS) {
         counters.get(op).addRequest(timeNS);
         if(parent != null)
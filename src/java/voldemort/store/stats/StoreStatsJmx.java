@@ -29,6 +29,21 @@ public class StoreStatsJmx {
         return stats.getAvgTimeInMs(Tracked.GET_ALL);
     }
 
+    @JmxGetter(name = "q95GetAllCompletionTimeInMs", description = "The time in ms within which 95% of GET_ALL calls completed, over the last one to two windows.")
+    public double getQ95GetAllCompletionTimeInMs() {
+        return stats.getQuantileInMs(Tracked.GET_ALL, 0.95);
+    }
+
+    @JmxGetter(name = "q99GetAllCompletionTimeInMs", description = "The time in ms within which 99% of GET_ALL calls completed, over the last one to two windows.")
+    public double getQ99GetAllCompletionTimeInMs() {
+        return stats.getQuantileInMs(Tracked.GET_ALL, 0.99);
+    }
+
+    @JmxGetter(name = "q999GetAllCompletionTimeInMs", description = "The time in ms within which 99.9% of GET_ALL calls completed, over the last one to two windows.")
+    public double getQ999GetAllCompletionTimeInMs() {
+        return stats.getQuantileInMs(Tracked.GET_ALL, 0.999);
+    }
+
     @JmxGetter(name = "GetAllThroughput", description = "Throughput of GET_ALL requests.")
     public float getGetAllThroughput() {
         return stats.getThroughput(Tracked.GET_ALL);
@@ -44,6 +59,21 @@ public class StoreStatsJmx {
         return stats.getAvgTimeInMs(Tracked.GET);
     }
 
+    @JmxGetter(name = "q95GetCompletionTimeInMs", description = "The time in ms within which 95% of GET calls completed, over the last one to two windows.")
+    public double getQ95GetCompletionTimeInMs() {
+        return stats.getQuantileInMs(Tracked.GET, 0.95);
+    }
+
+    @JmxGetter(name = "q99GetCompletionTimeInMs", description = "The time in ms within which 99% of GET calls completed, over the last one to two windows.")
+    public double getQ99GetCompletionTimeInMs() {
+        return stats.getQuantileInMs(Tracked.GET, 0.99);
+    }
+
+    @JmxGetter(name = "q999GetCompletionTimeInMs", description = "The time in ms within which 99.9% of GET calls completed, over the last one to two windows.")
+    public double getQ999GetCompletionTimeInMs() {
+        return stats.getQuantileInMs(Tracked.GET, 0.999);
+    }
+
     @JmxGetter(name = "GetThroughput", description = "Throughput of GET requests.")
     public float getGetThroughput() {
         return stats.getThroughput(Tracked.GET);
@@ -59,11 +89,56 @@ public class StoreStatsJmx {
         return stats.getAvgTimeInMs(Tracked.PUT);
     }
 
+    @JmxGetter(name = "q95PutCompletionTimeInMs", description = "The time in ms within which 95% of PUT calls completed, over the last one to two windows.")
+    public double getQ95PutCompletionTimeInMs() {
+        return stats.getQuantileInMs(Tracked.PUT, 0.95);
+    }
+
+    @JmxGetter(name = "q99PutCompletionTimeInMs", description = "The time in ms within which 99% of PUT calls completed, over the last one to two windows.")
+    public double getQ99PutCompletionTimeInMs() {
+        return stats.getQuantileInMs(Tracked.PUT, 0.99);
+    }
+
+    @JmxGetter(name = "q999PutCompletionTimeInMs", description = "The time in ms within which 99.9% of PUT calls completed, over the last one to two windows.")
+    public double getQ999PutCompletionTimeInMs() {
+        return stats.getQuantileInMs(Tracked.PUT, 0.999);
+    }
+
     @JmxGetter(name = "PutThroughput", description = "Throughput of PUT requests.")
     public float getPutThroughput() {
         return stats.getThroughput(Tracked.PUT);
     }
 
+    @JmxGetter(name = "numberOfCallsToPutAll", description = "The number of calls to PUT_ALL since the last reset.")
+    public long getNumberOfCallsToPutAll() {
+        return stats.getCount(Tracked.PUT_ALL);
+    }
+
+    @JmxGetter(name = "averagePutAllCompletionTimeInMs", description = "The avg. time in ms for PUT_ALL calls to complete.")
+    public double getAveragePutAllCompletionTimeInMs() {
+        return stats.getAvgTimeInMs(Tracked.PUT_ALL);
+    }
+
+    @JmxGetter(name = "q95PutAllCompletionTimeInMs", description = "The time in ms within which 95% of PUT_ALL calls completed, over the last one to two windows.")
+    public double getQ95PutAllCompletionTimeInMs() {
+        return stats.getQuantileInMs(Tracked.PUT_ALL, 0.95);
+    }
+
+    @JmxGetter(name = "q99PutAllCompletionTimeInMs", description = "The time in ms within which 99% of PUT_ALL calls completed, over the last one to two windows.")
+    public double getQ99PutAllCompletionTimeInMs() {
+        return stats.getQuantileInMs(Tracked.PUT_ALL, 0.99);
+    }
+
+    @JmxGetter(name = "q999PutAllCompletionTimeInMs", description = "The time in ms within which 99.9% of PUT_ALL calls completed, over the last one to two windows.")
+    public double getQ999PutAllCompletionTimeInMs() {
+        return stats.getQuantileInMs(Tracked.PUT_ALL, 0.999);
+    }
+
+    @JmxGetter(name = "PutAllThroughput", description = "Throughput of PUT_ALL requests.")
+    public float getPutAllThroughput() {
+        return stats.getThroughput(Tracked.PUT_ALL);
+    }
+
     @JmxGetter(name = "numberOfCallsToDelete", description = "The number of calls to DELETE since the last reset.")
     public long getNumberOfCallsToDelete() {
         return stats.getCount(Tracked.DELETE);
@@ -74,6 +149,21 @@ public class StoreStatsJmx {
         return stats.getAvgTimeInMs(Tracked.DELETE);
     }
 
+    @JmxGetter(name = "q95DeleteCompletionTimeInMs", description = "The time in ms within which 95% of DELETE calls completed, over the last one to two windows.")
+    public double getQ95DeleteCompletionTimeInMs() {
+        return stats.getQuantileInMs(Tracked.DELETE, 0.95);
+    }
+
+    @JmxGetter(name = "q99DeleteCompletionTimeInMs", description = "The time in ms within which 99% of DELETE calls completed, over the last one to two windows.")
+    public double getQ99DeleteCompletionTimeInMs() {
+        return stats.getQuantileInMs(Tracked.DELETE, 0.99);
+    }
+
+    @JmxGetter(name = "q999DeleteCompletionTimeInMs", description = "The time in ms within which 99.9% of DELETE calls completed, over the last one to two windows.")
+    public double getQ999DeleteCompletionTimeInMs() {
+        return stats.getQuantileInMs(Tracked.DELETE, 0.999);
+    }
+
     @JmxGetter(name = "DeleteThroughput", description = "Throughput of DELETE requests.")
     public float getDeleteThroughput() {
         return stats.getThroughput(Tracked.DELETE);
@@ -96,7 +186,8 @@ public class StoreStatsJmx {
         for(Tracked stat: ImmutableList.of(Tracked.DELETE,
                                            Tracked.GET,
                                            Tracked.GET_ALL,
-                                           Tracked.PUT)) {
+                                           Tracked.PUT,
+                                           Tracked.PUT_ALL)) {
             sum += stats.getCount(stat);
             weightedTime += stats.getCount(stat) * stats.getAvgTimeInMs(stat);
         }
@@ -109,7 +200,8 @@ public class StoreStatsJmx {
     @JmxGetter(name = "AllOperationThroughput", description = "The number of exceptions since the last reset.")
     public double getOperationThroughput() {
         return stats.getThroughput(Tracked.DELETE) + stats.getThroughput(Tracked.GET)
-               + stats.getThroughput(Tracked.GET_ALL) + stats.getThroughput(Tracked.PUT);
+               + stats.getThroughput(Tracked.GET_ALL) + stats.getThroughput(Tracked.PUT)
+               + stats.getThroughput(Tracked.PUT_ALL);
     }
 
 }
@@ -4,6 +4,7 @@ public enum Tracked {
     GET("get"),
     GET_ALL("getAll"),
     PUT("put"),
+    PUT_ALL("putAll"),
     DELETE("delete"),
     EXCEPTION("exception"),
     OBSOLETE("obsolete");
@@ -20,10 +20,13 @@ import java.util.List;
 import java.util.Map;
 
 import voldemort.VoldemortException;
+import voldemort.store.BlindPutStore;
 import voldemort.store.DelegatingStore;
 import voldemort.store.Store;
 import voldemort.store.StoreCapabilityType;
+import voldemort.store.StoreUtils;
 import voldemort.versioning.InconsistencyResolver;
+import voldemort.versioning.Version;
 import voldemort.versioning.Versioned;
 
 /**
@@ -35,7 +38,8 @@ import voldemort.versioning.Versioned;
  * Note that unlike get and getAll, getVersions is not overridden so the
  * versions are not passed through the inconsistency resolver.
  */
-public class InconsistencyResolvingStore<K, V> extends DelegatingStore<K, V> {
+public class InconsistencyResolvingStore<K, V> extends DelegatingStore<K, V> implements
+        BlindPutStore<K, V> {
 
     private final InconsistencyResolver<Versioned<V>> resolver;
 
@@ -58,6 +62,11 @@ public class InconsistencyResolvingStore<K, V> extends DelegatingStore<K, V> {
         return m;
     }
 
+    public Version blindPut(K key, V value) throws VoldemortException {
+        StoreUtils.assertValidKey(key);
+        return StoreUtils.blindPut(getInnerStore(), key, value);
+    }
+
     @Override
     public Object getCapability(StoreCapabilityType capability) {
         if(capability == StoreCapabilityType.INCONSISTENCY_RESOLVER)
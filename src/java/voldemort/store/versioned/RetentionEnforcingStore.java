@@ -0,0 +1,88 @@
+/*
+ * Copyright 2010 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.versioned;
+
+import java.util.List;
+import java.util.Map;
+
+import voldemort.VoldemortException;
+import voldemort.store.DelegatingStore;
+import voldemort.store.Store;
+import voldemort.utils.ByteArray;
+import voldemort.utils.Time;
+import voldemort.versioning.VectorClock;
+import voldemort.versioning.Versioned;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * A wrapper that hides the values which are past the retention period of the
+ * store, so that data the cleanup job has not deleted yet is not read.
+ * <p/>
+ * Only the values are hidden: getVersions still returns the expired versions,
+ * so that new values supersede them.
+ * 
+ * 
+ */
+public class RetentionEnforcingStore extends DelegatingStore<ByteArray, byte[]> {
+
+    private final long retentionMs;
+    private final Time time;
+
+    public RetentionEnforcingStore(Store<ByteArray, byte[]> innerStore,
+                                   long retentionMs,
+                                   Time time) {
+        super(innerStore);
+        this.retentionMs = retentionMs;
+        this.time = time;
+    }
+
+    @Override
+    public List<Versioned<byte[]>> get(ByteArray key) throws VoldemortException {
+        return removeExpired(super.get(key), time.getMilliseconds());
+    }
+
+    @Override
+    public Map<ByteArray, List<Versioned<byte[]>>> getAll(Iterable<ByteArray> keys)
+            throws VoldemortException {
+        Map<ByteArray, List<Versioned<byte[]>>> result = super.getAll(keys);
+        Map<ByteArray, List<Versioned<byte[]>>> retained = Maps.newHashMapWithExpectedSize(result.size());
+        long now = time.getMilliseconds();
+        for(Map.Entry<ByteArray, List<Versioned<byte[]>>> entry: result.entrySet()) {
+            List<Versioned<byte[]>> values = removeExpired(entry.getValue(), now);
+            // a key with no values is left out, as a missing key is
+            if(!values.isEmpty())
+                retained.put(entry.getKey(), values);
+        }
+        return retained;
+    }
+
+    private List<Versioned<byte[]>> removeExpired(List<Versioned<byte[]>> values, long now) {
+        List<Versioned<byte[]>> retained = null;
+        for(int i = 0; i < values.size(); i++) {
+            VectorClock clock = (VectorClock) values.get(i).getVersion();
+            boolean isExpired = now - clock.getTimestamp() > retentionMs;
+            if(isExpired && retained == null)
+                retained = Lists.newArrayList(values.subList(0, i));
+            else if(!isExpired && retained != null)
+                retained.add(values.get(i));
+        }
+        return retained == null ? values : retained;
+    }
+
+}
@@ -16,23 +16,38 @@
 
 package voldemort.store.versioned;
 
+import java.util.Map;
+import java.util.Set;
+
 import voldemort.VoldemortException;
+import voldemort.store.BlindPutStore;
 import voldemort.store.DelegatingStore;
 import voldemort.store.Store;
 import voldemort.store.StoreCapabilityType;
+import voldemort.store.StoreUtils;
 import voldemort.utils.Time;
+import voldemort.versioning.ObsoleteVersionException;
 import voldemort.versioning.VectorClock;
+import voldemort.versioning.Version;
 import voldemort.versioning.Versioned;
 
+import com.google.common.collect.Maps;
+
 /**
  * A wrapper that increments the version on the value for puts and delegates all
  * other operations
+ * <p/>
+ * Blind puts merge the versions stored for the key before incrementing, and
+ * are retried a few times if a concurrent put makes their version obsolete.
  * 
  * 
  * @param <K> The key type
  * @param <V> The value type
  */
-public class VersionIncrementingStore<K, V> extends DelegatingStore<K, V> implements Store<K, V> {
+public class VersionIncrementingStore<K, V> extends DelegatingStore<K, V> implements
+        BlindPutStore<K, V> {
+
+    private static final int MAX_BLIND_PUT_ATTEMPTS = 3;
 
     private final short nodeId;
     private final Time time;
@@ -51,6 +66,36 @@ public class VersionIncrementingStore<K, V> extends DelegatingStore<K, V> implem
         super.put(key, value);
     }
 
+    @Override
+    public Set<K> putAll(Map<K, Versioned<V>> entries) throws VoldemortException {
+        Map<K, Versioned<V>> incremented = Maps.newHashMapWithExpectedSize(entries.size());
+        for(Map.Entry<K, Versioned<V>> entry: entries.entrySet()) {
+            Versioned<V> value = entry.getValue().cloneVersioned();
+            VectorClock clock = (VectorClock) value.getVersion();
+            clock.incrementVersion(nodeId, time.getMilliseconds());
+            incremented.put(entry.getKey(), value);
+        }
+        return super.putAll(incremented);
+    }
+
+    public Version blindPut(K key, V value) throws VoldemortException {
+        StoreUtils.assertValidKey(key);
+        for(int attempts = 1;; attempts++) {
+            VectorClock clock = new VectorClock();
+            for(Version version: getInnerStore().getVersions(key))
+                clock = clock.merge((VectorClock) version);
+            clock.incrementVersion(nodeId, time.getMilliseconds());
+
+            try {
+                getInnerStore().put(key, new Versioned<V>(value, clock));
+                return clock;
+            } catch(ObsoleteVersionException e) {
+                if(attempts >= MAX_BLIND_PUT_ATTEMPTS)
+                    throw e;
+            }
+        }
+    }
+
     @Override
     public Object getCapability(StoreCapabilityType capability) {
         if(StoreCapabilityType.VERSION_INCREMENTING.equals(capability))
@@ -2,6 +2,7 @@ package voldemort.store.views;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import voldemort.VoldemortException;
 import voldemort.annotations.Experimental;
@@ -80,6 +81,11 @@ public class ViewStorageEngine implements StorageEngine<ByteArray, byte[]> {
         return target.getVersions(key);
     }
 
+    public Set<ByteArray> putAll(Map<ByteArray, Versioned<byte[]>> entries)
+            throws VoldemortException {
+        return StoreUtils.putAll(this, entries);
+    }
+
     public void put(ByteArray key, Versioned<byte[]> value) throws VoldemortException {
         target.put(key, Versioned.value(valueFromViewSchema(key, value.getValue()),
                                         value.getVersion()));
@@ -19,6 +19,8 @@ package voldemort.utils;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 
 import voldemort.annotations.concurrency.NotThreadsafe;
 
@@ -36,6 +38,11 @@ import voldemort.annotations.concurrency.NotThreadsafe;
  * buffer as the object reference passed into the constructor is changed upon
  * expansion. Additionally, some callers might wish to "un-expand" the buffer
  * back to a more reasonable size after use.
+ * <p/>
+ * Large buffers may be attached rather than written, in which case they are
+ * not copied. The bytes written so far are then given to the channel as
+ * {@link #getGatheredBuffers() gathered buffers}, in the order written and
+ * attached.
  * 
  */
 
@@ -46,9 +53,26 @@ public class ByteBufferBackedOutputStream extends OutputStream {
 
     private boolean wasExpanded;
 
+    private final ByteBufferPool bufferPool;
+
+    private final List<ByteBuffer> attachments;
+
+    private final List<Integer> attachedAt;
+
     public ByteBufferBackedOutputStream(ByteBuffer buffer) {
+        this(buffer, null);
+    }
+
+    /**
+     * @param bufferPool The pool to take larger buffers from and give the
+     *        outgrown ones back to, or null to allocate them on the heap
+     */
+    public ByteBufferBackedOutputStream(ByteBuffer buffer, ByteBufferPool bufferPool) {
         this.buffer = buffer;
+        this.bufferPool = bufferPool;
         wasExpanded = false;
+        this.attachments = new ArrayList<ByteBuffer>();
+        this.attachedAt = new ArrayList<Integer>();
     }
 
     public ByteBuffer getBuffer() {
@@ -79,7 +103,10 @@ public class ByteBufferBackedOutputStream extends OutputStream {
             return;
 
         int newCapacity = buffer.capacity() + need;
-        buffer = ByteUtils.expand(buffer, newCapacity * 2);
+        if(bufferPool != null)
+            buffer = bufferPool.expand(buffer, newCapacity * 2);
+        else
+            buffer = ByteUtils.expand(buffer, newCapacity * 2);
         wasExpanded = true;
     }
 
@@ -87,4 +114,53 @@ public class ByteBufferBackedOutputStream extends OutputStream {
         return wasExpanded;
     }
 
+    /**
+     * Adds the remaining bytes of the given buffer after the bytes written so
+     * far, without copying them. The buffer must not be modified until it has
+     * been written out and the attachments are cleared.
+     * 
+     * @param attachment The buffer to attach
+     */
+    public void attach(ByteBuffer attachment) {
+        attachments.add(attachment);
+        attachedAt.add(buffer.position());
+    }
+
+    public boolean hasAttachments() {
+        return !attachments.isEmpty();
+    }
+
+    public void clearAttachments() {
+        attachments.clear();
+        attachedAt.clear();
+    }
+
+    /**
+     * Returns the bytes between the position and the limit of the (flipped)
+     * buffer, with the attached buffers in between, for a gathering write. The
+     * returned buffers share their contents with the buffer and the
+     * attachments.
+     * 
+     * @return The buffers to write, in order
+     */
+    public ByteBuffer[] getGatheredBuffers() {
+        ByteBuffer[] buffers = new ByteBuffer[attachments.size() * 2 + 1];
+        int start = buffer.position();
+        for(int i = 0; i < attachments.size(); i++) {
+            int end = attachedAt.get(i);
+            buffers[i * 2] = slice(start, end);
+            buffers[i * 2 + 1] = attachments.get(i);
+            start = end;
+        }
+        buffers[buffers.length - 1] = slice(start, buffer.limit());
+        return buffers;
+    }
+
+    private ByteBuffer slice(int start, int end) {
+        ByteBuffer slice = buffer.duplicate();
+        slice.limit(end);
+        slice.position(start);
+        return slice;
+    }
+
 }
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2010 LinkedIn, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.utils;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import voldemort.annotations.concurrency.Threadsafe;
+import voldemort.annotations.jmx.JmxGetter;
+import voldemort.annotations.jmx.JmxManaged;
+
+/**
+ * A pool of direct buffers shared by the connections of a
+ * {@link SelectorManagerWorker}, so that the buffers of requests and responses
+ * larger than the socket buffer are reused rather than allocated for each of
+ * them.
+ * <p/>
+ * Buffers come in size classes of powers of two, a buffer acquired for a given
+ * capacity has the smallest size class holding it. The pool keeps the buffers
+ * released to it up to a total size; buffers larger than the largest size
+ * class are allocated on the heap and not kept.
+ *
+ */
+@Threadsafe
+@JmxManaged(description = "A pool of direct buffers for socket IO.")
+public class ByteBufferPool {
+
+    private static final int MIN_BUFFER_BITS = 10;
+
+    private static final int MAX_BUFFER_BITS = 24;
+
+    private final long maxPooledBytes;
+
+    private final Queue<ByteBuffer>[] sizeClasses;
+
+    private final AtomicLong pooledBytes;
+
+    private final AtomicLong numAcquired;
+
+    private final AtomicLong numHits;
+
+    private final AtomicLong numReleased;
+
+    private final AtomicLong numDiscarded;
+
+    /**
+     * @param maxPooledBytes The most bytes kept in released buffers
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public ByteBufferPool(long maxPooledBytes) {
+        if(maxPooledBytes <= 0)
+            throw new IllegalArgumentException("maxPooledBytes must be positive.");
+
+        this.maxPooledBytes = maxPooledBytes;
+        this.sizeClasses = new Queue[MAX_BUFFER_BITS - MIN_BUFFER_BITS + 1];
+        for(int i = 0; i < sizeClasses.length; i++)
+            sizeClasses[i] = new ConcurrentLinkedQueue<ByteBuffer>();
+        this.pooledBytes = new AtomicLong(0);
+        this.numAcquired = new AtomicLong(0);
+        this.numHits = new AtomicLong(0);
+        this.numReleased = new AtomicLong(0);
+        this.numDiscarded = new AtomicLong(0);
+    }
+
+    /**
+     * Takes a cleared buffer of at least the given capacity from the pool, or
+     * allocates one if there is none
+     *
+     * @param capacity The smallest capacity needed
+     * @return The buffer
+     */
+    public ByteBuffer acquire(int capacity) {
+        numAcquired.incrementAndGet();
+        int sizeClass = sizeClassFor(capacity);
+        if(sizeClass >= sizeClasses.length)
+            return ByteBuffer.allocate(capacity);
+
+        ByteBuffer buffer = sizeClasses[sizeClass].poll();
+        if(buffer == null)
+            return ByteBuffer.allocateDirect(1 << (sizeClass + MIN_BUFFER_BITS));
+
+        pooledBytes.addAndGet(-buffer.capacity());
+        numHits.incrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Gives a buffer back to the pool. The buffer must no longer be used by
+     * the caller; buffers which were not acquired from the pool, or which do not
+     * fit in it, are left to the garbage collector.
+     *
+     * @param buffer The buffer to release
+     */
+    public void release(ByteBuffer buffer) {
+        int capacity = buffer.capacity();
+        int sizeClass = sizeClassFor(capacity);
+        if(!buffer.isDirect() || sizeClass >= sizeClasses.length
+           || capacity != 1 << (sizeClass + MIN_BUFFER_BITS)) {
+            numDiscarded.incrementAndGet();
+            return;
+        }
+
+        if(pooledBytes.addAndGet(capacity) > maxPooledBytes) {
+            pooledBytes.addAndGet(-capacity);
+            numDiscarded.incrementAndGet();
+            return;
+        }
+
+        sizeClasses[sizeClass].offer(buffer);
+        numReleased.incrementAndGet();
+    }
+
+    /**
+     * Copies the buffer into a larger one from the pool, at the same position,
+     * and releases it
+     *
+     * @param buffer The buffer to expand
+     * @param capacity The smallest capacity needed
+     * @return The expanded buffer
+     */
+    public ByteBuffer expand(ByteBuffer buffer, int capacity) {
+        if(capacity < buffer.capacity())
+            throw new IllegalArgumentException("capacity (" + capacity
+                                               + ") must be larger than existing capacity ("
+                                               + buffer.capacity() + ")");
+
+        ByteBuffer expanded = acquire(capacity);
+        int position = buffer.position();
+        buffer.rewind();
+        expanded.put(buffer);
+        expanded.position(position);
+        release(buffer);
+        return expanded;
+    }
+
+    private int sizeClassFor(int capacity) {
+        if(capacity <= 1 << MIN_BUFFER_BITS)
+            return 0;
+
+        return 32 - Integer.numberOfLeadingZeros(capacity - 1) - MIN_BUFFER_BITS;
+    }
+
+    @JmxGetter(name = "pooledBytes", description = "The number of bytes in buffers waiting in the pool.")
+    public long getPooledBytes() {
+        return pooledBytes.get();
+    }
+
+    @JmxGetter(name = "numAcquired", description = "The number of buffers acquired from the pool.")
+    public long getNumAcquired() {
+        return numAcquired.get();
+    }
+
+    @JmxGetter(name = "numHits", description = "The number of acquired buffers which were reused.")
+    public long getNumHits() {
+        return numHits.get();
+    }
+
+    @JmxGetter(name = "hitRatio", description = "The fraction of acquired buffers which were reused.")
+    public double getHitRatio() {
+        long acquired = numAcquired.get();
+        return acquired == 0 ? 0.0 : numHits.get() / (double) acquired;
+    }
+
+    @JmxGetter(name = "numReleased", description = "The number of buffers given back and kept by the pool.")
+    public long getNumReleased() {
+        return numReleased.get();
+    }
+
+    @JmxGetter(name = "numDiscarded", description = "The number of buffers given back but not kept, as the pool was full or they did not fit.")
+    public long getNumDiscarded() {
+        return numDiscarded.get();
+    }
+
+}
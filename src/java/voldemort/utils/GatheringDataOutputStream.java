@@ -0,0 +1,67 @@
+/*
+ * Copyright 2010 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.utils;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import voldemort.annotations.concurrency.NotThreadsafe;
+
+/**
+ * A DataOutputStream over a {@link ByteBufferBackedOutputStream} which attaches
+ * large arrays given to {@link #writeShared(byte[])} to the buffer instead of
+ * copying them, so that they are written to the channel in place.
+ * 
+ */
+@NotThreadsafe
+public class GatheringDataOutputStream extends DataOutputStream {
+
+    private final ByteBufferBackedOutputStream outputStream;
+
+    private final int minAttachedSize;
+
+    /**
+     * @param outputStream The stream to write to
+     * @param minAttachedSize The smallest array which is attached rather than
+     *        copied, smaller ones cost more to gather than to copy
+     */
+    public GatheringDataOutputStream(ByteBufferBackedOutputStream outputStream, int minAttachedSize) {
+        super(outputStream);
+        this.outputStream = outputStream;
+        this.minAttachedSize = minAttachedSize;
+    }
+
+    /**
+     * Writes the array, which is not copied if it is large enough. The array
+     * must then not be modified until the response has been written out.
+     * 
+     * @param bytes The bytes to write
+     */
+    public void writeShared(byte[] bytes) throws IOException {
+        if(bytes.length < minAttachedSize) {
+            write(bytes);
+            return;
+        }
+
+        outputStream.attach(ByteBuffer.wrap(bytes));
+        written += bytes.length;
+        if(written < 0)
+            written = Integer.MAX_VALUE;
+    }
+
+}
@@ -18,10 +18,13 @@ package voldemort.utils;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.log4j.Logger;
 
@@ -30,6 +33,7 @@ import voldemort.client.protocol.admin.AdminClient;
 import voldemort.client.protocol.admin.AdminClientConfig;
 import voldemort.cluster.Cluster;
 import voldemort.cluster.Node;
+import voldemort.routing.RoutingStrategy;
 import voldemort.server.VoldemortConfig;
 import voldemort.store.StoreDefinition;
 import voldemort.versioning.Occured;
@@ -331,6 +335,30 @@ public class RebalanceUtils {
         return maxStore;
     }
 
+    /**
+     * Get the master partitions of all keys that are stored in any of the
+     * given partitions, that is the partitions which replicate to them.
+     * 
+     * @param routingStrategy The routing strategy of the store
+     * @param numPartitions The number of partitions of the cluster
+     * @param partitions The partitions holding the keys
+     * @return The master partitions of the keys
+     */
+    public static Set<Integer> getMasterPartitions(RoutingStrategy routingStrategy,
+                                                   int numPartitions,
+                                                   Collection<Integer> partitions) {
+        Set<Integer> masterPartitions = new HashSet<Integer>();
+        for(int partition = 0; partition < numPartitions; partition++) {
+            for(int replicatingPartition: routingStrategy.getReplicatingPartitionList(partition)) {
+                if(partitions.contains(replicatingPartition)) {
+                    masterPartitions.add(partition);
+                    break;
+                }
+            }
+        }
+        return masterPartitions;
+    }
+
     public static List<String> getStoreNames(List<StoreDefinition> storeDefList) {
         List<String> storeList = new ArrayList<String>(storeDefList.size());
         for(StoreDefinition def: storeDefList) {
@@ -38,6 +38,10 @@ import org.apache.log4j.Logger;
  * The bulk of the complexity in this class surrounds partial reads and writes,
  * as well as determining when all the data needed for the request has been
  * read.
+ * <p/>
+ * If a {@link ByteBufferPool} is given, the buffers are taken from it, and
+ * buffers grown past the resize threshold for a request are given back to it
+ * once the request completes.
  */
 
 public abstract class SelectorManagerWorker implements Runnable {
@@ -58,17 +62,32 @@ public abstract class SelectorManagerWorker implements Runnable {
 
     protected final AtomicBoolean isClosed;
 
+    protected final ByteBufferPool bufferPool;
+
     protected final Logger logger = Logger.getLogger(getClass());
 
     public SelectorManagerWorker(Selector selector,
                                  SocketChannel socketChannel,
                                  int socketBufferSize) {
+        this(selector, socketChannel, socketBufferSize, null);
+    }
+
+    /**
+     * @param bufferPool The pool to take buffers from, or null to allocate
+     *        them on the heap
+     */
+    public SelectorManagerWorker(Selector selector,
+                                 SocketChannel socketChannel,
+                                 int socketBufferSize,
+                                 ByteBufferPool bufferPool) {
         this.selector = selector;
         this.socketChannel = socketChannel;
         this.socketBufferSize = socketBufferSize;
         this.resizeThreshold = socketBufferSize * 2; // This is arbitrary...
-        this.inputStream = new ByteBufferBackedInputStream(ByteBuffer.allocate(socketBufferSize));
-        this.outputStream = new ByteBufferBackedOutputStream(ByteBuffer.allocate(socketBufferSize));
+        this.bufferPool = bufferPool;
+        this.inputStream = new ByteBufferBackedInputStream(allocate(socketBufferSize));
+        this.outputStream = new ByteBufferBackedOutputStream(allocate(socketBufferSize),
+                                                             bufferPool);
         this.createTimestamp = System.nanoTime();
         this.isClosed = new AtomicBoolean(false);
 
@@ -174,10 +193,7 @@ public abstract class SelectorManagerWorker implements Runnable {
         if(logger.isTraceEnabled())
             traceInputBufferState("About to clear read buffer");
 
-        if(inputStream.getBuffer().capacity() >= resizeThreshold)
-            inputStream.setBuffer(ByteBuffer.allocate(socketBufferSize));
-        else
-            inputStream.getBuffer().clear();
+        inputStream.setBuffer(reset(inputStream.getBuffer()));
 
         if(logger.isTraceEnabled())
             traceInputBufferState("Cleared read buffer");
@@ -200,14 +216,43 @@ public abstract class SelectorManagerWorker implements Runnable {
             // We haven't read all the data needed for the request AND we
             // don't have enough data in our buffer. So expand it. Note:
             // doubling the current buffer size is arbitrary.
-            inputStream.setBuffer(ByteUtils.expand(inputStream.getBuffer(),
-                                                   inputStream.getBuffer().capacity() * 2));
+            inputStream.setBuffer(expand(inputStream.getBuffer(),
+                                         inputStream.getBuffer().capacity() * 2));
 
             if(logger.isTraceEnabled())
                 traceInputBufferState("Expanded input buffer");
         }
     }
 
+    protected ByteBuffer allocate(int capacity) {
+        return bufferPool != null ? bufferPool.acquire(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    protected ByteBuffer expand(ByteBuffer buffer, int capacity) {
+        return bufferPool != null ? bufferPool.expand(buffer, capacity)
+                                 : ByteUtils.expand(buffer, capacity);
+    }
+
+    /**
+     * Readies a buffer for the next request: the buffer is cleared, unless it
+     * has grown past the resize threshold, in which case it is given back to
+     * the pool and a buffer of the socket buffer size is returned instead.
+     * 
+     * @param buffer The buffer used by the completed request
+     * @return The buffer to use for the next request
+     */
+    protected ByteBuffer reset(ByteBuffer buffer) {
+        if(buffer.capacity() < resizeThreshold) {
+            buffer.clear();
+            return buffer;
+        }
+
+        if(bufferPool != null)
+            bufferPool.release(buffer);
+
+        return allocate(socketBufferSize);
+    }
+
     protected void traceInputBufferState(String preamble) {
         logger.trace(preamble + " - position: " + inputStream.getBuffer().position() + ", limit: "
                      + inputStream.getBuffer().limit() + ", remaining: "
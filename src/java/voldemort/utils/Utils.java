@@ -20,6 +20,7 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -30,6 +31,8 @@ import voldemort.VoldemortException;
 
 import com.sun.jna.Library;
 import com.sun.jna.Native;
+import com.sun.jna.NativeLong;
+import com.sun.jna.Pointer;
 
 /**
  * Helper functions FTW!
@@ -131,9 +134,41 @@ public class Utils {
             throw new VoldemortException("Unable to create symbolic link for " + filePath);
     }
 
+    /**
+     * Advise the kernel that the pages of a mapped buffer will be needed soon,
+     * so that it reads them in ahead of the first access. This is only a hint,
+     * if it cannot be given the pages are faulted in on access as usual.
+     * 
+     * @param buffer A direct or memory mapped buffer
+     * @return true if the kernel accepted the advice
+     */
+    public static boolean adviseWillNeed(ByteBuffer buffer) {
+        if(!buffer.isDirect() || buffer.capacity() == 0)
+            return false;
+        try {
+            Posix posix = (Posix) Native.loadLibrary("c", Posix.class);
+            long address = Pointer.nativeValue(Native.getDirectBufferPointer(buffer));
+            // madvise requires a page aligned address
+            long start = address - address % posix.getpagesize();
+            return posix.madvise(new Pointer(start),
+                                 new NativeLong(address - start + buffer.capacity()),
+                                 Posix.MADV_WILLNEED) == 0;
+        } catch(LinkageError e) {
+            return false;
+        } catch(RuntimeException e) {
+            return false;
+        }
+    }
+
     public interface Posix extends Library {
 
+        public static final int MADV_WILLNEED = 3;
+
         public int symlink(String oldName, String newName);
+
+        public int getpagesize();
+
+        public int madvise(Pointer address, NativeLong length, int advice);
     }
 
     /**
@@ -4,6 +4,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import voldemort.cluster.Node;
 import voldemort.cluster.failuredetector.BasicStoreVerifier;
@@ -84,6 +85,11 @@ public class MutableStoreVerifier extends BasicStoreVerifier<ByteArray, byte[]>
 
                 public void put(ByteArray key, Versioned<byte[]> value) throws VoldemortException {}
 
+                public Set<ByteArray> putAll(Map<ByteArray, Versioned<byte[]>> entries)
+                        throws VoldemortException {
+                    return null;
+                }
+
             });
         }
 
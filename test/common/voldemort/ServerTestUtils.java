@@ -109,6 +109,49 @@ public class ServerTestUtils {
         return getSocketService(useNio, factory, port, 5, 10, 10000);
     }
 
+    public static AbstractSocketService getStagedNioSocketService(String clusterXml,
+                                                                  String storesXml,
+                                                                  String storeName,
+                                                                  int port,
+                                                                  int workers) {
+        RequestHandlerFactory factory = getSocketRequestHandlerFactory(clusterXml,
+                                                                       storesXml,
+                                                                       getStores(storeName,
+                                                                                 clusterXml,
+                                                                                 storesXml));
+        return new NioSocketService(factory,
+                                    port,
+                                    10000,
+                                    5,
+                                    workers,
+                                    workers,
+                                    1024,
+                                    "client-request-service",
+                                    false);
+    }
+
+    public static AbstractSocketService getPooledBufferNioSocketService(String clusterXml,
+                                                                        String storesXml,
+                                                                        String storeName,
+                                                                        int port,
+                                                                        long bufferPoolSize) {
+        RequestHandlerFactory factory = getSocketRequestHandlerFactory(clusterXml,
+                                                                       storesXml,
+                                                                       getStores(storeName,
+                                                                                 clusterXml,
+                                                                                 storesXml));
+        return new NioSocketService(factory,
+                                    port,
+                                    10000,
+                                    5,
+                                    0,
+                                    0,
+                                    0,
+                                    bufferPoolSize,
+                                    "client-request-service",
+                                    false);
+    }
+
     public static RequestHandlerFactory getSocketRequestHandlerFactory(String clusterXml,
                                                                        String storesXml,
                                                                        StoreRepository storeRepository) {
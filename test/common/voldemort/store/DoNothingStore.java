@@ -18,6 +18,7 @@ package voldemort.store;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import voldemort.VoldemortException;
 import voldemort.utils.Utils;
@@ -59,6 +60,10 @@ public class DoNothingStore<K, V> implements Store<K, V> {
     // Do nothing
     }
 
+    public Set<K> putAll(Map<K, Versioned<V>> entries) throws VoldemortException {
+        return null;
+    }
+
     public Map<K, List<Versioned<V>>> getAll(Iterable<K> keys) throws VoldemortException {
         return null;
     }
@@ -2,6 +2,7 @@ package voldemort.store;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import voldemort.VoldemortException;
 import voldemort.store.memory.InMemoryStorageEngine;
@@ -44,6 +45,10 @@ public class FailingReadsStore<K, V> implements Store<K, V> {
         return name;
     }
 
+    public Set<K> putAll(Map<K, Versioned<V>> entries) throws VoldemortException {
+        return engine.putAll(entries);
+    }
+
     public void put(K key, Versioned<V> value) throws VoldemortException {
         engine.put(key, value);
     }
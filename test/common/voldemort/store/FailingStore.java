@@ -18,6 +18,7 @@ package voldemort.store;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import voldemort.VoldemortException;
 import voldemort.utils.Utils;
@@ -63,6 +64,10 @@ public class FailingStore<K, V> implements Store<K, V> {
         throw exception;
     }
 
+    public Set<K> putAll(Map<K, Versioned<V>> entries) throws VoldemortException {
+        throw exception;
+    }
+
     public Map<K, List<Versioned<V>>> getAll(Iterable<K> keys) throws VoldemortException {
         throw exception;
     }
@@ -18,6 +18,7 @@ package voldemort.store;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import voldemort.VoldemortException;
 import voldemort.versioning.Version;
@@ -25,13 +26,17 @@ import voldemort.versioning.Versioned;
 
 public class SleepyStore<K, V> extends DelegatingStore<K, V> {
 
-    private final long sleepTimeMs;
+    private volatile long sleepTimeMs;
 
     public SleepyStore(long sleepTimeMs, Store<K, V> innerStore) {
         super(innerStore);
         this.sleepTimeMs = sleepTimeMs;
     }
 
+    public void setSleepTimeMs(long sleepTimeMs) {
+        this.sleepTimeMs = sleepTimeMs;
+    }
+
     @Override
     public boolean delete(K key, Version version) throws VoldemortException {
         try {
@@ -72,4 +77,14 @@ public class SleepyStore<K, V> extends DelegatingStore<K, V> {
         }
     }
 
+    @Override
+    public Set<K> putAll(Map<K, Versioned<V>> entries) throws VoldemortException {
+        try {
+            Thread.sleep(sleepTimeMs);
+            return getInnerStore().putAll(entries);
+        } catch(InterruptedException e) {
+            throw new VoldemortException(e);
+        }
+    }
+
 }
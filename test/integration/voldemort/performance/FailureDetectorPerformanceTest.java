@@ -0,0 +1,81 @@
+/*
+ * Copyright 2010 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.performance;
+
+import java.util.List;
+
+import voldemort.MutableStoreVerifier;
+import voldemort.ServerTestUtils;
+import voldemort.cluster.Cluster;
+import voldemort.cluster.Node;
+import voldemort.cluster.failuredetector.FailureDetector;
+import voldemort.cluster.failuredetector.FailureDetectorConfig;
+import voldemort.cluster.failuredetector.FailureDetectorUtils;
+import voldemort.cluster.failuredetector.ThresholdFailureDetector;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Measures how the request accounting of the failure detector scales with the
+ * number of threads recording outcomes, as the routed stores do for every
+ * request. Each operation records a batch of outcomes against the nodes of the
+ * cluster, some of them slow enough to count against the node.
+ */
+public class FailureDetectorPerformanceTest {
+
+    public static void main(String[] args) throws Exception {
+        final int numNodes = 6;
+        final int numRequests = 100000;
+        final int outcomesPerRequest = 100;
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0])
+                                        : Runtime.getRuntime().availableProcessors() * 2;
+
+        Cluster cluster = ServerTestUtils.getLocalCluster(numNodes);
+        final List<Node> nodes = Lists.newArrayList(cluster.getNodes());
+
+        for(int numThreads = 1; numThreads <= maxThreads; numThreads *= 2) {
+            FailureDetectorConfig failureDetectorConfig = new FailureDetectorConfig().setImplementationClassName(ThresholdFailureDetector.class.getName())
+                                                                                     .setNodes(nodes)
+                                                                                     .setStoreVerifier(MutableStoreVerifier.create(nodes));
+            final FailureDetector failureDetector = FailureDetectorUtils.create(failureDetectorConfig,
+                                                                                false);
+            final long slowRequestTime = failureDetectorConfig.getRequestLengthThreshold() + 1;
+
+            PerformanceTest test = new PerformanceTest() {
+
+                @Override
+                public void doOperation(int id) throws Exception {
+                    for(int i = 0; i < outcomesPerRequest; i++) {
+                        Node node = nodes.get((id + i) % nodes.size());
+                        failureDetector.recordSuccess(node, i % 50 == 0 ? slowRequestTime : 1);
+                    }
+                }
+            };
+
+            System.out.println("Perf test for failure detector with numThreads = " + numThreads
+                               + ", outcomes per operation = " + outcomesPerRequest + ":");
+            test.run(numRequests, numThreads);
+            test.printStats();
+            System.out.println("Outcomes/second: " + test.getOperationsPerSecond()
+                               * outcomesPerRequest);
+            System.out.println();
+
+            failureDetector.destroy();
+        }
+    }
+
+}
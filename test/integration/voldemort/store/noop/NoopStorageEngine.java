@@ -20,6 +20,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import voldemort.VoldemortException;
 import voldemort.store.NoSuchCapabilityException;
@@ -86,6 +87,11 @@ public class NoopStorageEngine implements StorageEngine<ByteArray, byte[]> {
         }
     }
 
+    public Set<ByteArray> putAll(Map<ByteArray, Versioned<byte[]>> entries)
+            throws VoldemortException {
+        return StoreUtils.putAll(this, entries);
+    }
+
     public boolean delete(ByteArray key, Version version) throws VoldemortException {
         return true;
     }
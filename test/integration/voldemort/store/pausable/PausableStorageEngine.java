@@ -2,6 +2,7 @@ package voldemort.store.pausable;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.log4j.Logger;
 
@@ -73,6 +74,11 @@ public class PausableStorageEngine<K, V> implements StorageEngine<K, V> {
         inner.put(key, value);
     }
 
+    public Set<K> putAll(Map<K, Versioned<V>> entries) {
+        blockIfNecessary();
+        return inner.putAll(entries);
+    }
+
     public ClosableIterator<Pair<K, Versioned<V>>> entries() {
         blockIfNecessary();
         return inner.entries();
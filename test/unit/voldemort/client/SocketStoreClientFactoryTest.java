@@ -21,6 +21,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.After;
 import org.junit.Before;
@@ -30,8 +31,10 @@ import org.junit.runners.Parameterized;
 import org.junit.runners.Parameterized.Parameters;
 
 import voldemort.ServerTestUtils;
+import voldemort.client.protocol.RequestFormatType;
 import voldemort.serialization.SerializerFactory;
 import voldemort.server.AbstractSocketService;
+import voldemort.versioning.Versioned;
 
 /**
  * 
@@ -102,4 +105,29 @@ public class SocketStoreClientFactoryTest extends AbstractStoreClientFactoryTest
         factories.add(getFactory(getValidBootstrapUrl()));
     }
 
+    @Test
+    public void testAsyncStoreClient() throws Exception {
+        ClientConfig config = new ClientConfig().setBootstrapUrls(getValidBootstrapUrl())
+                                                .setEnablePipelineRoutedStore(true)
+                                                .setRequestFormatType(RequestFormatType.VOLDEMORT_V3);
+        SocketStoreClientFactory factory = new SocketStoreClientFactory(config);
+
+        try {
+            AsyncStoreClient<String, String> client = factory.getAsyncStoreClient(getValidStoreName());
+
+            client.putAsync("key", "value").get();
+            Versioned<String> versioned = client.getAsync("key").get();
+            assertEquals("value", versioned.getValue());
+
+            client.putAsync("key", "value2").get();
+            Map<String, Versioned<String>> all = client.getAllAsync(Arrays.asList("key")).get();
+            assertEquals("value2", all.get("key").getValue());
+
+            assertTrue(client.deleteAsync("key", all.get("key").getVersion()).get());
+            assertNull(client.getAsync("key").get());
+        } finally {
+            factory.close();
+        }
+    }
+
 }
@@ -16,19 +16,35 @@
 
 package voldemort.scheduled;
 
+import java.io.File;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Semaphore;
 
 import junit.framework.TestCase;
+
+import org.apache.commons.io.FileDeleteStrategy;
+
 import voldemort.MockTime;
+import voldemort.TestUtils;
+import voldemort.serialization.StringSerializer;
 import voldemort.server.scheduler.DataCleanupJob;
 import voldemort.store.StorageEngine;
+import voldemort.store.bdb.BdbStorageEngine;
 import voldemort.store.memory.InMemoryStorageEngine;
+import voldemort.store.serialized.SerializingStorageEngine;
+import voldemort.store.versioned.RetentionEnforcingStore;
+import voldemort.utils.ByteArray;
 import voldemort.utils.EventThrottler;
 import voldemort.utils.Time;
 import voldemort.versioning.VectorClock;
 import voldemort.versioning.Versioned;
 
+import com.sleepycat.je.DatabaseConfig;
+import com.sleepycat.je.Environment;
+import com.sleepycat.je.EnvironmentConfig;
+
 public class DataCleanupJobTest extends TestCase {
 
     private MockTime time;
@@ -61,6 +77,92 @@ public class DataCleanupJobTest extends TestCase {
         assertContains("a", "d", "e", "f");
     }
 
+    public void testCleanupWithExpiryIndex() throws Exception {
+        File tempDir = TestUtils.createTempDir();
+        EnvironmentConfig envConfig = new EnvironmentConfig();
+        envConfig.setAllowCreate(true);
+        envConfig.setTransactional(true);
+        Environment environment = new Environment(tempDir, envConfig);
+        try {
+            DatabaseConfig databaseConfig = new DatabaseConfig();
+            databaseConfig.setAllowCreate(true);
+            databaseConfig.setTransactional(true);
+            databaseConfig.setSortedDuplicates(true);
+            DatabaseConfig indexConfig = new DatabaseConfig();
+            indexConfig.setAllowCreate(true);
+            indexConfig.setTransactional(true);
+            BdbStorageEngine bdbEngine = new BdbStorageEngine("test",
+                                                              environment,
+                                                              environment.openDatabase(null,
+                                                                                       "test",
+                                                                                       databaseConfig),
+                                                              false,
+                                                              null,
+                                                              environment.openDatabase(null,
+                                                                                       "test.expiry-index",
+                                                                                       indexConfig));
+            engine = SerializingStorageEngine.wrap(bdbEngine,
+                                                   new StringSerializer(),
+                                                   new StringSerializer());
+
+            time.setTime(Time.MS_PER_DAY);
+            put("a", "b", "c");
+            time.setTime(2 * Time.MS_PER_DAY + Time.MS_PER_HOUR);
+            put("d", "e", "f");
+            put("a");
+
+            time.setTime(3 * Time.MS_PER_DAY);
+            DataCleanupJob<String, String> job = new DataCleanupJob<String, String>(engine,
+                                                                                    new Semaphore(1),
+                                                                                    Time.MS_PER_DAY,
+                                                                                    time,
+                                                                                    new EventThrottler(1));
+            assertTrue(job.usesExpiryIndex());
+            job.run();
+
+            assertContains("a", "d", "e", "f");
+            assertEquals(0, engine.get("b").size());
+            assertEquals(0, engine.get("c").size());
+            // only the keys written on the first day are visited
+            assertEquals(3, job.getEntriesScanned());
+            assertEquals(2, job.getEntriesDeleted());
+
+            // the visited entries are gone from the index
+            job.run();
+            assertEquals(0, job.getEntriesScanned());
+
+            // the rest expire a day after they were written
+            time.setTime(4 * Time.MS_PER_DAY + 2 * Time.MS_PER_HOUR);
+            job.run();
+            assertEquals(4, job.getEntriesScanned());
+            assertEquals(4, job.getEntriesDeleted());
+            assertEquals(6, job.getTotalEntriesDeleted());
+            engine.close();
+        } finally {
+            environment.close();
+            FileDeleteStrategy.FORCE.delete(tempDir);
+        }
+    }
+
+    public void testExpiredValuesAreNotRead() {
+        InMemoryStorageEngine<ByteArray, byte[]> inner = new InMemoryStorageEngine<ByteArray, byte[]>("test");
+        RetentionEnforcingStore store = new RetentionEnforcingStore(inner, Time.MS_PER_DAY, time);
+        ByteArray oldKey = new ByteArray("old".getBytes());
+        ByteArray newKey = new ByteArray("new".getBytes());
+        inner.put(oldKey, new Versioned<byte[]>(oldKey.get(), new VectorClock(123)));
+        inner.put(newKey, new Versioned<byte[]>(newKey.get(), new VectorClock(Time.MS_PER_DAY)));
+
+        time.setTime(Time.MS_PER_DAY + 124);
+        assertEquals(0, store.get(oldKey).size());
+        assertEquals(1, store.get(newKey).size());
+        Map<ByteArray, List<Versioned<byte[]>>> result = store.getAll(Arrays.asList(oldKey,
+                                                                                    newKey));
+        assertEquals(1, result.size());
+        assertTrue(result.containsKey(newKey));
+        // the versions stay visible, so that new values supersede them
+        assertEquals(1, store.getVersions(oldKey).size());
+    }
+
     private void put(String... items) {
         for(String item: items) {
             VectorClock clock = null;
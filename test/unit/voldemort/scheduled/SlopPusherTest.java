@@ -18,7 +18,11 @@ package voldemort.scheduled;
 
 import static voldemort.TestUtils.bytesEqual;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 
 import junit.framework.TestCase;
 import voldemort.TestUtils;
@@ -29,6 +33,7 @@ import voldemort.store.memory.InMemoryStorageEngine;
 import voldemort.store.slop.Slop;
 import voldemort.store.slop.Slop.Operation;
 import voldemort.utils.ByteArray;
+import voldemort.versioning.VectorClock;
 import voldemort.versioning.Versioned;
 
 public class SlopPusherTest extends TestCase {
@@ -63,7 +68,7 @@ public class SlopPusherTest extends TestCase {
                                         new Date()));
     }
 
-    private void pushSlop(Versioned<Slop>... slops) {
+    private void pushSlop(List<Versioned<Slop>> slops) {
         // put all the slop in the slop store
         for(Versioned<Slop> s: slops)
             repo.getSlopStore().put(s.getValue().makeKey(), s);
@@ -72,7 +77,7 @@ public class SlopPusherTest extends TestCase {
         pusher.run();
     }
 
-    private void checkPush(Versioned<Slop>[] delivered, Versioned<Slop>[] undelivered) {
+    private void checkPush(List<Versioned<Slop>> delivered, List<Versioned<Slop>> undelivered) {
         // now all the delivered slop should be gone and the various stores
         // should have
         // those items
@@ -83,7 +88,7 @@ public class SlopPusherTest extends TestCase {
             Slop slop = vs.getValue();
             assertEquals("Slop remains.", 0, repo.getSlopStore().get(slop.makeKey()).size());
             assertTrue(bytesEqual(slop.getValue(), repo.getNodeStore(STORE_NAME, slop.getNodeId())
-                                                       .get(slop.makeKey())
+                                                       .get(slop.getKey())
                                                        .get(0)
                                                        .getValue()));
         }
@@ -100,10 +105,11 @@ public class SlopPusherTest extends TestCase {
 
     @SuppressWarnings("unchecked")
     public void testPushSomeSlop() {
-        Versioned<Slop>[] values = new Versioned[] { randomSlop(STORE_NAME, 0),
-                randomSlop(STORE_NAME, 1), randomSlop(STORE_NAME, 0) };
+        List<Versioned<Slop>> values = Arrays.asList(randomSlop(STORE_NAME, 0),
+                                                     randomSlop(STORE_NAME, 1),
+                                                     randomSlop(STORE_NAME, 0));
         pushSlop(values);
-        checkPush(values, new Versioned[] {});
+        checkPush(values, Collections.<Versioned<Slop>> emptyList());
     }
 
     @SuppressWarnings("unchecked")
@@ -111,7 +117,38 @@ public class SlopPusherTest extends TestCase {
         Versioned<Slop> good1 = randomSlop(STORE_NAME, 0);
         Versioned<Slop> good2 = randomSlop(STORE_NAME, 1);
         Versioned<Slop> bad = randomSlop(STORE_NAME, this.failingNodeId);
-        pushSlop(good1, bad, good2);
-        checkPush(new Versioned[] { good1, good2 }, new Versioned[] { bad });
+        pushSlop(Arrays.asList(good1, bad, good2));
+        checkPush(Arrays.asList(good1, good2), Collections.singletonList(bad));
+    }
+
+    public void testPushInBatches() {
+        pusher = new SlopPusherJob(repo, null, null, 3, 2);
+        int numSlops = 20;
+        List<Versioned<Slop>> good = new ArrayList<Versioned<Slop>>();
+        List<Versioned<Slop>> bad = new ArrayList<Versioned<Slop>>();
+        for(int i = 0; i < numSlops; i++)
+            good.add(randomSlop(STORE_NAME, i % 2));
+        for(int i = 0; i < numSlops / 2; i++)
+            bad.add(randomSlop(STORE_NAME, failingNodeId));
+
+        List<Versioned<Slop>> all = new ArrayList<Versioned<Slop>>(good);
+        all.addAll(bad);
+        pushSlop(all);
+        checkPush(good, bad);
+
+        assertEquals(bad.size(), pusher.getBacklog());
+        assertEquals(good.size(), pusher.getTotalSlopsPushed());
+    }
+
+    public void testObsoleteSlopIsDeleted() {
+        Versioned<Slop> slop = randomSlop(STORE_NAME, 0);
+        Slop value = slop.getValue();
+        VectorClock newer = ((VectorClock) slop.getVersion()).incremented(0,
+                                                                          System.currentTimeMillis());
+        repo.getNodeStore(STORE_NAME, 0).put(value.getKey(),
+                                             new Versioned<byte[]>(value.getValue(), newer));
+        pushSlop(Collections.singletonList(slop));
+        assertEquals("Slop remains.", 0, repo.getSlopStore().get(value.makeKey()).size());
+        assertEquals(newer, repo.getNodeStore(STORE_NAME, 0).get(value.getKey()).get(0).getVersion());
     }
 }
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2008-2010 LinkedIn, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.server.niosocket;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+public class StagedRequestExecutorTest extends TestCase {
+
+    private StagedRequestExecutor executor;
+
+    @Override
+    public void tearDown() throws Exception {
+        if(executor != null)
+            executor.shutdown(5, TimeUnit.SECONDS);
+    }
+
+    public void testSlowStoreDoesNotBlockOtherStores() throws Exception {
+        executor = new StagedRequestExecutor(4, 2, 100);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger running = new AtomicInteger(0);
+        final AtomicInteger maxRunning = new AtomicInteger(0);
+
+        for(int i = 0; i < 10; i++) {
+            executor.submit("slow", new Runnable() {
+
+                public void run() {
+                    int now = running.incrementAndGet();
+                    synchronized(maxRunning) {
+                        maxRunning.set(Math.max(maxRunning.get(), now));
+                    }
+                    try {
+                        release.await();
+                    } catch(InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                }
+            });
+        }
+
+        final CountDownLatch fastDone = new CountDownLatch(10);
+        for(int i = 0; i < 10; i++) {
+            executor.submit("fast", new Runnable() {
+
+                public void run() {
+                    fastDone.countDown();
+                }
+            });
+        }
+
+        assertTrue("Requests for another store should not wait for the slow store",
+                   fastDone.await(5, TimeUnit.SECONDS));
+        assertEquals(8, executor.getQueueDepth("slow"));
+        assertEquals(8, executor.getQueueDepth());
+
+        release.countDown();
+        assertTrue(executor.shutdown(5, TimeUnit.SECONDS));
+        assertEquals("At most two workers should serve a store", 2, maxRunning.get());
+        assertEquals(0, executor.getQueueDepth());
+        assertEquals(20, executor.getNumRequests());
+        assertTrue(executor.getMaxQueueWaitMs() >= executor.getAverageQueueWaitMs());
+    }
+
+    public void testFullQueueRejects() throws Exception {
+        executor = new StagedRequestExecutor(1, 1, 2);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch started = new CountDownLatch(1);
+        Runnable blocking = new Runnable() {
+
+            public void run() {
+                started.countDown();
+                try {
+                    release.await();
+                } catch(InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+
+        executor.submit("test", blocking);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        executor.submit("test", blocking);
+        executor.submit("test", blocking);
+        try {
+            executor.submit("test", blocking);
+            fail("A request beyond the queue size should be rejected");
+        } catch(RejectedExecutionException e) {
+            // expected
+        }
+        assertEquals(1, executor.getNumRejectedRequests());
+        assertEquals(2, executor.getQueueDepth("test"));
+
+        // requests not for a store are queued separately
+        executor.submit(null, blocking);
+        assertEquals(1, executor.getQueueDepth(null));
+
+        release.countDown();
+        assertTrue(executor.shutdown(5, TimeUnit.SECONDS));
+        assertEquals(4, executor.getNumRequests());
+    }
+
+    public void testDrainedQueuesAreRemoved() throws Exception {
+        executor = new StagedRequestExecutor(4, 2, 100);
+        final CountDownLatch done = new CountDownLatch(1000);
+        for(int i = 0; i < 1000; i++) {
+            executor.submit("no-such-store-" + i, new Runnable() {
+
+                public void run() {
+                    done.countDown();
+                }
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(executor.shutdown(5, TimeUnit.SECONDS));
+        assertEquals("Store names sent by clients should not accumulate queues",
+                     0,
+                     executor.getNumStoreQueues());
+        assertEquals(1000, executor.getNumRequests());
+    }
+
+}
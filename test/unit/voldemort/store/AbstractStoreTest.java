@@ -22,8 +22,10 @@ import static voldemort.TestUtils.randomLetters;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import junit.framework.TestCase;
 
@@ -310,6 +312,35 @@ public abstract class AbstractStoreTest<K, V> extends TestCase {
         }
     }
 
+    @Test
+    public void testPutAll() throws Exception {
+        Store<K, V> store = getStore();
+        int putCount = 10;
+        List<K> keys = getKeys(putCount);
+        List<V> values = getValues(putCount + 1);
+
+        // the first key already has a newer version
+        Versioned<V> newer = new Versioned<V>(values.get(putCount), getClock(1, 1));
+        store.put(keys.get(0), newer);
+
+        Map<K, Versioned<V>> entries = new HashMap<K, Versioned<V>>();
+        for(int i = 0; i < putCount; i++)
+            entries.put(keys.get(i), new Versioned<V>(values.get(i), getClock(1)));
+
+        Set<K> obsoleteKeys = store.putAll(entries);
+        assertEquals(Collections.singleton(keys.get(0)), obsoleteKeys);
+
+        List<Versioned<V>> found = store.get(keys.get(0));
+        assertEquals(1, found.size());
+        assertTrue(valuesEqual(newer.getValue(), found.get(0).getValue()));
+
+        for(int i = 1; i < putCount; i++) {
+            found = store.get(keys.get(i));
+            assertEquals(1, found.size());
+            assertTrue(valuesEqual(values.get(i), found.get(0).getValue()));
+        }
+    }
+
     @Test
     public void testGetAllWithAbsentKeys() throws Exception {
         Store<K, V> store = getStore();
@@ -22,9 +22,26 @@ import junit.framework.TestCase;
 
 import org.apache.commons.io.FileDeleteStrategy;
 
+import voldemort.ServerTestUtils;
 import voldemort.TestUtils;
+import voldemort.client.RoutingTier;
+import voldemort.routing.ConsistentRoutingStrategy;
+import voldemort.routing.RoutingStrategy;
+import voldemort.routing.RoutingStrategyType;
+import voldemort.serialization.SerializerDefinition;
 import voldemort.server.VoldemortConfig;
+import voldemort.store.ExpiryIndex;
+import voldemort.store.NoSuchCapabilityException;
+import voldemort.store.StorageEngine;
+import voldemort.store.StorageInitializationException;
+import voldemort.store.StoreCapabilityType;
+import voldemort.store.StoreDefinition;
+import voldemort.store.StoreDefinitionBuilder;
+import voldemort.utils.ByteArray;
+import voldemort.utils.ClosableIterator;
 import voldemort.utils.Props;
+import voldemort.utils.Time;
+import voldemort.versioning.VectorClock;
 import voldemort.versioning.Versioned;
 
 import com.sleepycat.je.Database;
@@ -100,6 +117,177 @@ public class BdbSplitStorageEngineTest extends TestCase {
                                                                             + "storeB").exists()));
     }
 
+    public void testRemoveStorageEngine() {
+        Props props = new Props();
+        props.put("node.id", 1);
+        props.put("voldemort.home", "test/common/voldemort/config");
+        VoldemortConfig voldemortConfig = new VoldemortConfig(props);
+        voldemortConfig.setBdbCacheSize(1 * 1024 * 1024);
+        voldemortConfig.setBdbDataDirectory(bdbMasterDir.toURI().getPath());
+        voldemortConfig.setBdbOneEnvPerStore(true);
+        voldemortConfig.setBdbWriteTransactions(true);
+        voldemortConfig.setBdbFlushTransactions(true);
+        voldemortConfig.setBdbGroupCommit(true);
+
+        bdbStorage = new BdbStorageConfiguration(voldemortConfig);
+        BdbStorageEngine storeA = (BdbStorageEngine) bdbStorage.getStore("storeA");
+        storeA.put(TestUtils.toByteArray("testKey1"), new Versioned<byte[]>("value".getBytes()));
+        assertEquals(1, storeA.getNumGroupCommits());
+        storeA.close();
+        bdbStorage.removeStorageEngine("storeA");
+
+        // Opening the store again opens a new engine in a new environment
+        BdbStorageEngine reopened = (BdbStorageEngine) bdbStorage.getStore("storeA");
+        assertNotSame(storeA, reopened);
+        assertEquals(1, reopened.get(TestUtils.toByteArray("testKey1")).size());
+        reopened.put(TestUtils.toByteArray("testKey2"), new Versioned<byte[]>("value".getBytes()));
+        assertEquals(1, reopened.getNumGroupCommits());
+        reopened.close();
+    }
+
+    public void testKeyLayoutIsChecked() {
+        Props props = new Props();
+        props.put("node.id", 1);
+        props.put("voldemort.home", "test/common/voldemort/config");
+        VoldemortConfig voldemortConfig = new VoldemortConfig(props);
+        voldemortConfig.setBdbCacheSize(1 * 1024 * 1024);
+        voldemortConfig.setBdbDataDirectory(bdbMasterDir.toURI().getPath());
+        voldemortConfig.setBdbOneEnvPerStore(false);
+        RoutingStrategy routingStrategy = new ConsistentRoutingStrategy(ServerTestUtils.getLocalCluster(1)
+                                                                                       .getNodes(),
+                                                                        1);
+        StoreDefinition plainDef = getStoreDef("storeA");
+        StoreDefinition prefixedDef = getStoreDef("storeB");
+        ByteArray key = TestUtils.toByteArray("testKey");
+
+        bdbStorage = new BdbStorageConfiguration(voldemortConfig);
+        StorageEngine<ByteArray, byte[]> store = bdbStorage.getStore(plainDef, routingStrategy);
+        store.put(key, new Versioned<byte[]>("value".getBytes()));
+        store.close();
+        bdbStorage.close();
+
+        voldemortConfig.setBdbPartitionPrefixedKeys(true);
+        bdbStorage = new BdbStorageConfiguration(voldemortConfig);
+        try {
+            bdbStorage.getStore(plainDef, routingStrategy);
+            fail("Store with plain keys opened with partition prefixed keys.");
+        } catch(StorageInitializationException e) {
+            // expected
+        }
+        store = bdbStorage.getStore(prefixedDef, routingStrategy);
+        store.put(key, new Versioned<byte[]>("value".getBytes()));
+        store.close();
+        bdbStorage.close();
+
+        voldemortConfig.setBdbPartitionPrefixedKeys(false);
+        bdbStorage = new BdbStorageConfiguration(voldemortConfig);
+        try {
+            bdbStorage.getStore(prefixedDef, routingStrategy);
+            fail("Store with partition prefixed keys opened with plain keys.");
+        } catch(StorageInitializationException e) {
+            // expected
+        }
+        store = bdbStorage.getStore(plainDef, routingStrategy);
+        assertEquals(1, store.get(key).size());
+        store.close();
+        bdbStorage.close();
+
+        voldemortConfig.setBdbPartitionPrefixedKeys(true);
+        bdbStorage = new BdbStorageConfiguration(voldemortConfig);
+        store = bdbStorage.getStore(prefixedDef, routingStrategy);
+        assertEquals(1, store.get(key).size());
+        store.close();
+    }
+
+    private StoreDefinition getStoreDef(String storeName) {
+        return new StoreDefinitionBuilder().setName(storeName)
+                                           .setType(BdbStorageConfiguration.TYPE_NAME)
+                                           .setKeySerializer(new SerializerDefinition("string"))
+                                           .setValueSerializer(new SerializerDefinition("string"))
+                                           .setRoutingPolicy(RoutingTier.SERVER)
+                                           .setRoutingStrategyType(RoutingStrategyType.CONSISTENT_STRATEGY)
+                                           .setReplicationFactor(1)
+                                           .setRequiredReads(1)
+                                           .setRequiredWrites(1)
+                                           .build();
+    }
+
+    public void testExpiryIndex() {
+        Props props = new Props();
+        props.put("node.id", 1);
+        props.put("voldemort.home", "test/common/voldemort/config");
+        VoldemortConfig voldemortConfig = new VoldemortConfig(props);
+        voldemortConfig.setBdbCacheSize(1 * 1024 * 1024);
+        voldemortConfig.setBdbDataDirectory(bdbMasterDir.toURI().getPath());
+        voldemortConfig.setBdbOneEnvPerStore(false);
+        voldemortConfig.setBdbExpiryIndex(true);
+        StoreDefinition storeDef = new StoreDefinitionBuilder().setName("storeA")
+                                                               .setType(BdbStorageConfiguration.TYPE_NAME)
+                                                               .setKeySerializer(new SerializerDefinition("string"))
+                                                               .setValueSerializer(new SerializerDefinition("string"))
+                                                               .setRoutingPolicy(RoutingTier.SERVER)
+                                                               .setRoutingStrategyType(RoutingStrategyType.CONSISTENT_STRATEGY)
+                                                               .setReplicationFactor(1)
+                                                               .setRequiredReads(1)
+                                                               .setRequiredWrites(1)
+                                                               .setRetentionPeriodDays(1)
+                                                               .build();
+
+        // data written before the store had an index
+        bdbStorage = new BdbStorageConfiguration(voldemortConfig);
+        StorageEngine<ByteArray, byte[]> store = bdbStorage.getStore("storeA");
+        for(int i = 0; i < 3; i++)
+            store.put(TestUtils.toByteArray("testKey" + i),
+                      new Versioned<byte[]>("value".getBytes(), new VectorClock(1)));
+        try {
+            store.getCapability(StoreCapabilityType.EXPIRY_INDEX);
+            fail("Store opened without an index has one.");
+        } catch(NoSuchCapabilityException e) {
+            // expected
+        }
+        store.close();
+        bdbStorage.close();
+
+        // is indexed when the store is opened with an index
+        bdbStorage = new BdbStorageConfiguration(voldemortConfig);
+        store = bdbStorage.getStore(storeDef, null);
+        assertEquals(3, countExpiredKeys(store));
+        store.put(TestUtils.toByteArray("testKey3"),
+                  new Versioned<byte[]>("value".getBytes(), new VectorClock(1)));
+        assertEquals(4, countExpiredKeys(store));
+        store.close();
+        bdbStorage.close();
+
+        // and the index is dropped when the store is opened without one
+        bdbStorage = new BdbStorageConfiguration(voldemortConfig);
+        store = bdbStorage.getStore("storeA");
+        store.put(TestUtils.toByteArray("testKey4"),
+                  new Versioned<byte[]>("value".getBytes(), new VectorClock(1)));
+        store.close();
+        bdbStorage.close();
+
+        bdbStorage = new BdbStorageConfiguration(voldemortConfig);
+        store = bdbStorage.getStore(storeDef, null);
+        assertEquals(5, countExpiredKeys(store));
+        store.close();
+    }
+
+    @SuppressWarnings("unchecked")
+    private int countExpiredKeys(StorageEngine<ByteArray, byte[]> store) {
+        ExpiryIndex<ByteArray> expiryIndex = (ExpiryIndex<ByteArray>) store.getCapability(StoreCapabilityType.EXPIRY_INDEX);
+        ClosableIterator<ByteArray> keys = expiryIndex.keysWrittenBefore(Time.MS_PER_DAY);
+        try {
+            int count = 0;
+            while(keys.hasNext()) {
+                keys.next();
+                count++;
+            }
+            return count;
+        } finally {
+            keys.close();
+        }
+    }
+
     public void testMultipleEnvironment() {
         // lets use all the default values.
         Props props = new Props();
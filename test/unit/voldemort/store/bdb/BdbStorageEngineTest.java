@@ -18,6 +18,7 @@ package voldemort.store.bdb;
 
 import java.io.File;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -36,6 +37,7 @@ import voldemort.utils.Pair;
 import voldemort.versioning.VectorClock;
 import voldemort.versioning.Versioned;
 
+import com.google.common.collect.Lists;
 import com.sleepycat.je.Database;
 import com.sleepycat.je.DatabaseConfig;
 import com.sleepycat.je.Environment;
@@ -122,6 +124,81 @@ public class BdbStorageEngineTest extends AbstractStorageEngineTest {
         fail("No exception thrown for null database.");
     }
 
+    public void testGetAllSkipsSearchesForMissingKeys() throws Exception {
+        for(String key: new String[] { "b", "d", "f" }) {
+            // two concurrent versions, so the key has two values
+            store.put(new ByteArray(key.getBytes()),
+                      new Versioned<byte[]>(key.getBytes(), TestUtils.getClock(1)));
+            store.put(new ByteArray(key.getBytes()),
+                      new Versioned<byte[]>(key.getBytes(), TestUtils.getClock(2)));
+        }
+
+        // unsorted, with duplicates, keys between stored keys and keys after
+        // the last stored key
+        List<ByteArray> keys = Lists.newArrayList();
+        for(String key: new String[] { "g", "d", "a", "c", "b", "cc", "d", "h", "f" })
+            keys.add(new ByteArray(key.getBytes()));
+        Map<ByteArray, List<Versioned<byte[]>>> result = store.getAll(keys);
+        assertEquals(3, result.size());
+        for(String key: new String[] { "b", "d", "f" }) {
+            List<Versioned<byte[]>> values = result.get(new ByteArray(key.getBytes()));
+            assertEquals(2, values.size());
+            for(Versioned<byte[]> value: values)
+                assertEquals(key, new String(value.getValue()));
+        }
+
+        // only "a", "c", "f" and "g" need a search: "b" and "d" are where the
+        // searches for "a" and "c" landed, "cc" sorts before "d" and "h" after
+        // the last key
+        assertEquals(keys.size(), store.getNumBatchGetKeys());
+        assertEquals(4, store.getNumBatchGetSearches());
+    }
+
+    public void testGroupCommit() throws Exception {
+        BdbGroupCommitter committer = new BdbGroupCommitter(environment, 1, TimeUnit.MILLISECONDS);
+        final BdbStorageEngine groupStore = new BdbStorageEngine("test",
+                                                                 environment,
+                                                                 database,
+                                                                 false,
+                                                                 committer);
+        final int numThreads = 8;
+        final int putsPerThread = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        for(int i = 0; i < numThreads; i++) {
+            final int thread = i;
+            executor.execute(new Runnable() {
+
+                public void run() {
+                    for(int j = 0; j < putsPerThread; j++) {
+                        byte[] bytes = (thread + "-" + j).getBytes();
+                        groupStore.put(new ByteArray(bytes), Versioned.value(bytes));
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(numThreads * putsPerThread, committer.getNumCommits());
+        assertTrue("Expected fewer flushes than commits.",
+                   committer.getNumFlushes() < committer.getNumCommits());
+        for(int i = 0; i < numThreads; i++) {
+            for(int j = 0; j < putsPerThread; j++) {
+                byte[] bytes = (i + "-" + j).getBytes();
+                List<Versioned<byte[]>> values = store.get(new ByteArray(bytes));
+                assertEquals(1, values.size());
+                assertTrue(TestUtils.bytesEqual(bytes, values.get(0).getValue()));
+            }
+        }
+
+        // once closed, commits are made on their own
+        committer.close();
+        byte[] bytes = "closed".getBytes();
+        groupStore.put(new ByteArray(bytes), Versioned.value(bytes));
+        assertEquals(numThreads * putsPerThread, committer.getNumCommits());
+        assertEquals(1, store.get(new ByteArray(bytes)).size());
+    }
+
     public void testSimultaneousIterationAndModification() throws Exception {
         // start a thread to do modifications
         ExecutorService executor = Executors.newFixedThreadPool(2);
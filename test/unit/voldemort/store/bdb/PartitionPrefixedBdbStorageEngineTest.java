@@ -0,0 +1,162 @@
+/*
+ * Copyright 2010 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.bdb;
+
+import java.io.File;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.io.FileDeleteStrategy;
+
+import voldemort.ServerTestUtils;
+import voldemort.TestUtils;
+import voldemort.routing.ConsistentRoutingStrategy;
+import voldemort.routing.RoutingStrategy;
+import voldemort.store.AbstractStorageEngineTest;
+import voldemort.store.StorageEngine;
+import voldemort.utils.ByteArray;
+import voldemort.utils.ClosableIterator;
+import voldemort.utils.Pair;
+import voldemort.utils.RebalanceUtils;
+import voldemort.versioning.Versioned;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.sleepycat.je.Database;
+import com.sleepycat.je.DatabaseConfig;
+import com.sleepycat.je.Environment;
+import com.sleepycat.je.EnvironmentConfig;
+
+public class PartitionPrefixedBdbStorageEngineTest extends AbstractStorageEngineTest {
+
+    private Environment environment;
+    private Database database;
+    private File tempDir;
+    private RoutingStrategy routingStrategy;
+    private PartitionPrefixedBdbStorageEngine store;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        EnvironmentConfig envConfig = new EnvironmentConfig();
+        envConfig.setTxnNoSync(true);
+        envConfig.setAllowCreate(true);
+        envConfig.setTransactional(true);
+        this.tempDir = TestUtils.createTempDir();
+        this.environment = new Environment(this.tempDir, envConfig);
+        DatabaseConfig databaseConfig = new DatabaseConfig();
+        databaseConfig.setAllowCreate(true);
+        databaseConfig.setTransactional(true);
+        databaseConfig.setSortedDuplicates(true);
+        this.database = environment.openDatabase(null, "test", databaseConfig);
+        this.routingStrategy = new ConsistentRoutingStrategy(ServerTestUtils.getLocalCluster(2,
+                                                                                             new int[][] {
+                                                                                                     { 0, 2, 4 },
+                                                                                                     { 1, 3, 5 } })
+                                                                            .getNodes(), 2);
+        this.store = new PartitionPrefixedBdbStorageEngine("test",
+                                                           this.environment,
+                                                           this.database,
+                                                           routingStrategy);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        try {
+            store.close();
+            environment.close();
+        } finally {
+            FileDeleteStrategy.FORCE.delete(tempDir);
+        }
+    }
+
+    @Override
+    public StorageEngine<ByteArray, byte[]> getStorageEngine() {
+        return store;
+    }
+
+    private Map<ByteArray, Integer> putKeys(int numKeys) {
+        Map<ByteArray, Integer> keyToPartition = Maps.newHashMap();
+        for(int i = 0; i < numKeys; i++) {
+            ByteArray key = new ByteArray(("key" + i).getBytes());
+            store.put(key, new Versioned<byte[]>(key.get()));
+            keyToPartition.put(key, routingStrategy.getPartitionList(key.get()).get(0));
+        }
+        return keyToPartition;
+    }
+
+    public void testPartitionKeys() {
+        Map<ByteArray, Integer> keyToPartition = putKeys(200);
+        Set<Integer> partitions = Sets.newHashSet(1, 4);
+
+        Set<ByteArray> keys = Sets.newHashSet();
+        ClosableIterator<ByteArray> iterator = store.keys(partitions);
+        try {
+            while(iterator.hasNext())
+                assertTrue("Duplicate key.", keys.add(iterator.next()));
+        } finally {
+            iterator.close();
+        }
+
+        for(Map.Entry<ByteArray, Integer> entry: keyToPartition.entrySet())
+            assertEquals(partitions.contains(entry.getValue()), keys.contains(entry.getKey()));
+    }
+
+    public void testPartitionEntries() {
+        Map<ByteArray, Integer> keyToPartition = putKeys(200);
+        // partition 7 is not in the cluster so it has no keys
+        Set<Integer> partitions = Sets.newHashSet(0, 3, 5, 7);
+
+        int numEntries = 0;
+        ClosableIterator<Pair<ByteArray, Versioned<byte[]>>> iterator = store.entries(partitions);
+        try {
+            while(iterator.hasNext()) {
+                Pair<ByteArray, Versioned<byte[]>> entry = iterator.next();
+                assertTrue(partitions.contains(keyToPartition.get(entry.getFirst())));
+                assertEquals(entry.getFirst(), new ByteArray(entry.getSecond().getValue()));
+                numEntries++;
+            }
+        } finally {
+            iterator.close();
+        }
+
+        int expected = 0;
+        for(int partition: keyToPartition.values()) {
+            if(partitions.contains(partition))
+                expected++;
+        }
+        assertEquals(expected, numEntries);
+    }
+
+    public void testNoPartitions() {
+        putKeys(10);
+        ClosableIterator<ByteArray> iterator = store.keys(Sets.<Integer> newHashSet());
+        try {
+            assertFalse(iterator.hasNext());
+        } finally {
+            iterator.close();
+        }
+    }
+
+    public void testMasterPartitions() {
+        // with two replicas partition 3 holds the keys of partitions 2 and 3
+        assertEquals(Sets.newHashSet(2, 3),
+                     RebalanceUtils.getMasterPartitions(routingStrategy, 6, Sets.newHashSet(3)));
+    }
+
+}
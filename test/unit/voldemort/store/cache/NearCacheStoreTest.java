@@ -0,0 +1,168 @@
+/*
+ * Copyright 2010 LinkedIn, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.cache;
+
+import java.util.List;
+
+import voldemort.MockTime;
+import voldemort.TestUtils;
+import voldemort.store.AbstractByteArrayStoreTest;
+import voldemort.store.DelegatingStore;
+import voldemort.store.Store;
+import voldemort.store.StoreUtils;
+import voldemort.store.memory.InMemoryStorageEngine;
+import voldemort.store.versioned.VersionIncrementingStore;
+import voldemort.utils.ByteArray;
+import voldemort.versioning.VectorClock;
+import voldemort.versioning.Version;
+import voldemort.versioning.Versioned;
+
+public class NearCacheStoreTest extends AbstractByteArrayStoreTest {
+
+    private static final long TTL_MS = 1000;
+
+    private MockTime time;
+    private InMemoryStorageEngine<ByteArray, byte[]> inner;
+    private NearCacheStore store;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        time = new MockTime();
+        inner = new InMemoryStorageEngine<ByteArray, byte[]>("test");
+        store = new NearCacheStore(inner, 100, TTL_MS, time);
+    }
+
+    @Override
+    public Store<ByteArray, byte[]> getStore() {
+        return store;
+    }
+
+    public void testGetIsCachedUntilExpired() {
+        ByteArray key = new ByteArray("key".getBytes());
+        store.put(key, new Versioned<byte[]>("a".getBytes(), TestUtils.getClock(1)));
+        assertValue("a", store.get(key));
+
+        // A write behind the back of the cache is not seen until it expires
+        inner.put(key, new Versioned<byte[]>("b".getBytes(), TestUtils.getClock(1, 1)));
+        assertValue("a", store.get(key));
+        assertEquals(1, store.getNumberOfHits());
+
+        time.addMilliseconds(TTL_MS);
+        assertValue("b", store.get(key));
+        assertEquals(1, store.getNumberOfHits());
+        assertEquals(2, store.getNumberOfMisses());
+    }
+
+    public void testPutAndDeleteInvalidate() {
+        ByteArray key = new ByteArray("key".getBytes());
+        store.put(key, new Versioned<byte[]>("a".getBytes(), TestUtils.getClock(1)));
+        assertValue("a", store.get(key));
+
+        store.put(key, new Versioned<byte[]>("b".getBytes(), TestUtils.getClock(1, 1)));
+        assertValue("b", store.get(key));
+
+        store.delete(key, TestUtils.getClock(1, 1));
+        assertEquals(0, store.get(key).size());
+        assertEquals(0, store.getNumberOfHits());
+        assertEquals(3, store.getNumberOfInvalidations());
+    }
+
+    public void testBlindPutInvalidates() {
+        ByteArray key = new ByteArray("key".getBytes());
+        NearCacheStore blindPutStore = new NearCacheStore(new VersionIncrementingStore<ByteArray, byte[]>(inner,
+                                                                                                         1,
+                                                                                                         time),
+                                                          100,
+                                                          TTL_MS,
+                                                          time);
+        blindPutStore.put(key, new Versioned<byte[]>("a".getBytes(), TestUtils.getClock(2)));
+        assertValue("a", blindPutStore.get(key));
+
+        Version version = StoreUtils.blindPut(blindPutStore, key, "b".getBytes());
+        List<Versioned<byte[]>> values = blindPutStore.get(key);
+        assertValue("b", values);
+        assertEquals(version, values.get(0).getVersion());
+        assertEquals(0, blindPutStore.getNumberOfHits());
+        assertEquals(2, blindPutStore.getNumberOfInvalidations());
+
+        try {
+            store.blindPut(key, "c".getBytes());
+            fail("Blind put should not be supported by the inner store.");
+        } catch(UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    public void testCachedVersionsAreCopies() {
+        ByteArray key = new ByteArray("key".getBytes());
+        store.put(key, new Versioned<byte[]>("a".getBytes(), TestUtils.getClock(1)));
+        store.get(key);
+
+        Versioned<byte[]> versioned = store.get(key).get(0);
+        ((VectorClock) versioned.getVersion()).incrementVersion(2, time.getMilliseconds());
+        assertEquals(TestUtils.getClock(1), store.get(key).get(0).getVersion());
+    }
+
+    public void testStaleReadIsNotCached() {
+        final ByteArray key = new ByteArray("key".getBytes());
+        final InMemoryStorageEngine<ByteArray, byte[]> engine = new InMemoryStorageEngine<ByteArray, byte[]>("test");
+        engine.put(key, new Versioned<byte[]>("a".getBytes(), TestUtils.getClock(1)));
+
+        // Writes a newer version after reading, as a put racing with the read
+        // would
+        final NearCacheStore[] cache = new NearCacheStore[1];
+        Store<ByteArray, byte[]> racing = new DelegatingStore<ByteArray, byte[]>(engine) {
+
+            @Override
+            public List<Versioned<byte[]>> get(ByteArray k) {
+                List<Versioned<byte[]>> values = super.get(k);
+                if(cache[0].getNumberOfInvalidations() == 0)
+                    cache[0].put(k, new Versioned<byte[]>("b".getBytes(),
+                                                          TestUtils.getClock(1, 1)));
+                return values;
+            }
+        };
+        cache[0] = new NearCacheStore(racing, 100, TTL_MS, time);
+
+        assertValue("a", cache[0].get(key));
+        assertValue("b", cache[0].get(key));
+        assertValue("b", cache[0].get(key));
+        assertEquals(1, cache[0].getNumberOfHits());
+    }
+
+    public void testEviction() {
+        NearCacheStore small = new NearCacheStore(inner, 1, TTL_MS, time);
+        ByteArray key1 = new ByteArray("key1".getBytes());
+        ByteArray key2 = new ByteArray("key2".getBytes());
+        inner.put(key1, new Versioned<byte[]>("a".getBytes(), TestUtils.getClock(1)));
+        inner.put(key2, new Versioned<byte[]>("b".getBytes(), TestUtils.getClock(1)));
+
+        small.get(key1);
+        small.get(key2);
+        small.get(key1);
+        assertEquals(0, small.getNumberOfHits());
+        assertEquals(2, small.getNumberOfEvictions());
+        assertEquals(1, small.getSize());
+    }
+
+    private void assertValue(String expected, List<Versioned<byte[]>> values) {
+        assertEquals(1, values.size());
+        assertEquals(expected, new String(values.get(0).getValue()));
+    }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2010 LinkedIn, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.memory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import voldemort.TestUtils;
+import voldemort.VoldemortException;
+import voldemort.store.AbstractStorageEngineTest;
+import voldemort.store.StorageEngine;
+import voldemort.utils.ByteArray;
+import voldemort.versioning.VectorClock;
+import voldemort.versioning.Versioned;
+
+import com.google.common.collect.Maps;
+
+public class OffHeapStorageEngineTest extends AbstractStorageEngineTest {
+
+    private OffHeapStorageEngine store;
+
+    @Override
+    public StorageEngine<ByteArray, byte[]> getStorageEngine() {
+        return store;
+    }
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        this.store = new OffHeapStorageEngine("test", 8 * 1024 * 1024, 64 * 1024);
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        store.close();
+        super.tearDown();
+    }
+
+    @Override
+    public List<ByteArray> getKeys(int numKeys) {
+        List<ByteArray> keys = new ArrayList<ByteArray>(numKeys);
+        for(int i = 0; i < numKeys; i++)
+            keys.add(new ByteArray(TestUtils.randomBytes(10)));
+        return keys;
+    }
+
+    public void testMatchesMapUnderOverwritesAndDeletes() {
+        Map<ByteArray, byte[]> expected = Maps.newHashMap();
+        Random random = new Random(17);
+
+        for(int i = 0; i < 50000; i++) {
+            ByteArray key = TestUtils.toByteArray(Integer.toString(random.nextInt(5000)));
+            List<Versioned<byte[]>> found = store.get(key);
+
+            if(random.nextInt(5) == 0) {
+                if(!found.isEmpty())
+                    store.delete(key, found.get(0).getVersion());
+                expected.remove(key);
+            } else {
+                byte[] value = TestUtils.randomBytes(random.nextInt(200));
+                Versioned<byte[]> versioned = found.isEmpty() ? new Versioned<byte[]>(value)
+                                                             : found.get(0);
+                versioned.setObject(value);
+                ((VectorClock) versioned.getVersion()).incrementVersion(1, i);
+                store.put(key, versioned);
+                expected.put(key, value);
+            }
+        }
+
+        assertEquals(0, store.getNumberOfEvictions());
+        assertEquals(expected.size(), store.getNumberOfKeys());
+
+        for(Map.Entry<ByteArray, byte[]> entry: expected.entrySet()) {
+            List<Versioned<byte[]>> found = store.get(entry.getKey());
+            assertEquals(1, found.size());
+            assertTrue(TestUtils.bytesEqual(entry.getValue(), found.get(0).getValue()));
+        }
+    }
+
+    public void testEvictsLeastRecentlyUsed() {
+        OffHeapStorageEngine small = new OffHeapStorageEngine("small", 8 * 1024, 4 * 1024);
+        ByteArray hot = TestUtils.toByteArray("hot");
+        small.put(hot, new Versioned<byte[]>(new byte[100]));
+
+        for(int i = 0; i < 1000; i++) {
+            small.put(TestUtils.toByteArray(Integer.toString(i)),
+                      new Versioned<byte[]>(new byte[100]));
+            assertEquals(1, small.get(hot).size());
+        }
+
+        assertTrue(small.getNumberOfEvictions() > 0);
+        assertTrue(small.getNumberOfKeys() < 1000);
+        assertEquals(8 * 1024, small.getAllocatedBytes());
+        assertEquals(1, small.get(TestUtils.toByteArray("999")).size());
+        assertEquals(0, small.get(TestUtils.toByteArray("0")).size());
+    }
+
+    public void testValueLargerThanSlab() {
+        OffHeapStorageEngine small = new OffHeapStorageEngine("small", 8 * 1024, 4 * 1024);
+
+        try {
+            small.put(TestUtils.toByteArray("key"), new Versioned<byte[]>(new byte[4 * 1024]));
+            fail("Put of a value larger than a slab should fail.");
+        } catch(VoldemortException e) {
+            // expected
+        }
+    }
+
+}
@@ -0,0 +1,124 @@
+package voldemort.store.readonly;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+import voldemort.TestUtils;
+import voldemort.VoldemortException;
+import voldemort.utils.Utils;
+
+/**
+ * Tests format detection and segmented mapping of read-only chunks
+ * 
+ * 
+ */
+public class ChunkedFileSetTest extends TestCase {
+
+    private File dir;
+
+    @Override
+    public void setUp() {
+        this.dir = TestUtils.createTempDir();
+    }
+
+    @Override
+    public void tearDown() {
+        Utils.rm(dir);
+    }
+
+    public void testFormatDefaultsToV0() throws IOException {
+        writeChunk(0, new String[0], ReadOnlyStorageFormat.READONLY_V0);
+        ChunkedFileSet fileSet = new ChunkedFileSet(dir);
+        assertEquals(ReadOnlyStorageFormat.READONLY_V0, fileSet.getFormat());
+        fileSet.close();
+    }
+
+    public void testReadValuesAcrossSegments() throws IOException {
+        String[] values = new String[] { "a", "some longer value", "", "xyz", "another value" };
+        for(ReadOnlyStorageFormat format: ReadOnlyStorageFormat.values()) {
+            long[] positions = writeChunk(0, values, format);
+            ReadOnlyStorageFormat.writeFormat(dir, format);
+            for(boolean mapDataFiles: new boolean[] { false, true }) {
+                // segments smaller than a single value force reads to span
+                // several segments
+                ChunkedFileSet fileSet = new ChunkedFileSet(dir, mapDataFiles, 0, 7);
+                assertEquals(format, fileSet.getFormat());
+                for(int i = 0; i < values.length; i++)
+                    assertEquals(values[i], new String(fileSet.readValue(0, positions[i])));
+                fileSet.close();
+            }
+        }
+    }
+
+    public void testReadCoalescedValues() throws IOException {
+        // a mix of values close together, values larger than a coalesced read
+        // and values too far apart to be read together
+        char[] big = new char[ChunkedFileSet.MAX_COALESCING_GAP * 2];
+        Arrays.fill(big, 'x');
+        String[] values = new String[] { "a", "bb", new String(big), "ccc", "", new String(big),
+                new String(big), "d" };
+        long[] positions = writeChunk(0, values, ReadOnlyStorageFormat.READONLY_V0);
+        for(boolean mapDataFiles: new boolean[] { false, true }) {
+            ChunkedFileSet fileSet = new ChunkedFileSet(dir, mapDataFiles);
+            byte[][] read = fileSet.readValues(0, positions);
+            for(int i = 0; i < values.length; i++)
+                assertEquals(values[i], new String(read[i]));
+            fileSet.close();
+        }
+    }
+
+    public void testReadersKeepClosedFileSetOpen() throws IOException {
+        long[] positions = writeChunk(0, new String[] { "a", "b" }, ReadOnlyStorageFormat.READONLY_V0);
+        ChunkedFileSet fileSet = new ChunkedFileSet(dir);
+        assertTrue(fileSet.acquire());
+        fileSet.close();
+        fileSet.close();
+
+        // the pinned reader can still read, but no new reader gets in
+        assertEquals("b", new String(fileSet.readValue(0, positions[1])));
+        assertTrue(fileSet.dataFileFor(0).isOpen());
+        assertFalse(fileSet.acquire());
+
+        fileSet.release();
+        assertFalse(fileSet.dataFileFor(0).isOpen());
+        assertFalse(fileSet.acquire());
+    }
+
+    public void testIndexSizeMustMatchFormat() throws IOException {
+        writeChunk(0, new String[] { "a", "b", "c" }, ReadOnlyStorageFormat.READONLY_V0);
+        ReadOnlyStorageFormat.writeFormat(dir, ReadOnlyStorageFormat.READONLY_V1);
+        try {
+            new ChunkedFileSet(dir);
+            fail("Opened an ro0 index as ro1.");
+        } catch(VoldemortException e) {
+            // this is expected
+        }
+    }
+
+    private long[] writeChunk(int chunk, String[] values, ReadOnlyStorageFormat format)
+            throws IOException {
+        long[] positions = new long[values.length];
+        DataOutputStream data = new DataOutputStream(new FileOutputStream(new File(dir, chunk
+                                                                                        + ".data")));
+        DataOutputStream index = new DataOutputStream(new FileOutputStream(new File(dir, chunk
+                                                                                         + ".index")));
+        long position = 0;
+        for(int i = 0; i < values.length; i++) {
+            byte[] bytes = values[i].getBytes();
+            positions[i] = position;
+            data.writeInt(bytes.length);
+            data.write(bytes);
+            // the keys are not searched here, any 16 bytes will do
+            index.write(new byte[ReadOnlyUtils.KEY_HASH_SIZE]);
+            format.writePosition(index, position);
+            position += 4 + bytes.length;
+        }
+        data.close();
+        index.close();
+        return positions;
+    }
+}
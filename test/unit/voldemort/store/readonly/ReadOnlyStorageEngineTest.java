@@ -2,6 +2,7 @@ package voldemort.store.readonly;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -9,12 +10,19 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.After;
 import org.junit.Test;
@@ -27,8 +35,13 @@ import voldemort.TestUtils;
 import voldemort.VoldemortException;
 import voldemort.cluster.Node;
 import voldemort.serialization.Compression;
+import voldemort.serialization.DefaultSerializerFactory;
+import voldemort.serialization.Serializer;
 import voldemort.serialization.SerializerDefinition;
 import voldemort.store.Store;
+import voldemort.utils.ByteArray;
+import voldemort.utils.ClosableIterator;
+import voldemort.utils.Pair;
 import voldemort.utils.Utils;
 import voldemort.versioning.Versioned;
 
@@ -41,17 +54,29 @@ public class ReadOnlyStorageEngineTest {
 
     @Parameters
     public static Collection<Object[]> configs() {
-        return Arrays.asList(new Object[][] { { new BinarySearchStrategy() },
-                { new InterpolationSearchStrategy() } });
+        List<Object[]> configs = new ArrayList<Object[]>();
+        for(ReadOnlyStorageFormat format: ReadOnlyStorageFormat.values()) {
+            for(boolean mapDataFiles: new boolean[] { false, true }) {
+                configs.add(new Object[] { new BinarySearchStrategy(), mapDataFiles, format });
+                configs.add(new Object[] { new InterpolationSearchStrategy(), mapDataFiles, format });
+            }
+        }
+        return configs;
     }
 
     private File dir;
     private SearchStrategy strategy;
+    private boolean mapDataFiles;
+    private ReadOnlyStorageFormat format;
     private SerializerDefinition serDef;
     private SerializerDefinition lzfSerDef;
 
-    public ReadOnlyStorageEngineTest(SearchStrategy strategy) {
+    public ReadOnlyStorageEngineTest(SearchStrategy strategy,
+                                     boolean mapDataFiles,
+                                     ReadOnlyStorageFormat format) {
         this.strategy = strategy;
+        this.mapDataFiles = mapDataFiles;
+        this.format = format;
         this.dir = TestUtils.createTempDir();
         this.serDef = new SerializerDefinition("json", "'string'");
         this.lzfSerDef = new SerializerDefinition("json",
@@ -72,6 +97,8 @@ public class ReadOnlyStorageEngineTest {
     @Test
     public void canGetGoodValues() throws Exception {
         ReadOnlyStorageEngineTestInstance testData = ReadOnlyStorageEngineTestInstance.create(strategy,
+                                                                                              mapDataFiles,
+                                                                                              format,
                                                                                               dir,
                                                                                               TEST_SIZE,
                                                                                               2,
@@ -98,6 +125,8 @@ public class ReadOnlyStorageEngineTest {
     @Test
     public void canGetGoodCompressedValues() throws Exception {
         ReadOnlyStorageEngineTestInstance testData = ReadOnlyStorageEngineTestInstance.create(strategy,
+                                                                                              mapDataFiles,
+                                                                                              format,
                                                                                               dir,
                                                                                               TEST_SIZE,
                                                                                               2,
@@ -124,6 +153,8 @@ public class ReadOnlyStorageEngineTest {
     @Test
     public void canGetGoodCompressedKeys() throws Exception {
         ReadOnlyStorageEngineTestInstance testData = ReadOnlyStorageEngineTestInstance.create(strategy,
+                                                                                              mapDataFiles,
+                                                                                              format,
                                                                                               dir,
                                                                                               TEST_SIZE,
                                                                                               2,
@@ -153,6 +184,8 @@ public class ReadOnlyStorageEngineTest {
     @Test
     public void cantGetBadValues() throws Exception {
         ReadOnlyStorageEngineTestInstance testData = ReadOnlyStorageEngineTestInstance.create(strategy,
+                                                                                              mapDataFiles,
+                                                                                              format,
                                                                                               dir,
                                                                                               TEST_SIZE,
                                                                                               2,
@@ -177,12 +210,90 @@ public class ReadOnlyStorageEngineTest {
     @Test
     public void canMultigetGoodValues() throws Exception {
         ReadOnlyStorageEngineTestInstance testData = ReadOnlyStorageEngineTestInstance.create(strategy,
+                                                                                              mapDataFiles,
+                                                                                              format,
                                                                                               dir,
                                                                                               TEST_SIZE,
                                                                                               2,
                                                                                               2,
                                                                                               serDef,
                                                                                               serDef);
+        assertMultigetGoodValues(testData);
+    }
+
+    @Test
+    public void canMultigetGoodValuesInParallel() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            ReadOnlyStorageEngineTestInstance testData = ReadOnlyStorageEngineTestInstance.create(strategy,
+                                                                                                  mapDataFiles,
+                                                                                                  format,
+                                                                                                  dir,
+                                                                                                  TEST_SIZE * 10,
+                                                                                                  2,
+                                                                                                  2,
+                                                                                                  serDef,
+                                                                                                  serDef,
+                                                                                                  executor);
+            assertMultigetGoodValues(testData);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void canIterateEntries() throws Exception {
+        ReadOnlyStorageEngineTestInstance testData = ReadOnlyStorageEngineTestInstance.create(strategy,
+                                                                                              mapDataFiles,
+                                                                                              format,
+                                                                                              dir,
+                                                                                              TEST_SIZE,
+                                                                                              2,
+                                                                                              2,
+                                                                                              serDef,
+                                                                                              serDef);
+        @SuppressWarnings("unchecked")
+        Serializer<String> serializer = (Serializer<String>) new DefaultSerializerFactory().getSerializer(serDef);
+        for(Map.Entry<Integer, ReadOnlyStorageEngine> entry: testData.getNodeEngines().entrySet()) {
+            ReadOnlyStorageEngine engine = entry.getValue();
+            if(!format.storesKeys()) {
+                try {
+                    engine.entries();
+                    fail("Iterated over a format which does not store keys.");
+                } catch(UnsupportedOperationException e) {
+                    // this is expected
+                }
+                continue;
+            }
+
+            Set<String> expected = new HashSet<String>();
+            for(String key: testData.getData().keySet())
+                for(Node node: testData.routeRequest(key))
+                    if(node.getId() == entry.getKey())
+                        expected.add(key);
+
+            Set<String> iterated = new HashSet<String>();
+            ClosableIterator<Pair<ByteArray, Versioned<byte[]>>> entries = engine.entries();
+            while(entries.hasNext()) {
+                Pair<ByteArray, Versioned<byte[]>> keyAndValue = entries.next();
+                String key = serializer.toObject(keyAndValue.getFirst().get());
+                assertEquals(testData.getData().get(key),
+                             serializer.toObject(keyAndValue.getSecond().getValue()));
+                assertTrue("Iterated over " + key + " twice.", iterated.add(key));
+            }
+            entries.close();
+            assertEquals(expected, iterated);
+
+            Set<String> keys = new HashSet<String>();
+            ClosableIterator<ByteArray> keyIterator = engine.keys();
+            while(keyIterator.hasNext())
+                keys.add(serializer.toObject(keyIterator.next().get()));
+            keyIterator.close();
+            assertEquals(expected, keys);
+        }
+    }
+
+    private void assertMultigetGoodValues(ReadOnlyStorageEngineTestInstance testData) {
         Set<String> keys = testData.getData().keySet();
         Set<String> gotten = new HashSet<String>();
         for(Map.Entry<Integer, Store<String, String>> entry: testData.getNodeStores().entrySet()) {
@@ -210,17 +321,17 @@ public class ReadOnlyStorageEngineTest {
         // empty is okay
         testOpenInvalidStoreFails(0, 0, true);
         // two entries with 1 byte each of data
-        testOpenInvalidStoreFails(ReadOnlyUtils.INDEX_ENTRY_SIZE * 2,
-                                  ReadOnlyUtils.INDEX_ENTRY_SIZE * +2,
+        testOpenInvalidStoreFails(format.getIndexEntrySize() * 2,
+                                  format.getIndexEntrySize() * +2,
                                   true);
 
         // okay these are corrupt:
         // invalid index size
         testOpenInvalidStoreFails(73, 1024, false);
         // too little data for index (1 byte short for all empty values)
-        testOpenInvalidStoreFails(ReadOnlyUtils.INDEX_ENTRY_SIZE * 10, 10 * 4 - 1, false);
+        testOpenInvalidStoreFails(format.getIndexEntrySize() * 10, 10 * 4 - 1, false);
         // empty index implies no data
-        testOpenInvalidStoreFails(ReadOnlyUtils.INDEX_ENTRY_SIZE, 0, false);
+        testOpenInvalidStoreFails(format.getIndexEntrySize(), 0, false);
     }
 
     public void testOpenInvalidStoreFails(int indexBytes, int dataBytes, boolean shouldWork)
@@ -229,7 +340,7 @@ public class ReadOnlyStorageEngineTest {
         createStoreFiles(versionDir, indexBytes, dataBytes, 2);
 
         try {
-            new ReadOnlyStorageEngine("test", strategy, dir, 1);
+            new ReadOnlyStorageEngine("test", strategy, dir, 1, mapDataFiles);
             if(!shouldWork)
                 fail("Able to open corrupt read-only store (index size = " + indexBytes
                      + ", data bytes = " + dataBytes + ").");
@@ -242,8 +353,8 @@ public class ReadOnlyStorageEngineTest {
     @Test
     public void testSwap() throws Exception {
         File versionDir = new File(dir, "version-0");
-        createStoreFiles(versionDir, ReadOnlyUtils.INDEX_ENTRY_SIZE * 5, 4 * 5 * 10, 2);
-        ReadOnlyStorageEngine engine = new ReadOnlyStorageEngine("test", strategy, dir, 2);
+        createStoreFiles(versionDir, format.getIndexEntrySize() * 5, 4 * 5 * 10, 2);
+        ReadOnlyStorageEngine engine = new ReadOnlyStorageEngine("test", strategy, dir, 2, mapDataFiles);
         assertVersionsExist(dir, 0);
 
         // swap to a new version with latest present
@@ -286,9 +397,75 @@ public class ReadOnlyStorageEngineTest {
 
     }
 
+    @Test
+    public void testSwapWithWarmUp() throws Exception {
+        File versionDir = new File(dir, "version-0");
+        createStoreFiles(versionDir, format.getIndexEntrySize() * 5, 4 * 5 * 10, 2);
+        ReadOnlyStorageEngine engine = new ReadOnlyStorageEngine("test",
+                                                                 strategy,
+                                                                 dir,
+                                                                 2,
+                                                                 mapDataFiles,
+                                                                 0,
+                                                                 null,
+                                                                 true);
+        assertVersionsExist(dir, 0);
+
+        File newDir = new File(dir, "version-1");
+        createStoreFiles(newDir, format.getIndexEntrySize() * 10, 4 * 10 * 10, 2);
+        engine.swapFiles(newDir.getAbsolutePath());
+        assertVersionsExist(dir, 0, 1);
+        assertFalse(engine.isWarmingUp());
+        assertEquals(1.0, engine.getWarmUpProgress(), 0.0);
+        engine.close();
+    }
+
+    @Test
+    public void testSwapUnderReadLoad() throws Exception {
+        File versionDir = new File(dir, "version-0");
+        createStoreFiles(versionDir, 0, 0, 2);
+        final ReadOnlyStorageEngine engine = new ReadOnlyStorageEngine("test",
+                                                                       strategy,
+                                                                       dir,
+                                                                       2,
+                                                                       mapDataFiles);
+        final AtomicBoolean swapping = new AtomicBoolean(true);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        ExecutorService readers = Executors.newFixedThreadPool(4);
+        for(int i = 0; i < 4; i++) {
+            readers.submit(new Runnable() {
+
+                public void run() {
+                    try {
+                        while(swapping.get()) {
+                            ByteArray key = new ByteArray(TestUtils.randomBytes(10));
+                            assertEquals(0, engine.get(key).size());
+                            assertEquals(0, engine.getAll(Collections.singleton(key)).size());
+                        }
+                    } catch(Throwable t) {
+                        failure.set(t);
+                    }
+                }
+            });
+        }
+        try {
+            for(int version = 1; version <= 20; version++) {
+                File newDir = new File(dir, "version-" + version);
+                createStoreFiles(newDir, 0, 0, 2);
+                engine.swapFiles(newDir.getAbsolutePath());
+            }
+        } finally {
+            swapping.set(false);
+            readers.shutdown();
+            readers.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        assertNull("Read failed during swap: " + failure.get(), failure.get());
+        engine.close();
+    }
+
     @Test
     public void testSwapRollbackFail() throws IOException {
-        ReadOnlyStorageEngine engine = new ReadOnlyStorageEngine("test", strategy, dir, 1);
+        ReadOnlyStorageEngine engine = new ReadOnlyStorageEngine("test", strategy, dir, 1, mapDataFiles);
         assertVersionsExist(dir, 0);
 
         // try to rollback nothing
@@ -324,8 +501,8 @@ public class ReadOnlyStorageEngineTest {
     @Test
     public void testBadSwapNameThrows() throws IOException {
         File versionDir = new File(dir, "version-0");
-        createStoreFiles(versionDir, ReadOnlyUtils.INDEX_ENTRY_SIZE * 5, 4 * 5 * 10, 2);
-        ReadOnlyStorageEngine engine = new ReadOnlyStorageEngine("test", strategy, dir, 2);
+        createStoreFiles(versionDir, format.getIndexEntrySize() * 5, 4 * 5 * 10, 2);
+        ReadOnlyStorageEngine engine = new ReadOnlyStorageEngine("test", strategy, dir, 2, mapDataFiles);
         assertVersionsExist(dir, 0);
 
         // swap to a directory with an incorrect parent directory
@@ -348,18 +525,18 @@ public class ReadOnlyStorageEngineTest {
     @Test
     public void testBackupLogic() throws Exception {
         File dirv0 = new File(dir, "version-0");
-        createStoreFiles(dirv0, ReadOnlyUtils.INDEX_ENTRY_SIZE * 5, 4 * 5 * 10, 2);
-        ReadOnlyStorageEngine engine = new ReadOnlyStorageEngine("test", strategy, dir, 0);
+        createStoreFiles(dirv0, format.getIndexEntrySize() * 5, 4 * 5 * 10, 2);
+        ReadOnlyStorageEngine engine = new ReadOnlyStorageEngine("test", strategy, dir, 0, mapDataFiles);
         assertVersionsExist(dir, 0);
 
         // create directory to imitate a fetch state happening concurrently
         // with swap
         File dirv2 = new File(dir, "version-2");
-        createStoreFiles(dirv2, ReadOnlyUtils.INDEX_ENTRY_SIZE * 5, 4 * 5 * 10, 2);
+        createStoreFiles(dirv2, format.getIndexEntrySize() * 5, 4 * 5 * 10, 2);
 
         // swap in directory 1
         File dirv1 = new File(dir, "version-1");
-        createStoreFiles(dirv1, ReadOnlyUtils.INDEX_ENTRY_SIZE * 5, 4 * 5 * 10, 2);
+        createStoreFiles(dirv1, format.getIndexEntrySize() * 5, 4 * 5 * 10, 2);
         engine.swapFiles(dirv1.getAbsolutePath());
 
         // check latest symbolic link exists
@@ -383,8 +560,8 @@ public class ReadOnlyStorageEngineTest {
     @Test(expected = VoldemortException.class)
     public void testBadSwapDataThrows() throws IOException {
         File versionDir = new File(dir, "version-0");
-        createStoreFiles(versionDir, ReadOnlyUtils.INDEX_ENTRY_SIZE * 5, 4 * 5 * 10, 2);
-        ReadOnlyStorageEngine engine = new ReadOnlyStorageEngine("test", strategy, dir, 2);
+        createStoreFiles(versionDir, format.getIndexEntrySize() * 5, 4 * 5 * 10, 2);
+        ReadOnlyStorageEngine engine = new ReadOnlyStorageEngine("test", strategy, dir, 2, mapDataFiles);
         assertVersionsExist(dir, 0);
 
         // swap to a directory with bad data, rollback should kick-in
@@ -393,10 +570,31 @@ public class ReadOnlyStorageEngineTest {
         engine.swapFiles(newDir.getAbsolutePath());
     }
 
+    @Test
+    public void testBadSwapDataKeepsCurrentVersion() throws IOException {
+        File versionDir = new File(dir, "version-0");
+        createStoreFiles(versionDir, format.getIndexEntrySize() * 5, 4 * 5 * 10, 2);
+        ReadOnlyStorageEngine engine = new ReadOnlyStorageEngine("test", strategy, dir, 2, mapDataFiles);
+        assertVersionsExist(dir, 0);
+
+        // a version that cannot be opened is never switched to, so there is
+        // nothing to roll back and the pushed directory is left untouched
+        File newDir = new File(dir, "version-1");
+        createStoreFiles(newDir, 73, 1024, 2);
+        try {
+            engine.swapFiles(newDir.getAbsolutePath());
+            fail("Swap files should have failed since the data is corrupt");
+        } catch(VoldemortException e) {}
+
+        assertEquals(0, engine.getCurrentVersionId());
+        assertTrue(new File(dir, "latest").getCanonicalPath().contains("version-0"));
+        assertTrue(newDir.exists());
+    }
+
     @Test
     public void testTruncate() throws IOException {
-        createStoreFiles(dir, ReadOnlyUtils.INDEX_ENTRY_SIZE * 5, 4 * 5 * 10, 2);
-        ReadOnlyStorageEngine engine = new ReadOnlyStorageEngine("test", strategy, dir, 2);
+        createStoreFiles(dir, format.getIndexEntrySize() * 5, 4 * 5 * 10, 2);
+        ReadOnlyStorageEngine engine = new ReadOnlyStorageEngine("test", strategy, dir, 2, mapDataFiles);
         assertVersionsExist(dir, 0);
 
         engine.truncate();
@@ -425,6 +623,8 @@ public class ReadOnlyStorageEngineTest {
 
     private void createStoreFiles(File dir, int indexBytes, int dataBytes, int chunks)
             throws IOException, FileNotFoundException {
+        dir.mkdirs();
+        ReadOnlyStorageFormat.writeFormat(dir, format);
         for(int chunk = 0; chunk < chunks; chunk++) {
             File index = createFile(dir, chunk + ".index");
             File data = createFile(dir, chunk + ".data");
@@ -10,6 +10,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import voldemort.TestUtils;
 import voldemort.client.RoutingTier;
@@ -39,17 +40,20 @@ public class ReadOnlyStorageEngineTestInstance {
     private final Map<String, String> data;
     private final File baseDir;
     private final Map<Integer, Store<String, String>> nodeStores;
+    private final Map<Integer, ReadOnlyStorageEngine> nodeEngines;
     private final RoutingStrategy routingStrategy;
     private final Serializer<String> keySerializer;
 
     private ReadOnlyStorageEngineTestInstance(Map<String, String> data,
                                               File baseDir,
                                               Map<Integer, Store<String, String>> nodeStores,
+                                              Map<Integer, ReadOnlyStorageEngine> nodeEngines,
                                               RoutingStrategy routingStrategy,
                                               Serializer<String> keySerializer) {
         this.data = data;
         this.baseDir = baseDir;
         this.nodeStores = nodeStores;
+        this.nodeEngines = nodeEngines;
         this.routingStrategy = routingStrategy;
         this.keySerializer = keySerializer;
     }
@@ -80,6 +84,8 @@ public class ReadOnlyStorageEngineTestInstance {
     }
 
     public static ReadOnlyStorageEngineTestInstance create(SearchStrategy strategy,
+                                                           boolean mapDataFiles,
+                                                           ReadOnlyStorageFormat format,
                                                            File baseDir,
                                                            int testSize,
                                                            int numNodes,
@@ -87,6 +93,29 @@ public class ReadOnlyStorageEngineTestInstance {
                                                            SerializerDefinition keySerDef,
                                                            SerializerDefinition valueSerDef)
             throws Exception {
+        return create(strategy,
+                      mapDataFiles,
+                      format,
+                      baseDir,
+                      testSize,
+                      numNodes,
+                      repFactor,
+                      keySerDef,
+                      valueSerDef,
+                      null);
+    }
+
+    public static ReadOnlyStorageEngineTestInstance create(SearchStrategy strategy,
+                                                           boolean mapDataFiles,
+                                                           ReadOnlyStorageFormat format,
+                                                           File baseDir,
+                                                           int testSize,
+                                                           int numNodes,
+                                                           int repFactor,
+                                                           SerializerDefinition keySerDef,
+                                                           SerializerDefinition valueSerDef,
+                                                           ExecutorService getAllExecutor)
+            throws Exception {
         // create some test data
         Map<String, String> data = createTestData(testSize);
         JsonReader reader = makeTestDataReader(data, baseDir);
@@ -129,7 +158,8 @@ public class ReadOnlyStorageEngineTestInstance {
                                                              1,
                                                              2,
                                                              10000,
-                                                             false);
+                                                             false,
+                                                             format);
         storeBuilder.build();
 
         File nodeDir = TestUtils.createTempDir(baseDir);
@@ -138,6 +168,7 @@ public class ReadOnlyStorageEngineTestInstance {
         @SuppressWarnings("unchecked")
         Serializer<String> valueSerializer = (Serializer<String>) new DefaultSerializerFactory().getSerializer(valueSerDef);
         Map<Integer, Store<String, String>> nodeStores = Maps.newHashMap();
+        Map<Integer, ReadOnlyStorageEngine> nodeEngines = Maps.newHashMap();
         for(int i = 0; i < numNodes; i++) {
             File currNode = new File(nodeDir, Integer.toString(i));
             currNode.mkdirs();
@@ -148,19 +179,25 @@ public class ReadOnlyStorageEngineTestInstance {
             CompressionStrategyFactory comppressionStrategyFactory = new CompressionStrategyFactory();
             CompressionStrategy keyCompressionStrat = comppressionStrategyFactory.get(keySerDef.getCompression());
             CompressionStrategy valueCompressionStrat = comppressionStrategyFactory.get(valueSerDef.getCompression());
-            Store<ByteArray, byte[]> innerStore = new CompressingStore(new ReadOnlyStorageEngine("test",
-                                                                                                 strategy,
-                                                                                                 currNode,
-                                                                                                 1),
+            ReadOnlyStorageEngine engine = new ReadOnlyStorageEngine("test",
+                                                                     strategy,
+                                                                     currNode,
+                                                                     1,
+                                                                     mapDataFiles,
+                                                                     0,
+                                                                     getAllExecutor);
+            Store<ByteArray, byte[]> innerStore = new CompressingStore(engine,
                                                                        keyCompressionStrat,
                                                                        valueCompressionStrat);
 
             nodeStores.put(i, SerializingStore.wrap(innerStore, keySerializer, valueSerializer));
+            nodeEngines.put(i, engine);
         }
 
         return new ReadOnlyStorageEngineTestInstance(data,
                                                      baseDir,
                                                      nodeStores,
+                                                     nodeEngines,
                                                      router,
                                                      keySerializer);
     }
@@ -181,6 +218,10 @@ public class ReadOnlyStorageEngineTestInstance {
         return nodeStores;
     }
 
+    public Map<Integer, ReadOnlyStorageEngine> getNodeEngines() {
+        return nodeEngines;
+    }
+
     public RoutingStrategy getRoutingStrategy() {
         return routingStrategy;
     }
@@ -27,15 +27,21 @@ import voldemort.utils.ByteUtils;
 public class SearchStrategyTest {
 
     private SearchStrategy strategy;
+    private ReadOnlyStorageFormat format;
 
     @Parameters
     public static Collection<Object[]> configs() {
-        return Arrays.asList(new Object[][] { { new BinarySearchStrategy() },
-                { new InterpolationSearchStrategy() } });
+        return Arrays.asList(new Object[][] {
+                { new BinarySearchStrategy(), ReadOnlyStorageFormat.READONLY_V0 },
+                { new InterpolationSearchStrategy(), ReadOnlyStorageFormat.READONLY_V0 },
+                { new BinarySearchStrategy(), ReadOnlyStorageFormat.READONLY_V1 },
+                { new InterpolationSearchStrategy(), ReadOnlyStorageFormat.READONLY_V1 },
+                { new EytzingerSearchStrategy(), ReadOnlyStorageFormat.READONLY_V2 } });
     }
 
-    public SearchStrategyTest(SearchStrategy strategy) {
+    public SearchStrategyTest(SearchStrategy strategy, ReadOnlyStorageFormat format) {
         this.strategy = strategy;
+        this.format = format;
     }
 
     @Test
@@ -101,6 +107,42 @@ public class SearchStrategyTest {
         }
     }
 
+    @Test
+    public void testSparseIndexNarrowing() {
+        if(!format.isSortedIndex())
+            return;
+        Random rand = new Random(2348723);
+        int size = 1000;
+        byte[][] keys = new byte[size][];
+        int[] values = new int[size];
+        for(int i = 0; i < size; i++) {
+            byte[] key = new byte[ReadOnlyUtils.KEY_HASH_SIZE];
+            rand.nextBytes(key);
+            // share some prefixes to exercise samples equal to the key prefix
+            if(i % 10 == 0 && i > 0)
+                System.arraycopy(keys[i - 1], 0, key, 0, 8);
+            values[i] = rand.nextInt(1000000);
+            keys[i] = key;
+        }
+        ByteBuffer index = makeIndex(keys, values);
+        for(int interval: new int[] { 1, 3, 64, 5000 }) {
+            SparseIndex sparse = new SparseIndex(index,
+                                                 index.limit(),
+                                                 format.getIndexEntrySize(),
+                                                 interval);
+            for(int i = 0; i < size; i++) {
+                ByteBuffer range = sparse.narrow(index, keys[i], format.getIndexEntrySize());
+                assertEquals(values[i], strategy.indexOf(range, keys[i], range.limit(), format));
+            }
+            for(int i = 0; i < 10; i++) {
+                byte[] key = new byte[ReadOnlyUtils.KEY_HASH_SIZE];
+                rand.nextBytes(key);
+                ByteBuffer range = sparse.narrow(index, key, format.getIndexEntrySize());
+                assertEquals(-1, strategy.indexOf(range, key, range.limit(), format));
+            }
+        }
+    }
+
     public void print(byte[][] keys, int[] positions) {
         for(int i = 0; i < keys.length; i++) {
             System.out.println(ByteUtils.toHexString(keys[i]) + "\t" + positions[i]);
@@ -129,10 +171,19 @@ public class SearchStrategyTest {
                 return ByteUtils.compare(b1, b2);
             }
         });
-        ByteBuffer buffer = ByteBuffer.allocate(20 * copy.length);
+        ByteBuffer buffer = ByteBuffer.allocate(format.getIndexEntrySize() * copy.length);
         for(int i = 0; i < copy.length; i++) {
             buffer.put(copy[i]);
-            buffer.putInt(m.get(copy[i]));
+            if(format.getPositionSize() == 4)
+                buffer.putInt(m.get(copy[i]));
+            else
+                buffer.putLong(m.get(copy[i]));
+        }
+        if(!format.isSortedIndex()) {
+            ByteBuffer layout = ByteBuffer.allocate(buffer.capacity());
+            buffer.flip();
+            EytzingerSearchStrategy.layout(buffer, layout, format.getIndexEntrySize());
+            return layout;
         }
         return buffer;
     }
@@ -145,7 +196,7 @@ public class SearchStrategyTest {
     }
 
     public void assertKeyFound(ByteBuffer buffer, byte[] key, int expected) {
-        int found = strategy.indexOf(buffer, key, buffer.limit());
+        long found = strategy.indexOf(buffer, key, buffer.limit(), format);
         assertTrue("Failed to find correct key " + key, found != -1);
         assertEquals(expected, found);
     }
@@ -153,7 +204,7 @@ public class SearchStrategyTest {
     public void assertKeysNotFound(ByteBuffer buffer, byte[]... keys) {
         for(byte[] key: keys) {
             assertTrue("Failed to find key " + key,
-                       strategy.indexOf(buffer, key, buffer.limit()) == -1);
+                       strategy.indexOf(buffer, key, buffer.limit(), format) == -1);
         }
     }
 
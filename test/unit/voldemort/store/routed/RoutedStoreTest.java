@@ -26,11 +26,15 @@ import static voldemort.cluster.failuredetector.FailureDetectorUtils.create;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.After;
 import org.junit.Before;
@@ -44,13 +48,17 @@ import voldemort.TestUtils;
 import voldemort.VoldemortException;
 import voldemort.VoldemortTestConstants;
 import voldemort.client.RoutingTier;
+import voldemort.client.protocol.RequestFormatType;
 import voldemort.cluster.Cluster;
 import voldemort.cluster.Node;
 import voldemort.cluster.failuredetector.BannagePeriodFailureDetector;
 import voldemort.cluster.failuredetector.FailureDetector;
 import voldemort.cluster.failuredetector.FailureDetectorConfig;
+import voldemort.routing.RoutingStrategyFactory;
 import voldemort.routing.RoutingStrategyType;
 import voldemort.serialization.SerializerDefinition;
+import voldemort.server.AbstractSocketService;
+import voldemort.server.RequestRoutingType;
 import voldemort.store.AbstractByteArrayStoreTest;
 import voldemort.store.FailingReadsStore;
 import voldemort.store.FailingStore;
@@ -61,11 +69,19 @@ import voldemort.store.StoreDefinition;
 import voldemort.store.StoreDefinitionBuilder;
 import voldemort.store.UnreachableStoreException;
 import voldemort.store.memory.InMemoryStorageEngine;
+import voldemort.store.nonblockingstore.NonblockingStore;
+import voldemort.store.nonblockingstore.NonblockingStoreCallback;
+import voldemort.store.socket.clientrequest.ClientRequestExecutorPool;
 import voldemort.store.stats.StatTrackingStore;
 import voldemort.store.stats.Tracked;
 import voldemort.store.versioned.InconsistencyResolvingStore;
+import voldemort.store.versioned.VersionIncrementingStore;
 import voldemort.utils.ByteArray;
+import voldemort.utils.SystemTime;
 import voldemort.utils.Utils;
+import voldemort.xml.ClusterMapper;
+import voldemort.xml.StoreDefinitionsMapper;
+import voldemort.versioning.ObsoleteVersionException;
 import voldemort.versioning.Occured;
 import voldemort.versioning.VectorClock;
 import voldemort.versioning.VectorClockInconsistencyResolver;
@@ -872,6 +888,467 @@ public class RoutedStoreTest extends AbstractByteArrayStoreTest {
         assertEquals(2, versioneds.size());
     }
 
+    @Test
+    public void testGetCompletesOnRequiredReadsAndRepairsLateResponses() throws Exception {
+        if(!isPipelineRoutedStoreEnabled)
+            return;
+
+        int sleepTimeMs = 500;
+        Versioned<byte[]> versioned = new Versioned<byte[]>(aValue, getClock(1));
+        Store<ByteArray, byte[]> sleepyInnerStore = new InMemoryStorageEngine<ByteArray, byte[]>("test");
+        RoutedStore routedStore = getStoreWithSleepyFirstNode(sleepyInnerStore,
+                                                              versioned,
+                                                              sleepTimeMs,
+                                                              true);
+
+        long start = System.currentTimeMillis();
+        List<Versioned<byte[]>> versioneds = routedStore.get(aKey);
+        long elapsed = System.currentTimeMillis() - start;
+        assertEquals(2, versioneds.size());
+        assertTrue(elapsed + " >= " + sleepTimeMs, elapsed < sleepTimeMs);
+
+        // The late response is read repaired once it arrives
+        for(int i = 0; i < 50 && sleepyInnerStore.get(aKey).isEmpty(); i++)
+            Thread.sleep(sleepTimeMs / 10);
+        assertEquals(Collections.singletonList(versioned), sleepyInnerStore.get(aKey));
+    }
+
+    @Test
+    public void testGetWaitsForPreferredReadsByDefault() throws Exception {
+        if(!isPipelineRoutedStoreEnabled)
+            return;
+
+        int sleepTimeMs = 500;
+        Versioned<byte[]> versioned = new Versioned<byte[]>(aValue, getClock(1));
+        Store<ByteArray, byte[]> sleepyInnerStore = new InMemoryStorageEngine<ByteArray, byte[]>("test");
+        RoutedStore routedStore = getStoreWithSleepyFirstNode(sleepyInnerStore,
+                                                              versioned,
+                                                              sleepTimeMs,
+                                                              false);
+
+        long start = System.currentTimeMillis();
+        List<Versioned<byte[]>> versioneds = routedStore.get(aKey);
+        long elapsed = System.currentTimeMillis() - start;
+        assertEquals(2, versioneds.size());
+        assertTrue(elapsed + " < " + sleepTimeMs, elapsed >= sleepTimeMs);
+    }
+
+    /*
+     * A routed store over a three node cluster, with 3 preferred and 2 required
+     * reads, whose first node sleeps before every request and is missing the
+     * value the other nodes hold
+     */
+    private RoutedStore getStoreWithSleepyFirstNode(Store<ByteArray, byte[]> sleepyInnerStore,
+                                                    Versioned<byte[]> versioned,
+                                                    int sleepTimeMs,
+                                                    boolean readCompleteOnRequired)
+            throws Exception {
+        cluster = VoldemortTestConstants.getThreeNodeCluster();
+        StoreDefinition storeDef = ServerTestUtils.getStoreDef("test",
+                                                               3,
+                                                               3,
+                                                               2,
+                                                               3,
+                                                               2,
+                                                               RoutingStrategyType.CONSISTENT_STRATEGY);
+
+        Map<Integer, Store<ByteArray, byte[]>> subStores = Maps.newHashMap();
+        for(Node node: cluster.getNodes()) {
+            Store<ByteArray, byte[]> store;
+
+            if(subStores.isEmpty()) {
+                store = new SleepyStore<ByteArray, byte[]>(sleepTimeMs, sleepyInnerStore);
+            } else {
+                store = new InMemoryStorageEngine<ByteArray, byte[]>("test");
+                store.put(aKey, versioned);
+            }
+
+            subStores.put(node.getId(), store);
+        }
+
+        setFailureDetector(subStores);
+
+        routedStoreThreadPool = Executors.newFixedThreadPool(cluster.getNumberOfNodes());
+        RoutedStoreFactory routedStoreFactory = new RoutedStoreFactory(isPipelineRoutedStoreEnabled,
+                                                                       routedStoreThreadPool,
+                                                                       null,
+                                                                       10000L,
+                                                                       0,
+                                                                       readCompleteOnRequired);
+
+        return routedStoreFactory.create(cluster, storeDef, subStores, true, failureDetector);
+    }
+
+    @Test
+    public void testHedgedRead() throws Exception {
+        if(!isPipelineRoutedStoreEnabled)
+            return;
+
+        cluster = VoldemortTestConstants.getThreeNodeCluster();
+        StoreDefinition storeDef = ServerTestUtils.getStoreDef("test",
+                                                               3,
+                                                               1,
+                                                               1,
+                                                               3,
+                                                               3,
+                                                               RoutingStrategyType.CONSISTENT_STRATEGY);
+
+        Map<Integer, Store<ByteArray, byte[]>> subStores = Maps.newHashMap();
+        Map<Integer, SleepyStore<ByteArray, byte[]>> sleepyStores = Maps.newHashMap();
+        for(Node node: cluster.getNodes()) {
+            SleepyStore<ByteArray, byte[]> store = new SleepyStore<ByteArray, byte[]>(0,
+                                                                                      new InMemoryStorageEngine<ByteArray, byte[]>("test"));
+            sleepyStores.put(node.getId(), store);
+            subStores.put(node.getId(), store);
+        }
+
+        setFailureDetector(subStores);
+
+        routedStoreThreadPool = Executors.newFixedThreadPool(cluster.getNumberOfNodes());
+        RoutedStoreFactory routedStoreFactory = new RoutedStoreFactory(isPipelineRoutedStoreEnabled,
+                                                                       routedStoreThreadPool,
+                                                                       10000L);
+        Map<Integer, NonblockingStore> nonblockingStores = Maps.newHashMap();
+        for(Map.Entry<Integer, Store<ByteArray, byte[]>> entry: subStores.entrySet())
+            nonblockingStores.put(entry.getKey(),
+                                  routedStoreFactory.toNonblockingStore(entry.getValue()));
+
+        RoutedStore routedStore = new PipelineRoutedStore("test",
+                                                          subStores,
+                                                          nonblockingStores,
+                                                          cluster,
+                                                          storeDef,
+                                                          true,
+                                                          0,
+                                                          10000L,
+                                                          failureDetector,
+                                                          routedStoreThreadPool,
+                                                          null,
+                                                          50);
+
+        routedStore.put(aKey, new Versioned<byte[]>(aValue));
+
+        // Learn the read times before any read is hedged
+        for(int i = 0; i < HedgedReadPolicy.SAMPLES_PER_WINDOW; i++)
+            routedStore.get(aKey);
+
+        int sleepTimeMs = 2000;
+        Node first = new RoutingStrategyFactory().updateRoutingStrategy(storeDef, cluster)
+                                                 .routeRequest(aKey.get())
+                                                 .get(0);
+        sleepyStores.get(first.getId()).setSleepTimeMs(sleepTimeMs);
+
+        long start = System.currentTimeMillis();
+        List<Versioned<byte[]>> versioneds = routedStore.get(aKey);
+        long elapsed = System.currentTimeMillis() - start;
+        assertEquals(1, versioneds.size());
+        assertTrue(Arrays.equals(aValue, versioneds.get(0).getValue()));
+        assertTrue(elapsed + " >= " + sleepTimeMs, elapsed < sleepTimeMs);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testNonblockingOperations() throws Exception {
+        if(!isPipelineRoutedStoreEnabled)
+            return;
+
+        cluster = VoldemortTestConstants.getThreeNodeCluster();
+        StoreDefinition storeDef = ServerTestUtils.getStoreDef("test",
+                                                               3,
+                                                               3,
+                                                               2,
+                                                               3,
+                                                               2,
+                                                               RoutingStrategyType.CONSISTENT_STRATEGY);
+
+        Map<Integer, Store<ByteArray, byte[]>> subStores = Maps.newHashMap();
+        for(Node node: cluster.getNodes()) {
+            if(node.getId() == 0)
+                subStores.put(node.getId(),
+                              new FailingStore<ByteArray, byte[]>("test", new VoldemortException()));
+            else
+                subStores.put(node.getId(), new InMemoryStorageEngine<ByteArray, byte[]>("test"));
+        }
+
+        setFailureDetector(subStores);
+
+        // Many more requests than threads are in flight at once
+        routedStoreThreadPool = Executors.newFixedThreadPool(2);
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+        try {
+            RoutedStoreFactory routedStoreFactory = new RoutedStoreFactory(isPipelineRoutedStoreEnabled,
+                                                                           routedStoreThreadPool,
+                                                                           scheduler,
+                                                                           10000L,
+                                                                           0);
+            NonblockingStore routedStore = (NonblockingStore) routedStoreFactory.create(cluster,
+                                                                                        storeDef,
+                                                                                        subStores,
+                                                                                        true,
+                                                                                        failureDetector);
+
+            ResultCallback put = new ResultCallback();
+            routedStore.submitPutRequest(aKey, new Versioned<byte[]>(aValue), put);
+            assertNull(put.getResult());
+
+            ResultCallback get = new ResultCallback();
+            routedStore.submitGetRequest(aKey, get);
+            // One value from each of the nodes that succeeded
+            List<Versioned<byte[]>> versioneds = (List<Versioned<byte[]>>) get.getResult();
+            assertEquals(2, versioneds.size());
+            assertTrue(Arrays.equals(aValue, versioneds.get(0).getValue()));
+
+            ResultCallback getVersions = new ResultCallback();
+            routedStore.submitGetVersionsRequest(aKey, getVersions);
+            assertEquals(versioneds.get(0).getVersion(),
+                         ((List<Version>) getVersions.getResult()).get(0));
+
+            ResultCallback getAll = new ResultCallback();
+            routedStore.submitGetAllRequest(Arrays.asList(aKey), getAll);
+            Map<ByteArray, List<Versioned<byte[]>>> all = (Map<ByteArray, List<Versioned<byte[]>>>) getAll.getResult();
+            assertTrue(Arrays.equals(aValue, all.get(aKey).get(0).getValue()));
+
+            ResultCallback obsoletePut = new ResultCallback();
+            routedStore.submitPutRequest(aKey, new Versioned<byte[]>(aValue), obsoletePut);
+            assertTrue(obsoletePut.getResult() instanceof ObsoleteVersionException);
+
+            ResultCallback delete = new ResultCallback();
+            routedStore.submitDeleteRequest(aKey, versioneds.get(0).getVersion(), delete);
+            assertEquals(Boolean.TRUE, delete.getResult());
+
+            // The keys mastered by the failing node move on to the next node
+            Map<ByteArray, Versioned<byte[]>> entries = Maps.newHashMap();
+            for(int i = 0; i < 10; i++)
+                entries.put(TestUtils.toByteArray("putAll" + i), new Versioned<byte[]>(aValue));
+
+            ResultCallback putAll = new ResultCallback();
+            routedStore.submitPutAllRequest(entries, putAll);
+            assertEquals(Collections.emptySet(), putAll.getResult());
+            for(ByteArray key: entries.keySet())
+                assertEquals(2, ((Store<ByteArray, byte[]>) routedStore).get(key).size());
+
+            int numRequests = 1000;
+            List<ResultCallback> puts = new ArrayList<ResultCallback>();
+            for(int i = 0; i < numRequests; i++) {
+                ResultCallback callback = new ResultCallback();
+                routedStore.submitPutRequest(TestUtils.toByteArray("key" + i),
+                                             new Versioned<byte[]>(aValue),
+                                             callback);
+                puts.add(callback);
+            }
+
+            for(ResultCallback callback: puts)
+                assertNull(callback.getResult());
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testNonblockingOperationsOverSockets() throws Exception {
+        if(!isPipelineRoutedStoreEnabled)
+            return;
+
+        cluster = ServerTestUtils.getLocalCluster(3);
+        StoreDefinition storeDef = ServerTestUtils.getStoreDef("test",
+                                                               3,
+                                                               3,
+                                                               2,
+                                                               3,
+                                                               2,
+                                                               RoutingStrategyType.CONSISTENT_STRATEGY);
+        String clusterXml = new ClusterMapper().writeCluster(cluster);
+        String storesXml = new StoreDefinitionsMapper().writeStoreList(Arrays.asList(storeDef));
+
+        List<AbstractSocketService> socketServices = new ArrayList<AbstractSocketService>();
+        for(Node node: cluster.getNodes()) {
+            AbstractSocketService socketService = ServerTestUtils.getSocketService(true,
+                                                                                   clusterXml,
+                                                                                   storesXml,
+                                                                                   "test",
+                                                                                   node.getSocketPort());
+            socketService.start();
+            socketServices.add(socketService);
+        }
+
+        // A single selector and connection per node, over a protocol that is
+        // not multiplexed: the requests submitted once others complete must
+        // not wait for a connection on the selector that frees it
+        ClientRequestExecutorPool socketPool = new ClientRequestExecutorPool(1,
+                                                                             1,
+                                                                             5000,
+                                                                             5000,
+                                                                             32 * 1024,
+                                                                             false);
+        routedStoreThreadPool = Executors.newFixedThreadPool(2);
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+        try {
+            Map<Integer, Store<ByteArray, byte[]>> subStores = Maps.newHashMap();
+            for(Node node: cluster.getNodes())
+                subStores.put(node.getId(), socketPool.create("test",
+                                                              node.getHost(),
+                                                              node.getSocketPort(),
+                                                              RequestFormatType.VOLDEMORT_V1,
+                                                              RequestRoutingType.NORMAL));
+
+            setFailureDetector(subStores);
+
+            RoutedStoreFactory routedStoreFactory = new RoutedStoreFactory(isPipelineRoutedStoreEnabled,
+                                                                           routedStoreThreadPool,
+                                                                           scheduler,
+                                                                           10000L,
+                                                                           0);
+            PipelineRoutedStore routedStore = (PipelineRoutedStore) routedStoreFactory.create(cluster,
+                                                                                              storeDef,
+                                                                                              subStores,
+                                                                                              true,
+                                                                                              failureDetector);
+
+            int numRequests = 100;
+            List<ResultCallback> puts = new ArrayList<ResultCallback>();
+            for(int i = 0; i < numRequests; i++) {
+                ResultCallback callback = new ResultCallback();
+                routedStore.submitPutRequest(TestUtils.toByteArray("key" + i),
+                                             new Versioned<byte[]>(aValue),
+                                             callback);
+                puts.add(callback);
+            }
+
+            for(ResultCallback callback: puts)
+                assertNull(callback.getResult());
+
+            // The blind puts fall back to reading the versions of the master,
+            // as the protocol has no blind puts
+            List<ResultCallback> blindPuts = new ArrayList<ResultCallback>();
+            for(int i = 0; i < numRequests; i++) {
+                ResultCallback callback = new ResultCallback();
+                routedStore.submitBlindPutRequest(TestUtils.toByteArray("key" + i),
+                                                  "value2".getBytes(),
+                                                  callback);
+                blindPuts.add(callback);
+            }
+
+            for(ResultCallback callback: blindPuts)
+                assertTrue(callback.getResult() instanceof Version);
+
+            List<ResultCallback> gets = new ArrayList<ResultCallback>();
+            for(int i = 0; i < numRequests; i++) {
+                ResultCallback callback = new ResultCallback();
+                routedStore.submitGetRequest(TestUtils.toByteArray("key" + i), callback);
+                gets.add(callback);
+            }
+
+            for(ResultCallback callback: gets) {
+                // One value from each of the nodes
+                List<Versioned<byte[]>> versioneds = (List<Versioned<byte[]>>) callback.getResult();
+                assertEquals(3, versioneds.size());
+                for(Versioned<byte[]> versioned: versioneds)
+                    assertEquals("value2", new String(versioned.getValue()));
+            }
+
+            // A blocking blind put submits its later requests from the
+            // waiting thread
+            Version version = routedStore.blindPut(aKey, aValue);
+            assertEquals(version, routedStore.get(aKey).get(0).getVersion());
+        } finally {
+            scheduler.shutdown();
+            socketPool.close();
+            for(AbstractSocketService socketService: socketServices)
+                socketService.stop();
+        }
+    }
+
+    @Test
+    public void testBlindPut() throws Exception {
+        if(!isPipelineRoutedStoreEnabled)
+            return;
+
+        cluster = VoldemortTestConstants.getThreeNodeCluster();
+        StoreDefinition storeDef = ServerTestUtils.getStoreDef("test",
+                                                               3,
+                                                               3,
+                                                               2,
+                                                               3,
+                                                               2,
+                                                               RoutingStrategyType.CONSISTENT_STRATEGY);
+
+        routedStoreThreadPool = Executors.newFixedThreadPool(2);
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+        try {
+            // Nodes that version blind puts themselves, then nodes whose
+            // versions are read and incremented by the routed store instead
+            for(boolean isVersionIncrementing: new boolean[] { true, false }) {
+                Map<Integer, Store<ByteArray, byte[]>> subStores = Maps.newHashMap();
+                for(Node node: cluster.getNodes()) {
+                    Store<ByteArray, byte[]> subStore = new InMemoryStorageEngine<ByteArray, byte[]>("test");
+                    if(isVersionIncrementing)
+                        subStore = new VersionIncrementingStore<ByteArray, byte[]>(subStore,
+                                                                                   node.getId(),
+                                                                                   SystemTime.INSTANCE);
+                    subStores.put(node.getId(), subStore);
+                }
+
+                setFailureDetector(subStores);
+
+                RoutedStoreFactory routedStoreFactory = new RoutedStoreFactory(isPipelineRoutedStoreEnabled,
+                                                                               routedStoreThreadPool,
+                                                                               scheduler,
+                                                                               10000L,
+                                                                               0);
+                PipelineRoutedStore routedStore = (PipelineRoutedStore) routedStoreFactory.create(cluster,
+                                                                                                  storeDef,
+                                                                                                  subStores,
+                                                                                                  true,
+                                                                                                  failureDetector);
+
+                Version first = routedStore.blindPut(aKey, aValue);
+
+                ResultCallback blindPut = new ResultCallback();
+                routedStore.submitBlindPutRequest(aKey, "value2".getBytes(), blindPut);
+                Version second = (Version) blindPut.getResult();
+                assertEquals(Occured.AFTER, second.compare(first));
+
+                for(Store<ByteArray, byte[]> subStore: subStores.values()) {
+                    List<Versioned<byte[]>> values = subStore.get(aKey);
+                    assertEquals(1, values.size());
+                    assertEquals("value2", new String(values.get(0).getValue()));
+
+                    // Stores that increment the version of every put also
+                    // increment the version of the master on the replicas
+                    Version version = values.get(0).getVersion();
+                    if(isVersionIncrementing && !version.equals(second))
+                        assertEquals(Occured.AFTER, version.compare(second));
+                    else
+                        assertEquals(second, version);
+                }
+            }
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    private static class ResultCallback implements NonblockingStoreCallback {
+
+        private final CountDownLatch latch = new CountDownLatch(1);
+
+        private volatile Object result;
+
+        public void requestComplete(Object result, long requestTime) {
+            this.result = result;
+            latch.countDown();
+        }
+
+        public Object getResult() throws InterruptedException {
+            assertTrue("Request did not complete", latch.await(10, TimeUnit.SECONDS));
+            return result;
+        }
+
+    }
+
     private void assertOperationalNodes(int expected) {
         int found = 0;
         for(Node n: cluster.getNodes())
@@ -73,12 +73,8 @@ public abstract class AbstractSocketStoreTest extends AbstractByteArrayStoreTest
     public void setUp() throws Exception {
         super.setUp();
         this.socketPort = ServerTestUtils.findFreePort();
-        socketStoreFactory = new ClientRequestExecutorPool(2, 10000, 100000, 32 * 1024);
-        socketService = ServerTestUtils.getSocketService(useNio,
-                                                         VoldemortTestConstants.getOneNodeClusterXml(),
-                                                         VoldemortTestConstants.getSimpleStoreDefinitionsXml(),
-                                                         "test",
-                                                         socketPort);
+        socketStoreFactory = createSocketStoreFactory();
+        socketService = getSocketService(socketPort);
         socketService.start();
         socketStore = ServerTestUtils.getSocketStore(socketStoreFactory,
                                                      "test",
@@ -86,6 +82,30 @@ public abstract class AbstractSocketStoreTest extends AbstractByteArrayStoreTest
                                                      requestFormatType);
     }
 
+    protected SocketStoreFactory createSocketStoreFactory() {
+        return new ClientRequestExecutorPool(2, 10000, 100000, 32 * 1024);
+    }
+
+    protected SocketStoreFactory getSocketStoreFactory() {
+        return socketStoreFactory;
+    }
+
+    protected AbstractSocketService getSocketService() {
+        return socketService;
+    }
+
+    protected int getSocketPort() {
+        return socketPort;
+    }
+
+    protected AbstractSocketService getSocketService(int port) {
+        return ServerTestUtils.getSocketService(useNio,
+                                                VoldemortTestConstants.getOneNodeClusterXml(),
+                                                VoldemortTestConstants.getSimpleStoreDefinitionsXml(),
+                                                "test",
+                                                port);
+    }
+
     @Override
     @After
     public void tearDown() throws Exception {
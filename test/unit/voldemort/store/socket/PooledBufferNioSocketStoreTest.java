@@ -0,0 +1,86 @@
+/*
+ * Copyright 2010 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.socket;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import voldemort.ServerTestUtils;
+import voldemort.TestUtils;
+import voldemort.VoldemortTestConstants;
+import voldemort.client.protocol.RequestFormatType;
+import voldemort.server.AbstractSocketService;
+import voldemort.server.niosocket.NioSocketService;
+import voldemort.store.Store;
+import voldemort.store.socket.clientrequest.ClientRequestExecutorPool;
+import voldemort.utils.ByteArray;
+import voldemort.versioning.Versioned;
+
+/**
+ * Runs the socket store tests with the client and the NIO service taking their
+ * buffers from buffer pools
+ * 
+ * 
+ */
+public class PooledBufferNioSocketStoreTest extends AbstractSocketStoreTest {
+
+    private static final long BUFFER_POOL_SIZE = 16 * 1024 * 1024;
+
+    public PooledBufferNioSocketStoreTest() {
+        super(RequestFormatType.VOLDEMORT_V3, true);
+    }
+
+    @Override
+    protected SocketStoreFactory createSocketStoreFactory() {
+        return new ClientRequestExecutorPool(2, 10, 10000, 100000, 32 * 1024, false, BUFFER_POOL_SIZE);
+    }
+
+    @Override
+    protected AbstractSocketService getSocketService(int port) {
+        return ServerTestUtils.getPooledBufferNioSocketService(VoldemortTestConstants.getOneNodeClusterXml(),
+                                                               VoldemortTestConstants.getSimpleStoreDefinitionsXml(),
+                                                               "test",
+                                                               port,
+                                                               BUFFER_POOL_SIZE);
+    }
+
+    @Test
+    public void testLargeRequestsReuseBuffers() throws Exception {
+        Store<ByteArray, byte[]> store = getStore();
+        ByteArray key = TestUtils.toByteArray("large");
+        for(int i = 0; i < 10; i++) {
+            byte[] value = TestUtils.randomBytes(256 * 1024);
+            Versioned<byte[]> versioned = new Versioned<byte[]>(value);
+            store.put(key, versioned);
+
+            List<Versioned<byte[]>> found = store.get(key);
+            assertEquals(1, found.size());
+            assertTrue(TestUtils.bytesEqual(value, found.get(0).getValue()));
+            assertTrue(store.delete(key, versioned.getVersion()));
+        }
+
+        ClientRequestExecutorPool clientPool = (ClientRequestExecutorPool) getSocketStoreFactory();
+        NioSocketService service = (NioSocketService) getSocketService();
+        assertTrue(clientPool.getBufferPoolHitRatio() > 0);
+        assertTrue(service.getBufferPoolHitRatio() > 0);
+    }
+
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2008-2010 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.socket;
+
+import voldemort.ServerTestUtils;
+import voldemort.VoldemortTestConstants;
+import voldemort.client.protocol.RequestFormatType;
+import voldemort.server.AbstractSocketService;
+
+/**
+ * Runs the socket store tests against an NIO service that handles requests on
+ * worker threads
+ * 
+ * 
+ */
+public class StagedNioSocketStoreTest extends AbstractSocketStoreTest {
+
+    public StagedNioSocketStoreTest() {
+        super(RequestFormatType.VOLDEMORT_V3, true);
+    }
+
+    @Override
+    protected AbstractSocketService getSocketService(int port) {
+        return ServerTestUtils.getStagedNioSocketService(VoldemortTestConstants.getOneNodeClusterXml(),
+                                                         VoldemortTestConstants.getSimpleStoreDefinitionsXml(),
+                                                         "test",
+                                                         port,
+                                                         4);
+    }
+
+}
@@ -1,30 +1,154 @@
 package voldemort.store.socket;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
+import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 import org.junit.runners.Parameterized.Parameters;
 
+import voldemort.TestUtils;
+import voldemort.client.protocol.RequestFormatFactory;
 import voldemort.client.protocol.RequestFormatType;
+import voldemort.server.RequestRoutingType;
+import voldemort.store.socket.clientrequest.BlockingClientRequest;
+import voldemort.store.socket.clientrequest.ClientRequestExecutor;
+import voldemort.store.socket.clientrequest.ClientRequestExecutorPool;
+import voldemort.store.socket.clientrequest.GetClientRequest;
+import voldemort.utils.ByteArray;
+import voldemort.versioning.Occured;
+import voldemort.versioning.VectorClock;
+import voldemort.versioning.Version;
+import voldemort.versioning.Versioned;
 
 /**
  * Voldemort native socket store tests
- * 
- * 
+ *
+ *
  */
 
 @RunWith(Parameterized.class)
 public class VoldemortNativeSocketStoreTest extends AbstractSocketStoreTest {
 
-    public VoldemortNativeSocketStoreTest(boolean useNio) {
-        super(RequestFormatType.VOLDEMORT_V1, useNio);
+    private final RequestFormatType type;
+
+    public VoldemortNativeSocketStoreTest(RequestFormatType type, boolean useNio) {
+        super(type, useNio);
+        this.type = type;
     }
 
     @Parameters
     public static Collection<Object[]> configs() {
-        return Arrays.asList(new Object[][] { { true }, { false } });
+        return Arrays.asList(new Object[][] { { RequestFormatType.VOLDEMORT_V1, true },
+                { RequestFormatType.VOLDEMORT_V1, false },
+                { RequestFormatType.VOLDEMORT_V3, true },
+                { RequestFormatType.VOLDEMORT_V3, false } });
+    }
+
+    @Test
+    public void testManyRequestsInFlightOnOneConnection() throws Exception {
+        if(!type.isMultiplexed())
+            return;
+
+        int numKeys = 50;
+        for(int i = 0; i < numKeys; i++)
+            getStore().put(TestUtils.toByteArray("key" + i),
+                           new Versioned<byte[]>(("value" + i).getBytes()));
+
+        ClientRequestExecutorPool pool = new ClientRequestExecutorPool(1, 10000, 100000, 32 * 1024);
+        SocketDestination destination = new SocketDestination("localhost", getSocketPort(), type);
+
+        try {
+            ClientRequestExecutor executor = pool.checkout(destination);
+            assertTrue(executor.isMultiplexed());
+
+            List<BlockingClientRequest<List<Versioned<byte[]>>>> requests = new ArrayList<BlockingClientRequest<List<Versioned<byte[]>>>>();
+            for(int i = 0; i < numKeys; i++) {
+                GetClientRequest get = new GetClientRequest("test",
+                                                            new RequestFormatFactory().getRequestFormat(type),
+                                                            RequestRoutingType.NORMAL,
+                                                            TestUtils.toByteArray("key" + i));
+                BlockingClientRequest<List<Versioned<byte[]>>> request = new BlockingClientRequest<List<Versioned<byte[]>>>(get);
+                executor.addClientRequest(request);
+                requests.add(request);
+            }
+
+            for(int i = 0; i < numKeys; i++) {
+                requests.get(i).await();
+                List<Versioned<byte[]>> values = requests.get(i).getResult();
+                assertEquals(1, values.size());
+                assertEquals("value" + i, new String(values.get(0).getValue()));
+            }
+
+            pool.checkin(destination, executor);
+            assertEquals(1, pool.getNumberSocketsCreated());
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void testLargeAndSmallValuesInOneResponse() throws Exception {
+        // values from the smallest to ones written in place from the store
+        int[] sizes = { 0, 100, 8 * 1024 - 1, 8 * 1024, 64 * 1024, 1024 * 1024 };
+        List<ByteArray> keys = new ArrayList<ByteArray>();
+        Map<ByteArray, byte[]> expected = new HashMap<ByteArray, byte[]>();
+        for(int size: sizes) {
+            ByteArray key = TestUtils.toByteArray("key" + size);
+            byte[] value = TestUtils.randomBytes(size);
+            getStore().put(key, new Versioned<byte[]>(value));
+            keys.add(key);
+            expected.put(key, value);
+        }
+
+        for(ByteArray key: keys) {
+            List<Versioned<byte[]>> values = getStore().get(key);
+            assertEquals(1, values.size());
+            assertTrue(TestUtils.bytesEqual(expected.get(key), values.get(0).getValue()));
+        }
+
+        Map<ByteArray, List<Versioned<byte[]>>> results = getStore().getAll(keys);
+        assertEquals(keys.size(), results.size());
+        for(ByteArray key: keys)
+            assertTrue(TestUtils.bytesEqual(expected.get(key), results.get(key)
+                                                                      .get(0)
+                                                                      .getValue()));
+    }
+
+    @Test
+    public void testBlindPut() throws Exception {
+        SocketStore store = (SocketStore) getStore();
+        ByteArray key = TestUtils.toByteArray("blind");
+
+        if(!type.hasBlindPut()) {
+            try {
+                store.blindPut(key, "value".getBytes());
+                fail("Blind puts should not be supported by " + type);
+            } catch(UnsupportedOperationException e) {
+                // this is good
+            }
+            return;
+        }
+
+        Version first = store.blindPut(key, "value1".getBytes());
+        VectorClock concurrent = new VectorClock().incremented(1, System.currentTimeMillis());
+        store.put(key, new Versioned<byte[]>("value2".getBytes(), concurrent));
+        assertEquals(2, store.get(key).size());
+
+        // The blind put supersedes both the versions stored for the key
+        Version second = store.blindPut(key, "value3".getBytes());
+        assertEquals(Occured.AFTER, second.compare(first));
+        assertEquals(Occured.AFTER, second.compare(concurrent));
+
+        List<Versioned<byte[]>> values = store.get(key);
+        assertEquals(1, values.size());
+        assertEquals("value3", new String(values.get(0).getValue()));
+        assertEquals(second, values.get(0).getVersion());
     }
 
 }
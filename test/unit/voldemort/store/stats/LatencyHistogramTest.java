@@ -0,0 +1,82 @@
+/*
+ * Copyright 2010 LinkedIn, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.stats;
+
+import junit.framework.TestCase;
+import voldemort.utils.Time;
+
+public class LatencyHistogramTest extends TestCase {
+
+    public void testBucketsAreContiguous() {
+        for(int i = 0; i < LatencyHistogram.NUM_BUCKETS - 1; i++) {
+            long lower = LatencyHistogram.getLowerBound(i);
+            long upper = LatencyHistogram.getUpperBound(i);
+            assertEquals(i, LatencyHistogram.findBucket(lower));
+            assertEquals(i, LatencyHistogram.findBucket(upper));
+            assertEquals(i + 1, LatencyHistogram.findBucket(upper + 1));
+        }
+
+        assertEquals(0, LatencyHistogram.findBucket(-1));
+        assertEquals(LatencyHistogram.NUM_BUCKETS - 1, LatencyHistogram.findBucket(Long.MAX_VALUE));
+    }
+
+    public void testPrecision() {
+        for(long time = 1; time < 1L << 41; time = time * 3 + 1) {
+            long upper = LatencyHistogram.getUpperBound(LatencyHistogram.findBucket(time));
+            assertTrue(upper >= time);
+            assertTrue(upper - time <= time / 16);
+        }
+    }
+
+    public void testQuantiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getQuantile(0.99));
+
+        for(int i = 1; i <= 1000; i++)
+            histogram.insert(i * Time.NS_PER_MS);
+
+        assertEquals(1000, histogram.getCount());
+        assertWithin(500 * Time.NS_PER_MS, histogram.getQuantile(0.5));
+        assertWithin(990 * Time.NS_PER_MS, histogram.getQuantile(0.99));
+        assertWithin(1000 * Time.NS_PER_MS, histogram.getQuantile(1.0));
+
+        LatencyHistogram other = new LatencyHistogram();
+        for(int i = 0; i < 1000; i++)
+            other.insert(2000 * Time.NS_PER_MS);
+
+        assertWithin(2000 * Time.NS_PER_MS, LatencyHistogram.getQuantile(0.75, histogram, other));
+        assertWithin(1000 * Time.NS_PER_MS, LatencyHistogram.getQuantile(0.5, histogram, other));
+    }
+
+    public void testRequestCounterQuantiles() {
+        RequestCounter counter = new RequestCounter(300000);
+
+        for(int i = 1; i <= 100; i++)
+            counter.addRequest(i * Time.NS_PER_MS);
+
+        assertEquals(100, counter.getCount());
+        assertEquals(100, counter.getTotalCount());
+        assertEquals(50.5, counter.getAverageTimeInMs(), 0.001);
+        assertEquals(99, counter.getQuantileInMs(0.99), 99 / 16.0);
+    }
+
+    private void assertWithin(long expected, long actual) {
+        assertTrue(actual >= expected);
+        assertTrue(actual - expected <= expected / 16);
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2010 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.utils;
+
+import java.nio.ByteBuffer;
+
+import junit.framework.TestCase;
+
+public class ByteBufferPoolTest extends TestCase {
+
+    public void testSizeClasses() {
+        ByteBufferPool pool = new ByteBufferPool(1024 * 1024);
+        assertEquals(1024, pool.acquire(1).capacity());
+        assertEquals(1024, pool.acquire(1024).capacity());
+        assertEquals(2048, pool.acquire(1025).capacity());
+        assertEquals(64 * 1024, pool.acquire(40000).capacity());
+        assertTrue(pool.acquire(40000).isDirect());
+
+        // Too large for the pool
+        ByteBuffer large = pool.acquire(32 * 1024 * 1024 + 1);
+        assertEquals(32 * 1024 * 1024 + 1, large.capacity());
+        pool.release(large);
+        assertEquals(0, pool.getPooledBytes());
+        assertEquals(1, pool.getNumDiscarded());
+    }
+
+    public void testReleasedBuffersAreReused() {
+        ByteBufferPool pool = new ByteBufferPool(1024 * 1024);
+        ByteBuffer buffer = pool.acquire(3000);
+        buffer.put((byte) 1);
+        pool.release(buffer);
+        assertEquals(4096, pool.getPooledBytes());
+
+        ByteBuffer reused = pool.acquire(4000);
+        assertSame(buffer, reused);
+        assertEquals(0, reused.position());
+        assertEquals(reused.capacity(), reused.limit());
+        assertEquals(0, pool.getPooledBytes());
+
+        // A buffer of another size class is allocated
+        assertNotSame(buffer, pool.acquire(5000));
+        assertEquals(3, pool.getNumAcquired());
+        assertEquals(1, pool.getNumHits());
+        assertEquals(1.0 / 3, pool.getHitRatio(), 0.0001);
+    }
+
+    public void testPoolIsBounded() {
+        ByteBufferPool pool = new ByteBufferPool(8 * 1024);
+        ByteBuffer first = pool.acquire(4096);
+        ByteBuffer second = pool.acquire(4096);
+        ByteBuffer third = pool.acquire(4096);
+        pool.release(first);
+        pool.release(second);
+        pool.release(third);
+        pool.release(ByteBuffer.allocate(4096));
+
+        assertEquals(8 * 1024, pool.getPooledBytes());
+        assertEquals(2, pool.getNumReleased());
+        assertEquals(2, pool.getNumDiscarded());
+    }
+
+    public void testExpand() {
+        ByteBufferPool pool = new ByteBufferPool(1024 * 1024);
+        ByteBuffer buffer = pool.acquire(1024);
+        for(int i = 0; i < 1000; i++)
+            buffer.put((byte) i);
+
+        ByteBuffer expanded = pool.expand(buffer, 4096);
+        assertEquals(4096, expanded.capacity());
+        assertEquals(1000, expanded.position());
+        for(int i = 0; i < 1000; i++)
+            assertEquals((byte) i, expanded.get(i));
+        assertSame(buffer, pool.acquire(1024));
+    }
+
+}